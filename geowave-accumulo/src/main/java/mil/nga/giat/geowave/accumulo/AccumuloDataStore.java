@@ -1,14 +1,17 @@
 package mil.nga.giat.geowave.accumulo;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import mil.nga.giat.geowave.accumulo.metadata.AccumuloAdapterStore;
@@ -31,7 +34,9 @@ import mil.nga.giat.geowave.store.adapter.statistics.StatsCompositionTool;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
+import mil.nga.giat.geowave.index.QueryRangeCache;
 import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
 import mil.nga.giat.geowave.store.CloseableIterator;
 import mil.nga.giat.geowave.store.DataStore;
 import mil.nga.giat.geowave.store.DataStoreEntryInfo;
@@ -46,13 +51,19 @@ import mil.nga.giat.geowave.store.adapter.MemoryAdapterStore;
 import mil.nga.giat.geowave.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.store.adapter.statistics.TierOccupancyDataStatistics;
 import mil.nga.giat.geowave.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.store.data.visibility.UnconstrainedVisibilityHandler;
 import mil.nga.giat.geowave.store.data.visibility.UniformVisibilityWriter;
+import mil.nga.giat.geowave.store.filter.BloomFilterVisitedDataIds;
+import mil.nga.giat.geowave.store.filter.MemoryVisitedDataIds;
 import mil.nga.giat.geowave.store.filter.MultiIndexDedupeFilter;
+import mil.nga.giat.geowave.store.filter.SpillingVisitedDataIds;
+import mil.nga.giat.geowave.store.filter.VisitedDataIds;
 import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.store.index.IndexStore;
 import mil.nga.giat.geowave.store.query.Query;
+import mil.nga.giat.geowave.store.query.SpatialQuery;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -94,6 +105,7 @@ public class AccumuloDataStore implements
 	protected final DataStatisticsStore statisticsStore;
 	protected final AccumuloOperations accumuloOperations;
 	protected final AccumuloOptions accumuloOptions;
+	protected final QueryRangeCache queryRangeCache;
 
 	public AccumuloDataStore(
 			final AccumuloOperations accumuloOperations ) {
@@ -145,6 +157,22 @@ public class AccumuloDataStore implements
 		this.statisticsStore = statisticsStore;
 		this.accumuloOperations = accumuloOperations;
 		this.accumuloOptions = accumuloOptions;
+		if (accumuloOptions.getQueryRangeCacheSize() > 0) {
+			queryRangeCache = new QueryRangeCache(
+					accumuloOptions.getQueryRangeCacheSize());
+		}
+		else {
+			queryRangeCache = null;
+		}
+	}
+
+	/**
+	 * 
+	 * @return the cache of query range decompositions used by this data store,
+	 *         or null if caching is disabled
+	 */
+	public QueryRangeCache getQueryRangeCache() {
+		return queryRangeCache;
 	}
 
 	@Override
@@ -232,7 +260,9 @@ public class AccumuloDataStore implements
 				}
 			}
 
-			statisticsTool = getStatsCompositionTool(writableAdapter);
+			statisticsTool = getStatsCompositionTool(
+					writableAdapter,
+					index);
 
 			writer = accumuloOperations.createWriter(
 					indexName,
@@ -458,7 +488,9 @@ public class AccumuloDataStore implements
 						altIdxWriter,
 						dataWriter));
 			}
-			final StatsCompositionTool<T> statsCompositionTool = this.getStatsCompositionTool(dataWriter);
+			final StatsCompositionTool<T> statsCompositionTool = this.getStatsCompositionTool(
+					dataWriter,
+					index);
 			callbacks.add(statsCompositionTool);
 
 			if (ingestCallback != null) {
@@ -997,6 +1029,7 @@ public class AccumuloDataStore implements
 					indices,
 					adapterStore,
 					limit,
+					null,
 					scanCallback,
 					authorizations);
 		}
@@ -1020,6 +1053,7 @@ public class AccumuloDataStore implements
 			final CloseableIterator<Index> indices,
 			final AdapterStore adapterStore,
 			final Integer limit,
+			final Set<ByteArrayId> fieldIds,
 			final ScanCallback<?> scanCallback,
 			final String... authorizations ) {
 		// query the indices that are supported for this query object, and these
@@ -1029,7 +1063,8 @@ public class AccumuloDataStore implements
 		// all queries will use the same instance of the dedupe filter for
 		// client side filtering because the filter needs to be applied across
 		// indices
-		final MultiIndexDedupeFilter clientDedupeFilter = new MultiIndexDedupeFilter();
+		final MultiIndexDedupeFilter clientDedupeFilter = new MultiIndexDedupeFilter(
+				createVisitedDataIds());
 		while (indices.hasNext()) {
 			final Index index = indices.next();
 			final AccumuloConstraintsQuery accumuloQuery;
@@ -1055,6 +1090,26 @@ public class AccumuloDataStore implements
 			else {
 				continue;
 			}
+			accumuloQuery.setQueryRangeCache(queryRangeCache);
+			accumuloQuery.setFieldIds(fieldIds);
+			accumuloQuery.setQueryPlanningTimeBudgetMillis(accumuloOptions.getQueryPlanningTimeBudgetMillis());
+			if (accumuloOptions.isUseTierOccupancy()) {
+				accumuloQuery.setOccupiedTierIds(getOccupiedTierIds(
+						index,
+						adapterIds,
+						adapterStore,
+						authorizations));
+			}
+			if (query instanceof SpatialQuery) {
+				if (accumuloOptions.isUseQueryRegion()) {
+					accumuloQuery.setQueryRegion(((SpatialQuery) query).getQueryRegion(index.getIndexStrategy()));
+				}
+				if (accumuloOptions.isUseConstraintsPerGeometry()) {
+					// each part of a multi-part geometry only needs the
+					// bounding box of the part to be scanned
+					accumuloQuery.setConstraintsPerRegion(((SpatialQuery) query).getIndexConstraintsPerGeometry(index.getIndexStrategy()));
+				}
+			}
 			results.add(accumuloQuery.query(
 					accumuloOperations,
 					adapterStore,
@@ -1075,11 +1130,25 @@ public class AccumuloDataStore implements
 						for (final CloseableIterator<?> result : results) {
 							result.close();
 						}
+						clientDedupeFilter.close();
 					}
 				},
 				Iterators.concat(results.iterator()));
 	}
 
+	private VisitedDataIds createVisitedDataIds() {
+		if (accumuloOptions.getDedupeSpillDirectory() != null) {
+			return new SpillingVisitedDataIds(
+					new File(
+							accumuloOptions.getDedupeSpillDirectory()),
+					accumuloOptions.getDedupeMaxInMemoryIds());
+		}
+		if (accumuloOptions.isUseBoundedDedupe()) {
+			return new BloomFilterVisitedDataIds();
+		}
+		return new MemoryVisitedDataIds();
+	}
+
 	@Override
 	public CloseableIterator<?> query(
 			final Query query ) {
@@ -1138,6 +1207,7 @@ public class AccumuloDataStore implements
 								}).iterator()),
 				adapterStore,
 				limit,
+				null,
 				null);
 	}
 
@@ -1168,6 +1238,24 @@ public class AccumuloDataStore implements
 				null);
 	}
 
+	@Override
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query,
+			final Integer limit,
+			final ScanCallback<?> scanCallback,
+			final String... authorizations ) {
+		return query(
+				adapter,
+				index,
+				query,
+				limit,
+				null,
+				scanCallback,
+				authorizations);
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> CloseableIterator<T> query(
@@ -1175,6 +1263,7 @@ public class AccumuloDataStore implements
 			final Index index,
 			final Query query,
 			final Integer limit,
+			final Set<ByteArrayId> fieldIds,
 			final ScanCallback<?> scanCallback,
 			final String... authorizations ) {
 		if ((query != null) && !query.isSupported(index)) {
@@ -1198,6 +1287,7 @@ public class AccumuloDataStore implements
 							adapter
 						}),
 				limit,
+				fieldIds,
 				scanCallback,
 				authorizations);
 	}
@@ -1238,6 +1328,62 @@ public class AccumuloDataStore implements
 				accumuloOptions.isPersistDataStatistics() ? statisticsStore : null);
 	}
 
+	private <T> StatsCompositionTool<T> getStatsCompositionTool(
+			final DataAdapter<T> adapter,
+			final Index index ) {
+		return new StatsCompositionTool<T>(
+				adapter,
+				accumuloOptions.isPersistDataStatistics() ? statisticsStore : null,
+				index);
+	}
+
+	/**
+	 * Get the tiers of the index that contain data for any of the given
+	 * adapters
+	 * 
+	 * @return the occupied tier IDs, or null if the index is not tiered or the
+	 *         occupancy is not known for every adapter
+	 */
+	private Set<Byte> getOccupiedTierIds(
+			final Index index,
+			final List<ByteArrayId> adapterIds,
+			final AdapterStore adapterStore,
+			final String... authorizations ) {
+		if (!(index.getIndexStrategy() instanceof TieredSFCIndexStrategy)) {
+			return null;
+		}
+		final List<ByteArrayId> queriedAdapterIds = new ArrayList<ByteArrayId>();
+		if ((adapterIds != null) && !adapterIds.isEmpty()) {
+			queriedAdapterIds.addAll(adapterIds);
+		}
+		else {
+			try (CloseableIterator<DataAdapter<?>> adapters = adapterStore.getAdapters()) {
+				while (adapters.hasNext()) {
+					queriedAdapterIds.add(adapters.next().getAdapterId());
+				}
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close adapter iterator",
+						e);
+			}
+		}
+		final ByteArrayId statisticsId = TierOccupancyDataStatistics.composeId(index.getId());
+		final Set<Byte> occupiedTierIds = new HashSet<Byte>();
+		for (final ByteArrayId adapterId : queriedAdapterIds) {
+			final DataStatistics<?> stats = statisticsStore.getDataStatistics(
+					adapterId,
+					statisticsId,
+					authorizations);
+			if (!(stats instanceof TierOccupancyDataStatistics)) {
+				// without occupancy for every adapter no tier can be skipped
+				return null;
+			}
+			occupiedTierIds.addAll(((TierOccupancyDataStatistics<?>) stats).getOccupiedTierIds());
+		}
+		return occupiedTierIds;
+	}
+
 	private <T> void synchronizeStatsWithStore(
 			StatsCompositionTool<T> compositionTool,
 			boolean commitStats ) {
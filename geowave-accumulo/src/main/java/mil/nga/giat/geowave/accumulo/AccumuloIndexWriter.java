@@ -12,6 +12,7 @@ import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
 import mil.nga.giat.geowave.accumulo.util.DataAdapterAndIndexCache;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
 import mil.nga.giat.geowave.store.IndexWriter;
 import mil.nga.giat.geowave.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.store.adapter.IndexDependentDataAdapter;
@@ -20,6 +21,7 @@ import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsBuilder;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.store.adapter.statistics.StatisticalDataAdapter;
+import mil.nga.giat.geowave.store.adapter.statistics.TierOccupancyDataStatistics;
 import mil.nga.giat.geowave.store.index.Index;
 
 import org.apache.accumulo.core.client.AccumuloException;
@@ -50,6 +52,9 @@ public class AccumuloIndexWriter implements
 
 	protected boolean persistStats;
 	protected final Map<ByteArrayId, List<DataStatisticsBuilder>> statsMap = new HashMap<ByteArrayId, List<DataStatisticsBuilder>>();
+	// tier occupancy only depends on the row IDs of an entry, so the entries
+	// of every adapter can be counted regardless of their type
+	protected final Map<ByteArrayId, TierOccupancyDataStatistics<Object>> tierOccupancyMap = new HashMap<ByteArrayId, TierOccupancyDataStatistics<Object>>();
 
 	public AccumuloIndexWriter(
 			final Index index,
@@ -249,6 +254,20 @@ public class AccumuloIndexWriter implements
 								entry);
 					}
 				}
+				if (index.getIndexStrategy() instanceof TieredSFCIndexStrategy) {
+					TierOccupancyDataStatistics<Object> tierOccupancy = tierOccupancyMap.get(adapterIdObj);
+					if (tierOccupancy == null) {
+						tierOccupancy = new TierOccupancyDataStatistics<Object>(
+								adapterIdObj,
+								index.getId());
+						tierOccupancyMap.put(
+								adapterIdObj,
+								tierOccupancy);
+					}
+					tierOccupancy.entryIngested(
+							entryInfo,
+							entry);
+				}
 			}
 		}
 		return entryInfo.getRowIds();
@@ -273,6 +292,7 @@ public class AccumuloIndexWriter implements
 						}
 					}
 				}
+				accumulatedStats.addAll(tierOccupancyMap.values());
 			}
 			if (!accumulatedStats.isEmpty()) {
 				final DataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
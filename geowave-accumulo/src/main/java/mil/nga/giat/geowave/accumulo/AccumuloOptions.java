@@ -1,5 +1,7 @@
 package mil.nga.giat.geowave.accumulo;
 
+import mil.nga.giat.geowave.store.filter.SpillingVisitedDataIds;
+
 /**
  * This class can be used to modify the behavior of the Accumulo Data Store.
  * 
@@ -12,6 +14,14 @@ public class AccumuloOptions
 	protected boolean createTable = true;
 	protected boolean useLocalityGroups = true;
 	protected boolean useAltIndex = true;
+	protected int queryRangeCacheSize = 0;
+	protected boolean useTierOccupancy = false;
+	protected boolean useQueryRegion = false;
+	protected boolean useConstraintsPerGeometry = false;
+	protected long queryPlanningTimeBudgetMillis = 0;
+	protected boolean useBoundedDedupe = false;
+	protected int dedupeMaxInMemoryIds = SpillingVisitedDataIds.DEFAULT_MAX_IN_MEMORY_IDS;
+	protected String dedupeSpillDirectory = null;
 
 	public boolean isPersistDataStatistics() {
 		return persistDataStatistics;
@@ -66,4 +76,154 @@ public class AccumuloOptions
 			final boolean useAltIndex ) {
 		this.useAltIndex = useAltIndex;
 	}
+
+	public int getQueryRangeCacheSize() {
+		return queryRangeCacheSize;
+	}
+
+	/**
+	 * Set the maximum number of query range decompositions to cache, a size of
+	 * 0 or less disables caching
+	 * 
+	 * @param queryRangeCacheSize
+	 *            the maximum number of cached query range decompositions
+	 */
+	public void setQueryRangeCacheSize(
+			final int queryRangeCacheSize ) {
+		this.queryRangeCacheSize = queryRangeCacheSize;
+	}
+
+	public boolean isUseTierOccupancy() {
+		return useTierOccupancy;
+	}
+
+	/**
+	 * Use the tier occupancy statistics that are maintained on ingest to only
+	 * query the tiers of an index that contain data. This should only be
+	 * enabled if all of the data in the store was ingested with data statistics
+	 * persisted, otherwise tiers that contain data may be skipped.
+	 * 
+	 * @param useTierOccupancy
+	 *            whether to skip tiers that are not known to contain data
+	 */
+	public void setUseTierOccupancy(
+			final boolean useTierOccupancy ) {
+		this.useTierOccupancy = useTierOccupancy;
+	}
+
+	public boolean isUseQueryRegion() {
+		return useQueryRegion;
+	}
+
+	/**
+	 * Decompose spatial queries using the query geometry rather than only its
+	 * bounding box, so that the cells of the index that are within the bounding
+	 * box but outside of the geometry are not scanned. This is most effective
+	 * for long diagonal or irregular geometries. This is disabled by default
+	 * because relating each cell to the geometry adds to the time it takes to
+	 * plan a query, and the query range cache is not used for these queries.
+	 * 
+	 * @param useQueryRegion
+	 *            whether to prune the cells that are outside of the query
+	 *            geometry
+	 */
+	public void setUseQueryRegion(
+			final boolean useQueryRegion ) {
+		this.useQueryRegion = useQueryRegion;
+	}
+
+	public boolean isUseConstraintsPerGeometry() {
+		return useConstraintsPerGeometry;
+	}
+
+	/**
+	 * Decompose each part of a multi-part spatial query geometry, such as a set
+	 * of boxes along a route, using the bounding box of the part rather than
+	 * the bounding box of the whole geometry. This is disabled by default
+	 * because the query ranges are decomposed once per part, so the time it
+	 * takes to plan a query grows with the number of parts.
+	 * 
+	 * @param useConstraintsPerGeometry
+	 *            whether to constrain the index to the bounding box of each
+	 *            part of the query geometry
+	 */
+	public void setUseConstraintsPerGeometry(
+			final boolean useConstraintsPerGeometry ) {
+		this.useConstraintsPerGeometry = useConstraintsPerGeometry;
+	}
+
+	public long getQueryPlanningTimeBudgetMillis() {
+		return queryPlanningTimeBudgetMillis;
+	}
+
+	/**
+	 * Set the time, in milliseconds, that decomposing a query into ranges may
+	 * take before the ranges that have not been refined yet are scanned as is.
+	 * This bounds the latency before the first row of a large or irregular
+	 * query is fetched at the expense of scanning rows outside of the query. A
+	 * budget of 0 or less refines the ranges to completion.
+	 * 
+	 * @param queryPlanningTimeBudgetMillis
+	 *            the maximum time to spend refining the ranges of a query
+	 */
+	public void setQueryPlanningTimeBudgetMillis(
+			final long queryPlanningTimeBudgetMillis ) {
+		this.queryPlanningTimeBudgetMillis = queryPlanningTimeBudgetMillis;
+	}
+
+	public boolean isUseBoundedDedupe() {
+		return useBoundedDedupe;
+	}
+
+	/**
+	 * Deduplicate query results using a scalable Bloom filter for the entries
+	 * that are not duplicated within an index and only keep the IDs of the
+	 * entries that are duplicated within an index exactly, so that the memory
+	 * used for deduplication stays small. When a query spans multiple indices
+	 * an entry is dropped at the small false positive rate of the Bloom filter,
+	 * set a dedupe spill directory instead if results must be exact.
+	 * 
+	 * @param useBoundedDedupe
+	 *            whether to deduplicate using a Bloom filter
+	 */
+	public void setUseBoundedDedupe(
+			final boolean useBoundedDedupe ) {
+		this.useBoundedDedupe = useBoundedDedupe;
+	}
+
+	public int getDedupeMaxInMemoryIds() {
+		return dedupeMaxInMemoryIds;
+	}
+
+	/**
+	 * Set the number of IDs to keep in memory for deduplication before they are
+	 * spilled to the dedupe spill directory. This has no effect unless a spill
+	 * directory is set.
+	 * 
+	 * @param dedupeMaxInMemoryIds
+	 *            the maximum number of IDs to keep in memory
+	 */
+	public void setDedupeMaxInMemoryIds(
+			final int dedupeMaxInMemoryIds ) {
+		this.dedupeMaxInMemoryIds = dedupeMaxInMemoryIds;
+	}
+
+	public String getDedupeSpillDirectory() {
+		return dedupeSpillDirectory;
+	}
+
+	/**
+	 * Set a local directory to spill the IDs that are visited for deduplication
+	 * to once there are more than the max in-memory IDs. This keeps
+	 * deduplication exact while bounding the heap that large queries use, and
+	 * takes precedence over bounded dedupe.
+	 * 
+	 * @param dedupeSpillDirectory
+	 *            the directory to write sorted ID files to, or null to keep all
+	 *            IDs in memory
+	 */
+	public void setDedupeSpillDirectory(
+			final String dedupeSpillDirectory ) {
+		this.dedupeSpillDirectory = dedupeSpillDirectory;
+	}
 }
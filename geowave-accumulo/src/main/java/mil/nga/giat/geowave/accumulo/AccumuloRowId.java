@@ -1,11 +1,13 @@
 package mil.nga.giat.geowave.accumulo;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import mil.nga.giat.geowave.index.ByteArrayId;
+
 import org.apache.accumulo.core.data.Key;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
 /**
  * This class encapsulates the elements that compose the row ID in Accumulo, and
  * can serialize and deserialize the individual elements to/from the row ID. The
@@ -19,41 +21,64 @@ import org.apache.accumulo.core.data.Key;
 @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "private class only accessed internally")
 public class AccumuloRowId
 {
-	private final byte[] insertionId;
-	private final byte[] dataId;
-	private final byte[] adapterId;
+	private final ByteArrayId insertionId;
+	private final ByteArrayId dataId;
+	private final ByteArrayId adapterId;
 	private final int numberOfDuplicates;
 
 	public AccumuloRowId(
 			final Key key ) {
 		this(
-				key.getRow().copyBytes());
+				key.getRowData().getBackingArray(),
+				key.getRowData().offset(),
+				key.getRowData().length());
 	}
 
 	public AccumuloRowId(
 			final byte[] accumuloRowId ) {
-		final byte[] metadata = Arrays.copyOfRange(
+		this(
 				accumuloRowId,
-				accumuloRowId.length - 12,
+				0,
 				accumuloRowId.length);
-		final ByteBuffer metadataBuf = ByteBuffer.wrap(metadata);
+	}
+
+	/**
+	 * Parse the elements of a row ID, which are kept as slices of the row ID
+	 * rather than being copied out of it, so the row ID should not be modified
+	 * while this is in use
+	 * 
+	 * @param backingArray
+	 *            the array containing the row ID
+	 * @param offset
+	 *            the index of the first byte of the row ID
+	 * @param length
+	 *            the number of bytes in the row ID
+	 */
+	public AccumuloRowId(
+			final byte[] backingArray,
+			final int offset,
+			final int length ) {
+		final ByteBuffer metadataBuf = ByteBuffer.wrap(
+				backingArray,
+				(offset + length) - 12,
+				12);
 		final int adapterIdLength = metadataBuf.getInt();
 		final int dataIdLength = metadataBuf.getInt();
 		final int numberOfDuplicates = metadataBuf.getInt();
 
-		final ByteBuffer buf = ByteBuffer.wrap(
-				accumuloRowId,
-				0,
-				accumuloRowId.length - 12);
-		final byte[] insertionId = new byte[accumuloRowId.length - 12 - adapterIdLength - dataIdLength];
-		final byte[] adapterId = new byte[adapterIdLength];
-		final byte[] dataId = new byte[dataIdLength];
-		buf.get(insertionId);
-		buf.get(adapterId);
-		buf.get(dataId);
-		this.insertionId = insertionId;
-		this.dataId = dataId;
-		this.adapterId = adapterId;
+		final int insertionIdLength = length - 12 - adapterIdLength - dataIdLength;
+		insertionId = new ByteArrayId(
+				backingArray,
+				offset,
+				insertionIdLength);
+		adapterId = new ByteArrayId(
+				backingArray,
+				offset + insertionIdLength,
+				adapterIdLength);
+		dataId = new ByteArrayId(
+				backingArray,
+				offset + insertionIdLength + adapterIdLength,
+				dataIdLength);
 		this.numberOfDuplicates = numberOfDuplicates;
 	}
 
@@ -62,6 +87,21 @@ public class AccumuloRowId
 			final byte[] dataId,
 			final byte[] adapterId,
 			final int numberOfDuplicates ) {
+		this(
+				new ByteArrayId(
+						indexId),
+				new ByteArrayId(
+						dataId),
+				new ByteArrayId(
+						adapterId),
+				numberOfDuplicates);
+	}
+
+	public AccumuloRowId(
+			final ByteArrayId indexId,
+			final ByteArrayId dataId,
+			final ByteArrayId adapterId,
+			final int numberOfDuplicates ) {
 		this.insertionId = indexId;
 		this.dataId = dataId;
 		this.adapterId = adapterId;
@@ -69,25 +109,64 @@ public class AccumuloRowId
 	}
 
 	public byte[] getRowId() {
-		final ByteBuffer buf = ByteBuffer.allocate(12 + dataId.length + adapterId.length + insertionId.length);
-		buf.put(insertionId);
-		buf.put(adapterId);
-		buf.put(dataId);
-		buf.putInt(adapterId.length);
-		buf.putInt(dataId.length);
+		final ByteBuffer buf = ByteBuffer.allocate(12 + dataId.getLength() + adapterId.getLength() + insertionId.getLength());
+		put(
+				buf,
+				insertionId);
+		put(
+				buf,
+				adapterId);
+		put(
+				buf,
+				dataId);
+		buf.putInt(adapterId.getLength());
+		buf.putInt(dataId.getLength());
 		buf.putInt(numberOfDuplicates);
 		return buf.array();
 	}
 
+	private static void put(
+			final ByteBuffer buf,
+			final ByteArrayId id ) {
+		buf.put(
+				id.getBackingArray(),
+				id.getOffset(),
+				id.getLength());
+	}
+
 	public byte[] getInsertionId() {
-		return insertionId;
+		return insertionId.getBytes();
 	}
 
 	public byte[] getDataId() {
-		return dataId;
+		return dataId.getBytes();
 	}
 
 	public byte[] getAdapterId() {
+		return adapterId.getBytes();
+	}
+
+	/**
+	 * 
+	 * @return the insertion ID without copying it out of the row ID
+	 */
+	public ByteArrayId getInsertionIdSlice() {
+		return insertionId;
+	}
+
+	/**
+	 * 
+	 * @return the data ID without copying it out of the row ID
+	 */
+	public ByteArrayId getDataIdSlice() {
+		return dataId;
+	}
+
+	/**
+	 * 
+	 * @return the adapter ID without copying it out of the row ID
+	 */
+	public ByteArrayId getAdapterIdSlice() {
 		return adapterId;
 	}
 
@@ -2,13 +2,19 @@ package mil.nga.giat.geowave.accumulo.query;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import mil.nga.giat.geowave.accumulo.util.AccumuloUtils;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.QueryRangeCache;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
 import mil.nga.giat.geowave.store.ScanCallback;
 import mil.nga.giat.geowave.store.filter.DedupeFilter;
 import mil.nga.giat.geowave.store.filter.DistributableFilterList;
@@ -20,6 +26,7 @@ import mil.nga.giat.geowave.store.query.Query;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.log4j.Logger;
 
 /**
  * This class represents basic numeric contraints applied to an Accumulo Query
@@ -28,10 +35,16 @@ import org.apache.accumulo.core.iterators.user.WholeRowIterator;
 public class AccumuloConstraintsQuery extends
 		AccumuloFilteredIndexQuery
 {
+	private final static Logger LOGGER = Logger.getLogger(AccumuloConstraintsQuery.class);
 	private static final int MAX_RANGE_DECOMPOSITION = 5000;
 	protected final MultiDimensionalNumericData constraints;
 	protected final List<DistributableQueryFilter> distributableFilters;
 	protected boolean queryFiltersEnabled;
+	protected QueryRangeCache queryRangeCache;
+	protected Set<Byte> occupiedTierIds;
+	protected QueryRegion queryRegion;
+	protected List<MultiDimensionalNumericData> constraintsPerRegion;
+	protected long queryPlanningTimeBudgetMillis = 0;
 
 	public AccumuloConstraintsQuery(
 			final Index index,
@@ -189,12 +202,80 @@ public class AccumuloConstraintsQuery extends
 
 	@Override
 	protected List<ByteArrayRange> getRanges() {
+		if ((constraints != null) && !constraints.isEmpty()) {
+			final NumericIndexStrategy indexStrategy = index.getIndexStrategy();
+			final boolean multipleRegions = (constraintsPerRegion != null) && (constraintsPerRegion.size() > 1);
+			if (indexStrategy instanceof TieredSFCIndexStrategy) {
+				if (multipleRegions || (queryRegion != null) || (queryPlanningTimeBudgetMillis > 0)) {
+					// the cache is keyed on a single set of constraints alone
+					// so it cannot be used for decompositions of several
+					// regions, decompositions that depend on the shape of the
+					// query, or decompositions that may be cut short
+					return getRanges(
+							(TieredSFCIndexStrategy) indexStrategy,
+							multipleRegions);
+				}
+				if (occupiedTierIds != null) {
+					if (queryRangeCache != null) {
+						return queryRangeCache.getQueryRanges(
+								(TieredSFCIndexStrategy) indexStrategy,
+								constraints,
+								MAX_RANGE_DECOMPOSITION,
+								occupiedTierIds);
+					}
+					return ((TieredSFCIndexStrategy) indexStrategy).getQueryRanges(
+							constraints,
+							MAX_RANGE_DECOMPOSITION,
+							occupiedTierIds);
+				}
+			}
+			else if (multipleRegions) {
+				return indexStrategy.getQueryRanges(
+						constraintsPerRegion,
+						MAX_RANGE_DECOMPOSITION);
+			}
+			if (queryRangeCache != null) {
+				return queryRangeCache.getQueryRanges(
+						indexStrategy,
+						constraints,
+						MAX_RANGE_DECOMPOSITION);
+			}
+		}
 		return AccumuloUtils.constraintsToByteArrayRanges(
 				constraints,
 				index.getIndexStrategy(),
 				MAX_RANGE_DECOMPOSITION);
 	}
 
+	private List<ByteArrayRange> getRanges(
+			final TieredSFCIndexStrategy indexStrategy,
+			final boolean multipleRegions ) {
+		final DecompositionDeadline deadline = (queryPlanningTimeBudgetMillis > 0) ? new DecompositionDeadline(
+				queryPlanningTimeBudgetMillis) : null;
+		final List<ByteArrayRange> ranges;
+		if (multipleRegions) {
+			// the regions are decomposed together into a single list of ranges
+			ranges = indexStrategy.getQueryRanges(
+					constraintsPerRegion,
+					MAX_RANGE_DECOMPOSITION,
+					occupiedTierIds,
+					queryRegion,
+					deadline);
+		}
+		else {
+			ranges = indexStrategy.getQueryRanges(
+					constraints,
+					MAX_RANGE_DECOMPOSITION,
+					occupiedTierIds,
+					queryRegion,
+					deadline);
+		}
+		if ((deadline != null) && deadline.isTruncated()) {
+			LOGGER.debug("Query planning exceeded " + queryPlanningTimeBudgetMillis + "ms, " + deadline.getTruncatedCellCount() + " cells spanning " + deadline.getTruncatedIdCount() + " IDs were not refined");
+		}
+		return ranges;
+	}
+
 	public boolean isQueryFiltersEnabled() {
 		return queryFiltersEnabled;
 	}
@@ -204,6 +285,93 @@ public class AccumuloConstraintsQuery extends
 		this.queryFiltersEnabled = queryFiltersEnabled;
 	}
 
+	public QueryRangeCache getQueryRangeCache() {
+		return queryRangeCache;
+	}
+
+	/**
+	 * Use the given cache to look up and store the query range decomposition, a
+	 * null cache will always decompose the constraints
+	 * 
+	 * @param queryRangeCache
+	 *            the cache of query range decompositions
+	 */
+	public void setQueryRangeCache(
+			final QueryRangeCache queryRangeCache ) {
+		this.queryRangeCache = queryRangeCache;
+	}
+
+	public Set<Byte> getOccupiedTierIds() {
+		return occupiedTierIds;
+	}
+
+	/**
+	 * Only query the given tiers if the index uses a tiered strategy, a null
+	 * set will query every tier
+	 * 
+	 * @param occupiedTierIds
+	 *            the tier IDs that are known to contain data
+	 */
+	public void setOccupiedTierIds(
+			final Set<Byte> occupiedTierIds ) {
+		this.occupiedTierIds = occupiedTierIds;
+	}
+
+	public QueryRegion getQueryRegion() {
+		return queryRegion;
+	}
+
+	/**
+	 * Only query the cells of the index that intersect the given region if the
+	 * index uses a tiered strategy, a null region will query every cell within
+	 * the constraints
+	 * 
+	 * @param queryRegion
+	 *            the shape of the query within its constraints
+	 */
+	public void setQueryRegion(
+			final QueryRegion queryRegion ) {
+		this.queryRegion = queryRegion;
+	}
+
+	public List<MultiDimensionalNumericData> getConstraintsPerRegion() {
+		return constraintsPerRegion;
+	}
+
+	/**
+	 * Query the union of the given constraints rather than the constraints of
+	 * the query as a whole, such as the bounding box of each part of a
+	 * multi-part geometry, with a single sorted list of ranges. The constraints
+	 * of each region must be within the constraints of the query.
+	 * 
+	 * @param constraintsPerRegion
+	 *            the constraints of each region, or null to query the
+	 *            constraints of the query as a whole
+	 */
+	public void setConstraintsPerRegion(
+			final List<MultiDimensionalNumericData> constraintsPerRegion ) {
+		this.constraintsPerRegion = constraintsPerRegion;
+	}
+
+	public long getQueryPlanningTimeBudgetMillis() {
+		return queryPlanningTimeBudgetMillis;
+	}
+
+	/**
+	 * Limit the time spent decomposing the query into ranges, after which the
+	 * ranges that have not been refined yet are scanned as is. Rows outside of
+	 * the query are still filtered, so this only trades scanning more rows for
+	 * fetching the first row sooner.
+	 * 
+	 * @param queryPlanningTimeBudgetMillis
+	 *            the maximum time to spend refining the ranges, or 0 or less to
+	 *            refine the ranges to completion
+	 */
+	public void setQueryPlanningTimeBudgetMillis(
+			final long queryPlanningTimeBudgetMillis ) {
+		this.queryPlanningTimeBudgetMillis = queryPlanningTimeBudgetMillis;
+	}
+
 	private static SplitFilterLists splitList(
 			final List<QueryFilter> allFilters ) {
 		final List<DistributableQueryFilter> distributableFilters = new ArrayList<DistributableQueryFilter>();
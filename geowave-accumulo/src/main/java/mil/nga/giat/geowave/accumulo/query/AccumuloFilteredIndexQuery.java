@@ -1,9 +1,12 @@
 package mil.nga.giat.geowave.accumulo.query;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import mil.nga.giat.geowave.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.accumulo.ModelConvertingDataAdapter;
 import mil.nga.giat.geowave.accumulo.util.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.accumulo.util.CloseableIteratorWrapper.ScannerClosableWrapper;
 import mil.nga.giat.geowave.accumulo.util.EntryIteratorWrapper;
@@ -12,10 +15,15 @@ import mil.nga.giat.geowave.index.StringUtils;
 import mil.nga.giat.geowave.store.CloseableIterator;
 import mil.nga.giat.geowave.store.ScanCallback;
 import mil.nga.giat.geowave.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.store.dimension.DimensionField;
 import mil.nga.giat.geowave.store.filter.FilterList;
 import mil.nga.giat.geowave.store.filter.QueryFilter;
+import mil.nga.giat.geowave.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.store.index.CommonIndexValue;
 import mil.nga.giat.geowave.store.index.Index;
 
+import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.log4j.Logger;
 
@@ -27,6 +35,7 @@ public abstract class AccumuloFilteredIndexQuery extends
 	protected List<QueryFilter> clientFilters;
 	private final static Logger LOGGER = Logger.getLogger(AccumuloFilteredIndexQuery.class);
 	protected final ScanCallback<?> scanCallback;
+	protected Set<ByteArrayId> fieldIds;
 
 	public AccumuloFilteredIndexQuery(
 			final Index index,
@@ -62,6 +71,60 @@ public abstract class AccumuloFilteredIndexQuery extends
 	protected abstract void addScanIteratorSettings(
 			final ScannerBase scanner );
 
+	public Set<ByteArrayId> getFieldIds() {
+		return fieldIds;
+	}
+
+	/**
+	 * Only fetch and decode the given native fields of each entry, along with
+	 * the fields of the index model which are always fetched for filtering, a
+	 * null set will fetch every field
+	 * 
+	 * @param fieldIds
+	 *            the IDs of the fields to fetch
+	 */
+	public void setFieldIds(
+			final Set<ByteArrayId> fieldIds ) {
+		this.fieldIds = fieldIds;
+	}
+
+	protected void addFieldProjectionIterator(
+			final ScannerBase scanner,
+			final AdapterStore adapterStore ) {
+		final Set<ByteArrayId> projectedFieldIds = new HashSet<ByteArrayId>(
+				fieldIds);
+		addIndexFieldIds(
+				index.getIndexModel(),
+				projectedFieldIds);
+		if (adapterIds != null) {
+			// adapters can store the index fields under their own model
+			for (final ByteArrayId adapterId : adapterIds) {
+				final DataAdapter<?> adapter = adapterStore.getAdapter(adapterId);
+				if (adapter instanceof ModelConvertingDataAdapter) {
+					addIndexFieldIds(
+							((ModelConvertingDataAdapter<?>) adapter).convertModel(index.getIndexModel()),
+							projectedFieldIds);
+				}
+			}
+		}
+		final IteratorSetting iteratorSettings = new IteratorSetting(
+				FieldProjectionIterator.FIELD_PROJECTION_ITERATOR_PRIORITY,
+				FieldProjectionIterator.FIELD_PROJECTION_ITERATOR_NAME,
+				FieldProjectionIterator.class);
+		iteratorSettings.addOption(
+				FieldProjectionIterator.FIELD_IDS,
+				FieldProjectionIterator.encodeFieldIds(projectedFieldIds));
+		scanner.addScanIterator(iteratorSettings);
+	}
+
+	private static void addIndexFieldIds(
+			final CommonIndexModel indexModel,
+			final Set<ByteArrayId> fieldIds ) {
+		for (final DimensionField<? extends CommonIndexValue> dimension : indexModel.getDimensions()) {
+			fieldIds.add(dimension.getFieldId());
+		}
+	}
+
 	public CloseableIterator<?> query(
 			final AccumuloOperations accumuloOperations,
 			final AdapterStore adapterStore,
@@ -92,6 +155,11 @@ public abstract class AccumuloFilteredIndexQuery extends
 			return new CloseableIterator.Empty();
 		}
 		addScanIteratorSettings(scanner);
+		if (fieldIds != null) {
+			addFieldProjectionIterator(
+					scanner,
+					adapterStore);
+		}
 		Iterator it = initIterator(
 				adapterStore,
 				scanner);
@@ -115,6 +183,7 @@ public abstract class AccumuloFilteredIndexQuery extends
 				scanner.iterator(),
 				new FilterList<QueryFilter>(
 						clientFilters),
+				fieldIds,
 				scanCallback);
 	}
 }
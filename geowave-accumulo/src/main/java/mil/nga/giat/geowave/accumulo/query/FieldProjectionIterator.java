@@ -0,0 +1,96 @@
+package mil.nga.giat.geowave.accumulo.query;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import mil.nga.giat.geowave.accumulo.util.PackedFieldsUtils;
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayUtils;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+
+/**
+ * This iterator only passes along the columns of the requested fields, so that
+ * the fields that a query does not need are never sent to the client. The field
+ * IDs are deserialized from a byte array passed as an option with a "fieldids"
+ * key. Packed fields cannot be separated by column, so they are always passed
+ * along and only the requested fields within them are decoded. This must run
+ * before any iterator that encodes whole rows.
+ */
+public class FieldProjectionIterator extends
+		Filter
+{
+	public static final String FIELD_PROJECTION_ITERATOR_NAME = "GEOWAVE_FIELD_PROJECTION";
+	public static final int FIELD_PROJECTION_ITERATOR_PRIORITY = 8;
+	protected static final String FIELD_IDS = "fieldids";
+	private Set<ByteArrayId> fieldIds;
+
+	@Override
+	public boolean accept(
+			final Key key,
+			final Value value ) {
+		final ByteSequence fieldIdData = key.getColumnQualifierData();
+		if (PackedFieldsUtils.isPackedFields(fieldIdData)) {
+			return true;
+		}
+		return fieldIds.contains(new ByteArrayId(
+				fieldIdData.getBackingArray(),
+				fieldIdData.offset(),
+				fieldIdData.length()));
+	}
+
+	@Override
+	public void init(
+			final SortedKeyValueIterator<Key, Value> source,
+			final Map<String, String> options,
+			final IteratorEnvironment env )
+			throws IOException {
+		if ((options == null) || (options.get(FIELD_IDS) == null)) {
+			throw new IllegalArgumentException(
+					"'" + FIELD_IDS + "' must be set for " + FieldProjectionIterator.class.getName());
+		}
+		fieldIds = decodeFieldIds(options.get(FIELD_IDS));
+		super.init(
+				source,
+				options,
+				env);
+	}
+
+	protected static String encodeFieldIds(
+			final Collection<ByteArrayId> fieldIds ) {
+		int byteLength = 4;
+		for (final ByteArrayId fieldId : fieldIds) {
+			byteLength += 4 + fieldId.getLength();
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(byteLength);
+		buf.putInt(fieldIds.size());
+		for (final ByteArrayId fieldId : fieldIds) {
+			buf.putInt(fieldId.getLength());
+			buf.put(fieldId.getBytes());
+		}
+		return ByteArrayUtils.byteArrayToString(buf.array());
+	}
+
+	protected static Set<ByteArrayId> decodeFieldIds(
+			final String fieldIdsStr ) {
+		final ByteBuffer buf = ByteBuffer.wrap(ByteArrayUtils.byteArrayFromString(fieldIdsStr));
+		final int fieldIdCount = buf.getInt();
+		final Set<ByteArrayId> fieldIds = new HashSet<ByteArrayId>();
+		for (int i = 0; i < fieldIdCount; i++) {
+			final byte[] fieldId = new byte[buf.getInt()];
+			buf.get(fieldId);
+			fieldIds.add(new ByteArrayId(
+					fieldId));
+		}
+		return fieldIds;
+	}
+}
@@ -5,17 +5,20 @@ import java.util.List;
 import java.util.Map;
 
 import mil.nga.giat.geowave.accumulo.AccumuloRowId;
+import mil.nga.giat.geowave.accumulo.util.PackedFieldsUtils;
+import mil.nga.giat.geowave.accumulo.util.PackedFieldsUtils.PackedField;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
-import mil.nga.giat.geowave.store.data.PersistentDataset;
-import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.data.LazyPersistentDataset;
 import mil.nga.giat.geowave.store.data.field.FieldReader;
 import mil.nga.giat.geowave.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.VisibilityFieldReader;
 
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
@@ -50,30 +53,44 @@ public class QueryFilterIterator extends
 			final List<Value> values ) {
 		if ((filter != null) && (model != null)) {
 			final AccumuloRowId rowId = new AccumuloRowId(
-					currentRow.getBytes());
-			final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+					currentRow.getBytes(),
+					0,
+					currentRow.getLength());
+			// only the fields used by the filter are decoded
+			final LazyPersistentDataset<CommonIndexValue> commonData = new LazyPersistentDataset<CommonIndexValue>();
 			for (int i = 0; (i < keys.size()) && (i < values.size()); i++) {
 				final Key key = keys.get(i);
-				final ByteArrayId fieldId = new ByteArrayId(
-						key.getColumnQualifierData().getBackingArray());
-				final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
-				if (reader == null) {
-					continue;
+				final ByteSequence fieldIdData = key.getColumnQualifierData();
+				final byte[] value = values.get(
+						i).get();
+				if (PackedFieldsUtils.isPackedFields(fieldIdData)) {
+					for (final PackedField packedField : PackedFieldsUtils.unpack(value)) {
+						addCommonValue(
+								packedField.getFieldId(),
+								value,
+								packedField.getValueOffset(),
+								packedField.getValueLength(),
+								key,
+								commonData);
+					}
+				}
+				else {
+					addCommonValue(
+							new ByteArrayId(
+									fieldIdData.getBackingArray(),
+									fieldIdData.offset(),
+									fieldIdData.length()),
+							value,
+							0,
+							value.length,
+							key,
+							commonData);
 				}
-				final CommonIndexValue fieldValue = reader.readField(values.get(
-						i).get());
-				fieldValue.setVisibility(key.getColumnVisibilityData().getBackingArray());
-				commonData.addValue(new PersistentValue<CommonIndexValue>(
-						fieldId,
-						fieldValue));
 			}
 			final IndexedPersistenceEncoding encoding = new IndexedPersistenceEncoding(
-					new ByteArrayId(
-							rowId.getAdapterId()),
-					new ByteArrayId(
-							rowId.getDataId()),
-					new ByteArrayId(
-							rowId.getInsertionId()),
+					rowId.getAdapterIdSlice(),
+					rowId.getDataIdSlice(),
+					rowId.getInsertionIdSlice(),
 					rowId.getNumberOfDuplicates(),
 					commonData);
 			return filter.accept(encoding);
@@ -83,6 +100,27 @@ public class QueryFilterIterator extends
 		return true;
 	}
 
+	private void addCommonValue(
+			final ByteArrayId fieldId,
+			final byte[] backingArray,
+			final int offset,
+			final int length,
+			final Key key,
+			final LazyPersistentDataset<CommonIndexValue> commonData ) {
+		final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
+		if (reader == null) {
+			return;
+		}
+		commonData.addValue(
+				fieldId,
+				backingArray,
+				offset,
+				length,
+				new VisibilityFieldReader(
+						reader,
+						key.getColumnVisibilityData().getBackingArray()));
+	}
+
 	@Override
 	public void init(
 			final SortedKeyValueIterator<Key, Value> source,
@@ -5,14 +5,18 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeSet;
 
 import mil.nga.giat.geowave.accumulo.AccumuloRowId;
 import mil.nga.giat.geowave.accumulo.ModelConvertingDataAdapter;
 import mil.nga.giat.geowave.accumulo.Writer;
+import mil.nga.giat.geowave.accumulo.util.PackedFieldsUtils.PackedField;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.NumericIndexStrategy;
@@ -24,9 +28,12 @@ import mil.nga.giat.geowave.store.ScanCallback;
 import mil.nga.giat.geowave.store.adapter.AdapterPersistenceEncoding;
 import mil.nga.giat.geowave.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.store.adapter.FieldProjectingDataAdapter;
 import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.adapter.PackedFieldsDataAdapter;
 import mil.nga.giat.geowave.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.store.data.DataWriter;
+import mil.nga.giat.geowave.store.data.LazyPersistentDataset;
 import mil.nga.giat.geowave.store.data.PersistentDataset;
 import mil.nga.giat.geowave.store.data.PersistentValue;
 import mil.nga.giat.geowave.store.data.VisibilityWriter;
@@ -39,7 +46,9 @@ import mil.nga.giat.geowave.store.filter.QueryFilter;
 import mil.nga.giat.geowave.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
 import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.index.VisibilityFieldReader;
 
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
@@ -161,7 +170,7 @@ public class AccumuloUtils
 			final QueryFilter clientFilter,
 			final Index index ) {
 		final AccumuloRowId rowId = new AccumuloRowId(
-				key.getRow().copyBytes());
+				key);
 		return decodeRowObj(
 				key,
 				value,
@@ -170,9 +179,27 @@ public class AccumuloUtils
 				null,
 				clientFilter,
 				index,
+				null,
 				null);
 	}
 
+	public static <T> T decodeRow(
+			final Key key,
+			final Value value,
+			final AdapterStore adapterStore,
+			final QueryFilter clientFilter,
+			final Index index,
+			final ScanCallback<T> scanCallback ) {
+		return decodeRow(
+				key,
+				value,
+				adapterStore,
+				clientFilter,
+				index,
+				null,
+				scanCallback);
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <T> T decodeRow(
 			final Key key,
@@ -180,9 +207,10 @@ public class AccumuloUtils
 			final AdapterStore adapterStore,
 			final QueryFilter clientFilter,
 			final Index index,
+			final Set<ByteArrayId> fieldIds,
 			final ScanCallback<T> scanCallback ) {
 		final AccumuloRowId rowId = new AccumuloRowId(
-				key.getRow().copyBytes());
+				key);
 		return (T) decodeRowObj(
 				key,
 				value,
@@ -191,6 +219,7 @@ public class AccumuloUtils
 				adapterStore,
 				clientFilter,
 				index,
+				fieldIds,
 				scanCallback);
 	}
 
@@ -209,6 +238,7 @@ public class AccumuloUtils
 				adapterStore,
 				clientFilter,
 				index,
+				null,
 				null);
 	}
 
@@ -220,6 +250,7 @@ public class AccumuloUtils
 			final AdapterStore adapterStore,
 			final QueryFilter clientFilter,
 			final Index index,
+			final Set<ByteArrayId> fieldIds,
 			final ScanCallback<T> scanCallback ) {
 		final Pair<T, DataStoreEntryInfo> pair = decodeRow(
 				key,
@@ -229,11 +260,39 @@ public class AccumuloUtils
 				adapterStore,
 				clientFilter,
 				index,
+				fieldIds,
 				scanCallback);
 		return pair != null ? pair.getLeft() : null;
 
 	}
 
+	public static <T> Pair<T, DataStoreEntryInfo> decodeRow(
+			final Key k,
+			final Value v,
+			final AccumuloRowId rowId,
+			final DataAdapter<T> dataAdapter,
+			final AdapterStore adapterStore,
+			final QueryFilter clientFilter,
+			final Index index,
+			final ScanCallback<T> scanCallback ) {
+		return decodeRow(
+				k,
+				v,
+				rowId,
+				dataAdapter,
+				adapterStore,
+				clientFilter,
+				index,
+				null,
+				scanCallback);
+	}
+
+	/**
+	 * Decode a whole row into the native type of its adapter, if it is accepted
+	 * by the client filter. If field IDs are given, only those extended fields
+	 * are read, along with all of the index fields, and adapters that support
+	 * it only decode the requested fields.
+	 */
 	@SuppressWarnings("unchecked")
 	public static <T> Pair<T, DataStoreEntryInfo> decodeRow(
 			final Key k,
@@ -243,6 +302,7 @@ public class AccumuloUtils
 			final AdapterStore adapterStore,
 			final QueryFilter clientFilter,
 			final Index index,
+			final Set<ByteArrayId> fieldIds,
 			final ScanCallback<T> scanCallback ) {
 		if ((dataAdapter == null) && (adapterStore == null)) {
 			LOGGER.error("Could not decode row from iterator. Either adapter or adapter store must be non-null.");
@@ -262,8 +322,10 @@ public class AccumuloUtils
 		// build a persistence encoding object first, pass it through the
 		// client filters and if its accepted, use the data adapter to
 		// decode the persistence model into the native data type
-		final PersistentDataset<CommonIndexValue> indexData = new PersistentDataset<CommonIndexValue>();
-		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+		// the fields are only decoded as they are used by the client filter,
+		// and the remaining fields once the entry is accepted
+		final LazyPersistentDataset<CommonIndexValue> indexData = new LazyPersistentDataset<CommonIndexValue>();
+		final LazyPersistentDataset<Object> extendedData = new LazyPersistentDataset<Object>();
 		// for now we are assuming all entries in a row are of the same type
 		// and use the same adapter
 		boolean adapterMatchVerified;
@@ -276,14 +338,17 @@ public class AccumuloUtils
 			adapterMatchVerified = true;
 			adapterId = null;
 		}
-		final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>(
+		final List<RawField> rawFields = new ArrayList<RawField>(
 				rowMapping.size());
 
 		for (final Entry<Key, Value> entry : rowMapping.entrySet()) {
 			// the column family is the data element's type ID
 			if (adapterId == null) {
+				final ByteSequence adapterIdData = entry.getKey().getColumnFamilyData();
 				adapterId = new ByteArrayId(
-						entry.getKey().getColumnFamilyData().getBackingArray());
+						adapterIdData.getBackingArray(),
+						adapterIdData.offset(),
+						adapterIdData.length());
 			}
 
 			if (adapter == null) {
@@ -299,8 +364,6 @@ public class AccumuloUtils
 				}
 				adapterMatchVerified = true;
 			}
-			final ByteArrayId fieldId = new ByteArrayId(
-					entry.getKey().getColumnQualifierData().getBackingArray());
 			final CommonIndexModel indexModel;
 			if (adapter instanceof ModelConvertingDataAdapter) {
 				indexModel = ((ModelConvertingDataAdapter) adapter).convertModel(index.getIndexModel());
@@ -308,48 +371,46 @@ public class AccumuloUtils
 			else {
 				indexModel = index.getIndexModel();
 			}
-			// first check if this field is part of the index model
-			final FieldReader<? extends CommonIndexValue> indexFieldReader = indexModel.getReader(fieldId);
+			final ByteSequence fieldIdData = entry.getKey().getColumnQualifierData();
 			final byte byteValue[] = entry.getValue().get();
-			if (indexFieldReader != null) {
-				final CommonIndexValue indexValue = indexFieldReader.readField(byteValue);
-				indexValue.setVisibility(entry.getKey().getColumnVisibilityData().getBackingArray());
-				final PersistentValue<CommonIndexValue> val = new PersistentValue<CommonIndexValue>(
-						fieldId,
-						indexValue);
-				indexData.addValue(val);
-				fieldInfoList.add(getFieldInfo(
-						val,
-						byteValue,
-						indexValue.getVisibility()));
+			if (PackedFieldsUtils.isPackedFields(fieldIdData)) {
+				for (final PackedField packedField : PackedFieldsUtils.unpack(byteValue)) {
+					readField(
+							packedField.getFieldId(),
+							byteValue,
+							packedField.getValueOffset(),
+							packedField.getValueLength(),
+							entry.getKey(),
+							indexModel,
+							adapter,
+							fieldIds,
+							indexData,
+							extendedData,
+							rawFields);
+				}
 			}
 			else {
-				// next check if this field is part of the adapter's
-				// extended data model
-				final FieldReader<?> extFieldReader = adapter.getReader(fieldId);
-				if (extFieldReader == null) {
-					// if it still isn't resolved, log an error, and
-					// continue
-					LOGGER.error("field reader not found for data entry, the value will be ignored");
-					continue;
-				}
-				final Object value = extFieldReader.readField(byteValue);
-				final PersistentValue<Object> val = new PersistentValue<Object>(
-						fieldId,
-						value);
-				extendedData.addValue(val);
-				fieldInfoList.add(getFieldInfo(
-						val,
+				readField(
+						new ByteArrayId(
+								fieldIdData.getBackingArray(),
+								fieldIdData.offset(),
+								fieldIdData.length()),
 						byteValue,
-						entry.getKey().getColumnVisibility().getBytes()));
+						0,
+						byteValue.length,
+						entry.getKey(),
+						indexModel,
+						adapter,
+						fieldIds,
+						indexData,
+						extendedData,
+						rawFields);
 			}
 		}
 		final IndexedAdapterPersistenceEncoding encodedRow = new IndexedAdapterPersistenceEncoding(
 				adapterId,
-				new ByteArrayId(
-						rowId.getDataId()),
-				new ByteArrayId(
-						rowId.getInsertionId()),
+				rowId.getDataIdSlice(),
+				rowId.getInsertionIdSlice(),
 				rowId.getNumberOfDuplicates(),
 				indexData,
 				extendedData);
@@ -359,10 +420,40 @@ public class AccumuloUtils
 				LOGGER.error("Error, adapter was null when it should not be");
 			}
 			else {
-				Pair<T, DataStoreEntryInfo> pair = Pair.of(
-						adapter.decode(
-								encodedRow,
-								index),
+				final T decodedValue;
+				if ((fieldIds != null) && (adapter instanceof FieldProjectingDataAdapter)) {
+					decodedValue = ((FieldProjectingDataAdapter<T>) adapter).decode(
+							encodedRow,
+							index,
+							fieldIds);
+				}
+				else {
+					decodedValue = adapter.decode(
+							encodedRow,
+							index);
+				}
+				final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>(
+						rawFields.size());
+				for (final RawField rawField : rawFields) {
+					if (rawField.isIndexField) {
+						fieldInfoList.add(getFieldInfo(
+								new PersistentValue<CommonIndexValue>(
+										rawField.fieldId,
+										indexData.getValue(rawField.fieldId)),
+								rawField.getValue(),
+								rawField.visibility));
+					}
+					else {
+						fieldInfoList.add(getFieldInfo(
+								new PersistentValue<Object>(
+										rawField.fieldId,
+										extendedData.getValue(rawField.fieldId)),
+								rawField.getValue(),
+								rawField.visibility));
+					}
+				}
+				final Pair<T, DataStoreEntryInfo> pair = Pair.of(
+						decodedValue,
 						new DataStoreEntryInfo(
 								Arrays.asList(new ByteArrayId(
 										k.getRowData().getBackingArray())),
@@ -376,6 +467,68 @@ public class AccumuloUtils
 		return null;
 	}
 
+	private static void readField(
+			final ByteArrayId fieldId,
+			final byte[] backingArray,
+			final int offset,
+			final int length,
+			final Key key,
+			final CommonIndexModel indexModel,
+			final DataAdapter<?> adapter,
+			final Set<ByteArrayId> fieldIds,
+			final LazyPersistentDataset<CommonIndexValue> indexData,
+			final LazyPersistentDataset<Object> extendedData,
+			final List<RawField> rawFields ) {
+		// first check if this field is part of the index model
+		final FieldReader<? extends CommonIndexValue> indexFieldReader = indexModel.getReader(fieldId);
+		if (indexFieldReader != null) {
+			final byte[] visibility = key.getColumnVisibilityData().getBackingArray();
+			indexData.addValue(
+					fieldId,
+					backingArray,
+					offset,
+					length,
+					new VisibilityFieldReader(
+							indexFieldReader,
+							visibility));
+			rawFields.add(new RawField(
+					fieldId,
+					backingArray,
+					offset,
+					length,
+					visibility,
+					true));
+		}
+		else {
+			if ((fieldIds != null) && !fieldIds.contains(fieldId)) {
+				// this field was not requested
+				return;
+			}
+			// next check if this field is part of the adapter's
+			// extended data model
+			final FieldReader<?> extFieldReader = adapter.getReader(fieldId);
+			if (extFieldReader == null) {
+				// if it still isn't resolved, log an error, and
+				// continue
+				LOGGER.error("field reader not found for data entry, the value will be ignored");
+				return;
+			}
+			extendedData.addValue(
+					fieldId,
+					backingArray,
+					offset,
+					length,
+					extFieldReader);
+			rawFields.add(new RawField(
+					fieldId,
+					backingArray,
+					offset,
+					length,
+					key.getColumnVisibility().getBytes(),
+					false));
+		}
+	}
+
 	public static <T> DataStoreEntryInfo write(
 			final WritableDataAdapter<T> writableAdapter,
 			final Index index,
@@ -402,7 +555,8 @@ public class AccumuloUtils
 				customFieldVisibilityWriter);
 		final List<Mutation> mutations = buildMutations(
 				writableAdapter.getAdapterId().getBytes(),
-				ingestInfo);
+				ingestInfo,
+				isPackFields(writableAdapter));
 
 		writer.write(mutations);
 		return ingestInfo;
@@ -479,28 +633,70 @@ public class AccumuloUtils
 				customFieldVisibilityWriter);
 		return buildMutations(
 				dataWriter.getAdapterId().getBytes(),
-				ingestInfo);
+				ingestInfo,
+				isPackFields(dataWriter));
+	}
+
+	private static boolean isPackFields(
+			final WritableDataAdapter<?> adapter ) {
+		return (adapter instanceof PackedFieldsDataAdapter) && ((PackedFieldsDataAdapter<?>) adapter).isPackFields();
 	}
 
 	private static <T> List<Mutation> buildMutations(
 			final byte[] adapterId,
-			final DataStoreEntryInfo ingestInfo ) {
+			final DataStoreEntryInfo ingestInfo,
+			final boolean packFields ) {
 		final List<Mutation> mutations = new ArrayList<Mutation>();
 		final List<FieldInfo> fieldInfoList = ingestInfo.getFieldInfo();
+		final Map<ByteArrayId, List<FieldInfo>> fieldInfoPerVisibility;
+		if (packFields) {
+			// pack all of the fields sharing a visibility into one value
+			fieldInfoPerVisibility = new LinkedHashMap<ByteArrayId, List<FieldInfo>>();
+			for (final FieldInfo fieldInfo : fieldInfoList) {
+				final ByteArrayId visibility = new ByteArrayId(
+						fieldInfo.getVisibility() == null ? new byte[] {} : fieldInfo.getVisibility());
+				List<FieldInfo> fieldInfoWithVisibility = fieldInfoPerVisibility.get(visibility);
+				if (fieldInfoWithVisibility == null) {
+					fieldInfoWithVisibility = new ArrayList<FieldInfo>();
+					fieldInfoPerVisibility.put(
+							visibility,
+							fieldInfoWithVisibility);
+				}
+				fieldInfoWithVisibility.add(fieldInfo);
+			}
+		}
+		else {
+			fieldInfoPerVisibility = null;
+		}
 		for (final ByteArrayId rowId : ingestInfo.getRowIds()) {
 			final Mutation mutation = new Mutation(
 					new Text(
 							rowId.getBytes()));
-			for (final FieldInfo fieldInfo : fieldInfoList) {
-				mutation.put(
-						new Text(
-								adapterId),
-						new Text(
-								fieldInfo.getDataValue().getId().getBytes()),
-						new ColumnVisibility(
-								fieldInfo.getVisibility()),
-						new Value(
-								fieldInfo.getWrittenValue()));
+			if (fieldInfoPerVisibility != null) {
+				for (final Entry<ByteArrayId, List<FieldInfo>> fieldInfoWithVisibility : fieldInfoPerVisibility.entrySet()) {
+					mutation.put(
+							new Text(
+									adapterId),
+							new Text(
+									PackedFieldsUtils.PACKED_FIELDS_QUALIFIER),
+							new ColumnVisibility(
+									fieldInfoWithVisibility.getKey().getBytes()),
+							new Value(
+									PackedFieldsUtils.pack(fieldInfoWithVisibility.getValue())));
+				}
+			}
+			else {
+				for (final FieldInfo fieldInfo : fieldInfoList) {
+					mutation.put(
+							new Text(
+									adapterId),
+							new Text(
+									fieldInfo.getDataValue().getId().getBytes()),
+							new ColumnVisibility(
+									fieldInfo.getVisibility()),
+							new Value(
+									fieldInfo.getWrittenValue()));
+				}
 			}
 
 			mutations.add(mutation);
@@ -706,4 +902,43 @@ public class AccumuloUtils
 		buffer.put(END_AND_BYTE);
 		return buffer.array();
 	}
+
+	/**
+	 * The raw value of a field of a row, used to build the field info of an
+	 * entry once it is accepted
+	 */
+	private static class RawField
+	{
+		private final ByteArrayId fieldId;
+		private final byte[] backingArray;
+		private final int offset;
+		private final int length;
+		private final byte[] visibility;
+		private final boolean isIndexField;
+
+		private RawField(
+				final ByteArrayId fieldId,
+				final byte[] backingArray,
+				final int offset,
+				final int length,
+				final byte[] visibility,
+				final boolean isIndexField ) {
+			this.fieldId = fieldId;
+			this.backingArray = backingArray;
+			this.offset = offset;
+			this.length = length;
+			this.visibility = visibility;
+			this.isIndexField = isIndexField;
+		}
+
+		private byte[] getValue() {
+			if ((offset == 0) && (length == backingArray.length)) {
+				return backingArray;
+			}
+			return Arrays.copyOfRange(
+					backingArray,
+					offset,
+					offset + length);
+		}
+	}
 }
@@ -3,7 +3,9 @@ package mil.nga.giat.geowave.accumulo.util;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
+import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.store.ScanCallback;
 import mil.nga.giat.geowave.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.store.filter.QueryFilter;
@@ -28,6 +30,7 @@ public class EntryIteratorWrapper<T> implements
 	private final Index index;
 	private final Iterator<Entry<Key, Value>> scannerIt;
 	private final QueryFilter clientFilter;
+	private final Set<ByteArrayId> fieldIds;
 	private final ScanCallback<T> scanCallback;
 
 	private T nextValue;
@@ -41,6 +44,7 @@ public class EntryIteratorWrapper<T> implements
 		this.index = index;
 		this.scannerIt = scannerIt;
 		this.clientFilter = clientFilter;
+		this.fieldIds = null;
 		this.scanCallback = null;
 	}
 
@@ -50,10 +54,27 @@ public class EntryIteratorWrapper<T> implements
 			final Iterator<Entry<Key, Value>> scannerIt,
 			final QueryFilter clientFilter,
 			final ScanCallback<T> scanCallback ) {
+		this(
+				adapterStore,
+				index,
+				scannerIt,
+				clientFilter,
+				null,
+				scanCallback);
+	}
+
+	public EntryIteratorWrapper(
+			final AdapterStore adapterStore,
+			final Index index,
+			final Iterator<Entry<Key, Value>> scannerIt,
+			final QueryFilter clientFilter,
+			final Set<ByteArrayId> fieldIds,
+			final ScanCallback<T> scanCallback ) {
 		this.adapterStore = adapterStore;
 		this.index = index;
 		this.scannerIt = scannerIt;
 		this.clientFilter = clientFilter;
+		this.fieldIds = fieldIds;
 		this.scanCallback = scanCallback;
 	}
 
@@ -81,6 +102,7 @@ public class EntryIteratorWrapper<T> implements
 				adapterStore,
 				clientFilter,
 				index,
+				fieldIds,
 				scanCallback);
 	}
 
@@ -83,8 +83,7 @@ public class InputFormatIteratorWrapper<T> implements
 		if (value == null) {
 			return null;
 		}
-		final ByteArrayId adapterId = new ByteArrayId(
-				rowId.getAdapterId());
+		final ByteArrayId adapterId = rowId.getAdapterIdSlice();
 		T result = (T) (isOutputWritable ? serializationTool.getHadoopWritableSerializerForAdapter(
 				adapterId).toWritable(
 				value) : value);
@@ -0,0 +1,127 @@
+package mil.nga.giat.geowave.accumulo.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.DataStoreEntryInfo.FieldInfo;
+
+import org.apache.accumulo.core.data.ByteSequence;
+
+/**
+ * This packs the fields of an entry that share a visibility into a single
+ * Accumulo value, written with a reserved column qualifier, see
+ * {@link mil.nga.giat.geowave.store.adapter.PackedFieldsDataAdapter}. The
+ * packed value begins with a table of the field IDs and the offset and length
+ * of each field's value, followed by the values, so that each field can be read
+ * (or skipped) in place without copying the others.
+ * 
+ * The packed value is laid out as the number of fields, then per field the
+ * length of the field ID, the field ID, the offset of the value, and the length
+ * of the value, and then all of the values.
+ */
+public class PackedFieldsUtils
+{
+	/**
+	 * The column qualifier of packed fields, a single zero byte, which is not a
+	 * valid field ID
+	 */
+	public static final byte[] PACKED_FIELDS_QUALIFIER = new byte[] {
+		0
+	};
+
+	public static boolean isPackedFields(
+			final ByteSequence columnQualifier ) {
+		return (columnQualifier.length() == PACKED_FIELDS_QUALIFIER.length) && (columnQualifier.byteAt(0) == PACKED_FIELDS_QUALIFIER[0]);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public static byte[] pack(
+			final List<FieldInfo> fieldInfoList ) {
+		int tableLength = 4;
+		int valuesLength = 0;
+		for (final FieldInfo fieldInfo : fieldInfoList) {
+			tableLength += 12 + fieldInfo.getDataValue().getId().getLength();
+			valuesLength += fieldInfo.getWrittenValue().length;
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(tableLength + valuesLength);
+		buf.putInt(fieldInfoList.size());
+		int valueOffset = tableLength;
+		for (final FieldInfo fieldInfo : fieldInfoList) {
+			final byte[] fieldId = fieldInfo.getDataValue().getId().getBytes();
+			final int valueLength = fieldInfo.getWrittenValue().length;
+			buf.putInt(fieldId.length);
+			buf.put(fieldId);
+			buf.putInt(valueOffset);
+			buf.putInt(valueLength);
+			valueOffset += valueLength;
+		}
+		for (final FieldInfo fieldInfo : fieldInfoList) {
+			buf.put(fieldInfo.getWrittenValue());
+		}
+		return buf.array();
+	}
+
+	/**
+	 * Read the table of a packed value, without copying any of the field IDs or
+	 * values
+	 * 
+	 * @param packedValue
+	 *            the packed value
+	 * @return the fields within the packed value
+	 */
+	public static List<PackedField> unpack(
+			final byte[] packedValue ) {
+		final ByteBuffer buf = ByteBuffer.wrap(packedValue);
+		final int fieldCount = buf.getInt();
+		final List<PackedField> fields = new ArrayList<PackedField>(
+				fieldCount);
+		for (int i = 0; i < fieldCount; i++) {
+			final int fieldIdLength = buf.getInt();
+			final ByteArrayId fieldId = new ByteArrayId(
+					packedValue,
+					buf.position(),
+					fieldIdLength);
+			buf.position(buf.position() + fieldIdLength);
+			final int valueOffset = buf.getInt();
+			final int valueLength = buf.getInt();
+			fields.add(new PackedField(
+					fieldId,
+					valueOffset,
+					valueLength));
+		}
+		return fields;
+	}
+
+	/**
+	 * A field within a packed value
+	 */
+	public static class PackedField
+	{
+		private final ByteArrayId fieldId;
+		private final int valueOffset;
+		private final int valueLength;
+
+		public PackedField(
+				final ByteArrayId fieldId,
+				final int valueOffset,
+				final int valueLength ) {
+			this.fieldId = fieldId;
+			this.valueOffset = valueOffset;
+			this.valueLength = valueLength;
+		}
+
+		public ByteArrayId getFieldId() {
+			return fieldId;
+		}
+
+		public int getValueOffset() {
+			return valueOffset;
+		}
+
+		public int getValueLength() {
+			return valueLength;
+		}
+	}
+}
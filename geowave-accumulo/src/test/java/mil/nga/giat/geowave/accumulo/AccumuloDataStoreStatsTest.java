@@ -26,6 +26,7 @@ import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsVisibilityHandler;
 import mil.nga.giat.geowave.store.adapter.statistics.FieldTypeStatisticVisibility;
 import mil.nga.giat.geowave.store.adapter.statistics.StatisticalDataAdapter;
+import mil.nga.giat.geowave.store.adapter.statistics.TierOccupancyDataStatistics;
 import mil.nga.giat.geowave.store.data.PersistentValue;
 import mil.nga.giat.geowave.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.store.data.field.BasicReader.GeometryReader;
@@ -163,6 +164,122 @@ public class AccumuloDataStoreStatsTest
 		runtest();
 	}
 
+	@Test
+	public void testTierOccupancy() {
+		accumuloOptions.setCreateTable(true);
+		accumuloOptions.setUseAltIndex(false);
+		accumuloOptions.setPersistDataStatistics(true);
+		accumuloOptions.setUseTierOccupancy(true);
+
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestGeometry> adapter = new TestGeometryAdapter();
+		final Geometry testGeoFilter = factory.createPolygon(new Coordinate[] {
+			new Coordinate(
+					20,
+					30),
+			new Coordinate(
+					30,
+					30),
+			new Coordinate(
+					30,
+					35),
+			new Coordinate(
+					20,
+					35),
+			new Coordinate(
+					20,
+					30)
+		});
+
+		ByteArrayId rowId = null;
+		for (int i = 0; i < 3; i++) {
+			rowId = mockDataStore.ingest(
+					adapter,
+					index,
+					new TestGeometry(
+							factory.createPoint(new Coordinate(
+									25 + i,
+									32)),
+							"test_pt_" + i),
+					visWriterAAA).get(
+					0);
+		}
+		TierOccupancyDataStatistics<?> tierStats = (TierOccupancyDataStatistics<?>) statsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				TierOccupancyDataStatistics.composeId(index.getId()),
+				"aaa");
+		// all points are in the finest tier
+		assertEquals(
+				1,
+				tierStats.getOccupiedTierIds().size());
+		assertEquals(
+				3,
+				tierStats.getRowCount(rowId.getBytes()[0]));
+		assertEquals(
+				3,
+				countResults(
+						adapter,
+						index,
+						testGeoFilter));
+
+		// a polygon is inserted into a coarser tier which must now be queried
+		mockDataStore.ingest(
+				adapter,
+				index,
+				new TestGeometry(
+						factory.createPolygon(new Coordinate[] {
+							new Coordinate(
+									21,
+									31),
+							new Coordinate(
+									23,
+									31),
+							new Coordinate(
+									23,
+									33),
+							new Coordinate(
+									21,
+									33),
+							new Coordinate(
+									21,
+									31)
+						}),
+						"test_poly"),
+				visWriterAAA);
+		tierStats = (TierOccupancyDataStatistics<?>) statsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				TierOccupancyDataStatistics.composeId(index.getId()),
+				"aaa");
+		assertEquals(
+				2,
+				tierStats.getOccupiedTierIds().size());
+		assertEquals(
+				4,
+				countResults(
+						adapter,
+						index,
+						testGeoFilter));
+	}
+
+	private int countResults(
+			final WritableDataAdapter<TestGeometry> adapter,
+			final Index index,
+			final Geometry filter ) {
+		final CloseableIterator<?> it = mockDataStore.query(
+				adapter,
+				index,
+				new SpatialQuery(
+						filter),
+				-1,
+				"aaa");
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			count++;
+		}
+		return count;
+	}
+
 	private void runtest() {
 
 		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
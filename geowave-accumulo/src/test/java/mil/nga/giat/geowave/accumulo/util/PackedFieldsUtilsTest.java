@@ -0,0 +1,68 @@
+package mil.nga.giat.geowave.accumulo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PackedFieldsUtilsTest
+{
+	@SuppressWarnings("rawtypes")
+	@Test
+	public void testPackAndUnpack() {
+		final String[] fieldIds = new String[] {
+			"geometry",
+			"name",
+			"empty"
+		};
+		final String[] fieldValues = new String[] {
+			"POINT (1 1)",
+			"test",
+			""
+		};
+		final List<FieldInfo> fieldInfoList = new ArrayList<FieldInfo>();
+		for (int i = 0; i < fieldIds.length; i++) {
+			fieldInfoList.add(new FieldInfo<Object>(
+					new PersistentValue<Object>(
+							new ByteArrayId(
+									fieldIds[i]),
+							fieldValues[i]),
+					StringUtils.stringToBinary(fieldValues[i]),
+					new byte[] {}));
+		}
+		final byte[] packedValue = PackedFieldsUtils.pack(fieldInfoList);
+		final List<PackedFieldsUtils.PackedField> packedFields = PackedFieldsUtils.unpack(packedValue);
+		Assert.assertEquals(
+				fieldIds.length,
+				packedFields.size());
+		for (int i = 0; i < fieldIds.length; i++) {
+			final PackedFieldsUtils.PackedField packedField = packedFields.get(i);
+			Assert.assertEquals(
+					new ByteArrayId(
+							fieldIds[i]),
+					packedField.getFieldId());
+			Assert.assertEquals(
+					fieldValues[i],
+					StringUtils.stringFromBinary(Arrays.copyOfRange(
+							packedValue,
+							packedField.getValueOffset(),
+							packedField.getValueOffset() + packedField.getValueLength())));
+		}
+	}
+
+	@Test
+	public void testPackedFieldsQualifier() {
+		Assert.assertTrue(PackedFieldsUtils.isPackedFields(new ArrayByteSequence(
+				PackedFieldsUtils.PACKED_FIELDS_QUALIFIER)));
+		Assert.assertFalse(PackedFieldsUtils.isPackedFields(new ArrayByteSequence(
+				StringUtils.stringToBinary("geometry"))));
+	}
+}
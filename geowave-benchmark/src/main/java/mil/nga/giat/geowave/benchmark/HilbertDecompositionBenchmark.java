@@ -0,0 +1,159 @@
+package mil.nga.giat.geowave.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.TimeDefinition;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.index.sfc.hilbert.HilbertSFCOperations;
+import mil.nga.giat.geowave.index.sfc.hilbert.Int128HilbertSFCOperations;
+import mil.nga.giat.geowave.index.sfc.hilbert.UnboundedHilbertSFCOperations;
+
+import org.apache.log4j.Logger;
+
+import com.google.uzaygezen.core.CompactHilbertCurve;
+import com.google.uzaygezen.core.MultiDimensionalSpec;
+
+/**
+ * Compares the latency of decomposing queries on a 3 dimensional
+ * longitude/latitude/time Hilbert curve that is too precise for a single long,
+ * using 128 bit primitive arithmetic and using BigInteger arithmetic.
+ */
+public class HilbertDecompositionBenchmark
+{
+	private final static Logger log = Logger.getLogger(HilbertDecompositionBenchmark.class);
+
+	final private int[] bitsPerDimensionToTest = new int[] {
+		21,
+		31,
+		42
+	};
+	final private int[] maxRangeDecompositions = new int[] {
+		64,
+		512
+	};
+	final private int queryCount = 200;
+	final private NumericDimensionDefinition[] dimensions = new NumericDimensionDefinition[] {
+		new LongitudeDefinition(),
+		new LatitudeDefinition(
+				true),
+		new TimeDefinition(
+				Unit.YEAR)
+	};
+
+	public void runBenchmarks() {
+		log.info("****************************************************************************");
+		log.info("                 Hilbert Query Decomposition (lon/lat/time)");
+		log.info("****************************************************************************");
+		for (final int bits : bitsPerDimensionToTest) {
+			final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[dimensions.length];
+			final List<Integer> bitsPerDimension = new ArrayList<Integer>();
+			for (int d = 0; d < dimensions.length; d++) {
+				sfcDimensions[d] = new SFCDimensionDefinition(
+						dimensions[d],
+						bits);
+				bitsPerDimension.add(bits);
+			}
+			final CompactHilbertCurve compactHilbertCurve = new CompactHilbertCurve(
+					new MultiDimensionalSpec(
+							bitsPerDimension));
+			final Int128HilbertSFCOperations int128Ops = new Int128HilbertSFCOperations();
+			int128Ops.init(sfcDimensions);
+			final UnboundedHilbertSFCOperations unboundedOps = new UnboundedHilbertSFCOperations();
+			unboundedOps.init(sfcDimensions);
+			final List<NumericData[]> queries = createQueries(sfcDimensions);
+			for (final int maxRanges : maxRangeDecompositions) {
+				// warm up the JIT before taking any measurements
+				runQueries(
+						int128Ops,
+						compactHilbertCurve,
+						sfcDimensions,
+						queries,
+						maxRanges);
+				runQueries(
+						unboundedOps,
+						compactHilbertCurve,
+						sfcDimensions,
+						queries,
+						maxRanges);
+				final double int128Latency = runQueries(
+						int128Ops,
+						compactHilbertCurve,
+						sfcDimensions,
+						queries,
+						maxRanges);
+				final double unboundedLatency = runQueries(
+						unboundedOps,
+						compactHilbertCurve,
+						sfcDimensions,
+						queries,
+						maxRanges);
+				log.info("*** Total precision: " + (bits * dimensions.length) + " bits, max ranges: " + maxRanges);
+				log.info("*** 128 bit decomposition ms/query: " + int128Latency);
+				log.info("*** BigInteger decomposition ms/query: " + unboundedLatency);
+			}
+		}
+	}
+
+	private List<NumericData[]> createQueries(
+			final SFCDimensionDefinition[] sfcDimensions ) {
+		final Random random = new Random(
+				0);
+		final List<NumericData[]> queries = new ArrayList<NumericData[]>();
+		for (int i = 0; i < queryCount; i++) {
+			final NumericData[] query = new NumericData[sfcDimensions.length];
+			for (int d = 0; d < sfcDimensions.length; d++) {
+				// query about 1% of each dimension
+				final NumericData bounds = sfcDimensions[d].getFullRange();
+				final double extent = bounds.getMax() - bounds.getMin();
+				final double width = extent * 0.01;
+				final double min = bounds.getMin() + (random.nextDouble() * (extent - width));
+				query[d] = new NumericRange(
+						min,
+						min + width);
+			}
+			queries.add(query);
+		}
+		return queries;
+	}
+
+	private double runQueries(
+			final HilbertSFCOperations operations,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] sfcDimensions,
+			final List<NumericData[]> queries,
+			final int maxRanges ) {
+		int totalPrecision = 0;
+		for (final SFCDimensionDefinition dimension : sfcDimensions) {
+			totalPrecision += dimension.getBitsOfPrecision();
+		}
+		long rangeCount = 0;
+		final long start = System.nanoTime();
+		for (final NumericData[] query : queries) {
+			rangeCount += operations.decomposeRange(
+					query,
+					compactHilbertCurve,
+					sfcDimensions,
+					totalPrecision,
+					maxRanges,
+					true).getRanges().length;
+		}
+		final long runtime = System.nanoTime() - start;
+		if (rangeCount == 0) {
+			log.warn("No ranges were decomposed");
+		}
+		return (runtime / 1000000.0) / queries.size();
+	}
+
+	public static void main(
+			final String[] args ) {
+		new HilbertDecompositionBenchmark().runBenchmarks();
+	}
+}
@@ -0,0 +1,174 @@
+package mil.nga.giat.geowave.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.SFCFactory;
+import mil.nga.giat.geowave.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.index.sfc.SpaceFillingCurve;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Measures the throughput of Hilbert SFC ID encoding and query decomposition as
+ * the number of threads sharing a single curve instance increases. With
+ * per-thread curve state the operations per second should grow roughly linearly
+ * with the number of cores.
+ */
+public class HilbertSFCConcurrencyBenchmark
+{
+	private final static Logger log = Logger.getLogger(HilbertSFCConcurrencyBenchmark.class);
+
+	final private int[] threadCounts = new int[] {
+		1,
+		2,
+		4,
+		8,
+		16,
+		32
+	};
+	final private int idsPerThread = 500000;
+	final private int queriesPerThread = 500;
+	final private int maxRangeDecomposition = 64;
+
+	final private SpaceFillingCurve sfc;
+
+	public HilbertSFCConcurrencyBenchmark() {
+		sfc = SFCFactory.createSpaceFillingCurve(
+				new SFCDimensionDefinition[] {
+					new SFCDimensionDefinition(
+							new LongitudeDefinition(),
+							31),
+					new SFCDimensionDefinition(
+							new LatitudeDefinition(
+									true),
+							31)
+				},
+				SFCType.HILBERT);
+	}
+
+	public void runBenchmarks()
+			throws Exception {
+		final int availableProcessors = Runtime.getRuntime().availableProcessors();
+		log.info("****************************************************************************");
+		log.info("              Hilbert SFC Concurrency (" + availableProcessors + " processors)");
+		log.info("****************************************************************************");
+		// warm up the JIT before taking any measurements
+		runGetIds(1);
+		runDecomposeQueries(1);
+
+		for (final int numThreads : threadCounts) {
+			final double idsPerSecond = runGetIds(numThreads);
+			final double queriesPerSecond = runDecomposeQueries(numThreads);
+			log.info("*** Threads: " + numThreads);
+			log.info("*** getId ops/sec: " + Math.round(idsPerSecond));
+			log.info("*** decomposeQuery ops/sec: " + Math.round(queriesPerSecond));
+		}
+	}
+
+	private double runGetIds(
+			final int numThreads )
+			throws Exception {
+		final List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for (int t = 0; t < numThreads; t++) {
+			final Random random = new Random(
+					t);
+			tasks.add(new Callable<Long>() {
+				@Override
+				public Long call() {
+					long checksum = 0;
+					final double[] values = new double[2];
+					for (int i = 0; i < idsPerThread; i++) {
+						values[0] = (random.nextDouble() * 360) - 180;
+						values[1] = (random.nextDouble() * 180) - 90;
+						checksum += sfc.getId(values)[0];
+					}
+					return checksum;
+				}
+			});
+		}
+		final long runtime = runTasks(tasks);
+		return ((double) numThreads * idsPerThread * 1000) / Math.max(
+				runtime,
+				1);
+	}
+
+	private double runDecomposeQueries(
+			final int numThreads )
+			throws Exception {
+		final List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for (int t = 0; t < numThreads; t++) {
+			final Random random = new Random(
+					t);
+			tasks.add(new Callable<Long>() {
+				@Override
+				public Long call() {
+					long rangeCount = 0;
+					for (int i = 0; i < queriesPerThread; i++) {
+						final double width = random.nextDouble() * 10;
+						final double height = random.nextDouble() * 10;
+						final double minX = (random.nextDouble() * (360 - width)) - 180;
+						final double minY = (random.nextDouble() * (180 - height)) - 90;
+						final MultiDimensionalNumericData query = new BasicNumericDataset(
+								new NumericData[] {
+									new NumericRange(
+											minX,
+											minX + width),
+									new NumericRange(
+											minY,
+											minY + height)
+								});
+						rangeCount += sfc.decomposeQuery(
+								query,
+								maxRangeDecomposition).getRanges().length;
+					}
+					return rangeCount;
+				}
+			});
+		}
+		final long runtime = runTasks(tasks);
+		return ((double) numThreads * queriesPerThread * 1000) / Math.max(
+				runtime,
+				1);
+	}
+
+	private static long runTasks(
+			final List<Callable<Long>> tasks )
+			throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try {
+			final long start = System.currentTimeMillis();
+			final List<Future<Long>> results = executor.invokeAll(tasks);
+			for (final Future<Long> result : results) {
+				result.get();
+			}
+			return System.currentTimeMillis() - start;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	public static void main(
+			final String[] args ) {
+		final HilbertSFCConcurrencyBenchmark benchmark = new HilbertSFCConcurrencyBenchmark();
+		try {
+			benchmark.runBenchmarks();
+		}
+		catch (final Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
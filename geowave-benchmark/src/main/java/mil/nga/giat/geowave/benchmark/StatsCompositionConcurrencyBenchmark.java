@@ -0,0 +1,244 @@
+package mil.nga.giat.geowave.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.CloseableIterator;
+import mil.nga.giat.geowave.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
+
+import org.apache.log4j.Logger;
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Measures the throughput of accumulating statistics for ingested entries as
+ * the number of threads sharing a single statistics composition tool increases,
+ * with statistics enabled and disabled. With striped statistics the entries per
+ * second with statistics enabled should grow with the number of cores rather
+ * than stay flat.
+ */
+public class StatsCompositionConcurrencyBenchmark
+{
+	private final static Logger log = Logger.getLogger(StatsCompositionConcurrencyBenchmark.class);
+
+	final private int[] threadCounts = new int[] {
+		1,
+		2,
+		4,
+		8,
+		16,
+		32
+	};
+	final private int entriesPerThread = 1000000;
+	final private int featuresPerThread = 1000;
+
+	final private SimpleFeatureType type;
+	final private FeatureDataAdapter adapter;
+	final private GeometryFactory geometryFactory = JTSFactoryFinder.getGeometryFactory();
+
+	public StatsCompositionConcurrencyBenchmark()
+			throws Exception {
+		type = DataUtilities.createType(
+				"StatsBenchmark",
+				"geometry:Point:srid=4326,name:String,count:Integer");
+		adapter = new FeatureDataAdapter(
+				type);
+	}
+
+	public void runBenchmarks()
+			throws Exception {
+		final int availableProcessors = Runtime.getRuntime().availableProcessors();
+		log.info("****************************************************************************");
+		log.info("              Statistics Composition Concurrency (" + availableProcessors + " processors)");
+		log.info("****************************************************************************");
+		// warm up the JIT before taking any measurements
+		runIngest(
+				1,
+				true);
+		runIngest(
+				1,
+				false);
+
+		for (final int numThreads : threadCounts) {
+			final double enabledEntriesPerSecond = runIngest(
+					numThreads,
+					true);
+			final double disabledEntriesPerSecond = runIngest(
+					numThreads,
+					false);
+			log.info("*** Threads: " + numThreads);
+			log.info("*** statistics enabled entries/sec: " + Math.round(enabledEntriesPerSecond));
+			log.info("*** statistics disabled entries/sec: " + Math.round(disabledEntriesPerSecond));
+		}
+	}
+
+	private double runIngest(
+			final int numThreads,
+			final boolean statisticsEnabled )
+			throws Exception {
+		final StatsCompositionTool<SimpleFeature> statsTool = statisticsEnabled ? new StatsCompositionTool<SimpleFeature>(
+				adapter,
+				new DiscardingStatisticsStore()) : new StatsCompositionTool<SimpleFeature>();
+		final List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for (int t = 0; t < numThreads; t++) {
+			final Random random = new Random(
+					t);
+			final List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+			final List<DataStoreEntryInfo> entryInfos = new ArrayList<DataStoreEntryInfo>();
+			for (int i = 0; i < featuresPerThread; i++) {
+				final SimpleFeature feature = createFeature(
+						random,
+						t + "_" + i);
+				features.add(feature);
+				entryInfos.add(createEntryInfo(feature));
+			}
+			tasks.add(new Callable<Long>() {
+				@Override
+				public Long call() {
+					for (int i = 0; i < entriesPerThread; i++) {
+						final int f = i % featuresPerThread;
+						statsTool.entryIngested(
+								entryInfos.get(f),
+								features.get(f));
+					}
+					return (long) entriesPerThread;
+				}
+			});
+		}
+		final long start = System.currentTimeMillis();
+		runTasks(tasks);
+		statsTool.flush();
+		final long runtime = System.currentTimeMillis() - start;
+		return ((double) numThreads * entriesPerThread * 1000) / Math.max(
+				runtime,
+				1);
+	}
+
+	private SimpleFeature createFeature(
+			final Random random,
+			final String id ) {
+		final SimpleFeatureBuilder builder = new SimpleFeatureBuilder(
+				type);
+		builder.set(
+				"geometry",
+				geometryFactory.createPoint(new Coordinate(
+						(random.nextDouble() * 360) - 180,
+						(random.nextDouble() * 180) - 90)));
+		builder.set(
+				"name",
+				id);
+		builder.set(
+				"count",
+				random.nextInt(1000));
+		return builder.buildFeature(id);
+	}
+
+	private static DataStoreEntryInfo createEntryInfo(
+			final SimpleFeature feature ) {
+		final List<FieldInfo> fieldInfo = new ArrayList<FieldInfo>();
+		for (int i = 0; i < feature.getAttributeCount(); i++) {
+			fieldInfo.add(new FieldInfo<Object>(
+					new PersistentValue<Object>(
+							new ByteArrayId(
+									feature.getFeatureType().getDescriptor(
+											i).getLocalName()),
+							feature.getAttribute(i)),
+					new byte[] {},
+					new byte[] {}));
+		}
+		return new DataStoreEntryInfo(
+				Arrays.asList(new ByteArrayId(
+						feature.getID())),
+				fieldInfo);
+	}
+
+	private static void runTasks(
+			final List<Callable<Long>> tasks )
+			throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+		try {
+			final List<Future<Long>> results = executor.invokeAll(tasks);
+			for (final Future<Long> result : results) {
+				result.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Only the accumulation of statistics is measured, so flushed statistics
+	 * are discarded
+	 */
+	private static class DiscardingStatisticsStore implements
+			DataStatisticsStore
+	{
+		@Override
+		public void setStatistics(
+				final DataStatistics<?> statistics ) {}
+
+		@Override
+		public void incorporateStatistics(
+				final DataStatistics<?> statistics ) {}
+
+		@Override
+		public CloseableIterator<DataStatistics<?>> getDataStatistics(
+				final ByteArrayId adapterId,
+				final String... authorizations ) {
+			return null;
+		}
+
+		@Override
+		public CloseableIterator<DataStatistics<?>> getAllDataStatistics(
+				final String... authorizations ) {
+			return null;
+		}
+
+		@Override
+		public DataStatistics<?> getDataStatistics(
+				final ByteArrayId adapterId,
+				final ByteArrayId statisticsId,
+				final String... authorizations ) {
+			return null;
+		}
+
+		@Override
+		public boolean removeStatistics(
+				final ByteArrayId adapterId,
+				final ByteArrayId statisticsId,
+				final String... authorizations ) {
+			return false;
+		}
+	}
+
+	public static void main(
+			final String[] args ) {
+		try {
+			final StatsCompositionConcurrencyBenchmark benchmark = new StatsCompositionConcurrencyBenchmark();
+			benchmark.runBenchmarks();
+		}
+		catch (final Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
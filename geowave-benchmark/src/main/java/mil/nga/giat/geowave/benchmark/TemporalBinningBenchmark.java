@@ -0,0 +1,148 @@
+package mil.nga.giat.geowave.benchmark;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Compares the throughput of binning timestamps with the temporal binning
+ * strategy (which looks up precomputed bin boundaries) against computing the
+ * same bin with a calendar per value, as the binning strategy previously did,
+ * for each unit.
+ */
+public class TemporalBinningBenchmark
+{
+	private final static Logger log = Logger.getLogger(TemporalBinningBenchmark.class);
+
+	final private int valueCount = 1000000;
+	final private int iterations = 5;
+	final private String timezone = "GMT";
+
+	final private long[] values;
+
+	public TemporalBinningBenchmark() {
+		final Random random = new Random(
+				0);
+		values = new long[valueCount];
+		// timestamps from 1970 to 2030
+		final long maxMillis = 60L * 365 * 24 * 60 * 60 * 1000;
+		for (int i = 0; i < valueCount; i++) {
+			values[i] = (long) (random.nextDouble() * maxMillis);
+		}
+	}
+
+	public void runBenchmarks() {
+		log.info("****************************************************************************");
+		log.info("                         Temporal Binning");
+		log.info("****************************************************************************");
+		for (final Unit unit : new Unit[] {
+			Unit.YEAR,
+			Unit.MONTH,
+			Unit.DAY
+		}) {
+			final TemporalBinningStrategy binStrategy = new TemporalBinningStrategy(
+					unit,
+					timezone);
+			// warm up the JIT before taking any measurements
+			runBinningStrategy(binStrategy);
+			runCalendar(unit);
+
+			long binningStrategyTime = 0;
+			long calendarTime = 0;
+			for (int i = 0; i < iterations; i++) {
+				long start = System.currentTimeMillis();
+				runBinningStrategy(binStrategy);
+				binningStrategyTime += System.currentTimeMillis() - start;
+				start = System.currentTimeMillis();
+				runCalendar(unit);
+				calendarTime += System.currentTimeMillis() - start;
+			}
+			log.info("*** Unit: " + unit);
+			log.info("*** Binning strategy ops/sec: " + getOpsPerSecond(binningStrategyTime));
+			log.info("*** Calendar ops/sec: " + getOpsPerSecond(calendarTime));
+		}
+	}
+
+	private long getOpsPerSecond(
+			final long runtime ) {
+		return Math.round(((double) valueCount * iterations * 1000) / Math.max(
+				runtime,
+				1));
+	}
+
+	private long runBinningStrategy(
+			final TemporalBinningStrategy binStrategy ) {
+		long checksum = 0;
+		for (final long value : values) {
+			checksum += binStrategy.getBinnedValue(
+					value).getBinId()[0];
+		}
+		return checksum;
+	}
+
+	private long runCalendar(
+			final Unit unit ) {
+		long checksum = 0;
+		for (final long value : values) {
+			final Calendar epochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+			epochCal.setTimeInMillis(value);
+			setToEpoch(
+					epochCal,
+					unit);
+			final Calendar valueCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+			valueCal.setTimeInMillis(value);
+			final String binId;
+			switch (unit) {
+				case YEAR:
+				default:
+					binId = Integer.toString(valueCal.get(Calendar.YEAR));
+					break;
+				case MONTH:
+					binId = Integer.toString(valueCal.get(Calendar.YEAR)) + "_" + valueCal.get(Calendar.MONTH);
+					break;
+				case DAY:
+					binId = Integer.toString(valueCal.get(Calendar.YEAR)) + "_" + valueCal.get(Calendar.MONTH) + "_" + valueCal.get(Calendar.DAY_OF_MONTH);
+					break;
+			}
+			checksum += binId.getBytes()[0] + (valueCal.getTimeInMillis() - epochCal.getTimeInMillis());
+		}
+		return checksum;
+	}
+
+	private static void setToEpoch(
+			final Calendar value,
+			final Unit unit ) {
+		if (unit == Unit.YEAR) {
+			value.set(
+					Calendar.MONTH,
+					value.getActualMinimum(Calendar.MONTH));
+		}
+		if (unit != Unit.DAY) {
+			value.set(
+					Calendar.DAY_OF_MONTH,
+					value.getActualMinimum(Calendar.DAY_OF_MONTH));
+		}
+		value.set(
+				Calendar.HOUR_OF_DAY,
+				value.getActualMinimum(Calendar.HOUR_OF_DAY));
+		value.set(
+				Calendar.MINUTE,
+				value.getActualMinimum(Calendar.MINUTE));
+		value.set(
+				Calendar.SECOND,
+				value.getActualMinimum(Calendar.SECOND));
+		value.set(
+				Calendar.MILLISECOND,
+				value.getActualMinimum(Calendar.MILLISECOND));
+	}
+
+	public static void main(
+			final String[] args ) {
+		new TemporalBinningBenchmark().runBenchmarks();
+	}
+}
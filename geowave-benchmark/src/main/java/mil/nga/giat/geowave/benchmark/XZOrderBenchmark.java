@@ -0,0 +1,160 @@
+package mil.nga.giat.geowave.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialFactory;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialXZFactory;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Compares the default tiered Hilbert spatial index strategy with the
+ * XZ-ordering spatial index strategy on the bounding boxes of polygons of
+ * varying sizes, measuring the number of row IDs written per polygon, the
+ * latency of computing them, and the number and latency of the ranges
+ * decomposed for queries.
+ */
+public class XZOrderBenchmark
+{
+	private final static Logger log = Logger.getLogger(XZOrderBenchmark.class);
+
+	// the width of the polygons in degrees, from parcels to countries
+	final private double[] polygonWidths = new double[] {
+		0.001,
+		0.1,
+		1,
+		10
+	};
+	// the same max range decomposition as the Accumulo constraints query
+	final private int maxRangeDecomposition = 5000;
+	final private int polygonCount = 20000;
+	final private int queryCount = 200;
+
+	public void runBenchmarks() {
+		log.info("****************************************************************************");
+		log.info("                 XZ-Ordering vs Tiered Hilbert (polygons)");
+		log.info("****************************************************************************");
+		final NumericIndexStrategy tieredStrategy = new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final NumericIndexStrategy xzStrategy = new SpatialXZFactory().createIndexStrategy(DataType.VECTOR);
+		final List<MultiDimensionalNumericData> queries = createBoxes(
+				new Random(
+						1),
+				queryCount,
+				1);
+		// warm up the JIT before taking any measurements
+		runQueries(
+				tieredStrategy,
+				queries);
+		runQueries(
+				xzStrategy,
+				queries);
+		for (final double width : polygonWidths) {
+			final List<MultiDimensionalNumericData> polygons = createBoxes(
+					new Random(
+							0),
+					polygonCount,
+					width);
+			runInsertions(
+					tieredStrategy,
+					polygons);
+			runInsertions(
+					xzStrategy,
+					polygons);
+			final double[] tieredInsertions = runInsertions(
+					tieredStrategy,
+					polygons);
+			final double[] xzInsertions = runInsertions(
+					xzStrategy,
+					polygons);
+			log.info("*** Polygon width: " + width + " degrees");
+			log.info("*** Tiered row IDs/polygon: " + tieredInsertions[0] + ", ms/1000 polygons: " + tieredInsertions[1]);
+			log.info("*** XZ row IDs/polygon: " + xzInsertions[0] + ", ms/1000 polygons: " + xzInsertions[1]);
+		}
+		final double[] tieredQueries = runQueries(
+				tieredStrategy,
+				queries);
+		final double[] xzQueries = runQueries(
+				xzStrategy,
+				queries);
+		log.info("*** 1 degree queries, max ranges: " + maxRangeDecomposition);
+		log.info("*** Tiered ranges/query: " + tieredQueries[0] + ", ms/query: " + tieredQueries[1]);
+		log.info("*** XZ ranges/query: " + xzQueries[0] + ", ms/query: " + xzQueries[1]);
+	}
+
+	private static List<MultiDimensionalNumericData> createBoxes(
+			final Random random,
+			final int count,
+			final double width ) {
+		final List<MultiDimensionalNumericData> boxes = new ArrayList<MultiDimensionalNumericData>();
+		for (int i = 0; i < count; i++) {
+			// vary the aspect ratio of the polygons
+			final double lonWidth = width * (0.5 + random.nextDouble());
+			final double latWidth = width * (0.5 + random.nextDouble());
+			final double minLon = -180 + (random.nextDouble() * (360 - lonWidth));
+			final double minLat = -90 + (random.nextDouble() * (180 - latWidth));
+			boxes.add(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								minLon,
+								minLon + lonWidth),
+						new NumericRange(
+								minLat,
+								minLat + latWidth)
+					}));
+		}
+		return boxes;
+	}
+
+	/**
+	 * @return the average row IDs per polygon and the milliseconds per 1000
+	 *         polygons
+	 */
+	private static double[] runInsertions(
+			final NumericIndexStrategy strategy,
+			final List<MultiDimensionalNumericData> polygons ) {
+		long rowIdCount = 0;
+		final long start = System.nanoTime();
+		for (final MultiDimensionalNumericData polygon : polygons) {
+			rowIdCount += strategy.getInsertionIds(
+					polygon).size();
+		}
+		final long runtime = System.nanoTime() - start;
+		return new double[] {
+			(double) rowIdCount / polygons.size(),
+			((runtime / 1000000.0) / polygons.size()) * 1000
+		};
+	}
+
+	/**
+	 * @return the average ranges per query and the milliseconds per query
+	 */
+	private double[] runQueries(
+			final NumericIndexStrategy strategy,
+			final List<MultiDimensionalNumericData> queries ) {
+		long rangeCount = 0;
+		final long start = System.nanoTime();
+		for (final MultiDimensionalNumericData query : queries) {
+			rangeCount += strategy.getQueryRanges(
+					query,
+					maxRangeDecomposition).size();
+		}
+		final long runtime = System.nanoTime() - start;
+		return new double[] {
+			(double) rangeCount / queries.size(),
+			(runtime / 1000000.0) / queries.size()
+		};
+	}
+
+	public static void main(
+			final String[] args ) {
+		new XZOrderBenchmark().runBenchmarks();
+	}
+}
@@ -0,0 +1,242 @@
+package mil.nga.giat.geowave.benchmark;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.sfc.zorder.ZOrderUtils;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Compares the throughput of encoding and decoding Z-Order values with the
+ * shift and mask bit spreading used by the Z-Order utilities against
+ * interleaving the bits one at a time using bit sets, as the Z-Order utilities
+ * previously did, for 2 and 3 dimensions at the maximum bits of precision that
+ * fit within a long.
+ */
+public class ZOrderEncodingBenchmark
+{
+	private final static Logger log = Logger.getLogger(ZOrderEncodingBenchmark.class);
+
+	final private int valueCount = 1000000;
+	final private int iterations = 5;
+	final private int[][] dimensionsAndBits = new int[][] {
+		new int[] {
+			2,
+			31
+		},
+		new int[] {
+			3,
+			21
+		}
+	};
+
+	public void runBenchmarks() {
+		log.info("****************************************************************************");
+		log.info("                         Z-Order Encoding");
+		log.info("****************************************************************************");
+		for (final int[] dimensionAndBits : dimensionsAndBits) {
+			final int numDimensions = dimensionAndBits[0];
+			final int bitsPerDimension = dimensionAndBits[1];
+			final double[][] values = createValues(numDimensions);
+			final byte[][] ids = new byte[valueCount][];
+			for (int i = 0; i < valueCount; i++) {
+				ids[i] = ZOrderUtils.encode(
+						values[i],
+						bitsPerDimension,
+						numDimensions);
+			}
+			// warm up the JIT before taking any measurements
+			runEncode(
+					values,
+					bitsPerDimension,
+					numDimensions,
+					false);
+			runEncode(
+					values,
+					bitsPerDimension,
+					numDimensions,
+					true);
+			runDecode(
+					ids,
+					bitsPerDimension,
+					numDimensions,
+					false);
+			runDecode(
+					ids,
+					bitsPerDimension,
+					numDimensions,
+					true);
+
+			long encodeTime = 0;
+			long bitSetEncodeTime = 0;
+			long decodeTime = 0;
+			long bitSetDecodeTime = 0;
+			for (int i = 0; i < iterations; i++) {
+				long start = System.currentTimeMillis();
+				runEncode(
+						values,
+						bitsPerDimension,
+						numDimensions,
+						false);
+				encodeTime += System.currentTimeMillis() - start;
+				start = System.currentTimeMillis();
+				runEncode(
+						values,
+						bitsPerDimension,
+						numDimensions,
+						true);
+				bitSetEncodeTime += System.currentTimeMillis() - start;
+				start = System.currentTimeMillis();
+				runDecode(
+						ids,
+						bitsPerDimension,
+						numDimensions,
+						false);
+				decodeTime += System.currentTimeMillis() - start;
+				start = System.currentTimeMillis();
+				runDecode(
+						ids,
+						bitsPerDimension,
+						numDimensions,
+						true);
+				bitSetDecodeTime += System.currentTimeMillis() - start;
+			}
+			log.info("*** Dimensions: " + numDimensions + ", bits per dimension: " + bitsPerDimension);
+			log.info("*** Encode ops/sec: " + getOpsPerSecond(encodeTime));
+			log.info("*** Bit set encode ops/sec: " + getOpsPerSecond(bitSetEncodeTime));
+			log.info("*** Decode ops/sec: " + getOpsPerSecond(decodeTime));
+			log.info("*** Bit set decode ops/sec: " + getOpsPerSecond(bitSetDecodeTime));
+		}
+	}
+
+	private double[][] createValues(
+			final int numDimensions ) {
+		final Random random = new Random(
+				0);
+		final double[][] values = new double[valueCount][numDimensions];
+		for (int i = 0; i < valueCount; i++) {
+			for (int d = 0; d < numDimensions; d++) {
+				values[i][d] = random.nextDouble();
+			}
+		}
+		return values;
+	}
+
+	private long getOpsPerSecond(
+			final long runtime ) {
+		return Math.round(((double) valueCount * iterations * 1000) / Math.max(
+				runtime,
+				1));
+	}
+
+	private long runEncode(
+			final double[][] values,
+			final int bitsPerDimension,
+			final int numDimensions,
+			final boolean useBitSet ) {
+		long checksum = 0;
+		for (final double[] value : values) {
+			final byte[] id;
+			if (useBitSet) {
+				id = encodeBitSet(
+						value,
+						bitsPerDimension,
+						numDimensions);
+			}
+			else {
+				id = ZOrderUtils.encode(
+						value,
+						bitsPerDimension,
+						numDimensions);
+			}
+			checksum += id.length;
+		}
+		return checksum;
+	}
+
+	private long runDecode(
+			final byte[][] ids,
+			final int bitsPerDimension,
+			final int numDimensions,
+			final boolean useBitSet ) {
+		long checksum = 0;
+		for (final byte[] id : ids) {
+			final long[] coordinates;
+			if (useBitSet) {
+				coordinates = decodeBitSet(
+						id,
+						bitsPerDimension,
+						numDimensions);
+			}
+			else {
+				coordinates = ZOrderUtils.decodeIndices(
+						id,
+						bitsPerDimension,
+						numDimensions);
+			}
+			checksum += coordinates[0];
+		}
+		return checksum;
+	}
+
+	private static byte[] encodeBitSet(
+			final double[] normalizedValues,
+			final int bitsPerDimension,
+			final int numDimensions ) {
+		final BitSet[] bitSets = new BitSet[numDimensions];
+		for (int d = 0; d < numDimensions; d++) {
+			final BitSet bitSet = new BitSet(
+					bitsPerDimension);
+			double floor = 0;
+			double ceiling = 1;
+			for (int i = 0; i < bitsPerDimension; i++) {
+				final double mid = (floor + ceiling) / 2;
+				if (normalizedValues[d] >= mid) {
+					bitSet.set(i);
+					floor = mid;
+				}
+				else {
+					ceiling = mid;
+				}
+			}
+			bitSets[d] = bitSet;
+		}
+		final BitSet combinedBitSet = new BitSet(
+				bitsPerDimension * numDimensions);
+		int j = 0;
+		for (int i = 0; i < bitsPerDimension; i++) {
+			for (int d = 0; d < numDimensions; d++) {
+				combinedBitSet.set(
+						j++,
+						bitSets[d].get(i));
+			}
+		}
+		return ZOrderUtils.swapEndianFormat(combinedBitSet.toByteArray());
+	}
+
+	private static long[] decodeBitSet(
+			final byte[] bytes,
+			final int bitsPerDimension,
+			final int numDimensions ) {
+		final BitSet bitSet = BitSet.valueOf(ZOrderUtils.swapEndianFormat(bytes));
+		final long[] coordinates = new long[numDimensions];
+		for (int d = 0; d < numDimensions; d++) {
+			long coordinate = 0;
+			int j = bitsPerDimension - 1;
+			for (int i = d; i < (bitsPerDimension * numDimensions); i += numDimensions) {
+				if (bitSet.get(i)) {
+					coordinate |= 1L << j;
+				}
+				j--;
+			}
+			coordinates[d] = coordinate;
+		}
+		return coordinates;
+	}
+
+	public static void main(
+			final String[] args ) {
+		new ZOrderEncodingBenchmark().runBenchmarks();
+	}
+}
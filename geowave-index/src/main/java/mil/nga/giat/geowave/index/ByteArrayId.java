@@ -4,28 +4,103 @@ import java.util.Arrays;
 
 /**
  * This class is a wrapper around a byte array to ensure equals and hashcode
- * operations use the values of the bytes rather than explicit object identity
+ * operations use the values of the bytes rather than explicit object identity.
+ * The ID can also be a slice of a larger backing array, such as an Accumulo row
+ * ID, in which case the bytes are only copied out if {@link #getBytes()} is
+ * called. Equality, hashing, and ordering only consider the bytes within the
+ * slice, and the hash code is computed once and cached.
  */
-public class ByteArrayId
+public class ByteArrayId implements
+		Comparable<ByteArrayId>
 {
 	private final byte[] id;
+	private final int offset;
+	private final int length;
+	// the bytes of a slice, copied out on demand
+	private volatile byte[] bytes;
+	// a hash code of 0 is treated as not yet computed, as with String
+	private int hash;
 
 	public ByteArrayId(
 			final byte[] id ) {
 		this.id = id;
+		offset = 0;
+		// a null ID is allowed, such as for an empty visibility, and is only
+		// equal to another null ID
+		length = (id == null) ? 0 : id.length;
+		bytes = id;
+	}
+
+	/**
+	 * Wrap a slice of a backing array without copying it. The backing array
+	 * should not be modified while this ID is in use.
+	 * 
+	 * @param backingArray
+	 *            the array containing the ID
+	 * @param offset
+	 *            the index of the first byte of the ID
+	 * @param length
+	 *            the number of bytes in the ID
+	 */
+	public ByteArrayId(
+			final byte[] backingArray,
+			final int offset,
+			final int length ) {
+		if ((offset < 0) || (length < 0) || ((offset + length) > backingArray.length)) {
+			throw new IndexOutOfBoundsException(
+					"Slice [" + offset + ", " + (offset + length) + ") is out of bounds for an array of length " + backingArray.length);
+		}
+		id = backingArray;
+		this.offset = offset;
+		this.length = length;
+		if ((offset == 0) && (length == backingArray.length)) {
+			bytes = backingArray;
+		}
 	}
 
 	public ByteArrayId(
 			final String id ) {
-		this.id = StringUtils.stringToBinary(id);
+		this(
+				StringUtils.stringToBinary(id));
 	}
 
+	/**
+	 * 
+	 * @return the bytes of this ID; if this ID is a slice the bytes are copied
+	 *         out the first time this is called
+	 */
 	public byte[] getBytes() {
+		byte[] result = bytes;
+		if ((result == null) && (id != null)) {
+			// a race only results in the same bytes being copied twice
+			result = Arrays.copyOfRange(
+					id,
+					offset,
+					offset + length);
+			bytes = result;
+		}
+		return result;
+	}
+
+	/**
+	 * 
+	 * @return the array backing this ID, which may contain bytes outside of the
+	 *         ID, see {@link #getOffset()} and {@link #getLength()}
+	 */
+	public byte[] getBackingArray() {
 		return id;
 	}
 
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
 	public String getString() {
-		return StringUtils.stringFromBinary(id);
+		return StringUtils.stringFromBinary(getBytes());
 	}
 
 	@Override
@@ -35,9 +110,17 @@ public class ByteArrayId
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = (prime * result) + Arrays.hashCode(id);
+		int result = hash;
+		if (result == 0) {
+			// equivalent to Arrays.hashCode over the slice
+			int arrayHash = (id == null) ? 0 : 1;
+			for (int i = offset; i < (offset + length); i++) {
+				arrayHash = (31 * arrayHash) + id[i];
+			}
+			final int prime = 31;
+			result = prime + arrayHash;
+			hash = result;
+		}
 		return result;
 	}
 
@@ -54,8 +137,39 @@ public class ByteArrayId
 			return false;
 		}
 		final ByteArrayId other = (ByteArrayId) obj;
-		return Arrays.equals(
-				id,
-				other.id);
+		if ((id == null) || (other.id == null)) {
+			return id == other.id;
+		}
+		if (length != other.length) {
+			return false;
+		}
+		if ((hash != 0) && (other.hash != 0) && (hash != other.hash)) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (id[offset + i] != other.id[other.offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the bytes of the IDs lexicographically, treating each byte as
+	 * unsigned, which is the order in which Accumulo sorts row IDs
+	 */
+	@Override
+	public int compareTo(
+			final ByteArrayId other ) {
+		final int minLength = Math.min(
+				length,
+				other.length);
+		for (int i = 0; i < minLength; i++) {
+			final int difference = (id[offset + i] & 0xFF) - (other.id[other.offset + i] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return length - other.length;
 	}
 }
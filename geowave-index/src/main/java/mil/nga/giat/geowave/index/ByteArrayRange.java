@@ -1,11 +1,28 @@
 package mil.nga.giat.geowave.index;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
 /***
  * Defines a unit interval on a number line
  * 
  */
 public class ByteArrayRange
 {
+	private static final Comparator<ByteArrayRange> START_COMPARATOR = new Comparator<ByteArrayRange>() {
+		@Override
+		public int compare(
+				final ByteArrayRange range1,
+				final ByteArrayRange range2 ) {
+			return ByteArrayUtils.compare(
+					range1.getStart().getBytes(),
+					range2.getStart().getBytes());
+		}
+	};
+
 	private final ByteArrayId start;
 	private final ByteArrayId end;
 	private boolean singleValue;
@@ -83,4 +100,69 @@ public class ByteArrayRange
 		return true;
 	}
 
+	/**
+	 * Sort the given ranges by their start and merge every range that is a
+	 * duplicate of, overlaps, or is adjacent to another range. A range includes
+	 * every row that is prefixed by its end, so a range is adjacent to the
+	 * ranges that start with the row immediately following that prefix.
+	 * 
+	 * @param ranges
+	 *            the ranges to merge, which are not modified
+	 * @return the sorted, disjoint ranges covering the same rows
+	 */
+	public static List<ByteArrayRange> mergeIntersections(
+			final List<ByteArrayRange> ranges ) {
+		if ((ranges == null) || (ranges.size() < 2)) {
+			return ranges;
+		}
+		final List<ByteArrayRange> sortedRanges = new ArrayList<ByteArrayRange>(
+				ranges);
+		Collections.sort(
+				sortedRanges,
+				START_COMPARATOR);
+		final List<ByteArrayRange> mergedRanges = new ArrayList<ByteArrayRange>();
+		ByteArrayRange current = sortedRanges.get(0);
+		// the first row after the current range, null if it is unbounded
+		byte[] currentLimit = getFollowingPrefix(current.getEnd().getBytes());
+		for (int i = 1; i < sortedRanges.size(); i++) {
+			final ByteArrayRange next = sortedRanges.get(i);
+			if ((currentLimit == null) || (ByteArrayUtils.compare(
+					next.getStart().getBytes(),
+					currentLimit) <= 0)) {
+				final byte[] nextLimit = getFollowingPrefix(next.getEnd().getBytes());
+				if ((currentLimit != null) && ((nextLimit == null) || (ByteArrayUtils.compare(
+						nextLimit,
+						currentLimit) > 0))) {
+					current = new ByteArrayRange(
+							current.getStart(),
+							next.getEnd());
+					currentLimit = nextLimit;
+				}
+			}
+			else {
+				mergedRanges.add(current);
+				current = next;
+				currentLimit = getFollowingPrefix(current.getEnd().getBytes());
+			}
+		}
+		mergedRanges.add(current);
+		return mergedRanges;
+	}
+
+	private static byte[] getFollowingPrefix(
+			final byte[] prefix ) {
+		int length = prefix.length;
+		// trailing bytes that would overflow are dropped
+		while ((length > 0) && (prefix[length - 1] == (byte) 0xFF)) {
+			length--;
+		}
+		if (length == 0) {
+			return null;
+		}
+		final byte[] followingPrefix = Arrays.copyOf(
+				prefix,
+				length);
+		followingPrefix[length - 1]++;
+		return followingPrefix;
+	}
 }
@@ -111,6 +111,32 @@ public class ByteArrayUtils
 		return value[0] != 0;
 	}
 
+	/**
+	 * Compare two byte arrays lexicographically, treating each byte as
+	 * unsigned, which is the order of rows within a sorted key value store
+	 * 
+	 * @param array1
+	 *            the first array
+	 * @param array2
+	 *            the second array
+	 * @return a negative value, zero, or a positive value as the first array is
+	 *         less than, equal to, or greater than the second
+	 */
+	public static int compare(
+			final byte[] array1,
+			final byte[] array2 ) {
+		final int length = Math.min(
+				array1.length,
+				array2.length);
+		for (int i = 0; i < length; i++) {
+			final int difference = (array1[i] & 0xFF) - (array2[i] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return array1.length - array2.length;
+	}
+
 	/**
 	 * Converts a UUID to a byte array
 	 * 
@@ -0,0 +1,73 @@
+package mil.nga.giat.geowave.index;
+
+import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.TimeDefinition;
+import mil.nga.giat.geowave.index.dimension.UnboundedDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.hilbert.HilbertSFC;
+import mil.nga.giat.geowave.index.sfc.tiered.SingleTierSubStrategy;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
+import mil.nga.giat.geowave.index.sfc.xz.XZOrderIndexStrategy;
+import mil.nga.giat.geowave.index.sfc.zorder.ZOrderSFC;
+
+/**
+ * Registers the persistable classes of the index module, which use the IDs from
+ * 100 to 199
+ */
+public class IndexPersistableRegistry implements
+		PersistableRegistrySpi
+{
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 100,
+					NullNumericIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 101,
+					NumericIndexStrategyWrapper.class),
+			new PersistableIdAndClass(
+					(short) 102,
+					BasicDimensionDefinition.class),
+			new PersistableIdAndClass(
+					(short) 103,
+					LatitudeDefinition.class),
+			new PersistableIdAndClass(
+					(short) 104,
+					LongitudeDefinition.class),
+			new PersistableIdAndClass(
+					(short) 105,
+					TimeDefinition.class),
+			new PersistableIdAndClass(
+					(short) 106,
+					UnboundedDimensionDefinition.class),
+			new PersistableIdAndClass(
+					(short) 107,
+					TemporalBinningStrategy.class),
+			new PersistableIdAndClass(
+					(short) 108,
+					SFCDimensionDefinition.class),
+			new PersistableIdAndClass(
+					(short) 109,
+					HilbertSFC.class),
+			new PersistableIdAndClass(
+					(short) 110,
+					SingleTierSubStrategy.class),
+			new PersistableIdAndClass(
+					(short) 111,
+					TieredSFCIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 112,
+					ZOrderSFC.class),
+			new PersistableIdAndClass(
+					(short) 113,
+					XZOrderIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 114,
+					ShardedNumericIndexStrategy.class)
+		};
+	}
+}
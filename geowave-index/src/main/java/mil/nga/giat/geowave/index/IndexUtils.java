@@ -21,4 +21,24 @@ public class IndexUtils
 		return new BasicNumericDataset(
 				boundsPerDimension);
 	}
+
+	/**
+	 * Multiplies two non-negative longs, saturating at Long.MAX_VALUE rather
+	 * than overflowing, which is used to detect ID count estimates that do not
+	 * fit in a long
+	 * 
+	 * @param a
+	 *            a non-negative value
+	 * @param b
+	 *            a non-negative value
+	 * @return the product, or Long.MAX_VALUE if it overflows
+	 */
+	public static long multiplySaturated(
+			final long a,
+			final long b ) {
+		if ((a != 0) && (b > (Long.MAX_VALUE / a))) {
+			return Long.MAX_VALUE;
+		}
+		return a * b;
+	}
 }
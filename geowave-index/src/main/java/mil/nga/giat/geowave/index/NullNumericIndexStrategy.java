@@ -55,6 +55,15 @@ public class NullNumericIndexStrategy implements
 		return null;
 	}
 
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxRangeDecomposition ) {
+		// a null return here should be interpreted as negative to positive
+		// infinite
+		return null;
+	}
+
 	@Override
 	public List<ByteArrayId> getInsertionIds(
 			final MultiDimensionalNumericData indexedData ) {
@@ -36,6 +36,24 @@ public interface NumericIndexStrategy extends
 			MultiDimensionalNumericData indexedRange,
 			int maxEstimatedRangeDecomposition );
 
+	/**
+	 * Returns a single list of query ranges for the union of several numeric
+	 * ranges, such as a set of boxes along a route. The ranges are decomposed
+	 * together so that they share the range budget, and the resulting list is
+	 * sorted with duplicate, overlapping and adjacent ranges merged.
+	 * 
+	 * @param indexedRanges
+	 *            defines the numeric ranges for the query
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges provided by the decomposition of
+	 *            all of the numeric ranges, this is a best attempt and not a
+	 *            guarantee
+	 * @return a sorted List of disjoint query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			List<MultiDimensionalNumericData> indexedRanges,
+			int maxEstimatedRangeDecomposition );
+
 	/**
 	 * Returns a list of id's for insertion. The index strategy will use a
 	 * reasonable default for the maximum duplication of insertion IDs
@@ -7,6 +7,7 @@ import mil.nga.giat.geowave.index.dimension.TimeDefinition;
 import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
 import mil.nga.giat.geowave.index.sfc.SFCFactory.SFCType;
 import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexFactory;
+import mil.nga.giat.geowave.index.sfc.xz.XZOrderIndexStrategy;
 
 public interface NumericIndexStrategyFactory
 {
@@ -77,21 +78,66 @@ public interface NumericIndexStrategyFactory
 		}
 	}
 
+	/**
+	 * Creates spatial XZ-ordering index strategies, which give every geometry a
+	 * single row ID regardless of its extent, see
+	 * {@link mil.nga.giat.geowave.index.sfc.xz.XZOrderIndexStrategy}
+	 */
+	public static class SpatialXZFactory implements
+			NumericIndexStrategyFactory
+	{
+		// the smallest cells are about 0.0014 degrees across
+		public static final int XZ_RESOLUTION = 18;
+
+		@Override
+		public NumericIndexStrategy createIndexStrategy(
+				final DataType dataType ) {
+			switch (dataType) {
+				case OTHER:
+					throw new UnsupportedOperationException(
+							"There is not a default spatial XZ index strategy for 'OTHER' data types");
+				case RASTER:
+				case VECTOR:
+				default:
+					return new XZOrderIndexStrategy(
+							SpatialFactory.SPATIAL_DIMENSIONS,
+							XZ_RESOLUTION);
+			}
+		}
+	}
+
 	public static class SpatialTemporalFactory implements
 			NumericIndexStrategyFactory
 	{
 		private static final int LONGITUDE_BITS = 20;
 		private static final int LATITUDE_BITS = 20;
 		private static final int TIME_BITS = 20;
-		private static final NumericDimensionDefinition[] SPATIAL_TEMPORAL_DIMENSIONS = new NumericDimensionDefinition[] {
-			new LongitudeDefinition(),
-			new LatitudeDefinition(
-					true),
-			// just use the same range for latitude to make square sfc values in
-			// decimal degrees (EPSG:4326)
-			new TimeDefinition(
-					Unit.YEAR),
-		};
+		private final NumericDimensionDefinition[] spatialTemporalDimensions;
+
+		public SpatialTemporalFactory() {
+			this(
+					Unit.YEAR);
+		}
+
+		/**
+		 * 
+		 * @param timeUnit
+		 *            the unit of the temporal bins, this should be much larger
+		 *            than the typical query window, see
+		 *            {@link mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy#getRecommendedUnit(double, double, int)}
+		 */
+		public SpatialTemporalFactory(
+				final Unit timeUnit ) {
+			spatialTemporalDimensions = new NumericDimensionDefinition[] {
+				new LongitudeDefinition(),
+				new LatitudeDefinition(
+						true),
+				// just use the same range for latitude to make square sfc
+				// values in decimal degrees (EPSG:4326)
+				new TimeDefinition(
+						timeUnit),
+			};
+		}
 
 		@Override
 		public NumericIndexStrategy createIndexStrategy(
@@ -102,7 +148,7 @@ public interface NumericIndexStrategyFactory
 							"There is not a default spatial-temporal index strategy for 'OTHER' data types");
 				case RASTER:
 					return TieredSFCIndexFactory.createEqualIntervalPrecisionTieredStrategy(
-							SPATIAL_TEMPORAL_DIMENSIONS,
+							spatialTemporalDimensions,
 							new int[] {
 								LONGITUDE_BITS,
 								LATITUDE_BITS,
@@ -112,7 +158,7 @@ public interface NumericIndexStrategyFactory
 				case VECTOR:
 				default:
 					return TieredSFCIndexFactory.createEqualIntervalPrecisionTieredStrategy(
-							SPATIAL_TEMPORAL_DIMENSIONS,
+							spatialTemporalDimensions,
 							new int[] {
 								LONGITUDE_BITS,
 								LATITUDE_BITS,
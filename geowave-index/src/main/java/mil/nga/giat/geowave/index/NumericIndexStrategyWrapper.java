@@ -67,6 +67,15 @@ public class NumericIndexStrategyWrapper implements
 				maxRangeDecomposition);
 	}
 
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxRangeDecomposition ) {
+		return indexStrategy.getQueryRanges(
+				indexedRanges,
+				maxRangeDecomposition);
+	}
+
 	@Override
 	public List<ByteArrayId> getInsertionIds(
 			final MultiDimensionalNumericData indexedData ) {
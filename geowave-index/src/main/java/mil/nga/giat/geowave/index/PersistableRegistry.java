@@ -0,0 +1,164 @@
+package mil.nga.giat.geowave.index;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mil.nga.giat.geowave.index.PersistableRegistrySpi.PersistableIdAndClass;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This registry maps persistable classes to the compact IDs they are serialized
+ * with, and caches the no-arg constructor of every persistable class so that
+ * deserializing a persistable does not require any reflective lookups once its
+ * class has been seen. The IDs are registered by each
+ * {@link PersistableRegistrySpi} that is discovered on the classpath the first
+ * time the registry is used.
+ */
+public class PersistableRegistry
+{
+	private final static Logger LOGGER = Logger.getLogger(PersistableRegistry.class);
+	public static final short MAX_PERSISTABLE_ID = Short.MAX_VALUE;
+	// constructors of persistables that are serialized with their class name,
+	// either because they are not registered or because they were persisted
+	// before they were registered
+	private static final Map<String, Constructor<?>> CONSTRUCTORS_BY_CLASS_NAME = new ConcurrentHashMap<String, Constructor<?>>();
+
+	private PersistableRegistry() {}
+
+	/**
+	 * Get the registered ID of a persistable class
+	 * 
+	 * @param persistableClass
+	 *            the class
+	 * @return the ID of the class, or null if the class is not registered
+	 */
+	public static Short getPersistableId(
+			final Class<?> persistableClass ) {
+		return Registrations.ID_BY_CLASS.get(persistableClass);
+	}
+
+	/**
+	 * Get the no-arg constructor of a registered persistable class
+	 * 
+	 * @param persistableId
+	 *            the registered ID of the class
+	 * @return the accessible no-arg constructor, or null if nothing is
+	 *         registered with the ID
+	 */
+	public static Constructor<?> getConstructor(
+			final short persistableId ) {
+		return Registrations.CONSTRUCTOR_BY_ID.get(persistableId);
+	}
+
+	/**
+	 * Get the no-arg constructor of a class by name, which is only looked up
+	 * the first time it is requested
+	 * 
+	 * @param className
+	 *            the fully qualified class name
+	 * @return the accessible no-arg constructor
+	 * @throws ClassNotFoundException
+	 *             if the class cannot be found
+	 * @throws NoSuchMethodException
+	 *             if the class does not have a no-arg constructor
+	 */
+	public static Constructor<?> getConstructor(
+			final String className )
+			throws ClassNotFoundException,
+			NoSuchMethodException {
+		Constructor<?> constructor = CONSTRUCTORS_BY_CLASS_NAME.get(className);
+		if (constructor == null) {
+			constructor = getNoArgConstructor(Class.forName(className));
+			// a race only results in the same constructor being looked up
+			// twice
+			CONSTRUCTORS_BY_CLASS_NAME.put(
+					className,
+					constructor);
+		}
+		return constructor;
+	}
+
+	private static Constructor<?> getNoArgConstructor(
+			final Class<?> persistableClass )
+			throws NoSuchMethodException {
+		// use the no arg constructor and make sure its accessible
+		final Constructor<?> noArgConstructor = persistableClass.getDeclaredConstructor();
+		noArgConstructor.setAccessible(true);
+		return noArgConstructor;
+	}
+
+	/**
+	 * The registrations are loaded when this class is first initialized, which
+	 * the JVM guarantees happens once and is visible to every thread
+	 */
+	private static class Registrations
+	{
+		private static final Map<Class<?>, Short> ID_BY_CLASS = new HashMap<Class<?>, Short>();
+		private static final Map<Short, Constructor<?>> CONSTRUCTOR_BY_ID = new HashMap<Short, Constructor<?>>();
+
+		static {
+			final Iterator<PersistableRegistrySpi> providers = ServiceLoader.load(
+					PersistableRegistrySpi.class,
+					PersistableRegistry.class.getClassLoader()).iterator();
+			while (true) {
+				final PersistableRegistrySpi provider;
+				try {
+					if (!providers.hasNext()) {
+						break;
+					}
+					provider = providers.next();
+				}
+				catch (final ServiceConfigurationError e) {
+					LOGGER.error(
+							"Unable to load persistable registry provider",
+							e);
+					continue;
+				}
+				for (final PersistableIdAndClass persistable : provider.getSupportedPersistables()) {
+					register(persistable);
+				}
+			}
+		}
+
+		private static void register(
+				final PersistableIdAndClass persistable ) {
+			final short id = persistable.getPersistableId();
+			final Class<? extends Persistable> persistableClass = persistable.getPersistableClass();
+			if (id < 0) {
+				LOGGER.error("Persistable ID " + id + " of " + persistableClass.getName() + " is negative");
+				return;
+			}
+			final Constructor<?> existingConstructor = CONSTRUCTOR_BY_ID.get(id);
+			if (existingConstructor != null) {
+				LOGGER.error("Persistable ID " + id + " of " + persistableClass.getName() + " is already registered to " + existingConstructor.getDeclaringClass().getName());
+				return;
+			}
+			if (ID_BY_CLASS.containsKey(persistableClass)) {
+				LOGGER.error(persistableClass.getName() + " is already registered with persistable ID " + ID_BY_CLASS.get(persistableClass));
+				return;
+			}
+			final Constructor<?> constructor;
+			try {
+				constructor = getNoArgConstructor(persistableClass);
+			}
+			catch (final NoSuchMethodException e) {
+				LOGGER.error(
+						"Unable to register " + persistableClass.getName() + ", it does not have a no-arg constructor",
+						e);
+				return;
+			}
+			CONSTRUCTOR_BY_ID.put(
+					id,
+					constructor);
+			ID_BY_CLASS.put(
+					persistableClass,
+					id);
+		}
+	}
+}
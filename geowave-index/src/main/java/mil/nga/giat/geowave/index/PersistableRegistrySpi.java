@@ -0,0 +1,54 @@
+package mil.nga.giat.geowave.index;
+
+/**
+ * This is the service provider interface for registering persistable classes
+ * with a compact numeric ID, so that serialized persistables can be prefaced
+ * with the ID rather than the full class name. Providers are discovered using
+ * the Java Service Provider Interface, by listing the provider class in
+ * META-INF/services/mil.nga.giat.geowave.index.PersistableRegistrySpi.
+ * 
+ * An ID is persisted with the data, so once a class has been registered its ID
+ * must never be changed or reused for a different class. Every module should
+ * use its own block of IDs to avoid collisions.
+ */
+public interface PersistableRegistrySpi
+{
+	/**
+	 * 
+	 * @return the persistable classes supported by this provider, and the ID of
+	 *         each
+	 */
+	public PersistableIdAndClass[] getSupportedPersistables();
+
+	/**
+	 * A persistable class and the ID it is serialized with
+	 */
+	public static class PersistableIdAndClass
+	{
+		private final short persistableId;
+		private final Class<? extends Persistable> persistableClass;
+
+		/**
+		 * 
+		 * @param persistableId
+		 *            the ID, which must be between 0 and
+		 *            {@link PersistableRegistry#MAX_PERSISTABLE_ID}
+		 * @param persistableClass
+		 *            the class, which must have a no-arg constructor
+		 */
+		public PersistableIdAndClass(
+				final short persistableId,
+				final Class<? extends Persistable> persistableClass ) {
+			this.persistableId = persistableId;
+			this.persistableClass = persistableClass;
+		}
+
+		public short getPersistableId() {
+			return persistableId;
+		}
+
+		public Class<? extends Persistable> getPersistableClass() {
+			return persistableClass;
+		}
+	}
+}
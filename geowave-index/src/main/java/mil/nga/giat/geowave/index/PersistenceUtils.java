@@ -16,6 +16,7 @@ import org.apache.log4j.Logger;
 public class PersistenceUtils
 {
 	private final static Logger LOGGER = Logger.getLogger(PersistenceUtils.class);
+	private final static int REGISTERED_ID_FLAG = 0x8000;
 
 	public static byte[] toBinary(
 			final Collection<Persistable> persistables ) {
@@ -41,10 +42,19 @@ public class PersistenceUtils
 
 	public static byte[] toBinary(
 			final Persistable persistable ) {
+		final byte[] persistableBinary = persistable.toBinary();
+		final Short persistableId = PersistableRegistry.getPersistableId(persistable.getClass());
+		if (persistableId != null) {
+			// preface the payload with the registered ID, flagged by the high
+			// bit which is never set in the length of a class name
+			final ByteBuffer buf = ByteBuffer.allocate(2 + persistableBinary.length);
+			buf.putShort((short) (persistableId | REGISTERED_ID_FLAG));
+			buf.put(persistableBinary);
+			return buf.array();
+		}
 		// preface the payload with the class name and a length of the class
 		// name
 		final byte[] className = StringUtils.stringToBinary(persistable.getClass().getName());
-		final byte[] persistableBinary = persistable.toBinary();
 		final int classNameLength = className.length;
 		final ByteBuffer buf = ByteBuffer.allocate(4 + classNameLength + persistableBinary.length);
 		buf.putInt(classNameLength);
@@ -77,63 +87,80 @@ public class PersistenceUtils
 			final byte[] bytes,
 			final Class<T> expectedType ) {
 		final ByteBuffer buf = ByteBuffer.wrap(bytes);
-		final int classNameLength = buf.getInt();
-		final byte[] classNameBinary = new byte[classNameLength];
-		final byte[] persistableBinary = new byte[bytes.length - classNameLength - 4];
-		buf.get(classNameBinary);
-
-		final String className = StringUtils.stringFromBinary(classNameBinary);
-
-		final T retVal = classFactory(
-				className,
-				expectedType);
+		final T retVal;
+		if ((bytes.length >= 2) && ((bytes[0] & 0x80) != 0)) {
+			final short persistableId = (short) (buf.getShort() & ~REGISTERED_ID_FLAG);
+			retVal = classFactory(
+					PersistableRegistry.getConstructor(persistableId),
+					"persistable ID " + persistableId,
+					expectedType);
+		}
+		else {
+			// the payload is prefaced with the class name, either because the
+			// class is not registered or because it was persisted before the
+			// class was registered
+			final int classNameLength = buf.getInt();
+			final byte[] classNameBinary = new byte[classNameLength];
+			buf.get(classNameBinary);
+
+			final String className = StringUtils.stringFromBinary(classNameBinary);
+
+			retVal = classFactory(
+					className,
+					expectedType);
+		}
 		if (retVal != null) {
+			final byte[] persistableBinary = new byte[buf.remaining()];
 			buf.get(persistableBinary);
 			retVal.fromBinary(persistableBinary);
 		}
 		return retVal;
 	}
 
-	@SuppressWarnings("unchecked")
 	public static <T> T classFactory(
 			final String className,
 			final Class<T> expectedType ) {
-		Class<?> factoryType = null;
-
+		Constructor<?> noArgConstructor = null;
 		try {
-			factoryType = Class.forName(className);
+			noArgConstructor = PersistableRegistry.getConstructor(className);
 		}
-		catch (final Throwable e) {
+		catch (final ClassNotFoundException e) {
 			LOGGER.warn(
 					"error creating class: could not find class " + className,
 					e);
 		}
-
-		if (factoryType != null) {
-			Object factoryClassInst = null;
-
-			try {
-				// use the no arg constructor and make sure its accessible
-				final Constructor<?> noArgConstructor = factoryType.getDeclaredConstructor();
-				noArgConstructor.setAccessible(true);
-				factoryClassInst = noArgConstructor.newInstance();
-			}
-			catch (final Throwable e) {
-				LOGGER.warn(
-						"error creating class: could not create class " + className,
-						e);
-			}
-
-			if (factoryClassInst != null) {
-				if (!expectedType.isAssignableFrom(factoryClassInst.getClass())) {
-					LOGGER.warn("error creating class: " + className + " does not implement " + expectedType.getCanonicalName());
-				}
-				else {
-					return ((T) factoryClassInst);
-				}
-			}
+		catch (final Throwable e) {
+			LOGGER.warn(
+					"error creating class: could not create class " + className,
+					e);
 		}
+		return classFactory(
+				noArgConstructor,
+				className,
+				expectedType);
+	}
 
+	@SuppressWarnings("unchecked")
+	private static <T> T classFactory(
+			final Constructor<?> noArgConstructor,
+			final String description,
+			final Class<T> expectedType ) {
+		if (noArgConstructor == null) {
+			LOGGER.warn("error creating class: nothing is registered for " + description);
+			return null;
+		}
+		if (!expectedType.isAssignableFrom(noArgConstructor.getDeclaringClass())) {
+			LOGGER.warn("error creating class: " + noArgConstructor.getDeclaringClass().getName() + " does not implement " + expectedType.getCanonicalName());
+			return null;
+		}
+		try {
+			return (T) noArgConstructor.newInstance();
+		}
+		catch (final Throwable e) {
+			LOGGER.warn(
+					"error creating class: could not create class " + noArgConstructor.getDeclaringClass().getName(),
+					e);
+		}
 		return null;
 	}
 }
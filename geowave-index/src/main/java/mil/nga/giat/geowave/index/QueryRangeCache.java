@@ -0,0 +1,348 @@
+package mil.nga.giat.geowave.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
+
+/**
+ * This class is a bounded, thread-safe, least recently used cache of query
+ * range decompositions. Repeated queries (such as the same map tile being
+ * requested over and over) can re-use a previous decomposition rather than
+ * re-running the space filling curve range decomposition.
+ * 
+ * Entries are keyed on the persisted form of the index strategy, so that equal
+ * strategies loaded separately share entries, the maximum range decomposition,
+ * and the query constraints quantized to the highest precision cells of the
+ * index strategy so that queries that cover the same set of cells share an
+ * entry. The constraints are normalized the same way the space filling curve
+ * normalizes them, with the minimum inclusive and the maximum exclusive, so two
+ * queries only share an entry if they cover exactly the same cells. Dimensions
+ * that are binned (such as time) are not quantized but are keyed on their exact
+ * values because their bins are not aligned to a fixed origin.
+ * 
+ * The cache is split into independently locked segments, each evicting its
+ * least recently used entries once it exceeds its share of the maximum size.
+ */
+public class QueryRangeCache
+{
+	private static final int DEFAULT_SEGMENT_COUNT = 16;
+	private final Segment[] segments;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	// the persisted form of each strategy is only computed once, and is
+	// released along with the strategy
+	private final Map<NumericIndexStrategy, ByteArrayId> strategyKeys = Collections.synchronizedMap(new WeakHashMap<NumericIndexStrategy, ByteArrayId>());
+
+	/**
+	 * 
+	 * @param maxSize
+	 *            the maximum number of decompositions to keep in the cache
+	 */
+	public QueryRangeCache(
+			final int maxSize ) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+					"Cache size must be positive");
+		}
+		final int segmentCount = Math.min(
+				DEFAULT_SEGMENT_COUNT,
+				maxSize);
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			// distribute the remainder so the segments add up to the max size
+			segments[i] = new Segment(
+					(maxSize / segmentCount) + ((i < (maxSize % segmentCount)) ? 1 : 0));
+		}
+	}
+
+	/**
+	 * Get the query ranges for the given constraints, using a previously cached
+	 * decomposition if one exists for an equivalent query
+	 * 
+	 * @param indexStrategy
+	 *            the index strategy to decompose the constraints with
+	 * @param indexedRange
+	 *            the query constraints
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges to decompose the query into
+	 * @return the query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final NumericIndexStrategy indexStrategy,
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition ) {
+		return getQueryRanges(
+				indexStrategy,
+				indexedRange,
+				maxRangeDecomposition,
+				null);
+	}
+
+	/**
+	 * Get the query ranges for the given constraints restricted to the tiers
+	 * that contain data, using a previously cached decomposition if one exists
+	 * for an equivalent query over the same tiers
+	 * 
+	 * @param indexStrategy
+	 *            the tiered index strategy to decompose the constraints with
+	 * @param indexedRange
+	 *            the query constraints
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges to decompose the query into
+	 * @param occupiedTierIds
+	 *            the tier IDs that contain data, or null if unknown
+	 * @return the query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final TieredSFCIndexStrategy indexStrategy,
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds ) {
+		return getQueryRanges(
+				(NumericIndexStrategy) indexStrategy,
+				indexedRange,
+				maxRangeDecomposition,
+				occupiedTierIds);
+	}
+
+	private List<ByteArrayRange> getQueryRanges(
+			final NumericIndexStrategy indexStrategy,
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds ) {
+		final QueryKey key = new QueryKey(
+				indexStrategy,
+				getStrategyKey(indexStrategy),
+				indexedRange,
+				maxRangeDecomposition,
+				occupiedTierIds);
+		final Segment segment = segments[(key.hashCode() & Integer.MAX_VALUE) % segments.length];
+		List<ByteArrayRange> ranges = segment.get(key);
+		if (ranges != null) {
+			hitCount.incrementAndGet();
+		}
+		else {
+			missCount.incrementAndGet();
+			// decompose outside of the lock, if two threads happen to miss on
+			// the same key concurrently they will both compute an identical
+			// result
+			if (occupiedTierIds != null) {
+				ranges = ((TieredSFCIndexStrategy) indexStrategy).getQueryRanges(
+						indexedRange,
+						maxRangeDecomposition,
+						occupiedTierIds);
+			}
+			else {
+				ranges = indexStrategy.getQueryRanges(
+						indexedRange,
+						maxRangeDecomposition);
+			}
+			segment.put(
+					key,
+					ranges);
+		}
+		// the caller is free to modify the returned list
+		return new ArrayList<ByteArrayRange>(
+				ranges);
+	}
+
+	private ByteArrayId getStrategyKey(
+			final NumericIndexStrategy indexStrategy ) {
+		ByteArrayId strategyKey = strategyKeys.get(indexStrategy);
+		if (strategyKey == null) {
+			strategyKey = new ByteArrayId(
+					PersistenceUtils.toBinary(indexStrategy));
+			strategyKeys.put(
+					indexStrategy,
+					strategyKey);
+		}
+		return strategyKey;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public int size() {
+		int size = 0;
+		for (final Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	public void clear() {
+		for (final Segment segment : segments) {
+			segment.clear();
+		}
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	private static class Segment
+	{
+		private final LinkedHashMap<QueryKey, List<ByteArrayRange>> entries;
+
+		public Segment(
+				final int maxSize ) {
+			entries = new LinkedHashMap<QueryKey, List<ByteArrayRange>>(
+					16,
+					0.75f,
+					true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						final Map.Entry<QueryKey, List<ByteArrayRange>> eldest ) {
+					return super.size() > maxSize;
+				}
+			};
+		}
+
+		public synchronized List<ByteArrayRange> get(
+				final QueryKey key ) {
+			return entries.get(key);
+		}
+
+		public synchronized void put(
+				final QueryKey key,
+				final List<ByteArrayRange> ranges ) {
+			entries.put(
+					key,
+					ranges);
+		}
+
+		public synchronized int size() {
+			return entries.size();
+		}
+
+		public synchronized void clear() {
+			entries.clear();
+		}
+	}
+
+	private static class QueryKey
+	{
+		private final ByteArrayId strategyKey;
+		private final int maxRangeDecomposition;
+		private final long[] cells;
+		private final Set<Byte> occupiedTierIds;
+		private final int hashCode;
+
+		public QueryKey(
+				final NumericIndexStrategy indexStrategy,
+				final ByteArrayId strategyKey,
+				final MultiDimensionalNumericData indexedRange,
+				final int maxRangeDecomposition,
+				final Set<Byte> occupiedTierIds ) {
+			this.strategyKey = strategyKey;
+			this.maxRangeDecomposition = maxRangeDecomposition;
+			// copy the tiers so that the key is not affected by later changes
+			this.occupiedTierIds = (occupiedTierIds == null) ? null : new HashSet<Byte>(
+					occupiedTierIds);
+			final NumericDimensionDefinition[] dimensions = indexStrategy.getOrderedDimensionDefinitions();
+			final double[] cellSizes = indexStrategy.getHighestPrecisionIdRangePerDimension();
+			final double[] mins = indexedRange.getMinValuesPerDimension();
+			final double[] maxes = indexedRange.getMaxValuesPerDimension();
+			cells = new long[mins.length * 2];
+			for (int d = 0; d < mins.length; d++) {
+				if ((d < dimensions.length) && (d < cellSizes.length) && (dimensions[d].getFixedBinIdSize() <= 0) && (cellSizes[d] > 0)) {
+					// the highest precision cells evenly divide the range of
+					// the dimension into a power of 2 bins
+					final long bins = Math.round(dimensions[d].getRange() / cellSizes[d]);
+					cells[2 * d] = toCell(
+							dimensions[d],
+							mins[d],
+							bins,
+							true);
+					cells[(2 * d) + 1] = toCell(
+							dimensions[d],
+							maxes[d],
+							bins,
+							false);
+				}
+				else {
+					cells[2 * d] = Double.doubleToLongBits(mins[d]);
+					cells[(2 * d) + 1] = Double.doubleToLongBits(maxes[d]);
+				}
+			}
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + strategyKey.hashCode();
+			result = (prime * result) + maxRangeDecomposition;
+			result = (prime * result) + Arrays.hashCode(cells);
+			result = (prime * result) + ((occupiedTierIds == null) ? 0 : occupiedTierIds.hashCode());
+			hashCode = result;
+		}
+
+		/**
+		 * Normalize the value to a cell the same way the space filling curve
+		 * does, so that equal cells always mean the same coverage
+		 */
+		private static long toCell(
+				final NumericDimensionDefinition dimension,
+				final double value,
+				final long bins,
+				final boolean isMin ) {
+			// clamp to the bounds, the index strategy does the same when
+			// normalizing so any value outside the bounds is the same cell
+			final double normalizedValue = Math.max(
+					Math.min(
+							dimension.normalize(value),
+							1),
+					0);
+			if (isMin) {
+				return (long) Math.min(
+						Math.floor(normalizedValue * bins),
+						bins - 1);
+			}
+			return (long) Math.max(
+					Math.ceil(normalizedValue * bins) - 1L,
+					0);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			final QueryKey other = (QueryKey) obj;
+			if ((hashCode != other.hashCode) || (maxRangeDecomposition != other.maxRangeDecomposition) || !strategyKey.equals(other.strategyKey) || !Arrays.equals(
+					cells,
+					other.cells)) {
+				return false;
+			}
+			if (occupiedTierIds == null) {
+				return other.occupiedTierIds == null;
+			}
+			return occupiedTierIds.equals(other.occupiedTierIds);
+		}
+	}
+}
@@ -0,0 +1,318 @@
+package mil.nga.giat.geowave.index;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+
+/**
+ * This index strategy wraps another index strategy and prefixes each of its row
+ * IDs with a single shard byte. The shard is derived from the hash of the data
+ * ID, so entries that would otherwise be written to the same row ID prefix
+ * (such as the newest temporal bin during time ordered ingest) are spread
+ * across N contiguous partitions of the table, and therefore across tablet
+ * servers. Each query range of the wrapped strategy is fanned out to every
+ * shard, and the batch scanner scans the shards in parallel.
+ */
+public class ShardedNumericIndexStrategy implements
+		NumericIndexStrategy
+{
+	public static final int MAX_SHARD_COUNT = 256;
+	private NumericIndexStrategy indexStrategy;
+	private int shardCount;
+	// the wrapped strategy may not override equals and hashCode, so it is
+	// compared by its persisted form, which keeps the ID of this strategy the
+	// same after it is persisted
+	private byte[] indexStrategyBinary;
+	private int hashCode;
+
+	protected ShardedNumericIndexStrategy() {}
+
+	/**
+	 * 
+	 * @param indexStrategy
+	 *            the index strategy to shard
+	 * @param shardCount
+	 *            the number of shards, between 1 and 256, this should be about
+	 *            the number of tablet servers
+	 */
+	public ShardedNumericIndexStrategy(
+			final NumericIndexStrategy indexStrategy,
+			final int shardCount ) {
+		if ((shardCount < 1) || (shardCount > MAX_SHARD_COUNT)) {
+			throw new IllegalArgumentException(
+					"The shard count must be between 1 and " + MAX_SHARD_COUNT + " but was " + shardCount);
+		}
+		this.indexStrategy = indexStrategy;
+		this.shardCount = shardCount;
+		init(PersistenceUtils.toBinary(indexStrategy));
+	}
+
+	private void init(
+			final byte[] indexStrategyBinary ) {
+		this.indexStrategyBinary = indexStrategyBinary;
+		final int prime = 31;
+		int result = 1;
+		result = (prime * result) + Arrays.hashCode(indexStrategyBinary);
+		result = (prime * result) + shardCount;
+		hashCode = result;
+	}
+
+	public NumericIndexStrategy getIndexStrategy() {
+		return indexStrategy;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * Get the insertion IDs of an entry, prefixed by the shard of its data ID.
+	 * This should be preferred over the methods without a data ID, which can
+	 * only derive the shard from the row ID and therefore do not spread entries
+	 * with the same row ID.
+	 * 
+	 * @param indexedData
+	 *            the range of the entry in the index dimensions
+	 * @param dataId
+	 *            the data ID of the entry
+	 * @return the insertion IDs
+	 */
+	public List<ByteArrayId> getInsertionIds(
+			final MultiDimensionalNumericData indexedData,
+			final ByteArrayId dataId ) {
+		return prefixInsertionIds(
+				indexStrategy.getInsertionIds(indexedData),
+				dataId);
+	}
+
+	/**
+	 * See {@link #getInsertionIds(MultiDimensionalNumericData, ByteArrayId)}
+	 * 
+	 * @param indexedData
+	 *            the range of the entry in the index dimensions
+	 * @param maxDuplicateInsertionIds
+	 *            the maximum number of insertion IDs of the wrapped strategy
+	 * @param dataId
+	 *            the data ID of the entry
+	 * @return the insertion IDs
+	 */
+	public List<ByteArrayId> getInsertionIds(
+			final MultiDimensionalNumericData indexedData,
+			final int maxDuplicateInsertionIds,
+			final ByteArrayId dataId ) {
+		return prefixInsertionIds(
+				indexStrategy.getInsertionIds(
+						indexedData,
+						maxDuplicateInsertionIds),
+				dataId);
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final MultiDimensionalNumericData indexedData ) {
+		return prefixInsertionIds(
+				indexStrategy.getInsertionIds(indexedData),
+				null);
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final MultiDimensionalNumericData indexedData,
+			final int maxDuplicateInsertionIds ) {
+		return prefixInsertionIds(
+				indexStrategy.getInsertionIds(
+						indexedData,
+						maxDuplicateInsertionIds),
+				null);
+	}
+
+	private List<ByteArrayId> prefixInsertionIds(
+			final List<ByteArrayId> insertionIds,
+			final ByteArrayId dataId ) {
+		final List<ByteArrayId> shardedIds = new ArrayList<ByteArrayId>(
+				insertionIds.size());
+		for (final ByteArrayId insertionId : insertionIds) {
+			// without a data ID, each row ID of the wrapped strategy is
+			// consistently assigned a shard
+			shardedIds.add(new ByteArrayId(
+					prefix(
+							getShard(dataId != null ? dataId : insertionId),
+							insertionId.getBytes())));
+		}
+		return shardedIds;
+	}
+
+	/**
+	 * The shard is persisted as the first byte of each row ID, so it is derived
+	 * from a hash of the ID bytes defined here rather than from
+	 * {@link ByteArrayId#hashCode()}, which is free to change
+	 * 
+	 * @param id
+	 *            the ID to derive the shard from
+	 * @return the shard of the ID
+	 */
+	public byte getShard(
+			final ByteArrayId id ) {
+		int hash = Arrays.hashCode(id.getBytes());
+		// spread the low bits, as small shard counts only use the low bits
+		hash ^= (hash >>> 16);
+		return (byte) ((hash & 0x7fffffff) % shardCount);
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange ) {
+		return fanOut(indexStrategy.getQueryRanges(indexedRange));
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition ) {
+		return fanOut(indexStrategy.getQueryRanges(
+				indexedRange,
+				getMaxRangeDecompositionPerShard(maxRangeDecomposition)));
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxRangeDecomposition ) {
+		return fanOut(indexStrategy.getQueryRanges(
+				indexedRanges,
+				getMaxRangeDecompositionPerShard(maxRangeDecomposition)));
+	}
+
+	private int getMaxRangeDecompositionPerShard(
+			final int maxRangeDecomposition ) {
+		if (maxRangeDecomposition <= 0) {
+			return maxRangeDecomposition;
+		}
+		// every range is repeated for each shard
+		return Math.max(
+				1,
+				maxRangeDecomposition / shardCount);
+	}
+
+	private List<ByteArrayRange> fanOut(
+			final List<ByteArrayRange> ranges ) {
+		final List<ByteArrayRange> shardedRanges = new ArrayList<ByteArrayRange>(
+				ranges.size() * shardCount);
+		// the ranges are ordered by shard, and within each shard in the order
+		// of the wrapped strategy
+		for (int shard = 0; shard < shardCount; shard++) {
+			for (final ByteArrayRange range : ranges) {
+				shardedRanges.add(new ByteArrayRange(
+						new ByteArrayId(
+								prefix(
+										(byte) shard,
+										range.getStart().getBytes())),
+						new ByteArrayId(
+								prefix(
+										(byte) shard,
+										range.getEnd().getBytes()))));
+			}
+		}
+		return shardedRanges;
+	}
+
+	private static byte[] prefix(
+			final byte shard,
+			final byte[] id ) {
+		final byte[] shardedId = new byte[id.length + 1];
+		shardedId[0] = shard;
+		System.arraycopy(
+				id,
+				0,
+				shardedId,
+				1,
+				id.length);
+		return shardedId;
+	}
+
+	private static ByteArrayId removeShard(
+			final ByteArrayId insertionId ) {
+		return new ByteArrayId(
+				insertionId.getBackingArray(),
+				insertionId.getOffset() + 1,
+				insertionId.getLength() - 1);
+	}
+
+	@Override
+	public MultiDimensionalNumericData getRangeForId(
+			final ByteArrayId insertionId ) {
+		return indexStrategy.getRangeForId(removeShard(insertionId));
+	}
+
+	@Override
+	public long[] getCoordinatesPerDimension(
+			final ByteArrayId insertionId ) {
+		return indexStrategy.getCoordinatesPerDimension(removeShard(insertionId));
+	}
+
+	@Override
+	public NumericDimensionDefinition[] getOrderedDimensionDefinitions() {
+		return indexStrategy.getOrderedDimensionDefinitions();
+	}
+
+	@Override
+	public double[] getHighestPrecisionIdRangePerDimension() {
+		return indexStrategy.getHighestPrecisionIdRangePerDimension();
+	}
+
+	@Override
+	public String getId() {
+		return StringUtils.intToString(hashCode());
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final ByteBuffer buf = ByteBuffer.allocate(4 + indexStrategyBinary.length);
+		buf.putInt(shardCount);
+		buf.put(indexStrategyBinary);
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		shardCount = buf.getInt();
+		final byte[] delegateBinary = new byte[bytes.length - 4];
+		buf.get(delegateBinary);
+		indexStrategy = PersistenceUtils.fromBinary(
+				delegateBinary,
+				NumericIndexStrategy.class);
+		init(delegateBinary);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(
+			final Object obj ) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final ShardedNumericIndexStrategy other = (ShardedNumericIndexStrategy) obj;
+		if ((hashCode != other.hashCode) || (shardCount != other.shardCount)) {
+			return false;
+		}
+		return Arrays.equals(
+				indexStrategyBinary,
+				other.indexStrategyBinary);
+	}
+}
@@ -20,11 +20,12 @@ public class TimeDefinition extends
 
 	/**
 	 * Constructor used to create a new Unbounded Binning Strategy based upon a
-	 * temporal binning strategy of the unit parameter. The unit can be of DAY,
-	 * MONTH, or YEAR.
+	 * temporal binning strategy of the unit parameter. The unit can be of
+	 * MINUTE, HOUR, DAY, WEEK, MONTH, or YEAR.
 	 * 
 	 * @param unit
-	 *            an enumeration of temporal units (DAY, MONTH, or YEAR)
+	 *            an enumeration of temporal units (MINUTE, HOUR, DAY, WEEK,
+	 *            MONTH, or YEAR)
 	 */
 	public TimeDefinition(
 			final Unit unit ) {
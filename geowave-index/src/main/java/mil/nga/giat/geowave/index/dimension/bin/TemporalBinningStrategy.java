@@ -3,9 +3,11 @@ package mil.nga.giat.geowave.index.dimension.bin;
 import java.nio.ByteBuffer;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import mil.nga.giat.geowave.index.StringUtils;
@@ -14,21 +16,38 @@ import mil.nga.giat.geowave.index.sfc.data.NumericRange;
 
 /**
  * This class is useful for establishing a consistent binning strategy using a
- * unit of time (currently day, month, or year). Each bin will then be defined
- * by the boundaries of that unit within the timezone given in the constructor.
- * So if the unit is year and the data spreads across 2011-2013, the bins will
- * be 2011, 2012, and 2013. The unit chosen should represent a much more
- * significant range than the average query range (at least 20x larger) for
- * efficiency purposes. So if the average query is for a 24 hour period, the
- * unit should not be a day, but could be perhaps a month or a year (depending
- * on the temporal extent of the dataset).
+ * unit of time (minute, hour, day, week, month, or year). Each bin will then be
+ * defined by the boundaries of that unit within the timezone given in the
+ * constructor. So if the unit is year and the data spreads across 2011-2013,
+ * the bins will be 2011, 2012, and 2013. The unit chosen should represent a
+ * much more significant range than the average query range (at least 20x
+ * larger) for efficiency purposes. So if the average query is for a 24 hour
+ * period, the unit should not be a day, but could be perhaps a month or a year
+ * (depending on the temporal extent of the dataset).
+ * 
+ * Bin boundaries for years between 1900 and 2100 are precomputed once per unit
+ * and timezone and shared by all instances, so that binning a value is a binary
+ * search rather than a calendar computation. Values outside of that range fall
+ * back to computing the bin with a calendar, and both approaches produce
+ * identical bin IDs.
+ * 
+ * Weeks always start on Monday regardless of the default locale. Minutes and
+ * hours are fixed length bins computed arithmetically, aligned to and labeled
+ * by the standard time of the timezone (ignoring daylight savings time) so that
+ * every bin is exactly the same length and no two bins share the same ID.
  */
 public class TemporalBinningStrategy implements
 		BinningStrategy
 {
 	public static enum Unit {
+		MINUTE(
+				Calendar.MINUTE),
+		HOUR(
+				Calendar.HOUR_OF_DAY),
 		DAY(
 				Calendar.DAY_OF_MONTH),
+		WEEK(
+				Calendar.WEEK_OF_YEAR),
 		MONTH(
 				Calendar.MONTH),
 		YEAR(
@@ -57,15 +76,28 @@ public class TemporalBinningStrategy implements
 		}
 	}
 
+	protected static final long MILLIS_PER_MINUTE = 60000L;
+	protected static final long MILLIS_PER_HOUR = 3600000L;
 	protected static final long MILLIS_PER_DAY = 86400000L;
+	/**
+	 * the default maximum number of bins that the data's temporal extent should
+	 * span when recommending a unit
+	 */
+	public static final int DEFAULT_MAX_RECOMMENDED_BIN_COUNT = 1000;
 	private static final NumberFormat TWO_DIGIT_NUMBER = NumberFormat.getIntegerInstance();
 	{
 		TWO_DIGIT_NUMBER.setMinimumIntegerDigits(2);
 		TWO_DIGIT_NUMBER.setMaximumIntegerDigits(2);
 	}
 
+	private static final int MIN_PRECOMPUTED_YEAR = 1900;
+	private static final int MAX_PRECOMPUTED_YEAR = 2100;
+	private static final ConcurrentHashMap<String, BinBoundaries> BIN_BOUNDARIES_CACHE = new ConcurrentHashMap<String, BinBoundaries>();
+
 	private Unit unit;
 	private String timezone;
+	private transient TimeZone timeZoneInstance;
+	private transient BinBoundaries binBoundaries;
 
 	protected TemporalBinningStrategy() {}
 
@@ -100,21 +132,72 @@ public class TemporalBinningStrategy implements
 	@Override
 	public BinValue getBinnedValue(
 			final double value ) {
+		final long millis = (long) value;
+		if (isFixedLength()) {
+			final long epoch = getFixedLengthEpoch(millis);
+			return new BinValue(
+					getFixedLengthBinId(epoch),
+					millis - epoch);
+		}
+		final BinBoundaries boundaries = getBinBoundaries();
+		final int binIndex = boundaries.getBinIndex(millis);
+		if (binIndex < 0) {
+			return getBinnedValueFromCalendar(millis);
+		}
+		return new BinValue(
+				getBinId(boundaries.binFields[binIndex]),
+				millis - boundaries.binStarts[binIndex]);
+	}
+
+	private BinValue getBinnedValueFromCalendar(
+			final long millis ) {
 		// convert to a calendar and subtract the epoch for the bin
-		final Calendar epochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		epochCal.setTimeInMillis((long) value);
+		final Calendar epochCal = Calendar.getInstance(getTimeZone());
+		epochCal.setTimeInMillis(millis);
 		setToEpoch(epochCal);
-		// use the value to get the bin ID (although the epoch should work fine
-		// too)
-		final Calendar valueCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		valueCal.setTimeInMillis((long) value);
-
+		// use the epoch to get the bin ID, for weeks the start of the bin can
+		// be in a different month or year than the value
 		return new BinValue(
-				getBinId(valueCal),
-				valueCal.getTimeInMillis() - epochCal.getTimeInMillis());
+				getBinId(epochCal),
+				millis - epochCal.getTimeInMillis());
+	}
+
+	private TimeZone getTimeZone() {
+		// looking up a timezone by name is relatively expensive so only do it
+		// once, the time zone is never modified so it is safe to share
+		if (timeZoneInstance == null) {
+			timeZoneInstance = TimeZone.getTimeZone(timezone);
+		}
+		return timeZoneInstance;
+	}
+
+	private BinBoundaries getBinBoundaries() {
+		if (binBoundaries == null) {
+			final String key = unit.name() + "_" + timezone;
+			BinBoundaries boundaries = BIN_BOUNDARIES_CACHE.get(key);
+			if (boundaries == null) {
+				// if two threads compute the same boundaries concurrently,
+				// they are identical so either one is fine to keep
+				boundaries = new BinBoundaries(
+						this);
+				final BinBoundaries existing = BIN_BOUNDARIES_CACHE.putIfAbsent(
+						key,
+						boundaries);
+				if (existing != null) {
+					boundaries = existing;
+				}
+			}
+			binBoundaries = boundaries;
+		}
+		return binBoundaries;
 	}
 
 	private long getBinSizeMillis() {
+		return getBinSizeMillis(unit);
+	}
+
+	private static long getBinSizeMillis(
+			final Unit unit ) {
 		long binSizeMillis = MILLIS_PER_DAY;
 		// use the max possible value for that unit as the bin size
 		switch (unit) {
@@ -125,15 +208,63 @@ public class TemporalBinningStrategy implements
 			case MONTH:
 				binSizeMillis *= 31;
 				break;
+			case WEEK:
+				binSizeMillis *= 7;
+				break;
 			case DAY:
+				break;
+			case HOUR:
+				binSizeMillis = MILLIS_PER_HOUR;
+				break;
+			case MINUTE:
+				binSizeMillis = MILLIS_PER_MINUTE;
+				break;
 		}
 		return binSizeMillis;
 
 	}
 
+	/**
+	 * Recommend the finest unit for which the given temporal extent spans no
+	 * more than the maximum number of bins. Finer units give better temporal
+	 * precision within a bin (and therefore fewer false positives for short
+	 * queries) at the cost of more bins for queries covering long periods.
+	 * 
+	 * @param minMillis
+	 *            the earliest time of the data
+	 * @param maxMillis
+	 *            the latest time of the data
+	 * @param maxBinCount
+	 *            the maximum number of bins the extent should span
+	 * @return the recommended unit, YEAR if no unit is coarse enough
+	 */
+	public static Unit getRecommendedUnit(
+			final double minMillis,
+			final double maxMillis,
+			final int maxBinCount ) {
+		final double extent = Math.max(
+				maxMillis - minMillis,
+				0);
+		// the units are declared from finest to coarsest
+		for (final Unit u : Unit.values()) {
+			// an extent can straddle one more bin than it fully covers
+			if ((Math.ceil(extent / getBinSizeMillis(u)) + 1) <= maxBinCount) {
+				return u;
+			}
+		}
+		return Unit.YEAR;
+	}
+
 	@SuppressFBWarnings(value = "SF_SWITCH_FALLTHROUGH", justification = "Fallthrough intentional for time parsing")
 	protected void setToEpoch(
 			final Calendar value ) {
+		if (unit == Unit.WEEK) {
+			// go back to the most recent monday rather than relying on the
+			// first day of the week of the calendar's locale
+			value.add(
+					Calendar.DAY_OF_MONTH,
+					-((value.get(Calendar.DAY_OF_WEEK) - Calendar.MONDAY + 7) % 7));
+		}
 		// reset appropriate values to 0 based on the unit
 		switch (unit) {
 			case YEAR:
@@ -149,13 +280,20 @@ public class TemporalBinningStrategy implements
 						value.getActualMinimum(Calendar.DAY_OF_MONTH));
 				// don't break so that the other fields are also set to the
 				// minimum
+			case WEEK:
 			case DAY:
 				value.set(
 						Calendar.HOUR_OF_DAY,
 						value.getActualMinimum(Calendar.HOUR_OF_DAY));
+				// don't break so that the other fields are also set to the
+				// minimum
+			case HOUR:
 				value.set(
 						Calendar.MINUTE,
 						value.getActualMinimum(Calendar.MINUTE));
+				// don't break so that the other fields are also set to the
+				// minimum
+			case MINUTE:
 				value.set(
 						Calendar.SECOND,
 						value.getActualMinimum(Calendar.SECOND));
@@ -173,8 +311,13 @@ public class TemporalBinningStrategy implements
 				return 4;
 			case MONTH:
 				return 7;
+			case WEEK:
 			case DAY:
 				return 10;
+			case HOUR:
+				return 13;
+			case MINUTE:
+				return 16;
 		}
 	}
 
@@ -188,11 +331,234 @@ public class TemporalBinningStrategy implements
 				return StringUtils.stringToBinary(Integer.toString(value.get(Calendar.YEAR)));
 			case MONTH:
 				return StringUtils.stringToBinary((Integer.toString(value.get(Calendar.YEAR)) + "_" + TWO_DIGIT_NUMBER.format(value.get(Calendar.MONTH))));
+			case WEEK:
 			case DAY:
 				return StringUtils.stringToBinary((Integer.toString(value.get(Calendar.YEAR)) + "_" + TWO_DIGIT_NUMBER.format(value.get(Calendar.MONTH)) + "_" + TWO_DIGIT_NUMBER.format(value.get(Calendar.DAY_OF_MONTH))));
+			case HOUR:
+			case MINUTE:
+				return getFixedLengthBinId(value.getTimeInMillis());
 		}
 	}
 
+	/**
+	 * Writes the same bin ID as the calendar based method directly from the
+	 * packed year, month, and day of a bin without any intermediate strings
+	 */
+	private byte[] getBinId(
+			final int binFields ) {
+		final int year = binFields / 10000;
+		final int month = (binFields / 100) % 100;
+		final int day = binFields % 100;
+		final byte[] binId = new byte[getFixedBinIdSize()];
+		writeDigits(
+				binId,
+				0,
+				year,
+				4);
+		if (binId.length > 4) {
+			binId[4] = '_';
+			writeDigits(
+					binId,
+					5,
+					month,
+					2);
+			if (binId.length > 7) {
+				binId[7] = '_';
+				writeDigits(
+						binId,
+						8,
+						day,
+						2);
+			}
+		}
+		return binId;
+	}
+
+	private static void writeDigits(
+			final byte[] buffer,
+			final int offset,
+			final int value,
+			final int digits ) {
+		int remainder = value;
+		for (int i = (offset + digits) - 1; i >= offset; i--) {
+			buffer[i] = (byte) ('0' + (remainder % 10));
+			remainder /= 10;
+		}
+	}
+
+	private static int readDigits(
+			final byte[] buffer,
+			final int offset,
+			final int digits ) {
+		int value = 0;
+		for (int i = offset; i < (offset + digits); i++) {
+			final int digit = buffer[i] - '0';
+			if ((digit < 0) || (digit > 9)) {
+				return -1;
+			}
+			value = (value * 10) + digit;
+		}
+		return value;
+	}
+
+	private boolean isFixedLength() {
+		return (unit == Unit.HOUR) || (unit == Unit.MINUTE);
+	}
+
+	private long getFixedLengthEpoch(
+			final long millis ) {
+		final long binSizeMillis = getBinSizeMillis();
+		final long offsetMillis = (millis + getTimeZone().getRawOffset()) % binSizeMillis;
+		// the remainder is negative prior to the epoch
+		return millis - ((offsetMillis < 0) ? offsetMillis + binSizeMillis : offsetMillis);
+	}
+
+	/**
+	 * Writes the bin ID of a fixed length bin (formatted the same as a day with
+	 * the hour and minute appended) using the standard time of the timezone
+	 */
+	private byte[] getFixedLengthBinId(
+			final long epoch ) {
+		final long localMillis = epoch + getTimeZone().getRawOffset();
+		long days = localMillis / MILLIS_PER_DAY;
+		long millisOfDay = localMillis % MILLIS_PER_DAY;
+		if (millisOfDay < 0) {
+			days--;
+			millisOfDay += MILLIS_PER_DAY;
+		}
+		// convert days since the epoch to the (proleptic gregorian) year,
+		// month and day, see
+		// http://howardhinnant.github.io/date_algorithms.html
+		final long shiftedDays = days + 719468;
+		final long era = ((shiftedDays >= 0) ? shiftedDays : (shiftedDays - 146096)) / 146097;
+		final long dayOfEra = shiftedDays - (era * 146097);
+		final long yearOfEra = ((dayOfEra - (dayOfEra / 1460)) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+		final long dayOfYear = dayOfEra - (((365 * yearOfEra) + (yearOfEra / 4)) - (yearOfEra / 100));
+		final long shiftedMonth = ((5 * dayOfYear) + 2) / 153;
+		final int day = (int) ((dayOfYear - (((153 * shiftedMonth) + 2) / 5)) + 1);
+		// zero based month to be consistent with the calendar based bin IDs
+		final int month = (int) ((shiftedMonth < 10) ? shiftedMonth + 2 : shiftedMonth - 10);
+		final int year = (int) ((yearOfEra + (era * 400)) + ((month <= 1) ? 1 : 0));
+
+		final byte[] binId = new byte[getFixedBinIdSize()];
+		writeDigits(
+				binId,
+				0,
+				year,
+				4);
+		binId[4] = '_';
+		writeDigits(
+				binId,
+				5,
+				month,
+				2);
+		binId[7] = '_';
+		writeDigits(
+				binId,
+				8,
+				day,
+				2);
+		binId[10] = '_';
+		writeDigits(
+				binId,
+				11,
+				(int) (millisOfDay / MILLIS_PER_HOUR),
+				2);
+		if (binId.length > 13) {
+			binId[13] = '_';
+			writeDigits(
+					binId,
+					14,
+					(int) ((millisOfDay % MILLIS_PER_HOUR) / MILLIS_PER_MINUTE),
+					2);
+		}
+		return binId;
+	}
+
+	private long getFixedLengthStartEpoch(
+			final byte[] binId ) {
+		if (binId.length != getFixedBinIdSize()) {
+			throw new IllegalArgumentException(
+					"Bin ID '" + StringUtils.stringFromBinary(binId) + "' is not a valid " + unit + " bin");
+		}
+		final int hour = readDigits(
+				binId,
+				11,
+				2);
+		final int minute = (binId.length > 13) ? readDigits(
+				binId,
+				14,
+				2) : 0;
+		long year = readDigits(
+				binId,
+				0,
+				4);
+		final int month = readDigits(
+				binId,
+				5,
+				2);
+		final int day = readDigits(
+				binId,
+				8,
+				2);
+		if ((year < 0) || (month < 0) || (day < 0) || (hour < 0) || (minute < 0)) {
+			throw new IllegalArgumentException(
+					"Bin ID '" + StringUtils.stringFromBinary(binId) + "' is not a valid " + unit + " bin");
+		}
+		// the inverse of the conversion from days to year, month and day
+		if (month <= 1) {
+			year--;
+		}
+		final long era = ((year >= 0) ? year : (year - 399)) / 400;
+		final long yearOfEra = year - (era * 400);
+		final long dayOfYear = ((((153 * ((month > 1) ? month - 2 : month + 10)) + 2) / 5) + day) - 1;
+		final long dayOfEra = (((yearOfEra * 365) + (yearOfEra / 4)) - (yearOfEra / 100)) + dayOfYear;
+		final long days = ((era * 146097) + dayOfEra) - 719468;
+		return (((days * MILLIS_PER_DAY) + (hour * MILLIS_PER_HOUR) + (minute * MILLIS_PER_MINUTE)) - getTimeZone().getRawOffset());
+	}
+
+	private long getStartEpochMillis(
+			final byte[] binId ) {
+		if (isFixedLength()) {
+			return getFixedLengthStartEpoch(binId);
+		}
+		if (binId.length == getFixedBinIdSize()) {
+			final int year = readDigits(
+					binId,
+					0,
+					4);
+			final int month = (binId.length > 4) ? readDigits(
+					binId,
+					5,
+					2) : 0;
+			final int day = (binId.length > 7) ? readDigits(
+					binId,
+					8,
+					2) : 1;
+			if ((year >= 0) && (month >= 0) && (day >= 0)) {
+				final BinBoundaries boundaries = getBinBoundaries();
+				final int binIndex = Arrays.binarySearch(
+						boundaries.binFields,
+						packBinFields(
+								year,
+								month,
+								day));
+				if (binIndex >= 0) {
+					return boundaries.binStarts[binIndex];
+				}
+			}
+		}
+		return getStartEpoch(
+				binId).getTimeInMillis();
+	}
+
+	private static int packBinFields(
+			final int year,
+			final int month,
+			final int day ) {
+		return (year * 10000) + (month * 100) + day;
+	}
+
 	@SuppressFBWarnings(value = {
 		"SF_SWITCH_FALLTHROUGH",
 		"SF_SWITCH_NO_DEFAULT"
@@ -200,8 +566,13 @@ public class TemporalBinningStrategy implements
 	private Calendar getStartEpoch(
 			final byte[] binId ) {
 		final String str = StringUtils.stringFromBinary(binId);
-		final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		final Calendar cal = Calendar.getInstance(getTimeZone());
 		switch (unit) {
+			case MINUTE:
+			case HOUR:
+				cal.setTimeInMillis(getFixedLengthStartEpoch(binId));
+				return cal;
+			case WEEK:
 			case DAY:
 				final int day = Integer.parseInt(str.substring(
 						8,
@@ -232,7 +603,94 @@ public class TemporalBinningStrategy implements
 	@Override
 	public BinRange[] getNormalizedRanges(
 			final NumericData range ) {
-		final Calendar startEpoch = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		if (isFixedLength()) {
+			return getFixedLengthNormalizedRanges(range);
+		}
+		final BinBoundaries boundaries = getBinBoundaries();
+		int binIndex = boundaries.getBinIndex((long) range.getMin());
+		if ((binIndex < 0) || (boundaries.getBinIndex((long) range.getMax()) < 0)) {
+			return getNormalizedRangesFromCalendar(range);
+		}
+		final List<BinRange> bins = new ArrayList<BinRange>();
+		// track this, so that we can easily declare a range to be the full
+		// extent and use the information to perform a more efficient scan
+		boolean firstBin = ((long) range.getMin() != boundaries.binStarts[binIndex]);
+		boolean lastBin = false;
+		do {
+			final long epoch = boundaries.binStarts[binIndex];
+			final long maxOfBin = boundaries.getBinEnd(binIndex) - 1;
+			long startMillis, endMillis;
+			boolean fullExtent;
+			if ((long) range.getMax() <= maxOfBin) {
+				lastBin = true;
+				endMillis = (long) range.getMax();
+				fullExtent = range.getMax() == maxOfBin;
+			}
+			else {
+				endMillis = maxOfBin;
+				fullExtent = !firstBin;
+			}
+
+			if (firstBin) {
+				startMillis = (long) range.getMin();
+				firstBin = false;
+			}
+			else {
+				startMillis = epoch;
+			}
+			bins.add(new BinRange(
+					getBinId(boundaries.binFields[binIndex]),
+					startMillis - epoch,
+					endMillis - epoch,
+					fullExtent));
+			binIndex++;
+		}
+		while (!lastBin);
+		return bins.toArray(new BinRange[bins.size()]);
+	}
+
+	private BinRange[] getFixedLengthNormalizedRanges(
+			final NumericData range ) {
+		final long binSizeMillis = getBinSizeMillis();
+		long epoch = getFixedLengthEpoch((long) range.getMin());
+		final List<BinRange> bins = new ArrayList<BinRange>();
+		boolean firstBin = ((long) range.getMin() != epoch);
+		boolean lastBin = false;
+		do {
+			final long maxOfBin = (epoch + binSizeMillis) - 1;
+			long startMillis, endMillis;
+			boolean fullExtent;
+			if ((long) range.getMax() <= maxOfBin) {
+				lastBin = true;
+				endMillis = (long) range.getMax();
+				fullExtent = range.getMax() == maxOfBin;
+			}
+			else {
+				endMillis = maxOfBin;
+				fullExtent = !firstBin;
+			}
+
+			if (firstBin) {
+				startMillis = (long) range.getMin();
+				firstBin = false;
+			}
+			else {
+				startMillis = epoch;
+			}
+			bins.add(new BinRange(
+					getFixedLengthBinId(epoch),
+					startMillis - epoch,
+					endMillis - epoch,
+					fullExtent));
+			epoch += binSizeMillis;
+		}
+		while (!lastBin);
+		return bins.toArray(new BinRange[bins.size()]);
+	}
+
+	private BinRange[] getNormalizedRangesFromCalendar(
+			final NumericData range ) {
+		final Calendar startEpoch = Calendar.getInstance(getTimeZone());
 		final long binSizeMillis = getBinSizeMillis();
 		// initialize the epoch to the range min and then reset appropriate
 		// values to 0 based on the units
@@ -250,7 +708,7 @@ public class TemporalBinningStrategy implements
 		do {
 			// because not every year has 366 days, and not every month has 31
 			// days we need to reset next epoch to the actual epoch
-			final Calendar nextEpochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+			final Calendar nextEpochCal = Calendar.getInstance(getTimeZone());
 			// set it to a value in the middle of the bin just to be sure (for
 			// example if the bin size does not get to the next epoch as is
 			// the case when units are days and the timezone accounts for
@@ -259,7 +717,7 @@ public class TemporalBinningStrategy implements
 			setToEpoch(nextEpochCal);
 			final long nextEpoch = nextEpochCal.getTimeInMillis();
 			final long maxOfBin = nextEpoch - 1;
-			final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+			final Calendar cal = Calendar.getInstance(getTimeZone());
 			cal.setTimeInMillis(epochIterator);
 			long startMillis, endMillis;
 			boolean fullExtent;
@@ -313,6 +771,8 @@ public class TemporalBinningStrategy implements
 		buffer.get(timeZoneName);
 		unit = Unit.getUnit(unitCalendarEnum);
 		timezone = StringUtils.stringFromBinary(timeZoneName);
+		timeZoneInstance = null;
+		binBoundaries = null;
 	}
 
 	@Override
@@ -361,12 +821,85 @@ public class TemporalBinningStrategy implements
 	@Override
 	public NumericRange getDenormalizedRanges(
 			final BinRange binnedRange ) {
-		final Calendar startofEpoch = getStartEpoch(binnedRange.getBinId());
-		final long startOfEpochMillis = startofEpoch.getTimeInMillis();
+		final long startOfEpochMillis = getStartEpochMillis(binnedRange.getBinId());
 		final long minMillis = startOfEpochMillis + (long) binnedRange.getNormalizedMin();
 		final long maxMillis = startOfEpochMillis + (long) binnedRange.getNormalizedMax();
 		return new NumericRange(
 				minMillis,
 				maxMillis);
 	}
+
+	/**
+	 * The start of every bin within the precomputed years for a unit and
+	 * timezone, in ascending order, along with the year, month, and day of each
+	 * bin packed into a single integer (which is also in ascending order)
+	 */
+	private static class BinBoundaries
+	{
+		private final long[] binStarts;
+		private final int[] binFields;
+		private final long end;
+
+		private BinBoundaries(
+				final TemporalBinningStrategy strategy ) {
+			final Calendar cal = Calendar.getInstance(strategy.getTimeZone());
+			cal.clear();
+			cal.set(
+					MIN_PRECOMPUTED_YEAR,
+					cal.getActualMinimum(Calendar.MONTH),
+					cal.getActualMinimum(Calendar.DAY_OF_MONTH));
+			final List<Long> starts = new ArrayList<Long>();
+			final List<Integer> fields = new ArrayList<Integer>();
+			while (cal.get(Calendar.YEAR) <= MAX_PRECOMPUTED_YEAR) {
+				// use the same calendar computation that the bins are defined
+				// by so that the boundaries are identical
+				strategy.setToEpoch(cal);
+				starts.add(cal.getTimeInMillis());
+				fields.add(packBinFields(
+						cal.get(Calendar.YEAR),
+						(strategy.unit == Unit.YEAR) ? 0 : cal.get(Calendar.MONTH),
+						((strategy.unit == Unit.DAY) || (strategy.unit == Unit.WEEK)) ? cal.get(Calendar.DAY_OF_MONTH) : 1));
+				// increment by the unit from a time well within the bin so
+				// that daylight savings time changes do not affect the result
+				cal.set(
+						Calendar.HOUR_OF_DAY,
+						12);
+				cal.add(
+						strategy.unit.toCalendarEnum(),
+						1);
+			}
+			strategy.setToEpoch(cal);
+			end = cal.getTimeInMillis();
+			binStarts = new long[starts.size()];
+			binFields = new int[fields.size()];
+			for (int i = 0; i < binStarts.length; i++) {
+				binStarts[i] = starts.get(i);
+				binFields[i] = fields.get(i);
+			}
+		}
+
+		/**
+		 * 
+		 * @return the index of the bin containing the value, or -1 if the value
+		 *         is outside of the precomputed bins
+		 */
+		private int getBinIndex(
+				final long millis ) {
+			if ((millis < binStarts[0]) || (millis >= end)) {
+				return -1;
+			}
+			final int index = Arrays.binarySearch(
+					binStarts,
+					millis);
+			// when not found, binary search returns (-(insertion point) - 1)
+			// and the bin containing the value is the one before the insertion
+			// point
+			return (index >= 0) ? index : (-index - 2);
+		}
+
+		private long getBinEnd(
+				final int binIndex ) {
+			return ((binIndex + 1) < binStarts.length) ? binStarts[binIndex + 1] : end;
+		}
+	}
 }
@@ -0,0 +1,83 @@
+package mil.nga.giat.geowave.index.sfc;
+
+import java.math.BigInteger;
+
+/**
+ * A deadline for decomposing a query on one or more space filling curves. Once
+ * the deadline has passed, a decomposition stops refining the cells it has not
+ * yet visited and accepts each of them as a single, potentially over-selective,
+ * range, so that the ranges found so far are returned promptly rather than
+ * being refined to completion. The ranges are always a superset of the query.
+ * 
+ * The deadline records the cells that were accepted without being refined, so
+ * that the caller can tell how coarse the resulting ranges are. A deadline can
+ * be shared by every decomposition of a single query, such as each tier and bin
+ * of a tiered index strategy, but it is not thread-safe.
+ */
+public class DecompositionDeadline
+{
+	private final long deadlineNanos;
+	private long truncatedCellCount = 0;
+	private BigInteger truncatedIdCount = BigInteger.ZERO;
+
+	/**
+	 * 
+	 * @param timeBudgetMillis
+	 *            the time from now, in milliseconds, after which decomposition
+	 *            should stop refining ranges
+	 */
+	public DecompositionDeadline(
+			final long timeBudgetMillis ) {
+		deadlineNanos = System.nanoTime() + (timeBudgetMillis * 1000000L);
+	}
+
+	/**
+	 * 
+	 * @return true if the deadline has passed
+	 */
+	public boolean isExpired() {
+		// compare the difference rather than the values themselves so that
+		// overflow of the nano time is handled
+		return (System.nanoTime() - deadlineNanos) >= 0;
+	}
+
+	/**
+	 * Record a cell that was accepted as a range without being refined because
+	 * the deadline passed
+	 * 
+	 * @param idCount
+	 *            the number of IDs within the cell
+	 */
+	public void recordTruncation(
+			final BigInteger idCount ) {
+		truncatedCellCount++;
+		truncatedIdCount = truncatedIdCount.add(idCount);
+	}
+
+	/**
+	 * 
+	 * @return true if any decomposition was cut short by this deadline
+	 */
+	public boolean isTruncated() {
+		return truncatedCellCount > 0;
+	}
+
+	/**
+	 * 
+	 * @return the number of cells that were accepted as ranges without being
+	 *         refined
+	 */
+	public long getTruncatedCellCount() {
+		return truncatedCellCount;
+	}
+
+	/**
+	 * 
+	 * @return the total number of IDs within the cells that were accepted as
+	 *         ranges without being refined, which is an upper bound on the
+	 *         number of IDs that are scanned but outside of the query
+	 */
+	public BigInteger getTruncatedIdCount() {
+		return truncatedIdCount;
+	}
+}
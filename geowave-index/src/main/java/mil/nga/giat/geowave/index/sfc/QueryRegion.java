@@ -0,0 +1,44 @@
+package mil.nga.giat.geowave.index.sfc;
+
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+
+/**
+ * A query region describes the actual shape of a query within the bounds of its
+ * constraints, such as a polygon within its bounding box. It is used while
+ * decomposing a query on a space filling curve to prune the cells that do not
+ * intersect the region and to identify the cells that are entirely within it.
+ * 
+ */
+public interface QueryRegion
+{
+	/**
+	 * The relationship of a cell of a space filling curve to the region
+	 */
+	public static enum Relation {
+		/**
+		 * the cell does not intersect the region
+		 */
+		DISJOINT,
+		/**
+		 * the cell intersects the region but is not entirely within it
+		 */
+		INTERSECTS,
+		/**
+		 * the cell is entirely within the region
+		 */
+		CONTAINS
+	}
+
+	/**
+	 * Determine the relationship of a cell to this region. This should be
+	 * conservative, a cell can only be considered disjoint if nothing within
+	 * the cell could intersect the region.
+	 * 
+	 * @param cell
+	 *            the bounds of the cell per dimension, in the native units of
+	 *            each dimension of the space filling curve
+	 * @return the relationship of the cell to the region
+	 */
+	public Relation relate(
+			MultiDimensionalNumericData cell );
+}
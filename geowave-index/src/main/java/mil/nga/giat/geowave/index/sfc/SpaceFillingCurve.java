@@ -26,6 +26,26 @@ public interface SpaceFillingCurve extends
 	public byte[] getId(
 			double[] values );
 
+	/***
+	 * Maps a n-dimensional value to a single dimension, writing the resulting
+	 * ID directly into the given buffer rather than allocating a new array. The
+	 * buffer must have at least (getBitsOfPrecision() + 7) / 8 bytes available
+	 * starting at the offset.
+	 * 
+	 * @param values
+	 *            n-dimensional value to be encoded in the SFC. The size of
+	 *            value corresponds to the number of dimensions
+	 * @param buffer
+	 *            the buffer to write the SFC value into
+	 * @param offset
+	 *            the position within the buffer to start writing at
+	 * @return the number of bytes written to the buffer
+	 */
+	public int getId(
+			double[] values,
+			byte[] buffer,
+			int offset );
+
 	/***
 	 * Gets n-dimensional ranges from a single dimension, i.e. 0033423 ->
 	 * [12,33]
@@ -84,6 +104,60 @@ public interface SpaceFillingCurve extends
 			MultiDimensionalNumericData query,
 			int maxRanges );
 
+	/***
+	 * Returns a collection of ranges on the 1-d space filling curve that
+	 * correspond to the n-dimensional range described in the query parameter,
+	 * only including the portions of the range that intersect the query region.
+	 * Implementations that cannot refine their decomposition with a query
+	 * region may ignore it, because the ranges are a superset of the region
+	 * either way.
+	 * 
+	 * @param query
+	 *            describes the n-dimensional query window that will be
+	 *            decomposed
+	 * @param maxRanges
+	 *            the maximum number of ranges
+	 * @param queryRegion
+	 *            the shape of the query within the query window, or null
+	 * @return an object containing the ranges on the SFC that overlap the
+	 *         parameters supplied in the query object and the query region
+	 * 
+	 */
+	public RangeDecomposition decomposeQuery(
+			MultiDimensionalNumericData query,
+			int maxRanges,
+			QueryRegion queryRegion );
+
+	/***
+	 * Returns a collection of ranges on the 1-d space filling curve that
+	 * correspond to the n-dimensional range described in the query parameter,
+	 * only including the portions of the range that intersect the query region
+	 * and refining the ranges no further once the deadline has passed. Any part
+	 * of the query that has not been refined by then is covered by coarse,
+	 * potentially over-selective, ranges, which are recorded by the deadline.
+	 * Implementations whose decomposition is inexpensive may ignore the
+	 * deadline.
+	 * 
+	 * @param query
+	 *            describes the n-dimensional query window that will be
+	 *            decomposed
+	 * @param maxRanges
+	 *            the maximum number of ranges
+	 * @param queryRegion
+	 *            the shape of the query within the query window, or null
+	 * @param deadline
+	 *            the deadline after which the ranges are no longer refined, or
+	 *            null to refine the ranges to completion
+	 * @return an object containing the ranges on the SFC that overlap the
+	 *         parameters supplied in the query object and the query region
+	 * 
+	 */
+	public RangeDecomposition decomposeQuery(
+			MultiDimensionalNumericData query,
+			int maxRanges,
+			QueryRegion queryRegion,
+			DecompositionDeadline deadline );
+
 	/***
 	 * Determines the estimated number of rows a multi-dimensional range will
 	 * span within this space filling curve
@@ -98,6 +172,21 @@ public interface SpaceFillingCurve extends
 	public BigInteger getEstimatedIdCount(
 			MultiDimensionalNumericData data );
 
+	/***
+	 * Determines the estimated number of rows a multi-dimensional range will
+	 * span within this space filling curve as a primitive long, which avoids
+	 * allocating a BigInteger when only a comparison is needed
+	 * 
+	 * @param data
+	 *            describes the n-dimensional range to estimate the row count
+	 *            for
+	 * @return an estimate of the row count for the ranges given within this
+	 *         space filling curve, or Long.MAX_VALUE if the estimate overflows
+	 *         a long
+	 */
+	public long getEstimatedIdCountAsLong(
+			MultiDimensionalNumericData data );
+
 	/***
 	 * Get the range/size of a single insertion ID for each dimension
 	 * 
@@ -0,0 +1,77 @@
+package mil.nga.giat.geowave.index.sfc.hilbert;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+
+import com.google.uzaygezen.core.Assessment;
+import com.google.uzaygezen.core.Pow2LengthBitSetRange;
+import com.google.uzaygezen.core.RegionInspector;
+import com.google.uzaygezen.core.SpatialRelation;
+import com.google.uzaygezen.core.ranges.Range;
+import com.google.uzaygezen.core.ranges.RangeHome;
+
+/**
+ * This region inspector stops the decomposition from zooming into any more
+ * cells once its deadline has passed. Each cell that would otherwise have been
+ * zoomed into is accepted as a single, potentially over-selective, range
+ * instead, so that the remainder of the decomposition only visits the cells
+ * that are already pending.
+ * 
+ * @param <T>
+ *            the index value type
+ * @param <V>
+ *            the content type of the delegate inspector
+ * @param <R>
+ *            the index range type, which is also the filter type
+ */
+class DeadlineRegionInspector<T, V, R extends Range<T, V>> implements
+		RegionInspector<R, V>
+{
+	private final RegionInspector<R, V> delegate;
+	private final DecompositionDeadline deadline;
+	private final RangeHome<T, V, R> rangeHome;
+
+	/**
+	 * 
+	 * @param delegate
+	 *            the inspector to use until the deadline has passed
+	 * @param deadline
+	 *            the deadline, which records each cell that is accepted without
+	 *            being refined
+	 * @param rangeHome
+	 *            the range home of the delegate inspector, used to create the
+	 *            filter of each cell that is accepted without being refined
+	 */
+	public DeadlineRegionInspector(
+			final RegionInspector<R, V> delegate,
+			final DecompositionDeadline deadline,
+			final RangeHome<T, V, R> rangeHome ) {
+		this.delegate = delegate;
+		this.deadline = deadline;
+		this.rangeHome = rangeHome;
+	}
+
+	@Override
+	public int getNumberOfDimensions() {
+		return delegate.getNumberOfDimensions();
+	}
+
+	@Override
+	public Assessment<R, V> assess(
+			final Pow2LengthBitSetRange indexRange,
+			final List<Pow2LengthBitSetRange> orthotope ) {
+		final Assessment<R, V> assessment = delegate.assess(
+				indexRange,
+				orthotope);
+		if ((assessment.getOutcome() == SpatialRelation.OVERLAPS) && deadline.isExpired()) {
+			deadline.recordTruncation(BigInteger.ONE.shiftLeft(indexRange.getLevel()));
+			return Assessment.makeCovered(
+					rangeHome.toRange(indexRange),
+					true,
+					assessment.getEstimate());
+		}
+		return assessment;
+	}
+}
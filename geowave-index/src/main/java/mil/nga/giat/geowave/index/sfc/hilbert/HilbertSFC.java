@@ -6,8 +6,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import mil.nga.giat.geowave.index.ByteArrayRange;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
 import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.index.sfc.SpaceFillingCurve;
@@ -23,7 +26,7 @@ import com.google.uzaygezen.core.MultiDimensionalSpec;
 public class HilbertSFC implements
 		SpaceFillingCurve
 {
-	protected CompactHilbertCurve compactHilbertCurve;
+	protected ThreadLocal<CompactHilbertCurve> compactHilbertCurve;
 	protected SFCDimensionDefinition[] dimensionDefinitions;
 	protected int totalPrecision;
 
@@ -54,9 +57,19 @@ public class HilbertSFC implements
 			totalPrecision += dimension.getBitsOfPrecision();
 		}
 
-		compactHilbertCurve = new CompactHilbertCurve(
-				new MultiDimensionalSpec(
-						bitsPerDimension));
+		// the compact hilbert curve keeps intermediate state while indexing
+		// and decomposing, so rather than locking a single shared curve each
+		// thread gets its own instance (the spec is immutable and can be
+		// shared)
+		final MultiDimensionalSpec spec = new MultiDimensionalSpec(
+				bitsPerDimension);
+		compactHilbertCurve = new ThreadLocal<CompactHilbertCurve>() {
+			@Override
+			protected CompactHilbertCurve initialValue() {
+				return new CompactHilbertCurve(
+						spec);
+			}
+		};
 
 		dimensionDefinitions = dimensionDefs;
 		setOptimalOperations(
@@ -79,11 +92,14 @@ public class HilbertSFC implements
 				break;
 			}
 		}
+		// query decomposition beyond 62 bits can use a pair of longs rather
+		// than big integers as long as the total precision fits
+		final boolean int128ForQueryDecomposition = !primitiveForQueryDecomposition && Int128HilbertSFCOperations.isSupported(bitsPerDimension);
 		if (primitiveForGetId) {
-			final PrimitiveHilbertSFCOperations primitiveOps = new PrimitiveHilbertSFCOperations();
+			final PrimitiveHilbertSFCOperations primitiveOps = int128ForQueryDecomposition ? new Int128HilbertSFCOperations() : new PrimitiveHilbertSFCOperations();
 			primitiveOps.init(dimensionDefs);
 			getIdOperations = primitiveOps;
-			if (primitiveForQueryDecomposition) {
+			if (primitiveForQueryDecomposition || int128ForQueryDecomposition) {
 				decomposeQueryOperations = primitiveOps;
 			}
 			else {
@@ -115,10 +131,26 @@ public class HilbertSFC implements
 			final double[] values ) {
 		return getIdOperations.convertToHilbert(
 				values,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
+	/***
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getId(
+			final double[] values,
+			final byte[] buffer,
+			final int offset ) {
+		return getIdOperations.convertToHilbert(
+				values,
+				compactHilbertCurve.get(),
+				dimensionDefinitions,
+				buffer,
+				offset);
+	}
+
 	/***
 	 * {@inheritDoc}
 	 */
@@ -137,17 +169,95 @@ public class HilbertSFC implements
 	@Override
 	public RangeDecomposition decomposeQuery(
 			final MultiDimensionalNumericData query,
-			int maxFilteredIndexedRanges ) {
+			final int maxFilteredIndexedRanges ) {
+		return decomposeQuery(
+				query,
+				maxFilteredIndexedRanges,
+				null);
+	}
+
+	/***
+	 * {@inheritDoc}
+	 */
+	@Override
+	public RangeDecomposition decomposeQuery(
+			final MultiDimensionalNumericData query,
+			final int maxFilteredIndexedRanges,
+			final QueryRegion queryRegion ) {
+		return decomposeQuery(
+				query,
+				maxFilteredIndexedRanges,
+				queryRegion,
+				null);
+	}
+
+	/***
+	 * {@inheritDoc}
+	 */
+	@Override
+	public RangeDecomposition decomposeQuery(
+			final MultiDimensionalNumericData query,
+			int maxFilteredIndexedRanges,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {
 		if (maxFilteredIndexedRanges == -1) {
 			maxFilteredIndexedRanges = Integer.MAX_VALUE;
 		}
-		return decomposeQueryOperations.decomposeRange(
+		if (queryRegion == null) {
+			return decomposeQueryOperations.decomposeRange(
+					query.getDataPerDimension(),
+					compactHilbertCurve.get(),
+					dimensionDefinitions,
+					totalPrecision,
+					maxFilteredIndexedRanges,
+					REMOVE_VACUUM,
+					null,
+					deadline);
+		}
+		// removing the vacuum would merge cells regardless of whether they are
+		// within the region, so keep them separate and only merge the ranges
+		// that are contiguous
+		return mergeContiguousRanges(decomposeQueryOperations.decomposeRange(
 				query.getDataPerDimension(),
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions,
 				totalPrecision,
 				maxFilteredIndexedRanges,
-				REMOVE_VACUUM);
+				false,
+				queryRegion,
+				deadline));
+	}
+
+	private static RangeDecomposition mergeContiguousRanges(
+			final RangeDecomposition decomposition ) {
+		final ByteArrayRange[] ranges = decomposition.getRanges();
+		final List<ByteArrayRange> mergedRanges = new ArrayList<ByteArrayRange>(
+				ranges.length);
+		BigInteger previousEnd = null;
+		for (int i = 0; i < ranges.length; i++) {
+			final BigInteger start = new BigInteger(
+					1,
+					ranges[i].getStart().getBytes());
+			if ((previousEnd != null) && previousEnd.add(
+					BigInteger.ONE).equals(
+					start)) {
+				final int last = mergedRanges.size() - 1;
+				mergedRanges.set(
+						last,
+						new ByteArrayRange(
+								mergedRanges.get(
+										last).getStart(),
+								ranges[i].getEnd()));
+			}
+			else {
+				mergedRanges.add(ranges[i]);
+			}
+			previousEnd = new BigInteger(
+					1,
+					ranges[i].getEnd().getBytes());
+		}
+		return new RangeDecomposition(
+				mergedRanges.toArray(new ByteArrayRange[mergedRanges.size()]));
 	}
 
 	protected static byte[] fitExpectedByteCount(
@@ -259,6 +369,14 @@ public class HilbertSFC implements
 				dimensionDefinitions);
 	}
 
+	@Override
+	public long getEstimatedIdCountAsLong(
+			final MultiDimensionalNumericData data ) {
+		return getIdOperations.getEstimatedIdCountAsLong(
+				data,
+				dimensionDefinitions);
+	}
+
 	@Override
 	public int getBitsOfPrecision() {
 		return totalPrecision;
@@ -269,7 +387,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.convertFromHilbert(
 				id,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
@@ -278,7 +396,7 @@ public class HilbertSFC implements
 			final byte[] id ) {
 		return getIdOperations.indicesFromHilbert(
 				id,
-				compactHilbertCurve,
+				compactHilbertCurve.get(),
 				dimensionDefinitions);
 	}
 
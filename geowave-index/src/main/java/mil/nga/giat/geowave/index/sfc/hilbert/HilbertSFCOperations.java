@@ -2,6 +2,8 @@ package mil.nga.giat.geowave.index.sfc.hilbert;
 
 import java.math.BigInteger;
 
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
 import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
@@ -16,6 +18,10 @@ import com.google.uzaygezen.core.CompactHilbertCurve;
  * adequately represented by primitives) and non-primitive based operations for
  * unbounded bits of precision.
  * 
+ * Implementations do not synchronize on the compact Hilbert curve that is
+ * passed in; the curve keeps intermediate state so callers are expected to
+ * provide a curve that is confined to the calling thread.
+ * 
  */
 public interface HilbertSFCOperations
 {
@@ -45,6 +51,30 @@ public interface HilbertSFCOperations
 			CompactHilbertCurve compactHilbertCurve,
 			SFCDimensionDefinition[] dimensionDefinitions );
 
+	/**
+	 * Convert the raw values (ordered per dimension) to a single SFC value,
+	 * writing the big endian result into the given buffer
+	 * 
+	 * @param values
+	 *            a raw value per dimension in order
+	 * @param compactHilbertCurve
+	 *            the compact Hilbert curve to use for the conversion
+	 * @param dimensionDefinitions
+	 *            a set of dimension definitions to use to normalize the raw
+	 *            values
+	 * @param buffer
+	 *            the buffer to write the Hilbert SFC value into
+	 * @param offset
+	 *            the position within the buffer to start writing at
+	 * @return the number of bytes written to the buffer
+	 */
+	public int convertToHilbert(
+			double[] values,
+			CompactHilbertCurve compactHilbertCurve,
+			SFCDimensionDefinition[] dimensionDefinitions,
+			byte[] buffer,
+			int offset );
+
 	/**
 	 * Convert the single SFC value to the ranges of raw values that it
 	 * represents
@@ -116,6 +146,46 @@ public interface HilbertSFCOperations
 			int maxFilteredIndexedRanges,
 			boolean removeVacuum );
 
+	/**
+	 * Decompose the raw range per dimension values into an optimal set of
+	 * compact Hilbert SFC ranges, pruning the cells that are disjoint from the
+	 * query region while refining the ranges, and no longer refining the ranges
+	 * once the deadline has passed
+	 * 
+	 * @param rangePerDimension
+	 *            the raw range per dimension
+	 * @param compactHilbertCurve
+	 *            the compact Hilbert curve to use for the conversion
+	 * @param dimensionDefinitions
+	 *            a set of dimension definitions to use to normalize the raw
+	 *            values
+	 * @param totalPrecision
+	 *            the total precision of the dimension definitions, for
+	 *            convenience
+	 * @param maxFilteredIndexedRanges
+	 *            the maximum number of ranges, if < 0 it will be unlimited
+	 * @param removeVacuum
+	 *            a flag to pass to the compact hilbert curve range
+	 *            decomposition
+	 * @param queryRegion
+	 *            the shape of the query within the raw ranges, or null to
+	 *            decompose the raw ranges as is
+	 * @param deadline
+	 *            the deadline after which the ranges are no longer refined, or
+	 *            null to refine the ranges to completion
+	 * @return the optimal SFC range decomposition for the raw-valued ranges
+	 *         within the query region
+	 */
+	public RangeDecomposition decomposeRange(
+			NumericData[] rangePerDimension,
+			CompactHilbertCurve compactHilbertCurve,
+			SFCDimensionDefinition[] dimensionDefinitions,
+			int totalPrecision,
+			int maxFilteredIndexedRanges,
+			boolean removeVacuum,
+			QueryRegion queryRegion,
+			DecompositionDeadline deadline );
+
 	/**
 	 * Get a quick (minimal complexity calculation) estimate of the total row
 	 * IDs a particular data would require to fully cover with SFC values
@@ -132,6 +202,22 @@ public interface HilbertSFCOperations
 			MultiDimensionalNumericData data,
 			SFCDimensionDefinition[] dimensionDefinitions );
 
+	/***
+	 * Get the same estimate as getEstimatedIdCount as a primitive long
+	 * 
+	 * @param data
+	 *            the dataset
+	 * @param dimensionDefinitions
+	 *            a set of dimension definitions to use to normalize the raw
+	 *            values
+	 * @return the total estimated row IDs the data would require to fully cover
+	 *         with SFC values, or Long.MAX_VALUE if the estimate overflows a
+	 *         long
+	 */
+	public long getEstimatedIdCountAsLong(
+			MultiDimensionalNumericData data,
+			SFCDimensionDefinition[] dimensionDefinitions );
+
 	/***
 	 * Get the range/size of a single insertion ID for each dimension
 	 * 
@@ -0,0 +1,674 @@
+package mil.nga.giat.geowave.index.sfc.hilbert;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
+import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.uzaygezen.core.BacktrackingQueryBuilder;
+import com.google.uzaygezen.core.CompactHilbertCurve;
+import com.google.uzaygezen.core.Content;
+import com.google.uzaygezen.core.FilteredIndexRange;
+import com.google.uzaygezen.core.PlainFilterCombiner;
+import com.google.uzaygezen.core.Pow2LengthBitSetRange;
+import com.google.uzaygezen.core.QueryBuilder;
+import com.google.uzaygezen.core.RegionInspector;
+import com.google.uzaygezen.core.SimpleRegionInspector;
+import com.google.uzaygezen.core.ZoomingSpaceVisitorAdapter;
+import com.google.uzaygezen.core.ranges.Range;
+import com.google.uzaygezen.core.ranges.RangeHome;
+
+/**
+ * This supports Compact Hilbert SFC operations using a pair of primitive longs
+ * internally to represent intermediate results of query decomposition as
+ * unsigned 128 bit values. This is significantly faster than using BigInteger
+ * for curves that are too precise for a single long. It is currently used for
+ * query decomposition if the total precision is <= 126 bits and no single
+ * dimension is more than 48 bits of precision, in which case the per dimension
+ * values are normalized exactly the same as the primitive operations (which are
+ * used for getID() operations with this precision), and all other operations
+ * are inherited from the primitive operations.
+ */
+public class Int128HilbertSFCOperations extends
+		PrimitiveHilbertSFCOperations
+{
+	public static final int MAX_TOTAL_PRECISION = 126;
+	public static final int MAX_BITS_PER_DIMENSION = 48;
+	private static final int UNIT_CELL_SIZE_BITS = 20;
+
+	/**
+	 * 
+	 * @param bitsPerDimension
+	 *            the bits of precision of each dimension
+	 * @return whether these operations can support the given precision
+	 */
+	public static boolean isSupported(
+			final List<Integer> bitsPerDimension ) {
+		int totalPrecision = 0;
+		for (final Integer bits : bitsPerDimension) {
+			if (bits > MAX_BITS_PER_DIMENSION) {
+				return false;
+			}
+			totalPrecision += bits;
+		}
+		return totalPrecision <= MAX_TOTAL_PRECISION;
+	}
+
+	@Override
+	public RangeDecomposition decomposeRange(
+			final NumericData[] rangePerDimension,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int totalPrecision,
+			final int maxFilteredIndexedRanges,
+			final boolean removeVacuum,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {
+		final Int128Content zero = new Int128Content(
+				0L,
+				0L);
+		final List<Int128Range> region = new ArrayList<Int128Range>(
+				dimensionDefinitions.length);
+		long maxRange = 1;
+		for (int d = 0; d < dimensionDefinitions.length; d++) {
+			final long normalizedMin = normalizeDimension(
+					dimensionDefinitions[d],
+					rangePerDimension[d].getMin(),
+					binsPerDimension[d],
+					true);
+			long normalizedMax = normalizeDimension(
+					dimensionDefinitions[d],
+					rangePerDimension[d].getMax(),
+					binsPerDimension[d],
+					false);
+			if (normalizedMin > normalizedMax) {
+				// if they're both equal, which is possible because we treat max
+				// as exclusive, set bin max to bin min (ie. treat it as
+				// inclusive in this case)
+				normalizedMax = normalizedMin;
+			}
+			maxRange = Math.max(
+					maxRange,
+					(normalizedMax - normalizedMin) + 1);
+			region.add(new Int128Range(
+					new Int128Value(
+							0L,
+							normalizedMin),
+					new Int128Value(
+							0L,
+							normalizedMax + 1L)));
+		}
+
+		final Int128Content minQuadSize = getMinimumQuadSize(
+				maxRange,
+				dimensionDefinitions.length);
+		final RegionInspector<Int128Range, Int128Content> constraintsInspector = SimpleRegionInspector.create(
+				ImmutableList.of(region),
+				minQuadSize,
+				Functions.<Int128Range> identity(),
+				Int128RangeHome.INSTANCE,
+				zero);
+		final RegionInspector<Int128Range, Int128Content> regionInspector = (queryRegion == null) ? constraintsInspector : new QueryRegionInspector<Int128Range, Int128Value, Int128Content, Int128Range>(
+				constraintsInspector,
+				queryRegion,
+				dimensionDefinitions,
+				minQuadSize.toBigInteger().bitLength() - 1,
+				Int128RangeHome.INSTANCE);
+
+		final RegionInspector<Int128Range, Int128Content> inspector = (deadline == null) ? regionInspector : new DeadlineRegionInspector<Int128Value, Int128Content, Int128Range>(
+				regionInspector,
+				deadline,
+				Int128RangeHome.INSTANCE);
+
+		final PlainFilterCombiner<Int128Range, Int128Value, Int128Content, Int128Range> intervalCombiner = new PlainFilterCombiner<Int128Range, Int128Value, Int128Content, Int128Range>(
+				new Int128Range(
+						new Int128Value(
+								0L,
+								0L),
+						new Int128Value(
+								0L,
+								1L)));
+
+		final QueryBuilder<Int128Range, Int128Range> queryBuilder = BacktrackingQueryBuilder.create(
+				inspector,
+				intervalCombiner,
+				maxFilteredIndexedRanges,
+				removeVacuum,
+				Int128RangeHome.INSTANCE,
+				zero);
+		compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
+				compactHilbertCurve,
+				queryBuilder));
+		final List<FilteredIndexRange<Int128Range, Int128Range>> hilbertRanges = queryBuilder.get().getFilteredIndexRanges();
+
+		final int expectedByteCount = (totalPrecision + 7) / 8;
+		if (expectedByteCount <= 0) {
+			// special case for no precision
+			return new RangeDecomposition(
+					new ByteArrayRange[] {
+						new ByteArrayRange(
+								new ByteArrayId(
+										new byte[] {}),
+								new ByteArrayId(
+										new byte[] {}))
+					});
+		}
+		final ByteArrayRange[] sfcRanges = new ByteArrayRange[hilbertRanges.size()];
+		for (int i = 0; i < hilbertRanges.size(); i++) {
+			final Int128Range range = hilbertRanges.get(
+					i).getIndexRange();
+			// sanity check that values fit within the expected range
+			// it seems that uzaygezen can produce a value at 2^totalPrecision
+			// rather than 2^totalPrecision - 1
+			final Int128Value start = range.getStart();
+			final Int128Value end = range.getEnd();
+			// the end is exclusive so subtract one
+			final long endLow = end.low - 1L;
+			final long endHigh = (end.low == 0L) ? end.high - 1L : end.high;
+			sfcRanges[i] = new ByteArrayRange(
+					new ByteArrayId(
+							toClampedBytes(
+									start.high,
+									start.low,
+									totalPrecision,
+									expectedByteCount)),
+					new ByteArrayId(
+							toClampedBytes(
+									endHigh,
+									endLow,
+									totalPrecision,
+									expectedByteCount)));
+		}
+
+		return new RangeDecomposition(
+				sfcRanges);
+	}
+
+	/**
+	 * Write the unsigned 128 bit value as big endian bytes, clamped to the
+	 * maximum hilbert value for the total precision
+	 */
+	private static byte[] toClampedBytes(
+			final long high,
+			final long low,
+			final int totalPrecision,
+			final int expectedByteCount ) {
+		long clampedHigh = high;
+		long clampedLow = low;
+		if (totalPrecision < 128) {
+			final long maxHigh = (totalPrecision > 64) ? (1L << (totalPrecision - 64)) - 1L : 0L;
+			final long maxLow = (totalPrecision >= 64) ? -1L : (1L << totalPrecision) - 1L;
+			if ((compareUnsigned(
+					high,
+					maxHigh) > 0) || ((high == maxHigh) && (compareUnsigned(
+					low,
+					maxLow) > 0))) {
+				clampedHigh = maxHigh;
+				clampedLow = maxLow;
+			}
+		}
+		final byte[] bytes = new byte[expectedByteCount];
+		for (int b = 0; b < expectedByteCount; b++) {
+			final int shift = b * 8;
+			bytes[expectedByteCount - 1 - b] = (byte) ((shift < 64) ? (clampedLow >>> shift) : (clampedHigh >>> (shift - 64)));
+		}
+		return bytes;
+	}
+
+	/***
+	 * Returns the smallest range that will be fully decomposed (i.e.
+	 * decomposition stops when the range is equal or smaller than this value).
+	 * This is the same calculation as the unbounded operations, saturating if
+	 * it does not fit in 128 bits (which is larger than any range in a curve of
+	 * this precision).
+	 * 
+	 * @param maxRange
+	 *            the largest range of any dimension
+	 * @param dimensionality
+	 *            the number of dimensions
+	 * @return largest range that will be fully decomposed
+	 */
+	private static Int128Content getMinimumQuadSize(
+			final long maxRange,
+			final int dimensionality ) {
+		final Int128Content maxRangeDecomposed = new Int128Content(
+				0L,
+				1L);
+		for (int d = 0; d < dimensionality; d++) {
+			if (!maxRangeDecomposed.multiply(maxRange)) {
+				return new Int128Content(
+						-1L,
+						-1L);
+			}
+		}
+		if ((maxRangeDecomposed.high == 0L) && (compareUnsigned(
+				maxRangeDecomposed.low,
+				UNIT_CELL_SIZE) <= 0)) {
+			return new Int128Content(
+					0L,
+					1L);
+		}
+		maxRangeDecomposed.shiftRight(UNIT_CELL_SIZE_BITS);
+		return maxRangeDecomposed;
+	}
+
+	/**
+	 * The estimated ID count is the cross product of normalized range of all
+	 * dimensions per the bits of precision provided by the dimension
+	 * definitions.
+	 */
+	@Override
+	public BigInteger getEstimatedIdCount(
+			final MultiDimensionalNumericData data,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		final double[] mins = data.getMinValuesPerDimension();
+		final double[] maxes = data.getMaxValuesPerDimension();
+		final Int128Content estimatedIdCount = new Int128Content(
+				0L,
+				1L);
+		for (int d = 0; d < data.getDimensionCount(); d++) {
+			final long binMin = normalizeDimension(
+					dimensionDefinitions[d],
+					mins[d],
+					binsPerDimension[d],
+					true);
+			long binMax = normalizeDimension(
+					dimensionDefinitions[d],
+					maxes[d],
+					binsPerDimension[d],
+					false);
+			if (binMin > binMax) {
+				// if they're both equal, which is possible because we treat max
+				// as exclusive, set bin max to bin min (ie. treat it as
+				// inclusive in this case)
+				binMax = binMin;
+			}
+			estimatedIdCount.multiply((binMax - binMin) + 1);
+		}
+		return estimatedIdCount.toBigInteger();
+	}
+
+	private static int compareUnsigned(
+			final long a,
+			final long b ) {
+		return Long.compare(
+				a + Long.MIN_VALUE,
+				b + Long.MIN_VALUE);
+	}
+
+	/**
+	 * An immutable unsigned 128 bit value
+	 */
+	private static class Int128Value implements
+			Comparable<Int128Value>
+	{
+		private final long high;
+		private final long low;
+
+		private Int128Value(
+				final long high,
+				final long low ) {
+			this.high = high;
+			this.low = low;
+		}
+
+		@Override
+		public int compareTo(
+				final Int128Value other ) {
+			final int highCompare = compareUnsigned(
+					high,
+					other.high);
+			if (highCompare != 0) {
+				return highCompare;
+			}
+			return compareUnsigned(
+					low,
+					other.low);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + (int) (high ^ (high >>> 32));
+			result = (prime * result) + (int) (low ^ (low >>> 32));
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final Int128Value other = (Int128Value) obj;
+			return (high == other.high) && (low == other.low);
+		}
+
+		@Override
+		public String toString() {
+			return new Int128Content(
+					high,
+					low).toBigInteger().toString();
+		}
+	}
+
+	/**
+	 * A mutable unsigned 128 bit value, used by the query builder to accumulate
+	 * the lengths of ranges
+	 */
+	private static class Int128Content implements
+			Content<Int128Content>,
+			Cloneable
+	{
+		private long high;
+		private long low;
+
+		private Int128Content(
+				final long high,
+				final long low ) {
+			this.high = high;
+			this.low = low;
+		}
+
+		@Override
+		public void add(
+				final Int128Content other ) {
+			final long sum = low + other.low;
+			// carry if the unsigned sum wrapped around
+			high += other.high + ((compareUnsigned(
+					sum,
+					low) < 0) ? 1L : 0L);
+			low = sum;
+		}
+
+		private void subtract(
+				final Int128Value other ) {
+			final long difference = low - other.low;
+			// borrow if the unsigned difference wrapped around
+			high -= other.high + ((compareUnsigned(
+					low,
+					other.low) < 0) ? 1L : 0L);
+			low = difference;
+		}
+
+		/**
+		 * Multiply by a non-negative long in place
+		 * 
+		 * @return false if the product does not fit in 128 bits, in which case
+		 *         this value is undefined
+		 */
+		private boolean multiply(
+				final long value ) {
+			// multiply the low 64 bits by the value as 32 bit halves to get
+			// the full 128 bit product
+			final long a0 = low & 0xFFFFFFFFL;
+			final long a1 = low >>> 32;
+			final long b0 = value & 0xFFFFFFFFL;
+			final long b1 = value >>> 32;
+			final long p00 = a0 * b0;
+			final long p01 = a0 * b1;
+			final long p10 = a1 * b0;
+			final long p11 = a1 * b1;
+			final long middle = (p00 >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+			final long productLow = (middle << 32) | (p00 & 0xFFFFFFFFL);
+			final long productHigh = p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+			if (high != 0L) {
+				// the high 64 bits times the value must fit within the high
+				// 64 bits of the result
+				if ((value != 0L) && ((compareUnsigned(
+						high,
+						Long.MAX_VALUE / value) > 0))) {
+					return false;
+				}
+				final long highProduct = high * value;
+				high = highProduct + productHigh;
+				if (compareUnsigned(
+						high,
+						highProduct) < 0) {
+					return false;
+				}
+			}
+			else {
+				high = productHigh;
+			}
+			low = productLow;
+			return true;
+		}
+
+		@Override
+		public void shiftRight(
+				final int bits ) {
+			if (bits >= 64) {
+				low = high >>> (bits - 64);
+				high = 0L;
+			}
+			else if (bits > 0) {
+				low = (low >>> bits) | (high << (64 - bits));
+				high >>>= bits;
+			}
+		}
+
+		@Override
+		public boolean isZero() {
+			return (high == 0L) && (low == 0L);
+		}
+
+		@Override
+		public boolean isOne() {
+			return (high == 0L) && (low == 1L);
+		}
+
+		@Override
+		public int compareTo(
+				final Int128Content other ) {
+			final int highCompare = compareUnsigned(
+					high,
+					other.high);
+			if (highCompare != 0) {
+				return highCompare;
+			}
+			return compareUnsigned(
+					low,
+					other.low);
+		}
+
+		@Override
+		public Int128Content clone() {
+			return new Int128Content(
+					high,
+					low);
+		}
+
+		private BigInteger toBigInteger() {
+			final byte[] bytes = new byte[17];
+			for (int b = 0; b < 8; b++) {
+				bytes[16 - b] = (byte) (low >>> (b * 8));
+				bytes[8 - b] = (byte) (high >>> (b * 8));
+			}
+			return new BigInteger(
+					bytes);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + (int) (high ^ (high >>> 32));
+			result = (prime * result) + (int) (low ^ (low >>> 32));
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final Int128Content other = (Int128Content) obj;
+			return (high == other.high) && (low == other.low);
+		}
+
+		@Override
+		public String toString() {
+			return toBigInteger().toString();
+		}
+	}
+
+	private static class Int128Range implements
+			Range<Int128Value, Int128Content>
+	{
+		private final Int128Value start;
+		private final Int128Value end;
+
+		private Int128Range(
+				final Int128Value start,
+				final Int128Value end ) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Int128Value getStart() {
+			return start;
+		}
+
+		@Override
+		public Int128Value getEnd() {
+			return end;
+		}
+
+		@Override
+		public boolean contains(
+				final Int128Value point ) {
+			return (start.compareTo(point) <= 0) && (point.compareTo(end) < 0);
+		}
+
+		@Override
+		public Int128Content length() {
+			final Int128Content length = new Int128Content(
+					end.high,
+					end.low);
+			length.subtract(start);
+			return length;
+		}
+
+		/**
+		 * 
+		 * @return the length of the overlap with the other range, which is only
+		 *         used for per dimension ranges so it always fits in a long
+		 */
+		private long overlap(
+				final Int128Range other ) {
+			final Int128Value overlapStart = (start.compareTo(other.start) > 0) ? start : other.start;
+			final Int128Value overlapEnd = (end.compareTo(other.end) < 0) ? end : other.end;
+			if (overlapStart.compareTo(overlapEnd) >= 0) {
+				return 0L;
+			}
+			return overlapEnd.low - overlapStart.low;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * start.hashCode()) + end.hashCode();
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final Int128Range other = (Int128Range) obj;
+			return start.equals(other.start) && end.equals(other.end);
+		}
+
+		@Override
+		public String toString() {
+			return "[" + start + "," + end + ")";
+		}
+	}
+
+	private static enum Int128RangeHome
+			implements
+			RangeHome<Int128Value, Int128Content, Int128Range> {
+		INSTANCE;
+
+		@Override
+		public Int128Range of(
+				final Int128Value start,
+				final Int128Value end ) {
+			return new Int128Range(
+					start,
+					end);
+		}
+
+		@Override
+		public Int128Range toRange(
+				final Pow2LengthBitSetRange bitSetRange ) {
+			final long[] words = bitSetRange.getStart().toLongArray();
+			final long startLow = (words.length > 0) ? words[0] : 0L;
+			final long startHigh = (words.length > 1) ? words[1] : 0L;
+			final int level = bitSetRange.getLevel();
+			Preconditions.checkArgument(
+					level <= MAX_TOTAL_PRECISION,
+					"bitSetRange=%s exceeds %s bits",
+					bitSetRange,
+					MAX_TOTAL_PRECISION);
+			// add 2^level to the start to get the end
+			final Int128Content end = new Int128Content(
+					startHigh,
+					startLow);
+			end.add(new Int128Content(
+					(level >= 64) ? (1L << (level - 64)) : 0L,
+					(level >= 64) ? 0L : (1L << level)));
+			return new Int128Range(
+					new Int128Value(
+							startHigh,
+							startLow),
+					new Int128Value(
+							end.high,
+							end.low));
+		}
+
+		@Override
+		public Int128Content overlap(
+				final List<Int128Range> x,
+				final List<Int128Range> y ) {
+			Preconditions.checkArgument(
+					x.size() == y.size(),
+					"x and y must have the same size.");
+			final Int128Content overlap = new Int128Content(
+					0L,
+					1L);
+			for (int i = 0; (i < x.size()) && !overlap.isZero(); i++) {
+				// the product of the per dimension overlaps can not exceed
+				// the total precision
+				overlap.multiply(x.get(
+						i).overlap(
+						y.get(i)));
+			}
+			return overlap;
+		}
+	}
+}
@@ -7,6 +7,9 @@ import java.util.List;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.IndexUtils;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
 import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
@@ -37,7 +40,7 @@ import com.google.uzaygezen.core.ranges.LongRangeHome;
  * support up to certain levels of precision. For getID() operations it is
  * currently used if no single dimension is more than 48 bits of precision, and
  * for query decomposition it is currently used if the total precision is <= 62
- * bits.
+ * bits (see Int128HilbertSFCOperations for query decomposition beyond 62 bits).
  * 
  * 
  */
@@ -51,23 +54,36 @@ public class PrimitiveHilbertSFCOperations implements
 
 	protected long minHilbertValue;
 	protected long maxHilbertValue;
+	protected int totalPrecision;
+	protected ThreadLocal<HilbertBitVectors> bitVectorsPerThread;
 
 	@Override
 	public void init(
 			final SFCDimensionDefinition[] dimensionDefs ) {
 		binsPerDimension = new long[dimensionDefs.length];
-		int totalPrecision = 0;
+		final int[] bitsPerDimension = new int[dimensionDefs.length];
+		totalPrecision = 0;
 		for (int d = 0; d < dimensionDefs.length; d++) {
 			final SFCDimensionDefinition dimension = dimensionDefs[d];
 			binsPerDimension[d] = (long) Math.pow(
 					2,
 					dimension.getBitsOfPrecision());
+			bitsPerDimension[d] = dimension.getBitsOfPrecision();
 			totalPrecision += dimension.getBitsOfPrecision();
 		}
 		minHilbertValue = 0;
 		maxHilbertValue = (long) (Math.pow(
 				2,
 				totalPrecision) - 1);
+		final int hilbertBits = totalPrecision;
+		bitVectorsPerThread = new ThreadLocal<HilbertBitVectors>() {
+			@Override
+			protected HilbertBitVectors initialValue() {
+				return new HilbertBitVectors(
+						bitsPerDimension,
+						hilbertBits);
+			}
+		};
 	}
 
 	@Override
@@ -75,63 +91,62 @@ public class PrimitiveHilbertSFCOperations implements
 			final double[] values,
 			final CompactHilbertCurve compactHilbertCurve,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		final byte[] hilbertValue = new byte[(totalPrecision + 7) / 8];
+		convertToHilbert(
+				values,
+				compactHilbertCurve,
+				dimensionDefinitions,
+				hilbertValue,
+				0);
+		return hilbertValue;
+	}
 
-		final List<Long> dimensionValues = new ArrayList<Long>();
-
+	@Override
+	public int convertToHilbert(
+			final double[] values,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final byte[] buffer,
+			final int offset ) {
 		// Compare the number of dimensions to the number of values sent in
 		if (dimensionDefinitions.length != values.length) {
 			throw new ArrayIndexOutOfBoundsException(
 					"Number of dimensions supplied (" + values.length + ") is different than initialized (" + dimensionDefinitions.length + ").");
 		}
+		final HilbertBitVectors bitVectors = bitVectorsPerThread.get();
 
 		// Loop through each value, then normalize the value based on the
 		// dimension definition
 		for (int i = 0; i < dimensionDefinitions.length; i++) {
-			dimensionValues.add(normalizeDimension(
+			bitVectors.dimensionValues[i].copyFrom(normalizeDimension(
 					dimensionDefinitions[i],
 					values[i],
 					binsPerDimension[i],
 					false));
 		}
 
-		// Convert the normalized values to a BitVector
-		final BitVector hilbertBitVector = convertToHilbert(
-				dimensionValues,
-				compactHilbertCurve,
-				dimensionDefinitions);
-
-		return hilbertBitVector.toBigEndianByteArray();
-	}
-
-	/***
-	 * Converts the incoming values (one per dimension) into a BitVector using
-	 * the Compact Hilbert instance. BitVector is a wrapper to allow values
-	 * longer than 64 bits.
-	 * 
-	 * @param values
-	 *            n-dimensional point to transoform to a point on the hilbert
-	 *            SFC
-	 * @return point on hilbert SFC
-	 */
-	private BitVector convertToHilbert(
-			final List<Long> values,
-			final CompactHilbertCurve compactHilbertCurve,
-			final SFCDimensionDefinition[] dimensionDefinitions ) {
-		final BitVector[] bitVectors = new BitVector[values.size()];
-
-		final BitVector hilbertBitVector = BitVectorFactories.OPTIMAL.apply(compactHilbertCurve.getSpec().sumBitsPerDimension());
-
-		for (int i = 0; i < values.size(); i++) {
-			bitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
-			bitVectors[i].copyFrom(values.get(i));
-		}
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.index(
-					bitVectors,
-					0,
-					hilbertBitVector);
+		compactHilbertCurve.index(
+				bitVectors.dimensionValues,
+				0,
+				bitVectors.hilbertValue);
+
+		// write the hilbert value out in big endian order, 64 bits at a time
+		final int byteCount = (totalPrecision + 7) / 8;
+		for (int c = 0; c < bitVectors.hilbertValueChunks.length; c++) {
+			final BitVector chunk = bitVectors.hilbertValueChunks[c];
+			chunk.copyFromSection(
+					bitVectors.hilbertValue,
+					c * 64);
+			final long chunkValue = chunk.toLong();
+			for (int b = 0; b < 8; b++) {
+				final int byteIndex = (c * 8) + b;
+				if (byteIndex >= byteCount) {
+					break;
+				}
+				buffer[(offset + byteCount) - 1 - byteIndex] = (byte) (chunkValue >>> (b * 8));
+			}
 		}
-		return hilbertBitVector;
+		return byteCount;
 	}
 
 	@Override
@@ -194,11 +209,9 @@ public class PrimitiveHilbertSFCOperations implements
 			perDimensionBitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
 		}
 
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.indexInverse(
-					hilbertBitVector,
-					perDimensionBitVectors);
-		}
+		compactHilbertCurve.indexInverse(
+				hilbertBitVector,
+				perDimensionBitVectors);
 		return perDimensionBitVectors;
 	}
 
@@ -223,7 +236,7 @@ public class PrimitiveHilbertSFCOperations implements
 	 *             thrown when the value passed doesn't fit with in the
 	 *             dimension definition provided
 	 */
-	private long normalizeDimension(
+	protected long normalizeDimension(
 			final SFCDimensionDefinition boundedDimensionDefinition,
 			final double value,
 			final long bins,
@@ -299,8 +312,30 @@ public class PrimitiveHilbertSFCOperations implements
 			final SFCDimensionDefinition[] dimensionDefinitions,
 			final int totalPrecision,
 			final int maxFilteredIndexedRanges,
-			final boolean removeVacuum ) {// List of query range minimum and
-											// maximum
+			final boolean removeVacuum ) {
+		return decomposeRange(
+				rangePerDimension,
+				compactHilbertCurve,
+				dimensionDefinitions,
+				totalPrecision,
+				maxFilteredIndexedRanges,
+				removeVacuum,
+				null,
+				null);
+	}
+
+	@Override
+	public RangeDecomposition decomposeRange(
+			final NumericData[] rangePerDimension,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int totalPrecision,
+			final int maxFilteredIndexedRanges,
+			final boolean removeVacuum,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {// List of query range
+													// minimum and
+		// maximum
 		// values
 		final List<Long> minRangeList = new ArrayList<Long>();
 		final List<Long> maxRangeList = new ArrayList<Long>();
@@ -339,13 +374,24 @@ public class PrimitiveHilbertSFCOperations implements
 				minRangeList,
 				maxRangeList);
 
-		final RegionInspector<LongRange, LongContent> regionInspector = SimpleRegionInspector.create(
+		final RegionInspector<LongRange, LongContent> constraintsInspector = SimpleRegionInspector.create(
 				ImmutableList.of(region),
 				new LongContent(
 						minQuadSize),
 				Functions.<LongRange> identity(),
 				LongRangeHome.INSTANCE,
 				zero);
+		final RegionInspector<LongRange, LongContent> regionInspector = (queryRegion == null) ? constraintsInspector : new QueryRegionInspector<LongRange, Long, LongContent, LongRange>(
+				constraintsInspector,
+				queryRegion,
+				dimensionDefinitions,
+				63 - Long.numberOfLeadingZeros(minQuadSize),
+				LongRangeHome.INSTANCE);
+
+		final RegionInspector<LongRange, LongContent> inspector = (deadline == null) ? regionInspector : new DeadlineRegionInspector<Long, LongContent, LongRange>(
+				regionInspector,
+				deadline,
+				LongRangeHome.INSTANCE);
 
 		final PlainFilterCombiner<LongRange, Long, LongContent, LongRange> intervalCombiner = new PlainFilterCombiner<LongRange, Long, LongContent, LongRange>(
 				LongRange.of(
@@ -353,17 +399,15 @@ public class PrimitiveHilbertSFCOperations implements
 						1));
 
 		final QueryBuilder<LongRange, LongRange> queryBuilder = BacktrackingQueryBuilder.create(
-				regionInspector,
+				inspector,
 				intervalCombiner,
 				maxFilteredIndexedRanges,
 				removeVacuum,
 				LongRangeHome.INSTANCE,
 				zero);
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
-					compactHilbertCurve,
-					queryBuilder));
-		}
+		compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
+				compactHilbertCurve,
+				queryBuilder));
 		final List<FilteredIndexRange<LongRange, LongRange>> hilbertRanges = queryBuilder.get().getFilteredIndexRanges();
 
 		final ByteArrayRange[] sfcRanges = new ByteArrayRange[hilbertRanges.size()];
@@ -473,6 +517,15 @@ public class PrimitiveHilbertSFCOperations implements
 	public BigInteger getEstimatedIdCount(
 			final MultiDimensionalNumericData data,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		return BigInteger.valueOf(getEstimatedIdCountAsLong(
+				data,
+				dimensionDefinitions));
+	}
+
+	@Override
+	public long getEstimatedIdCountAsLong(
+			final MultiDimensionalNumericData data,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
 		final double[] mins = data.getMinValuesPerDimension();
 		final double[] maxes = data.getMaxValuesPerDimension();
 		long estimatedIdCount = 1L;
@@ -493,9 +546,11 @@ public class PrimitiveHilbertSFCOperations implements
 				// inclusive in this case)
 				binMax = binMin;
 			}
-			estimatedIdCount *= (Math.abs(binMax - binMin) + 1);
+			estimatedIdCount = IndexUtils.multiplySaturated(
+					estimatedIdCount,
+					Math.abs(binMax - binMin) + 1);
 		}
-		return BigInteger.valueOf(estimatedIdCount);
+		return estimatedIdCount;
 	}
 
 	@Override
@@ -507,4 +562,32 @@ public class PrimitiveHilbertSFCOperations implements
 		}
 		return retVal;
 	}
+
+	/**
+	 * Reusable bit vectors for encoding a single hilbert value, so that
+	 * encoding does not need to allocate. The hilbert value is also split into
+	 * 64 bit chunks so that it can be read out as primitive longs.
+	 */
+	private static class HilbertBitVectors
+	{
+		private final BitVector[] dimensionValues;
+		private final BitVector hilbertValue;
+		private final BitVector[] hilbertValueChunks;
+
+		private HilbertBitVectors(
+				final int[] bitsPerDimension,
+				final int totalPrecision ) {
+			dimensionValues = new BitVector[bitsPerDimension.length];
+			for (int d = 0; d < bitsPerDimension.length; d++) {
+				dimensionValues[d] = BitVectorFactories.OPTIMAL.apply(bitsPerDimension[d]);
+			}
+			hilbertValue = BitVectorFactories.OPTIMAL.apply(totalPrecision);
+			hilbertValueChunks = new BitVector[(totalPrecision + 63) / 64];
+			for (int c = 0; c < hilbertValueChunks.length; c++) {
+				hilbertValueChunks[c] = BitVectorFactories.OPTIMAL.apply(Math.min(
+						64,
+						totalPrecision - (c * 64)));
+			}
+		}
+	}
 }
@@ -0,0 +1,162 @@
+package mil.nga.giat.geowave.index.sfc.hilbert;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
+import mil.nga.giat.geowave.index.sfc.QueryRegion.Relation;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import com.google.uzaygezen.core.Assessment;
+import com.google.uzaygezen.core.BitVector;
+import com.google.uzaygezen.core.Pow2LengthBitSetRange;
+import com.google.uzaygezen.core.RegionInspector;
+import com.google.uzaygezen.core.SpatialRelation;
+import com.google.uzaygezen.core.ranges.Range;
+import com.google.uzaygezen.core.ranges.RangeHome;
+
+/**
+ * This region inspector refines the assessment of the rectangular query
+ * constraints with the actual shape of a query region. Cells that are disjoint
+ * from the region are pruned, and cells that intersect the boundary of the
+ * region are zoomed into until they are no larger than the minimum quad size of
+ * the query, at which point they are accepted as potentially over-selective.
+ * 
+ * The cost of relating a cell to a complex region can be significant, so the
+ * cells within a cell that is known to be contained by the region are not
+ * related again, and once a fixed number of cells have been zoomed into because
+ * of the region the remaining boundary cells are accepted as potentially
+ * over-selective.
+ * 
+ * @param <F>
+ *            the filter type of the delegate inspector
+ * @param <T>
+ *            the index value type
+ * @param <V>
+ *            the content type of the delegate inspector
+ * @param <R>
+ *            the index range type
+ */
+class QueryRegionInspector<F, T, V, R extends Range<T, V>> implements
+		RegionInspector<F, V>
+{
+	private static final int MAX_REFINEMENTS = 4096;
+	private final RegionInspector<F, V> delegate;
+	private final QueryRegion queryRegion;
+	private final SFCDimensionDefinition[] dimensionDefinitions;
+	private final int minimumLevel;
+	private final RangeHome<T, V, R> rangeHome;
+	private R containedIndexRange;
+	private int refinements = 0;
+
+	/**
+	 * 
+	 * @param delegate
+	 *            the inspector of the rectangular query constraints
+	 * @param queryRegion
+	 *            the region to refine the assessments with
+	 * @param dimensionDefinitions
+	 *            the dimension definitions of the curve, used to denormalize
+	 *            each cell
+	 * @param minimumLevel
+	 *            the log base 2 of the minimum quad size, cells at or below
+	 *            this level that intersect the boundary of the region are not
+	 *            zoomed into
+	 * @param rangeHome
+	 *            the range home of the delegate inspector, used to measure the
+	 *            gap left by each pruned cell
+	 */
+	public QueryRegionInspector(
+			final RegionInspector<F, V> delegate,
+			final QueryRegion queryRegion,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int minimumLevel,
+			final RangeHome<T, V, R> rangeHome ) {
+		this.delegate = delegate;
+		this.queryRegion = queryRegion;
+		this.dimensionDefinitions = dimensionDefinitions;
+		this.minimumLevel = minimumLevel;
+		this.rangeHome = rangeHome;
+	}
+
+	@Override
+	public int getNumberOfDimensions() {
+		return delegate.getNumberOfDimensions();
+	}
+
+	@Override
+	public Assessment<F, V> assess(
+			final Pow2LengthBitSetRange indexRange,
+			final List<Pow2LengthBitSetRange> orthotope ) {
+		final Assessment<F, V> assessment = delegate.assess(
+				indexRange,
+				orthotope);
+		if (assessment.getOutcome() == SpatialRelation.DISJOINT) {
+			return assessment;
+		}
+		final R indexRangeValue = rangeHome.toRange(indexRange);
+		if ((containedIndexRange != null) && containedIndexRange.contains(indexRangeValue.getStart())) {
+			// the cells are visited depth first so everything within a
+			// contained cell is visited before any other cell
+			return assessment;
+		}
+		final Relation relation = queryRegion.relate(getCell(orthotope));
+		switch (relation) {
+			case DISJOINT:
+				// the estimate of a disjoint cell is the gap it leaves, a zero
+				// gap would merge the ranges on either side of the cell
+				return Assessment.makeDisjoint(indexRangeValue.length());
+			case INTERSECTS:
+				if (assessment.getOutcome() == SpatialRelation.COVERED) {
+					if ((Pow2LengthBitSetRange.levelSum(orthotope) > minimumLevel) && (refinements < MAX_REFINEMENTS)) {
+						// the cell is within the constraints but not the
+						// region, so keep zooming into it
+						refinements++;
+						return Assessment.makeOverlaps(assessment.getEstimate());
+					}
+					if (!assessment.isPotentialOverSelectivity()) {
+						return Assessment.makeCovered(
+								assessment.getFilter(),
+								true,
+								assessment.getEstimate());
+					}
+				}
+				return assessment;
+			case CONTAINS:
+			default:
+				if (assessment.getOutcome() == SpatialRelation.OVERLAPS) {
+					containedIndexRange = indexRangeValue;
+				}
+				return assessment;
+		}
+	}
+
+	private BasicNumericDataset getCell(
+			final List<Pow2LengthBitSetRange> orthotope ) {
+		final NumericData[] cell = new NumericData[orthotope.size()];
+		for (int d = 0; d < cell.length; d++) {
+			final Pow2LengthBitSetRange range = orthotope.get(d);
+			final double bins = Math.pow(
+					2,
+					dimensionDefinitions[d].getBitsOfPrecision());
+			final double start = toDouble(range.getStart());
+			cell[d] = new NumericRange(
+					dimensionDefinitions[d].denormalize(start / bins),
+					dimensionDefinitions[d].denormalize((start + Math.pow(
+							2,
+							range.getLevel())) / bins));
+		}
+		return new BasicNumericDataset(
+				cell);
+	}
+
+	private static double toDouble(
+			final BitVector bitVector ) {
+		if (bitVector.size() < 64) {
+			return bitVector.toExactLong();
+		}
+		return bitVector.toBigInteger().doubleValue();
+	}
+}
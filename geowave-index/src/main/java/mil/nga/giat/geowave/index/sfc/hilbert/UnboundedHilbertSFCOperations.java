@@ -8,6 +8,8 @@ import java.util.List;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
 import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
@@ -100,6 +102,28 @@ public class UnboundedHilbertSFCOperations implements
 		return hilbertBitVector.toBigEndianByteArray();
 	}
 
+	@Override
+	public int convertToHilbert(
+			final double[] values,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final byte[] buffer,
+			final int offset ) {
+		// the normalization is done with BigDecimal so there is little to be
+		// gained by avoiding the copy here
+		final byte[] hilbertValue = convertToHilbert(
+				values,
+				compactHilbertCurve,
+				dimensionDefinitions);
+		System.arraycopy(
+				hilbertValue,
+				0,
+				buffer,
+				offset,
+				hilbertValue.length);
+		return hilbertValue.length;
+	}
+
 	/***
 	 * Converts the incoming values (one per dimension) into a BitVector using
 	 * the Compact Hilbert instance. BitVector is a wrapper to allow values
@@ -279,8 +303,30 @@ public class UnboundedHilbertSFCOperations implements
 			final SFCDimensionDefinition[] dimensionDefinitions,
 			final int totalPrecision,
 			final int maxFilteredIndexedRanges,
-			final boolean removeVacuum ) {// List of query range minimum and
-											// maximum
+			final boolean removeVacuum ) {
+		return decomposeRange(
+				rangePerDimension,
+				compactHilbertCurve,
+				dimensionDefinitions,
+				totalPrecision,
+				maxFilteredIndexedRanges,
+				removeVacuum,
+				null,
+				null);
+	}
+
+	@Override
+	public RangeDecomposition decomposeRange(
+			final NumericData[] rangePerDimension,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int totalPrecision,
+			final int maxFilteredIndexedRanges,
+			final boolean removeVacuum,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {// List of query range
+													// minimum and
+		// maximum
 		// values
 		final List<BigInteger> minRangeList = new ArrayList<BigInteger>();
 		final List<BigInteger> maxRangeList = new ArrayList<BigInteger>();
@@ -319,13 +365,24 @@ public class UnboundedHilbertSFCOperations implements
 				minRangeList,
 				maxRangeList);
 
-		final RegionInspector<BigIntegerRange, BigIntegerContent> regionInspector = SimpleRegionInspector.create(
+		final RegionInspector<BigIntegerRange, BigIntegerContent> constraintsInspector = SimpleRegionInspector.create(
 				ImmutableList.of(region),
 				new BigIntegerContent(
 						minQuadSize),
 				Functions.<BigIntegerRange> identity(),
 				BigIntegerRangeHome.INSTANCE,
 				zero);
+		final RegionInspector<BigIntegerRange, BigIntegerContent> regionInspector = (queryRegion == null) ? constraintsInspector : new QueryRegionInspector<BigIntegerRange, BigInteger, BigIntegerContent, BigIntegerRange>(
+				constraintsInspector,
+				queryRegion,
+				dimensionDefinitions,
+				minQuadSize.bitLength() - 1,
+				BigIntegerRangeHome.INSTANCE);
+
+		final RegionInspector<BigIntegerRange, BigIntegerContent> inspector = (deadline == null) ? regionInspector : new DeadlineRegionInspector<BigInteger, BigIntegerContent, BigIntegerRange>(
+				regionInspector,
+				deadline,
+				BigIntegerRangeHome.INSTANCE);
 
 		final PlainFilterCombiner<BigIntegerRange, BigInteger, BigIntegerContent, BigIntegerRange> intervalCombiner = new PlainFilterCombiner<BigIntegerRange, BigInteger, BigIntegerContent, BigIntegerRange>(
 				BigIntegerRange.of(
@@ -333,7 +390,7 @@ public class UnboundedHilbertSFCOperations implements
 						1));
 
 		final QueryBuilder<BigIntegerRange, BigIntegerRange> queryBuilder = BacktrackingQueryBuilder.create(
-				regionInspector,
+				inspector,
 				intervalCombiner,
 				maxFilteredIndexedRanges,
 				removeVacuum,
@@ -472,6 +529,19 @@ public class UnboundedHilbertSFCOperations implements
 		return estimatedIdCount;
 	}
 
+	@Override
+	public long getEstimatedIdCountAsLong(
+			final MultiDimensionalNumericData data,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		final BigInteger estimatedIdCount = getEstimatedIdCount(
+				data,
+				dimensionDefinitions);
+		if (estimatedIdCount.bitLength() > 63) {
+			return Long.MAX_VALUE;
+		}
+		return estimatedIdCount.longValue();
+	}
+
 	@Override
 	public double[] getInsertionIdRangePerDimension(
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
@@ -61,6 +61,19 @@ public class SingleTierSubStrategy implements
 				tier);
 	}
 
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxRangeDecomposition ) {
+		return ByteArrayRange.mergeIntersections(TieredSFCIndexStrategy.getQueryRanges(
+				TieredSFCIndexStrategy.applyBins(
+						indexedRanges,
+						baseDefinitions),
+				sfc,
+				maxRangeDecomposition,
+				tier));
+	}
+
 	@Override
 	public MultiDimensionalNumericData getRangeForId(
 			final ByteArrayId insertionId ) {
@@ -106,7 +119,7 @@ public class SingleTierSubStrategy implements
 					range,
 					tier,
 					sfc,
-					null,
+					Long.MAX_VALUE,
 					tier);
 			if (binRowIds != null) {
 				rowIds.addAll(binRowIds);
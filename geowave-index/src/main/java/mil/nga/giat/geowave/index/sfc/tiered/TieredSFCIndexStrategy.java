@@ -1,6 +1,5 @@
 package mil.nga.giat.geowave.index.sfc.tiered;
 
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -8,6 +7,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
@@ -15,8 +17,14 @@ import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.HierarchicalNumericIndexStrategy;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
 import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.UnboundedDimensionDefinition;
 import mil.nga.giat.geowave.index.dimension.bin.BinRange;
+import mil.nga.giat.geowave.index.dimension.bin.BinValue;
+import mil.nga.giat.geowave.index.dimension.bin.BinningStrategy;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
 import mil.nga.giat.geowave.index.sfc.SpaceFillingCurve;
 import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
@@ -24,6 +32,7 @@ import mil.nga.giat.geowave.index.sfc.data.BinnedNumericDataset;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.index.sfc.data.NumericValue;
 
 import org.apache.log4j.Logger;
 
@@ -32,7 +41,9 @@ import com.google.common.collect.ImmutableBiMap.Builder;
 
 /**
  * This class uses multiple SpaceFillingCurve objects, one per tier, to
- * represent a single cohesive index strategy with multiple precisions
+ * represent a single cohesive index strategy with multiple precisions. Once
+ * constructed (or deserialized) it holds no mutable state and can be shared
+ * across threads without external locking.
  * 
  */
 public class TieredSFCIndexStrategy implements
@@ -41,11 +52,13 @@ public class TieredSFCIndexStrategy implements
 	private final static Logger LOGGER = Logger.getLogger(TieredSFCIndexStrategy.class);
 	private final static int MAX_ESTIMATED_DUPLICATE_IDS_PER_DIMENSION = 2;
 	protected static final int DEFAULT_MAX_RANGES = -1;
+	private final static int INSERTION_ID_BATCH_THRESHOLD = 256;
 	private SpaceFillingCurve[] orderedSfcs;
 	private ImmutableBiMap<Integer, Byte> orderedSfcIndexToTierId;
 	private NumericDimensionDefinition[] baseDefinitions;
 	private long maxEstimatedDuplicateIds;
-	private BigInteger maxEstimatedDuplicateIdsBigInteger;
+	// the range of a single insertion ID for each dimension, per tier
+	private double[][] insertionIdRangesPerTier;
 
 	protected TieredSFCIndexStrategy() {}
 
@@ -67,73 +80,496 @@ public class TieredSFCIndexStrategy implements
 		maxEstimatedDuplicateIds = (long) Math.pow(
 				MAX_ESTIMATED_DUPLICATE_IDS_PER_DIMENSION,
 				baseDefinitions.length);
-		maxEstimatedDuplicateIdsBigInteger = BigInteger.valueOf(maxEstimatedDuplicateIds);
+		initInsertionIdRangesPerTier();
 	}
 
 	@Override
 	public List<ByteArrayRange> getQueryRanges(
 			final MultiDimensionalNumericData indexedRange,
 			final int maxRangeDecomposition ) {
-		// TODO don't just pass max ranges along to the SFC, take tiering and
-		// binning into account to limit the number of ranges correctly
-
-		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
 		final BinnedNumericDataset[] binnedQueries = BinnedNumericDataset.applyBins(
 				indexedRange,
 				baseDefinitions);
-		int maxRangeDecompositionPerSfc = maxRangeDecomposition;
-		if ((maxRangeDecomposition > 1) && (orderedSfcs.length > 1)) {
-			maxRangeDecompositionPerSfc = (int) Math.ceil((double) maxRangeDecomposition / (double) orderedSfcs.length);
-		}
+		// the finest tier is first so that its ranges are first in the list
+		final SpaceFillingCurve[] sfcs = new SpaceFillingCurve[orderedSfcs.length];
+		final byte[] tiers = new byte[orderedSfcs.length];
 		for (int sfcIndex = orderedSfcs.length - 1; sfcIndex >= 0; sfcIndex--) {
-			final SpaceFillingCurve sfc = orderedSfcs[sfcIndex];
-			final Byte tier = orderedSfcIndexToTierId.get(sfcIndex);
-			queryRanges.addAll(getQueryRanges(
+			sfcs[orderedSfcs.length - 1 - sfcIndex] = orderedSfcs[sfcIndex];
+			tiers[orderedSfcs.length - 1 - sfcIndex] = orderedSfcIndexToTierId.get(sfcIndex);
+		}
+		return getQueryRanges(
+				binnedQueries,
+				sfcs,
+				tiers,
+				maxRangeDecomposition,
+				null,
+				null);
+	}
+
+	/**
+	 * Returns a list of query ranges for the specified numeric range, only
+	 * decomposing the query on the tiers that are known to contain data. The
+	 * whole range budget is spent on those tiers. If none of the given tiers
+	 * belong to this strategy every tier is decomposed.
+	 * 
+	 * @param indexedRange
+	 *            defines the numeric range for the query
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges
+	 * @param occupiedTierIds
+	 *            the tier IDs that contain data, typically from tier occupancy
+	 *            statistics, or null if unknown
+	 * @return a List of query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds ) {
+		return getQueryRanges(
+				indexedRange,
+				maxRangeDecomposition,
+				occupiedTierIds,
+				null);
+	}
+
+	/**
+	 * Returns a list of query ranges for the specified numeric range, only
+	 * decomposing the query on the tiers that are known to contain data and
+	 * pruning the cells of each tier that do not intersect the query region.
+	 * 
+	 * @param indexedRange
+	 *            defines the numeric range for the query
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges
+	 * @param occupiedTierIds
+	 *            the tier IDs that contain data, typically from tier occupancy
+	 *            statistics, or null if unknown
+	 * @param queryRegion
+	 *            the shape of the query within the numeric range, such as the
+	 *            polygon of a spatial query, or null to decompose the numeric
+	 *            range as is
+	 * @return a List of query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds,
+			final QueryRegion queryRegion ) {
+		return getQueryRanges(
+				indexedRange,
+				maxRangeDecomposition,
+				occupiedTierIds,
+				queryRegion,
+				null);
+	}
+
+	/**
+	 * Returns a list of query ranges for the specified numeric range, only
+	 * decomposing the query on the tiers that are known to contain data,
+	 * pruning the cells of each tier that do not intersect the query region,
+	 * and refining the ranges no further once the deadline has passed. The
+	 * deadline is shared by every tier and bin, and records how much of the
+	 * query was covered by coarse ranges.
+	 * 
+	 * @param indexedRange
+	 *            defines the numeric range for the query
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges
+	 * @param occupiedTierIds
+	 *            the tier IDs that contain data, typically from tier occupancy
+	 *            statistics, or null if unknown
+	 * @param queryRegion
+	 *            the shape of the query within the numeric range, such as the
+	 *            polygon of a spatial query, or null to decompose the numeric
+	 *            range as is
+	 * @param deadline
+	 *            the deadline after which the ranges are no longer refined, or
+	 *            null to refine the ranges to completion
+	 * @return a List of query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {
+		return getQueryRanges(
+				BinnedNumericDataset.applyBins(
+						indexedRange,
+						baseDefinitions),
+				maxRangeDecomposition,
+				occupiedTierIds,
+				queryRegion,
+				deadline);
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxRangeDecomposition ) {
+		return getQueryRanges(
+				indexedRanges,
+				maxRangeDecomposition,
+				null,
+				null);
+	}
+
+	/**
+	 * Returns a single sorted list of query ranges for the union of several
+	 * numeric ranges, only decomposing the query on the tiers that are known to
+	 * contain data and pruning the cells of each tier that do not intersect the
+	 * query region. Every bin of every numeric range on every tier shares the
+	 * range budget, and duplicate, overlapping and adjacent ranges are merged.
+	 * 
+	 * @param indexedRanges
+	 *            defines the numeric ranges for the query
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges
+	 * @param occupiedTierIds
+	 *            the tier IDs that contain data, typically from tier occupancy
+	 *            statistics, or null if unknown
+	 * @param queryRegion
+	 *            the shape of the query within the numeric ranges, or null to
+	 *            decompose the numeric ranges as is
+	 * @return a sorted List of disjoint query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds,
+			final QueryRegion queryRegion ) {
+		return getQueryRanges(
+				indexedRanges,
+				maxRangeDecomposition,
+				occupiedTierIds,
+				queryRegion,
+				null);
+	}
+
+	/**
+	 * Returns a single sorted list of query ranges for the union of several
+	 * numeric ranges, refining the ranges no further once the deadline has
+	 * passed. The deadline is shared by every numeric range, tier and bin.
+	 * 
+	 * @param indexedRanges
+	 *            defines the numeric ranges for the query
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges
+	 * @param occupiedTierIds
+	 *            the tier IDs that contain data, typically from tier occupancy
+	 *            statistics, or null if unknown
+	 * @param queryRegion
+	 *            the shape of the query within the numeric ranges, or null to
+	 *            decompose the numeric ranges as is
+	 * @param deadline
+	 *            the deadline after which the ranges are no longer refined, or
+	 *            null to refine the ranges to completion
+	 * @return a sorted List of disjoint query ranges
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {
+		return ByteArrayRange.mergeIntersections(getQueryRanges(
+				applyBins(
+						indexedRanges,
+						baseDefinitions),
+				maxRangeDecomposition,
+				occupiedTierIds,
+				queryRegion,
+				deadline));
+	}
+
+	private List<ByteArrayRange> getQueryRanges(
+			final BinnedNumericDataset[] binnedQueries,
+			final int maxRangeDecomposition,
+			final Set<Byte> occupiedTierIds,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {
+		final List<SpaceFillingCurve> sfcs = new ArrayList<SpaceFillingCurve>();
+		final List<Byte> tiers = new ArrayList<Byte>();
+		if (occupiedTierIds != null) {
+			for (int sfcIndex = orderedSfcs.length - 1; sfcIndex >= 0; sfcIndex--) {
+				final Byte tier = orderedSfcIndexToTierId.get(sfcIndex);
+				if (occupiedTierIds.contains(tier)) {
+					sfcs.add(orderedSfcs[sfcIndex]);
+					tiers.add(tier);
+				}
+			}
+		}
+		if (sfcs.isEmpty()) {
+			// an empty list of ranges would imply an unconstrained query, so
+			// fall back to all tiers
+			for (int sfcIndex = orderedSfcs.length - 1; sfcIndex >= 0; sfcIndex--) {
+				sfcs.add(orderedSfcs[sfcIndex]);
+				tiers.add(orderedSfcIndexToTierId.get(sfcIndex));
+			}
+		}
+		final byte[] tierArray = new byte[tiers.size()];
+		for (int i = 0; i < tierArray.length; i++) {
+			tierArray[i] = tiers.get(i);
+		}
+		final SpaceFillingCurve[] sfcArray = sfcs.toArray(new SpaceFillingCurve[sfcs.size()]);
+		final List<ByteArrayRange> queryRanges = getQueryRanges(
+				binnedQueries,
+				sfcArray,
+				tierArray,
+				maxRangeDecomposition,
+				queryRegion,
+				deadline);
+		if (queryRanges.isEmpty() && (queryRegion != null)) {
+			// the region does not intersect the numeric range at all, but an
+			// empty list of ranges would imply an unconstrained query
+			return getQueryRanges(
 					binnedQueries,
-					sfc,
-					maxRangeDecompositionPerSfc,
-					tier));
+					sfcArray,
+					tierArray,
+					maxRangeDecomposition,
+					null,
+					deadline);
 		}
 		return queryRanges;
 	}
 
+	/**
+	 * Apply the bins of the given dimensions to each of the numeric ranges
+	 * 
+	 * @return the binned queries of every numeric range
+	 */
+	protected static BinnedNumericDataset[] applyBins(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final NumericDimensionDefinition[] baseDefinitions ) {
+		final List<BinnedNumericDataset> binnedQueries = new ArrayList<BinnedNumericDataset>();
+		for (final MultiDimensionalNumericData indexedRange : indexedRanges) {
+			binnedQueries.addAll(Arrays.asList(BinnedNumericDataset.applyBins(
+					indexedRange,
+					baseDefinitions)));
+		}
+		return binnedQueries.toArray(new BinnedNumericDataset[binnedQueries.size()]);
+	}
+
 	protected static List<ByteArrayRange> getQueryRanges(
 			final BinnedNumericDataset[] binnedQueries,
 			final SpaceFillingCurve sfc,
 			final int maxRanges,
 			final byte tier ) {
-		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
+		return getQueryRanges(
+				binnedQueries,
+				new SpaceFillingCurve[] {
+					sfc
+				},
+				new byte[] {
+					tier
+				},
+				maxRanges,
+				null,
+				null);
+	}
 
-		int maxRangeDecompositionPerBin = maxRanges;
-		if ((maxRanges > 1) && (binnedQueries.length > 1)) {
-			maxRangeDecompositionPerBin = (int) Math.ceil((double) maxRanges / (double) binnedQueries.length);
+	/**
+	 * Decompose each binned query on each space filling curve, spending the
+	 * given range budget across all of the decompositions rather than giving
+	 * each an equal share. Coarse tiers and small bins only need a handful of
+	 * ranges to be covered exactly, so the budget they cannot use is given to
+	 * the decompositions that would otherwise be forced to over-fetch.
+	 * 
+	 * Bins with identical normalized ranges, such as every interior bin of a
+	 * long temporal query which covers the full extent of its bin, share a
+	 * single decomposition per tier that is prefixed with each bin ID.
+	 * 
+	 * If there is a query region, each space filling curve only includes the
+	 * cells that intersect it. If there is a deadline, it is shared by every
+	 * decomposition so that the decompositions that are still pending once it
+	 * has passed are left coarse.
+	 */
+	protected static List<ByteArrayRange> getQueryRanges(
+			final BinnedNumericDataset[] binnedQueries,
+			final SpaceFillingCurve[] sfcs,
+			final byte[] tiers,
+			final int maxRanges,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {
+		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
+		// group the bins that have the same normalized ranges, in order of
+		// first occurrence
+		final Map<NormalizedRangeKey, Integer> groupIndices = new HashMap<NormalizedRangeKey, Integer>();
+		final List<BinnedNumericDataset> groupQueries = new ArrayList<BinnedNumericDataset>();
+		final List<Integer> groupSizes = new ArrayList<Integer>();
+		final int[] groupPerBin = new int[binnedQueries.length];
+		for (int b = 0; b < binnedQueries.length; b++) {
+			final NormalizedRangeKey key = new NormalizedRangeKey(
+					binnedQueries[b]);
+			Integer groupIndex = groupIndices.get(key);
+			if (groupIndex == null) {
+				groupIndex = groupQueries.size();
+				groupIndices.put(
+						key,
+						groupIndex);
+				groupQueries.add(binnedQueries[b]);
+				groupSizes.add(0);
+			}
+			groupSizes.set(
+					groupIndex,
+					groupSizes.get(groupIndex) + 1);
+			groupPerBin[b] = groupIndex;
 		}
-		for (final BinnedNumericDataset binnedQuery : binnedQueries) {
-			final RangeDecomposition rangeDecomp = sfc.decomposeQuery(
-					binnedQuery,
-					maxRangeDecompositionPerBin);
-			final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
-					new byte[] {
-						tier
-					// we're assuming tiers only go to 127 (the max byte
-					// value)
-					},
-					binnedQuery.getBinId());
-			for (final ByteArrayRange range : rangeDecomp.getRanges()) {
-				queryRanges.add(new ByteArrayRange(
-						new ByteArrayId(
-								ByteArrayUtils.combineArrays(
-										tierAndBinId,
-										range.getStart().getBytes())),
-						new ByteArrayId(
-								ByteArrayUtils.combineArrays(
-										tierAndBinId,
-										range.getEnd().getBytes()))));
+		final int groupCount = groupQueries.size();
+		final int decompositionCount = groupCount * sfcs.length;
+		int[] maxRangesPerDecomposition = null;
+		if ((maxRanges > 1) && (binnedQueries.length * sfcs.length > 1)) {
+			// a shared decomposition is repeated for every bin in its group so
+			// it consumes the budget once per bin
+			final double[] idCounts = new double[decompositionCount];
+			final double[] rangeDemand = new double[decompositionCount];
+			final int[] minimumRanges = new int[decompositionCount];
+			int i = 0;
+			for (final SpaceFillingCurve sfc : sfcs) {
+				for (int g = 0; g < groupCount; g++) {
+					final BinnedNumericDataset binnedQuery = groupQueries.get(g);
+					final int groupSize = groupSizes.get(g);
+					final double idCount = Math.max(
+							sfc.getEstimatedIdCount(
+									binnedQuery).doubleValue(),
+							1);
+					// the number of ranges needed to cover a box exactly grows
+					// with its surface rather than its volume
+					final int dimensionCount = binnedQuery.getDimensionCount();
+					idCounts[i] = idCount * groupSize;
+					minimumRanges[i] = groupSize;
+					rangeDemand[i] = Math.pow(
+							idCount,
+							(double) (dimensionCount - 1) / (double) dimensionCount) * groupSize;
+					i++;
+				}
+			}
+			maxRangesPerDecomposition = allocateRangeBudget(
+					rangeDemand,
+					idCounts,
+					minimumRanges,
+					maxRanges);
+			i = 0;
+			for (int sfcIndex = 0; sfcIndex < sfcs.length; sfcIndex++) {
+				for (int g = 0; g < groupCount; g++) {
+					maxRangesPerDecomposition[i] = Math.max(
+							maxRangesPerDecomposition[i] / groupSizes.get(g),
+							1);
+					i++;
+				}
+			}
+		}
+		for (int sfcIndex = 0; sfcIndex < sfcs.length; sfcIndex++) {
+			final RangeDecomposition[] decompositions = new RangeDecomposition[groupCount];
+			for (int b = 0; b < binnedQueries.length; b++) {
+				final int g = groupPerBin[b];
+				if (decompositions[g] == null) {
+					decompositions[g] = sfcs[sfcIndex].decomposeQuery(
+							groupQueries.get(g),
+							maxRangesPerDecomposition == null ? maxRanges : maxRangesPerDecomposition[(sfcIndex * groupCount) + g],
+							queryRegion,
+							deadline);
+				}
+				final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
+						new byte[] {
+							tiers[sfcIndex]
+						// we're assuming tiers only go to 127 (the max byte
+						// value)
+						},
+						binnedQueries[b].getBinId());
+				for (final ByteArrayRange range : decompositions[g].getRanges()) {
+					queryRanges.add(new ByteArrayRange(
+							new ByteArrayId(
+									ByteArrayUtils.combineArrays(
+											tierAndBinId,
+											range.getStart().getBytes())),
+							new ByteArrayId(
+									ByteArrayUtils.combineArrays(
+											tierAndBinId,
+											range.getEnd().getBytes()))));
+				}
 			}
 		}
 		return queryRanges;
 	}
 
+	/**
+	 * Split a total range budget proportionally to the demand of each
+	 * decomposition. Every decomposition first gets its minimum number of
+	 * ranges, and the rest of the budget is split so that a decomposition is
+	 * never given more ranges than its capacity. Whatever a decomposition
+	 * cannot use is redistributed among the others.
+	 * 
+	 * @param demand
+	 *            the relative demand for ranges of each decomposition
+	 * @param capacity
+	 *            the maximum number of ranges each decomposition can use
+	 * @param minimum
+	 *            the minimum number of ranges each decomposition will use
+	 * @param budget
+	 *            the total number of ranges to allocate
+	 * @return the maximum number of ranges for each decomposition
+	 */
+	protected static int[] allocateRangeBudget(
+			final double[] demand,
+			final double[] capacity,
+			final int[] minimum,
+			final int budget ) {
+		final int[] allocation = new int[demand.length];
+		final double[] remainingCapacity = new double[demand.length];
+		final boolean[] capped = new boolean[demand.length];
+		double remainingBudget = budget;
+		for (int i = 0; i < demand.length; i++) {
+			allocation[i] = minimum[i];
+			remainingBudget -= minimum[i];
+			remainingCapacity[i] = Math.max(
+					capacity[i] - minimum[i],
+					0);
+		}
+		if (remainingBudget <= 0) {
+			return allocation;
+		}
+		boolean changed = true;
+		// each pass caps at least one more decomposition or terminates, so this
+		// is bounded by the number of decompositions
+		while (changed) {
+			changed = false;
+			double remainingDemand = 0;
+			for (int i = 0; i < demand.length; i++) {
+				if (!capped[i]) {
+					remainingDemand += demand[i];
+				}
+			}
+			if (remainingDemand <= 0) {
+				break;
+			}
+			for (int i = 0; i < demand.length; i++) {
+				if (!capped[i] && (((remainingBudget * demand[i]) / remainingDemand) >= remainingCapacity[i])) {
+					capped[i] = true;
+					allocation[i] += (int) Math.min(
+							remainingCapacity[i],
+							Integer.MAX_VALUE - allocation[i]);
+					remainingBudget -= remainingCapacity[i];
+					changed = true;
+				}
+			}
+		}
+		double remainingDemand = 0;
+		for (int i = 0; i < demand.length; i++) {
+			if (!capped[i]) {
+				remainingDemand += demand[i];
+			}
+		}
+		for (int i = 0; i < demand.length; i++) {
+			if (!capped[i] && (remainingDemand > 0)) {
+				allocation[i] += (int) Math.floor((Math.max(
+						remainingBudget,
+						0) * demand[i]) / remainingDemand);
+			}
+		}
+		return allocation;
+	}
+
 	/**
 	 * Returns a list of query ranges for an specified numeric range.
 	 * 
@@ -161,7 +597,7 @@ public class TieredSFCIndexStrategy implements
 			final MultiDimensionalNumericData indexedData ) {
 		return internalGetInsertionIds(
 				indexedData,
-				maxEstimatedDuplicateIdsBigInteger);
+				maxEstimatedDuplicateIds);
 	}
 
 	@Override
@@ -170,12 +606,213 @@ public class TieredSFCIndexStrategy implements
 			final int maxDuplicateInsertionIds ) {
 		return internalGetInsertionIds(
 				indexedData,
-				BigInteger.valueOf(maxDuplicateInsertionIds));
+				maxDuplicateInsertionIds);
+	}
+
+	/**
+	 * Returns a list of id's for insertion for each of the given entries,
+	 * computing them in parallel on a shared fork-join pool. This is intended
+	 * for bulk loaders that have many entries available at once.
+	 * 
+	 * @param indexedData
+	 *            the numeric data for each entry to be indexed
+	 * @return a List of insertion ID's per entry, in the same order as the
+	 *         given entries
+	 */
+	public List<List<ByteArrayId>> getInsertionIds(
+			final List<MultiDimensionalNumericData> indexedData ) {
+		return getInsertionIds(
+				indexedData,
+				DefaultInsertionIdPool.POOL);
+	}
+
+	/**
+	 * Returns a list of id's for insertion for each of the given entries,
+	 * computing them in parallel on the given fork-join pool.
+	 * 
+	 * @param indexedData
+	 *            the numeric data for each entry to be indexed
+	 * @param pool
+	 *            the fork-join pool to compute the insertion IDs with
+	 * @return a List of insertion ID's per entry, in the same order as the
+	 *         given entries
+	 */
+	public List<List<ByteArrayId>> getInsertionIds(
+			final List<MultiDimensionalNumericData> indexedData,
+			final ForkJoinPool pool ) {
+		final List<List<ByteArrayId>> insertionIds = new ArrayList<List<ByteArrayId>>(
+				indexedData.size());
+		for (int i = 0; i < indexedData.size(); i++) {
+			insertionIds.add(null);
+		}
+		pool.invoke(new InsertionIdsAction(
+				indexedData,
+				insertionIds,
+				0,
+				indexedData.size()));
+		return insertionIds;
+	}
+
+	/**
+	 * Appends the insertion IDs for a batch of entries, given as columns of
+	 * primitive values, to a row ID buffer. This is intended for bulk loaders
+	 * that can provide their entries column-wise, such as the longitudes,
+	 * latitudes, and times of many points. Points, for which the min and max
+	 * are equal in every dimension, are normalized a dimension at a time and
+	 * always fit in a single row ID at the highest precision tier, so they skip
+	 * tier selection and estimating the ID count entirely. Any other entry is
+	 * indexed by {@link #getInsertionIds(MultiDimensionalNumericData)} as
+	 * usual.
+	 * 
+	 * @param minValuesPerDimension
+	 *            the min value of each entry for each dimension, ordered the
+	 *            same as {@link #getOrderedDimensionDefinitions()}
+	 * @param maxValuesPerDimension
+	 *            the max value of each entry for each dimension, which can be
+	 *            the same arrays as the min values when every entry is a point
+	 * @param entryCount
+	 *            the number of entries in each column
+	 * @param rowIds
+	 *            the buffer to append the insertion IDs to
+	 * @param rowIdOffsets
+	 *            a buffer of at least entryCount + 1 elements that is filled
+	 *            with the index within rowIds of the first insertion ID of each
+	 *            entry, followed by the size of rowIds after the last entry
+	 */
+	public void getInsertionIds(
+			final double[][] minValuesPerDimension,
+			final double[][] maxValuesPerDimension,
+			final int entryCount,
+			final List<ByteArrayId> rowIds,
+			final int[] rowIdOffsets ) {
+		final int numDimensions = baseDefinitions.length;
+		final boolean[] isPoint = new boolean[entryCount];
+		Arrays.fill(
+				isPoint,
+				true);
+		for (int d = 0; d < numDimensions; d++) {
+			if (minValuesPerDimension[d] != maxValuesPerDimension[d]) {
+				for (int i = 0; i < entryCount; i++) {
+					if (minValuesPerDimension[d][i] != maxValuesPerDimension[d][i]) {
+						isPoint[i] = false;
+					}
+				}
+			}
+		}
+		// normalize and bin the points one dimension at a time
+		final double[][] normalizedValuesPerDimension = new double[numDimensions][entryCount];
+		final byte[][][] binIdsPerDimension = new byte[numDimensions][][];
+		for (int d = 0; d < numDimensions; d++) {
+			normalizePoints(
+					baseDefinitions[d],
+					minValuesPerDimension[d],
+					entryCount,
+					isPoint,
+					normalizedValuesPerDimension[d],
+					binIdsPerDimension,
+					d);
+		}
+		final int finestSfcIndex = orderedSfcs.length - 1;
+		final SpaceFillingCurve finestSfc = orderedSfcs[finestSfcIndex];
+		final byte finestTierId = orderedSfcIndexToTierId.get(finestSfcIndex);
+		final double[] values = new double[numDimensions];
+		for (int i = 0; i < entryCount; i++) {
+			rowIdOffsets[i] = rowIds.size();
+			if (isPoint[i]) {
+				byte[] binId = null;
+				for (int d = 0; d < numDimensions; d++) {
+					values[d] = normalizedValuesPerDimension[d][i];
+					if (binIdsPerDimension[d] != null) {
+						binId = (binId == null) ? binIdsPerDimension[d][i] : ByteArrayUtils.combineArrays(
+								binId,
+								binIdsPerDimension[d][i]);
+					}
+				}
+				rowIds.add(new ByteArrayId(
+						getRowId(
+								finestTierId,
+								binId,
+								finestSfc,
+								values)));
+			}
+			else {
+				final NumericData[] dataPerDimension = new NumericData[numDimensions];
+				for (int d = 0; d < numDimensions; d++) {
+					dataPerDimension[d] = new NumericRange(
+							minValuesPerDimension[d][i],
+							maxValuesPerDimension[d][i]);
+				}
+				rowIds.addAll(internalGetInsertionIds(
+						new BasicNumericDataset(
+								dataPerDimension),
+						maxEstimatedDuplicateIds));
+			}
+		}
+		rowIdOffsets[entryCount] = rowIds.size();
+	}
+
+	/**
+	 * Normalizes the values of the points within a single dimension, clamping
+	 * bounded dimensions to their bounds and binning unbounded dimensions
+	 */
+	private static void normalizePoints(
+			final NumericDimensionDefinition definition,
+			final double[] values,
+			final int entryCount,
+			final boolean[] isPoint,
+			final double[] normalizedValues,
+			final byte[][][] binIdsPerDimension,
+			final int dimension ) {
+		if (definition instanceof UnboundedDimensionDefinition) {
+			final BinningStrategy binningStrategy = ((UnboundedDimensionDefinition) definition).getBinningStrategy();
+			final byte[][] binIds = new byte[entryCount][];
+			for (int i = 0; i < entryCount; i++) {
+				if (isPoint[i]) {
+					final BinValue binnedValue = binningStrategy.getBinnedValue(values[i]);
+					binIds[i] = binnedValue.getBinId();
+					normalizedValues[i] = binnedValue.getNormalizedValue();
+				}
+			}
+			binIdsPerDimension[dimension] = binIds;
+		}
+		else if (definition instanceof BasicDimensionDefinition) {
+			// a single value is clamped to the bounds of the dimension
+			final NumericRange bounds = definition.getBounds();
+			final double min = bounds.getMin();
+			final double max = bounds.getMax();
+			for (int i = 0; i < entryCount; i++) {
+				normalizedValues[i] = Math.max(
+						min,
+						Math.min(
+								max,
+								values[i]));
+			}
+		}
+		else {
+			final byte[][] binIds = (definition.getFixedBinIdSize() > 0) ? new byte[entryCount][] : null;
+			for (int i = 0; i < entryCount; i++) {
+				if (isPoint[i]) {
+					final BinRange[] ranges = definition.getNormalizedRanges(new NumericValue(
+							values[i]));
+					if (ranges.length != 1) {
+						// let the general case decide what to do with the
+						// point
+						isPoint[i] = false;
+						continue;
+					}
+					normalizedValues[i] = ranges[0].getNormalizedMin();
+					if (binIds != null) {
+						binIds[i] = ranges[0].getBinId();
+					}
+				}
+			}
+			binIdsPerDimension[dimension] = binIds;
+		}
 	}
 
 	private List<ByteArrayId> internalGetInsertionIds(
 			final MultiDimensionalNumericData indexedData,
-			final BigInteger maxDuplicateInsertionIds ) {
+			final long maxDuplicateInsertionIds ) {
 		final BinnedNumericDataset[] ranges = BinnedNumericDataset.applyBins(
 				indexedData,
 				baseDefinitions);
@@ -274,15 +911,25 @@ public class TieredSFCIndexStrategy implements
 		return baseDefinitions;
 	}
 
-	synchronized private List<ByteArrayId> getRowIds(
+	private List<ByteArrayId> getRowIds(
 			final BinnedNumericDataset index,
-			final BigInteger maxEstimatedDuplicateIds ) {
+			final long maxEstimatedDuplicateIds ) {
 		// most times this should be a single row ID, but if the lowest
 		// precision tier does not have a single SFC value for this data, it
 		// will be multiple row IDs
 
 		// what tier does this entry belong in?
+		final double[] mins = index.getMinValuesPerDimension();
+		final double[] maxes = index.getMaxValuesPerDimension();
 		for (int sfcIndex = orderedSfcs.length - 1; sfcIndex >= 0; sfcIndex--) {
+			// skip the tiers that the extent of the entry alone shows will
+			// need too many IDs without estimating the ID count at the tier
+			if ((sfcIndex > 0) && (getMinimumIdCount(
+					mins,
+					maxes,
+					insertionIdRangesPerTier[sfcIndex]) > maxEstimatedDuplicateIds)) {
+				continue;
+			}
 			final SpaceFillingCurve sfc = orderedSfcs[sfcIndex];
 			// loop through space filling curves and stop when both the min and
 			// max of the ranges fit the same row ID
@@ -302,28 +949,59 @@ public class TieredSFCIndexStrategy implements
 		return new ArrayList<ByteArrayId>();
 	}
 
+	/**
+	 * A lower bound of the number of IDs an entry needs at a tier, computed
+	 * from its extent in each dimension. An extent spans at least one less than
+	 * the number of whole insertion IDs that fit within it, which leaves room
+	 * for floating point error in the bound.
+	 */
+	private static double getMinimumIdCount(
+			final double[] mins,
+			final double[] maxes,
+			final double[] insertionIdRangePerDimension ) {
+		double minimumIdCount = 1;
+		for (int d = 0; d < insertionIdRangePerDimension.length; d++) {
+			minimumIdCount *= Math.max(
+					1,
+					Math.floor((maxes[d] - mins[d]) / insertionIdRangePerDimension[d]) - 1);
+		}
+		return minimumIdCount;
+	}
+
+	private void initInsertionIdRangesPerTier() {
+		insertionIdRangesPerTier = new double[orderedSfcs.length][];
+		for (int sfcIndex = 0; sfcIndex < orderedSfcs.length; sfcIndex++) {
+			insertionIdRangesPerTier[sfcIndex] = orderedSfcs[sfcIndex].getInsertionIdRangePerDimension();
+		}
+	}
+
+	/**
+	 * Gets the row IDs of an entry at a tier, or null if the entry would need
+	 * more than the maximum estimated duplicate IDs at the tier, unless the
+	 * tier is the coarsest, which is used regardless
+	 * 
+	 * @param maxEstimatedDuplicateIds
+	 *            the maximum estimated duplicate IDs, use Long.MAX_VALUE to
+	 *            always use the tier
+	 */
 	protected static List<ByteArrayId> getRowIdsAtTier(
 			final BinnedNumericDataset index,
 			final byte tierId,
 			final SpaceFillingCurve sfc,
-			final BigInteger maxEstimatedDuplicateIds,
+			final long maxEstimatedDuplicateIds,
 			final int sfcIndex ) {
-		final List<ByteArrayId> retVal = new ArrayList<ByteArrayId>();
-		final BigInteger rowCount = sfc.getEstimatedIdCount(index);
-		if (rowCount.equals(BigInteger.ONE)) {
-			final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
-					new byte[] {
-						tierId
-					},
-					index.getBinId());
-			final double[] maxValues = index.getMaxValuesPerDimension();
+		final long rowCount = sfc.getEstimatedIdCountAsLong(index);
+		if (rowCount == 1) {
+			final List<ByteArrayId> retVal = new ArrayList<ByteArrayId>();
 			retVal.add(new ByteArrayId(
-					ByteArrayUtils.combineArrays(
-							tierAndBinId,
-							sfc.getId(maxValues))));
+					getRowId(
+							tierId,
+							index.getBinId(),
+							sfc,
+							index.getMaxValuesPerDimension())));
 			return retVal;
 		}
-		else if ((maxEstimatedDuplicateIds == null) || (rowCount.compareTo(maxEstimatedDuplicateIds) <= 0) || (sfcIndex == 0)) {
+		else if ((rowCount <= maxEstimatedDuplicateIds) || (sfcIndex == 0)) {
 			return decomposeRangesForEntry(
 					index,
 					tierId,
@@ -332,6 +1010,43 @@ public class TieredSFCIndexStrategy implements
 		return null;
 	}
 
+	/**
+	 * Composes the tier ID, bin ID, and SFC ID into a single row ID, having the
+	 * SFC write its value directly into the row ID rather than allocating and
+	 * combining intermediate arrays.
+	 */
+	protected static byte[] getRowId(
+			final byte tierId,
+			final byte[] binId,
+			final SpaceFillingCurve sfc,
+			final double[] values ) {
+		final int binIdLength = (binId == null) ? 0 : binId.length;
+		final int prefixLength = 1 + binIdLength;
+		final int sfcIdLength = (sfc.getBitsOfPrecision() + 7) / 8;
+		final byte[] rowId = new byte[prefixLength + sfcIdLength];
+		// we're assuming tiers only go to 127 (the max byte value)
+		rowId[0] = tierId;
+		if (binIdLength > 0) {
+			System.arraycopy(
+					binId,
+					0,
+					rowId,
+					1,
+					binIdLength);
+		}
+		final int sfcBytesWritten = sfc.getId(
+				values,
+				rowId,
+				prefixLength);
+		if (sfcBytesWritten < sfcIdLength) {
+			// some SFCs may produce a shorter ID than their bits of precision
+			return Arrays.copyOf(
+					rowId,
+					prefixLength + sfcBytesWritten);
+		}
+		return rowId;
+	}
+
 	protected static List<ByteArrayId> decomposeRangesForEntry(
 			final BinnedNumericDataset index,
 			final byte tierId,
@@ -425,7 +1140,6 @@ public class TieredSFCIndexStrategy implements
 		final int numDimensions = buf.getInt();
 		final int mappingSize = buf.getInt();
 		maxEstimatedDuplicateIds = buf.getLong();
-		maxEstimatedDuplicateIdsBigInteger = BigInteger.valueOf(maxEstimatedDuplicateIds);
 		orderedSfcs = new SpaceFillingCurve[numSfcs];
 		baseDefinitions = new NumericDimensionDefinition[numDimensions];
 		for (int i = 0; i < numSfcs; i++) {
@@ -450,6 +1164,7 @@ public class TieredSFCIndexStrategy implements
 					buf.get());
 		}
 		orderedSfcIndexToTierId = bimapBuilder.build();
+		initInsertionIdRangesPerTier();
 	}
 
 	@Override
@@ -521,4 +1236,100 @@ public class TieredSFCIndexStrategy implements
 		}
 
 	}
+
+	/**
+	 * The normalized ranges of a binned query, irrespective of its bin ID
+	 */
+	private static class NormalizedRangeKey
+	{
+		private final double[] mins;
+		private final double[] maxes;
+		private final int hashCode;
+
+		public NormalizedRangeKey(
+				final BinnedNumericDataset binnedQuery ) {
+			mins = binnedQuery.getMinValuesPerDimension();
+			maxes = binnedQuery.getMaxValuesPerDimension();
+			hashCode = (31 * Arrays.hashCode(mins)) + Arrays.hashCode(maxes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final NormalizedRangeKey other = (NormalizedRangeKey) obj;
+			return Arrays.equals(
+					mins,
+					other.mins) && Arrays.equals(
+					maxes,
+					other.maxes);
+		}
+	}
+
+	/**
+	 * Lazily creates the pool used for batch insertion ID computation when the
+	 * caller does not supply one
+	 */
+	private static class DefaultInsertionIdPool
+	{
+		private static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+
+	private class InsertionIdsAction extends
+			RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final List<MultiDimensionalNumericData> indexedData;
+		private final List<List<ByteArrayId>> insertionIds;
+		private final int start;
+		private final int end;
+
+		public InsertionIdsAction(
+				final List<MultiDimensionalNumericData> indexedData,
+				final List<List<ByteArrayId>> insertionIds,
+				final int start,
+				final int end ) {
+			this.indexedData = indexedData;
+			this.insertionIds = insertionIds;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if ((end - start) <= INSERTION_ID_BATCH_THRESHOLD) {
+				// each task writes to its own distinct indices, and the
+				// results are visible to the caller once the pool joins
+				for (int i = start; i < end; i++) {
+					insertionIds.set(
+							i,
+							getInsertionIds(indexedData.get(i)));
+				}
+			}
+			else {
+				final int mid = (start + end) >>> 1;
+				invokeAll(
+						new InsertionIdsAction(
+								indexedData,
+								insertionIds,
+								start,
+								mid),
+						new InsertionIdsAction(
+								indexedData,
+								insertionIds,
+								mid,
+								end));
+			}
+		}
+	}
 }
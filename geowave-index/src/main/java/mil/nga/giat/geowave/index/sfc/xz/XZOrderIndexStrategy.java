@@ -0,0 +1,610 @@
+package mil.nga.giat.geowave.index.sfc.xz;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.bin.BinRange;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.BinnedNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This index strategy uses XZ-ordering, an extension of Z-ordering for entries
+ * with an extent, such as polygons and lines (see Bohm, Klump, and Kriegel,
+ * "XZ-Ordering: A Space-Filling Curve for Objects with Spatial Extension").
+ * 
+ * The space is recursively split in half along each dimension, and each cell is
+ * enlarged to twice its size in every dimension. An entry is assigned to the
+ * smallest enlarged cell that contains it, so every entry has exactly one row
+ * ID per bin, regardless of its size, rather than being duplicated across
+ * several row IDs or placed at a coarser tier. The row ID of a cell is its
+ * position in a depth first traversal of the cells, so a cell is immediately
+ * followed by all of the cells within it and a query decomposes into a bounded
+ * set of ranges.
+ * 
+ * The row ID is the bin ID of the entry (if any of the dimensions are binned)
+ * followed by the 8 byte sequence code of its cell.
+ */
+public class XZOrderIndexStrategy implements
+		NumericIndexStrategy
+{
+	private final static Logger LOGGER = Logger.getLogger(XZOrderIndexStrategy.class);
+	private final static int SEQUENCE_CODE_LENGTH = 8;
+	// the sequence codes are signed longs that must not be negative
+	private final static int MAX_TOTAL_BITS = 62;
+	private final static Comparator<long[]> INTERVAL_COMPARATOR = new Comparator<long[]>() {
+		@Override
+		public int compare(
+				final long[] interval1,
+				final long[] interval2 ) {
+			return Long.compare(
+					interval1[0],
+					interval2[0]);
+		}
+	};
+
+	private NumericDimensionDefinition[] baseDefinitions;
+	private int resolution;
+	// the number of sequence codes for a cell and all of the cells within it,
+	// per level
+	private long[] subtreeSizePerLevel;
+
+	protected XZOrderIndexStrategy() {}
+
+	/**
+	 * 
+	 * @param baseDefinitions
+	 *            the dimension definitions
+	 * @param resolution
+	 *            the number of times the space is split in half along each
+	 *            dimension for the smallest cells, the resolution multiplied by
+	 *            the number of dimensions must be less than 62
+	 */
+	public XZOrderIndexStrategy(
+			final NumericDimensionDefinition[] baseDefinitions,
+			final int resolution ) {
+		this.baseDefinitions = baseDefinitions;
+		this.resolution = resolution;
+		init();
+	}
+
+	private void init() {
+		if ((baseDefinitions.length * (resolution + 1)) > MAX_TOTAL_BITS) {
+			throw new IllegalArgumentException(
+					"A resolution of " + resolution + " for " + baseDefinitions.length + " dimensions is too fine for the sequence codes to fit within a long");
+		}
+		final long childrenPerCell = 1L << baseDefinitions.length;
+		subtreeSizePerLevel = new long[resolution + 1];
+		// a cell at the finest level has no cells within it
+		subtreeSizePerLevel[resolution] = 1;
+		for (int level = resolution - 1; level >= 0; level--) {
+			subtreeSizePerLevel[level] = 1 + (childrenPerCell * subtreeSizePerLevel[level + 1]);
+		}
+	}
+
+	public int getResolution() {
+		return resolution;
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange ) {
+		return getQueryRanges(
+				indexedRange,
+				-1);
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxEstimatedRangeDecomposition ) {
+		final BinnedNumericDataset[] binnedQueries = BinnedNumericDataset.applyBins(
+				indexedRange,
+				baseDefinitions);
+		final int maxRangesPerBin = (maxEstimatedRangeDecomposition > 0) ? Math.max(
+				1,
+				maxEstimatedRangeDecomposition / Math.max(
+						1,
+						binnedQueries.length)) : Integer.MAX_VALUE;
+		final List<ByteArrayRange> ranges = new ArrayList<ByteArrayRange>();
+		for (final BinnedNumericDataset binnedQuery : binnedQueries) {
+			final byte[] binId = binnedQuery.getBinId();
+			final double[] mins = normalize(binnedQuery.getMinValuesPerDimension());
+			final double[] maxes = normalize(binnedQuery.getMaxValuesPerDimension());
+			for (final long[] interval : decomposeQuery(
+					mins,
+					maxes,
+					maxRangesPerBin)) {
+				ranges.add(new ByteArrayRange(
+						new ByteArrayId(
+								getRowId(
+										binId,
+										interval[0])),
+						new ByteArrayId(
+								getRowId(
+										binId,
+										interval[1]))));
+			}
+		}
+		return ranges;
+	}
+
+	@Override
+	public List<ByteArrayRange> getQueryRanges(
+			final List<MultiDimensionalNumericData> indexedRanges,
+			final int maxEstimatedRangeDecomposition ) {
+		final int maxRangesPerRegion = (maxEstimatedRangeDecomposition > 0) ? Math.max(
+				1,
+				maxEstimatedRangeDecomposition / Math.max(
+						1,
+						indexedRanges.size())) : -1;
+		final List<ByteArrayRange> ranges = new ArrayList<ByteArrayRange>();
+		for (final MultiDimensionalNumericData indexedRange : indexedRanges) {
+			ranges.addAll(getQueryRanges(
+					indexedRange,
+					maxRangesPerRegion));
+		}
+		return ByteArrayRange.mergeIntersections(ranges);
+	}
+
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final MultiDimensionalNumericData indexedData ) {
+		final BinnedNumericDataset[] ranges = BinnedNumericDataset.applyBins(
+				indexedData,
+				baseDefinitions);
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+				ranges.length);
+		for (final BinnedNumericDataset range : ranges) {
+			rowIds.add(new ByteArrayId(
+					getRowId(
+							range.getBinId(),
+							getSequenceCode(
+									normalize(range.getMinValuesPerDimension()),
+									normalize(range.getMaxValuesPerDimension())))));
+		}
+		return rowIds;
+	}
+
+	/**
+	 * Every entry has a single row ID within each bin it spans, so there are
+	 * never any duplicates to limit
+	 */
+	@Override
+	public List<ByteArrayId> getInsertionIds(
+			final MultiDimensionalNumericData indexedData,
+			final int maxEstimatedDuplicateIds ) {
+		return getInsertionIds(indexedData);
+	}
+
+	@Override
+	public MultiDimensionalNumericData getRangeForId(
+			final ByteArrayId insertionId ) {
+		final byte[] rowId = insertionId.getBytes();
+		final int binIdLength = rowId.length - SEQUENCE_CODE_LENGTH;
+		if (binIdLength < 0) {
+			LOGGER.warn("Row must at least contain the sequence code");
+			return null;
+		}
+		final double[] cellMins = new double[baseDefinitions.length];
+		final int level = getCell(
+				ByteBuffer.wrap(
+						rowId,
+						binIdLength,
+						SEQUENCE_CODE_LENGTH).getLong(),
+				cellMins);
+		// the enlarged cell is twice the size of the cell
+		final double enlargedCellSize = 2 * Math.pow(
+				0.5,
+				level);
+		final NumericData[] dataPerDimension = new NumericData[baseDefinitions.length];
+		int binIdOffset = 0;
+		for (int d = 0; d < baseDefinitions.length; d++) {
+			final double min = baseDefinitions[d].denormalize(cellMins[d]);
+			final double max = baseDefinitions[d].denormalize(Math.min(
+					cellMins[d] + enlargedCellSize,
+					1));
+			final int fixedBinIdSize = baseDefinitions[d].getFixedBinIdSize();
+			if (fixedBinIdSize > 0) {
+				// unapply the bin, denormalizing the range to the native
+				// bounds
+				dataPerDimension[d] = baseDefinitions[d].getDenormalizedRange(new BinRange(
+						Arrays.copyOfRange(
+								rowId,
+								binIdOffset,
+								binIdOffset + fixedBinIdSize),
+						min,
+						max,
+						false));
+				binIdOffset += fixedBinIdSize;
+			}
+			else {
+				dataPerDimension[d] = new NumericRange(
+						min,
+						max);
+			}
+		}
+		return new BasicNumericDataset(
+				dataPerDimension);
+	}
+
+	/**
+	 * The coordinates of the minimum corner of the cell at the finest
+	 * resolution
+	 */
+	@Override
+	public long[] getCoordinatesPerDimension(
+			final ByteArrayId insertionId ) {
+		final byte[] rowId = insertionId.getBytes();
+		if (rowId.length < SEQUENCE_CODE_LENGTH) {
+			LOGGER.warn("Row must at least contain the sequence code");
+			return null;
+		}
+		final double[] cellMins = new double[baseDefinitions.length];
+		getCell(
+				ByteBuffer.wrap(
+						rowId,
+						rowId.length - SEQUENCE_CODE_LENGTH,
+						SEQUENCE_CODE_LENGTH).getLong(),
+				cellMins);
+		final double cellsPerDimension = Math.pow(
+				2,
+				resolution);
+		final long[] coordinates = new long[baseDefinitions.length];
+		for (int d = 0; d < baseDefinitions.length; d++) {
+			coordinates[d] = (long) (cellMins[d] * cellsPerDimension);
+		}
+		return coordinates;
+	}
+
+	@Override
+	public NumericDimensionDefinition[] getOrderedDimensionDefinitions() {
+		return baseDefinitions;
+	}
+
+	@Override
+	public String getId() {
+		return StringUtils.intToString(hashCode());
+	}
+
+	@Override
+	public double[] getHighestPrecisionIdRangePerDimension() {
+		final double cellsPerDimension = Math.pow(
+				2,
+				resolution);
+		final double[] retVal = new double[baseDefinitions.length];
+		for (int d = 0; d < baseDefinitions.length; d++) {
+			retVal[d] = baseDefinitions[d].getRange() / cellsPerDimension;
+		}
+		return retVal;
+	}
+
+	/**
+	 * Gets the sequence code of the smallest enlarged cell that contains the
+	 * normalized range
+	 */
+	protected long getSequenceCode(
+			final double[] mins,
+			final double[] maxes ) {
+		final int level = getLevel(
+				mins,
+				maxes);
+		final double[] cellMins = new double[mins.length];
+		double cellSize = 1;
+		long sequenceCode = 0;
+		for (int l = 0; l < level; l++) {
+			// descend to the child cell containing the min of the range
+			cellSize /= 2;
+			long child = 0;
+			for (int d = 0; d < mins.length; d++) {
+				if (mins[d] >= (cellMins[d] + cellSize)) {
+					child |= 1L << d;
+					cellMins[d] += cellSize;
+				}
+			}
+			sequenceCode += 1 + (child * subtreeSizePerLevel[l + 1]);
+		}
+		return sequenceCode;
+	}
+
+	/**
+	 * The level of the smallest enlarged cell that contains the normalized
+	 * range, which is the level of the smallest cell that is at least as large
+	 * as the range in every dimension, or one level finer if the range also
+	 * fits in an enlarged cell at that level
+	 */
+	private int getLevel(
+			final double[] mins,
+			final double[] maxes ) {
+		double maxExtent = 0;
+		for (int d = 0; d < mins.length; d++) {
+			maxExtent = Math.max(
+					maxExtent,
+					maxes[d] - mins[d]);
+		}
+		if (maxExtent <= 0) {
+			return resolution;
+		}
+		int level = (int) Math.floor(Math.log(maxExtent) / Math.log(0.5));
+		// guard against rounding in the logarithm, the cells at the level must
+		// be at least as large as the range
+		while ((level > 0) && (Math.pow(
+				0.5,
+				level) < maxExtent)) {
+			level--;
+		}
+		if (level >= resolution) {
+			return resolution;
+		}
+		final double finerCellSize = Math.pow(
+				0.5,
+				level + 1);
+		for (int d = 0; d < mins.length; d++) {
+			if (maxes[d] > ((Math.floor(mins[d] / finerCellSize) * finerCellSize) + (2 * finerCellSize))) {
+				return Math.max(
+						level,
+						0);
+			}
+		}
+		return level + 1;
+	}
+
+	/**
+	 * Decodes a sequence code into the minimum corner of its cell
+	 * 
+	 * @return the level of the cell
+	 */
+	private int getCell(
+			final long sequenceCode,
+			final double[] cellMins ) {
+		long remainder = sequenceCode;
+		double cellSize = 1;
+		int level = 0;
+		while ((remainder > 0) && (level < resolution)) {
+			remainder--;
+			final long subtreeSize = subtreeSizePerLevel[level + 1];
+			final long child = remainder / subtreeSize;
+			remainder %= subtreeSize;
+			cellSize /= 2;
+			for (int d = 0; d < cellMins.length; d++) {
+				if ((child & (1L << d)) != 0) {
+					cellMins[d] += cellSize;
+				}
+			}
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * Decomposes a normalized query into sorted, disjoint, inclusive intervals
+	 * of sequence codes, traversing the cells breadth first. A cell whose
+	 * enlarged cell is within the query contributes the interval of itself and
+	 * all of the cells within it, and a cell whose enlarged cell only overlaps
+	 * the query contributes itself and is refined further. Once refining would
+	 * exceed the maximum number of ranges, the remaining cells are no longer
+	 * refined and contribute all of the cells within them.
+	 */
+	protected List<long[]> decomposeQuery(
+			final double[] queryMins,
+			final double[] queryMaxes,
+			final int maxRanges ) {
+		final int dimensionCount = queryMins.length;
+		final long childrenPerCell = 1L << dimensionCount;
+		final List<long[]> intervals = new ArrayList<long[]>();
+		List<XZCell> cells = new ArrayList<XZCell>();
+		cells.add(new XZCell(
+				new double[dimensionCount],
+				0));
+		double cellSize = 1;
+		for (int level = 0; !cells.isEmpty(); level++) {
+			final List<XZCell> childCells = new ArrayList<XZCell>();
+			final double enlargedCellSize = 2 * cellSize;
+			for (int c = 0; c < cells.size(); c++) {
+				final XZCell cell = cells.get(c);
+				boolean contained = true;
+				boolean overlaps = true;
+				for (int d = 0; d < dimensionCount; d++) {
+					final double enlargedMax = Math.min(
+							cell.mins[d] + enlargedCellSize,
+							1);
+					if ((queryMaxes[d] < cell.mins[d]) || (queryMins[d] > enlargedMax)) {
+						overlaps = false;
+						break;
+					}
+					if ((queryMins[d] > cell.mins[d]) || (queryMaxes[d] < enlargedMax)) {
+						contained = false;
+					}
+				}
+				if (!overlaps) {
+					continue;
+				}
+				// every range so far, every queued cell, and every remaining
+				// cell at this level contributes at least one range, and
+				// refining this cell contributes itself and its children
+				final long rangesIfRefined = (long) intervals.size() + childCells.size() + (cells.size() - c - 1) + 1 + childrenPerCell;
+				if (contained || (level >= resolution) || (rangesIfRefined > maxRanges)) {
+					intervals.add(new long[] {
+						cell.sequenceCode,
+						(cell.sequenceCode + subtreeSizePerLevel[level]) - 1
+					});
+				}
+				else {
+					intervals.add(new long[] {
+						cell.sequenceCode,
+						cell.sequenceCode
+					});
+					final double childCellSize = cellSize / 2;
+					for (long child = 0; child < childrenPerCell; child++) {
+						final double[] childMins = new double[dimensionCount];
+						boolean childOverlaps = true;
+						for (int d = 0; d < dimensionCount; d++) {
+							childMins[d] = cell.mins[d] + (((child & (1L << d)) != 0) ? childCellSize : 0);
+							// only queue the children whose enlarged cell
+							// overlaps the query
+							if ((queryMaxes[d] < childMins[d]) || (queryMins[d] > Math.min(
+									childMins[d] + (2 * childCellSize),
+									1))) {
+								childOverlaps = false;
+							}
+						}
+						if (childOverlaps) {
+							childCells.add(new XZCell(
+									childMins,
+									cell.sequenceCode + 1 + (child * subtreeSizePerLevel[level + 1])));
+						}
+					}
+				}
+			}
+			cells = childCells;
+			cellSize /= 2;
+		}
+		return mergeIntervals(intervals);
+	}
+
+	private static List<long[]> mergeIntervals(
+			final List<long[]> intervals ) {
+		if (intervals.size() < 2) {
+			return intervals;
+		}
+		Collections.sort(
+				intervals,
+				INTERVAL_COMPARATOR);
+		final List<long[]> mergedIntervals = new ArrayList<long[]>();
+		long[] current = intervals.get(0);
+		for (int i = 1; i < intervals.size(); i++) {
+			final long[] next = intervals.get(i);
+			// merge intervals that overlap or are adjacent
+			if (next[0] <= (current[1] + 1)) {
+				current[1] = Math.max(
+						current[1],
+						next[1]);
+			}
+			else {
+				mergedIntervals.add(current);
+				current = next;
+			}
+		}
+		mergedIntervals.add(current);
+		return mergedIntervals;
+	}
+
+	private double[] normalize(
+			final double[] values ) {
+		final double[] normalizedValues = new double[values.length];
+		for (int d = 0; d < values.length; d++) {
+			normalizedValues[d] = Math.max(
+					0,
+					Math.min(
+							1,
+							baseDefinitions[d].normalize(values[d])));
+		}
+		return normalizedValues;
+	}
+
+	private static byte[] getRowId(
+			final byte[] binId,
+			final long sequenceCode ) {
+		final int binIdLength = (binId == null) ? 0 : binId.length;
+		final ByteBuffer buf = ByteBuffer.allocate(binIdLength + SEQUENCE_CODE_LENGTH);
+		if (binIdLength > 0) {
+			buf.put(binId);
+		}
+		buf.putLong(sequenceCode);
+		return buf.array();
+	}
+
+	@Override
+	public byte[] toBinary() {
+		int byteBufferLength = 8;
+		final List<byte[]> dimensionBinaries = new ArrayList<byte[]>(
+				baseDefinitions.length);
+		for (final NumericDimensionDefinition dimension : baseDefinitions) {
+			final byte[] dimensionBinary = PersistenceUtils.toBinary(dimension);
+			byteBufferLength += (4 + dimensionBinary.length);
+			dimensionBinaries.add(dimensionBinary);
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(byteBufferLength);
+		buf.putInt(resolution);
+		buf.putInt(baseDefinitions.length);
+		for (final byte[] dimensionBinary : dimensionBinaries) {
+			buf.putInt(dimensionBinary.length);
+			buf.put(dimensionBinary);
+		}
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		resolution = buf.getInt();
+		final int numDimensions = buf.getInt();
+		baseDefinitions = new NumericDimensionDefinition[numDimensions];
+		for (int d = 0; d < numDimensions; d++) {
+			final byte[] dimensionBinary = new byte[buf.getInt()];
+			buf.get(dimensionBinary);
+			baseDefinitions[d] = PersistenceUtils.fromBinary(
+					dimensionBinary,
+					NumericDimensionDefinition.class);
+		}
+		init();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = (prime * result) + Arrays.hashCode(baseDefinitions);
+		result = (prime * result) + resolution;
+		return result;
+	}
+
+	@Override
+	public boolean equals(
+			final Object obj ) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final XZOrderIndexStrategy other = (XZOrderIndexStrategy) obj;
+		if (!Arrays.equals(
+				baseDefinitions,
+				other.baseDefinitions)) {
+			return false;
+		}
+		return resolution == other.resolution;
+	}
+
+	private static class XZCell
+	{
+		private final double[] mins;
+		private final long sequenceCode;
+
+		private XZCell(
+				final double[] mins,
+				final long sequenceCode ) {
+			this.mins = mins;
+			this.sequenceCode = sequenceCode;
+		}
+	}
+}
@@ -8,7 +8,10 @@ import java.util.List;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.IndexUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
 import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
 import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.index.sfc.SpaceFillingCurve;
@@ -71,6 +74,21 @@ public class ZOrderSFC implements
 				values.length);
 	}
 
+	@Override
+	public int getId(
+			final double[] values,
+			final byte[] buffer,
+			final int offset ) {
+		final byte[] id = getId(values);
+		System.arraycopy(
+				id,
+				0,
+				buffer,
+				offset,
+				id.length);
+		return id.length;
+	}
+
 	@Override
 	public MultiDimensionalNumericData getRanges(
 			final byte[] id ) {
@@ -113,6 +131,22 @@ public class ZOrderSFC implements
 		return estimatedIdCount;
 	}
 
+	@Override
+	public long getEstimatedIdCountAsLong(
+			final MultiDimensionalNumericData data ) {
+		final double[] mins = data.getMinValuesPerDimension();
+		final double[] maxes = data.getMaxValuesPerDimension();
+		long estimatedIdCount = 1L;
+		for (int d = 0; d < data.getDimensionCount(); d++) {
+			final double binMin = dimensionDefs[d].normalize(mins[d]) * binsPerDimension;
+			final double binMax = dimensionDefs[d].normalize(maxes[d]) * binsPerDimension;
+			estimatedIdCount = IndexUtils.multiplySaturated(
+					estimatedIdCount,
+					(long) (Math.abs(binMax - binMin) + 1));
+		}
+		return estimatedIdCount;
+	}
+
 	/***
 	 * {@inheritDoc}
 	 */
@@ -150,6 +184,38 @@ public class ZOrderSFC implements
 				});
 	}
 
+	/***
+	 * {@inheritDoc}
+	 * 
+	 * The Z-Order decomposition is a single range so the query region is
+	 * ignored.
+	 */
+	@Override
+	public RangeDecomposition decomposeQuery(
+			final MultiDimensionalNumericData query,
+			final int maxRanges,
+			final QueryRegion queryRegion ) {
+		return decomposeQuery(
+				query,
+				maxRanges);
+	}
+
+	/***
+	 * {@inheritDoc}
+	 * 
+	 * The Z-Order decomposition is a single range so the deadline is ignored.
+	 */
+	@Override
+	public RangeDecomposition decomposeQuery(
+			final MultiDimensionalNumericData query,
+			final int maxRanges,
+			final QueryRegion queryRegion,
+			final DecompositionDeadline deadline ) {
+		return decomposeQuery(
+				query,
+				maxRanges);
+	}
+
 	/***
 	 * {@inheritDoc}
 	 */
@@ -9,13 +9,59 @@ import mil.nga.giat.geowave.index.sfc.data.NumericRange;
  * Convenience methods used to decode/encode Z-Order space filling curve values
  * (using a simple bit-interleaving approach).
  * 
+ * The Z-Order value is the bits of each dimension interleaved, most significant
+ * bit first, with trailing bytes that are entirely zero omitted. For 2
+ * dimensions with up to 31 bits each and 3 dimensions with up to 21 bits each
+ * the interleaved value fits within a single long and the bits are spread and
+ * compacted with a constant number of shifts and masks rather than one bit at a
+ * time, producing identical values.
  */
 public class ZOrderUtils
 {
+	private static final int MAX_BITS_2D = 31;
+	private static final int MAX_BITS_3D = 21;
+
 	public static NumericRange[] decodeRanges(
 			final byte[] bytes,
 			final int bitsPerDimension,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		if (isInterleavedInLong(
+				bitsPerDimension,
+				dimensionDefinitions.length) && (bytes.length <= getByteCount(
+				bitsPerDimension,
+				dimensionDefinitions.length))) {
+			final long interleaved = toInterleaved(
+					bytes,
+					bitsPerDimension,
+					dimensionDefinitions.length);
+			final double bins = Math.pow(
+					2,
+					bitsPerDimension);
+			final NumericRange[] normalizedValues = new NumericRange[dimensionDefinitions.length];
+			for (int d = 0; d < dimensionDefinitions.length; d++) {
+				final long coordinate = compact(
+						interleaved >>> (dimensionDefinitions.length - 1 - d),
+						dimensionDefinitions.length);
+				// the range is only as precise as the least significant set
+				// bit because trailing zeroes are not distinguished
+				final double floor = coordinate / bins;
+				final double ceiling = (coordinate == 0) ? 1 : (coordinate + Long.lowestOneBit(coordinate)) / bins;
+				normalizedValues[d] = new NumericRange(
+						dimensionDefinitions[d].denormalize(floor),
+						dimensionDefinitions[d].denormalize(ceiling));
+			}
+			return normalizedValues;
+		}
+		return decodeRangesBitByBit(
+				bytes,
+				bitsPerDimension,
+				dimensionDefinitions);
+	}
+
+	static NumericRange[] decodeRangesBitByBit(
+			final byte[] bytes,
+			final int bitsPerDimension,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
 		final byte[] littleEndianBytes = swapEndianFormat(bytes);
 		final BitSet bitSet = BitSet.valueOf(littleEndianBytes);
 		final NumericRange[] normalizedValues = new NumericRange[dimensionDefinitions.length];
@@ -42,6 +88,33 @@ public class ZOrderUtils
 			final byte[] bytes,
 			final int bitsPerDimension,
 			final int numDimensions ) {
+		if (isInterleavedInLong(
+				bitsPerDimension,
+				numDimensions) && (bytes.length <= getByteCount(
+				bitsPerDimension,
+				numDimensions))) {
+			final long interleaved = toInterleaved(
+					bytes,
+					bitsPerDimension,
+					numDimensions);
+			final long[] coordinates = new long[numDimensions];
+			for (int d = 0; d < numDimensions; d++) {
+				coordinates[d] = compact(
+						interleaved >>> (numDimensions - 1 - d),
+						numDimensions);
+			}
+			return coordinates;
+		}
+		return decodeIndicesBitByBit(
+				bytes,
+				bitsPerDimension,
+				numDimensions);
+	}
+
+	static long[] decodeIndicesBitByBit(
+			final byte[] bytes,
+			final int bitsPerDimension,
+			final int numDimensions ) {
 		final byte[] littleEndianBytes = swapEndianFormat(bytes);
 		final BitSet bitSet = BitSet.valueOf(littleEndianBytes);
 		final long[] coordinates = new long[numDimensions];
@@ -107,6 +180,33 @@ public class ZOrderUtils
 			final double[] normalizedValues,
 			final int bitsPerDimension,
 			final int numDimensions ) {
+		if (isInterleavedInLong(
+				bitsPerDimension,
+				numDimensions)) {
+			long interleaved = 0;
+			for (int d = 0; d < numDimensions; d++) {
+				// the first dimension is the most significant bit of each
+				// group of interleaved bits
+				interleaved |= spread(
+						getCoordinate(
+								normalizedValues[d],
+								bitsPerDimension),
+						numDimensions) << (numDimensions - 1 - d);
+			}
+			return toBytes(
+					interleaved,
+					bitsPerDimension * numDimensions);
+		}
+		return encodeBitByBit(
+				normalizedValues,
+				bitsPerDimension,
+				numDimensions);
+	}
+
+	static byte[] encodeBitByBit(
+			final double[] normalizedValues,
+			final int bitsPerDimension,
+			final int numDimensions ) {
 		final BitSet[] bitSets = new BitSet[numDimensions];
 
 		for (int d = 0; d < numDimensions; d++) {
@@ -130,6 +230,123 @@ public class ZOrderUtils
 		return swapEndianFormat(littleEndianBytes);
 	}
 
+	private static boolean isInterleavedInLong(
+			final int bitsPerDimension,
+			final int numDimensions ) {
+		return ((numDimensions == 2) && (bitsPerDimension <= MAX_BITS_2D)) || ((numDimensions == 3) && (bitsPerDimension <= MAX_BITS_3D));
+	}
+
+	private static int getByteCount(
+			final int bitsPerDimension,
+			final int numDimensions ) {
+		return ((bitsPerDimension * numDimensions) + 7) / 8;
+	}
+
+	/**
+	 * The same coordinate as successively halving the normalized range, which
+	 * is exactly the floor of the scaled value clamped to the range of the
+	 * coordinate (multiplying by a power of two does not lose precision)
+	 */
+	private static long getCoordinate(
+			final double normalizedValue,
+			final int bitsPerDimension ) {
+		if (!(normalizedValue >= 0)) {
+			return 0;
+		}
+		if (normalizedValue >= 1) {
+			return (1L << bitsPerDimension) - 1;
+		}
+		return (long) (normalizedValue * (1L << bitsPerDimension));
+	}
+
+	/**
+	 * Spread the bits of the value out so that there are (numDimensions - 1)
+	 * zero bits between each bit
+	 */
+	private static long spread(
+			final long value,
+			final int numDimensions ) {
+		long x = value;
+		if (numDimensions == 2) {
+			x &= 0x00000000FFFFFFFFL;
+			x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+			x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+			x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+			x = (x | (x << 2)) & 0x3333333333333333L;
+			x = (x | (x << 1)) & 0x5555555555555555L;
+		}
+		else {
+			x &= 0x00000000001FFFFFL;
+			x = (x | (x << 32)) & 0x001F00000000FFFFL;
+			x = (x | (x << 16)) & 0x001F0000FF0000FFL;
+			x = (x | (x << 8)) & 0x100F00F00F00F00FL;
+			x = (x | (x << 4)) & 0x10C30C30C30C30C3L;
+			x = (x | (x << 2)) & 0x1249249249249249L;
+		}
+		return x;
+	}
+
+	/**
+	 * The inverse of spread, gathering every numDimensions bit starting with
+	 * the least significant bit
+	 */
+	private static long compact(
+			final long value,
+			final int numDimensions ) {
+		long x = value;
+		if (numDimensions == 2) {
+			x &= 0x5555555555555555L;
+			x = (x | (x >>> 1)) & 0x3333333333333333L;
+			x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+			x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+			x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+			x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+		}
+		else {
+			x &= 0x1249249249249249L;
+			x = (x | (x >>> 2)) & 0x10C30C30C30C30C3L;
+			x = (x | (x >>> 4)) & 0x100F00F00F00F00FL;
+			x = (x | (x >>> 8)) & 0x001F0000FF0000FFL;
+			x = (x | (x >>> 16)) & 0x001F00000000FFFFL;
+			x = (x | (x >>> 32)) & 0x00000000001FFFFFL;
+		}
+		return x;
+	}
+
+	/**
+	 * Write the interleaved bits most significant bit first, omitting trailing
+	 * bytes that are entirely zero
+	 */
+	private static byte[] toBytes(
+			final long interleaved,
+			final int totalBits ) {
+		if (interleaved == 0) {
+			return new byte[0];
+		}
+		final int byteCount = (totalBits + 7) / 8;
+		// align the most significant bit to the start of the first byte
+		final long aligned = interleaved << ((byteCount * 8) - totalBits);
+		final int lastSetBit = totalBits - 1 - Long.numberOfTrailingZeros(interleaved);
+		final byte[] bytes = new byte[(lastSetBit / 8) + 1];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (aligned >>> ((byteCount - 1 - i) * 8));
+		}
+		return bytes;
+	}
+
+	private static long toInterleaved(
+			final byte[] bytes,
+			final int bitsPerDimension,
+			final int numDimensions ) {
+		final int totalBits = bitsPerDimension * numDimensions;
+		final int byteCount = (totalBits + 7) / 8;
+		long aligned = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			aligned |= (bytes[i] & 0xFFL) << ((byteCount - 1 - i) * 8);
+		}
+		return aligned >>> ((byteCount * 8) - totalBits);
+	}
+
 	public static byte[] swapEndianFormat(
 			final byte[] b ) {
 		final byte[] endianSwappedBytes = new byte[b.length];
@@ -0,0 +1,87 @@
+package mil.nga.giat.geowave.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ByteArrayIdTest
+{
+	@Test
+	public void testSliceEqualsCopy() {
+		final byte[] backingArray = new byte[] {
+			9,
+			1,
+			2,
+			3,
+			9
+		};
+		final ByteArrayId slice = new ByteArrayId(
+				backingArray,
+				1,
+				3);
+		final ByteArrayId copy = new ByteArrayId(
+				new byte[] {
+					1,
+					2,
+					3
+				});
+		assertEquals(
+				copy,
+				slice);
+		assertEquals(
+				copy.hashCode(),
+				slice.hashCode());
+		assertEquals(
+				31 + Arrays.hashCode(copy.getBytes()),
+				slice.hashCode());
+		assertEquals(
+				0,
+				slice.compareTo(copy));
+		assertArrayEquals(
+				copy.getBytes(),
+				slice.getBytes());
+	}
+
+	@Test
+	public void testUnsignedOrder() {
+		final ByteArrayId low = new ByteArrayId(
+				new byte[] {
+					1
+				});
+		final ByteArrayId high = new ByteArrayId(
+				new byte[] {
+					(byte) 0xFF
+				});
+		final ByteArrayId longer = new ByteArrayId(
+				new byte[] {
+					1,
+					0
+				});
+		assertTrue(low.compareTo(high) < 0);
+		assertTrue(high.compareTo(low) > 0);
+		assertTrue(low.compareTo(longer) < 0);
+		assertFalse(low.equals(longer));
+	}
+
+	@Test
+	public void testNullId() {
+		final ByteArrayId nullId = new ByteArrayId(
+				(byte[]) null);
+		assertEquals(
+				new ByteArrayId(
+						(byte[]) null),
+				nullId);
+		assertEquals(
+				31 + Arrays.hashCode((byte[]) null),
+				nullId.hashCode());
+		assertNull(nullId.getBytes());
+		assertFalse(nullId.equals(new ByteArrayId(
+				new byte[] {})));
+	}
+}
@@ -0,0 +1,117 @@
+package mil.nga.giat.geowave.index;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ByteArrayRangeTest
+{
+	@Test
+	public void testMergeIntersections() {
+		final List<ByteArrayRange> merged = ByteArrayRange.mergeIntersections(Arrays.asList(
+				createRange(
+						0x40,
+						0x50),
+				createRange(
+						0x01,
+						0x05),
+				// a duplicate
+				createRange(
+						0x01,
+						0x05),
+				// adjacent to the previous range
+				createRange(
+						0x06,
+						0x08),
+				// within the first range
+				createRange(
+						0x42,
+						0x45),
+				// overlaps the first range
+				createRange(
+						0x48,
+						0x60),
+				// the unsigned bytes are sorted after the others
+				createRange(
+						0x90,
+						0xA0)));
+		assertEquals(
+				Arrays.asList(
+						createRange(
+								0x01,
+								0x08),
+						createRange(
+								0x40,
+								0x60),
+						createRange(
+								0x90,
+								0xA0)),
+				merged);
+	}
+
+	@Test
+	public void testMergePrefixRanges() {
+		// the range includes every row prefixed by its end, so a longer row
+		// that starts with the end is within the range
+		final List<ByteArrayRange> merged = ByteArrayRange.mergeIntersections(Arrays.asList(
+				new ByteArrayRange(
+						new ByteArrayId(
+								new byte[] {
+									0x01
+								}),
+						new ByteArrayId(
+								new byte[] {
+									0x02
+								})),
+				new ByteArrayRange(
+						new ByteArrayId(
+								new byte[] {
+									0x02,
+									0x7F
+								}),
+						new ByteArrayId(
+								new byte[] {
+									0x02,
+									(byte) 0xFF
+								})),
+				new ByteArrayRange(
+						new ByteArrayId(
+								new byte[] {
+									0x03
+								}),
+						new ByteArrayId(
+								new byte[] {
+									0x03,
+									0x10
+								}))));
+		assertEquals(
+				Arrays.asList(new ByteArrayRange(
+						new ByteArrayId(
+								new byte[] {
+									0x01
+								}),
+						new ByteArrayId(
+								new byte[] {
+									0x03,
+									0x10
+								}))),
+				merged);
+	}
+
+	private static ByteArrayRange createRange(
+			final int start,
+			final int end ) {
+		return new ByteArrayRange(
+				new ByteArrayId(
+						new byte[] {
+							(byte) start
+						}),
+				new ByteArrayId(
+						new byte[] {
+							(byte) end
+						}));
+	}
+}
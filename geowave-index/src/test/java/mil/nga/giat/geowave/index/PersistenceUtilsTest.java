@@ -0,0 +1,125 @@
+package mil.nga.giat.geowave.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+
+import org.junit.Test;
+
+public class PersistenceUtilsTest
+{
+	@Test
+	public void testRegisteredRoundTrip() {
+		final BasicDimensionDefinition definition = new BasicDimensionDefinition(
+				-5,
+				20);
+		assertNotNull(PersistableRegistry.getPersistableId(BasicDimensionDefinition.class));
+		final byte[] binary = PersistenceUtils.toBinary(definition);
+		// the registered ID replaces the class name
+		assertEquals(
+				2 + definition.toBinary().length,
+				binary.length);
+		assertEquals(
+				definition,
+				PersistenceUtils.fromBinary(
+						binary,
+						NumericDimensionDefinition.class));
+	}
+
+	@Test
+	public void testClassNamePayload() {
+		// a payload that was persisted before the class was registered is
+		// still prefaced with its class name
+		final LongitudeDefinition definition = new LongitudeDefinition();
+		final byte[] className = StringUtils.stringToBinary(LongitudeDefinition.class.getName());
+		final byte[] persistableBinary = definition.toBinary();
+		final ByteBuffer buf = ByteBuffer.allocate(4 + className.length + persistableBinary.length);
+		buf.putInt(className.length);
+		buf.put(className);
+		buf.put(persistableBinary);
+		assertEquals(
+				definition,
+				PersistenceUtils.fromBinary(
+						buf.array(),
+						NumericDimensionDefinition.class));
+	}
+
+	@Test
+	public void testUnregisteredRoundTrip() {
+		final UnregisteredPersistable persistable = new UnregisteredPersistable(
+				new byte[] {
+					1,
+					2,
+					3
+				});
+		assertNull(PersistableRegistry.getPersistableId(UnregisteredPersistable.class));
+		final byte[] binary = PersistenceUtils.toBinary(persistable);
+		for (int i = 0; i < 2; i++) {
+			// the second read uses the cached constructor
+			assertArrayEquals(
+					persistable.value,
+					PersistenceUtils.fromBinary(
+							binary,
+							UnregisteredPersistable.class).value);
+		}
+	}
+
+	@Test
+	public void testListRoundTrip() {
+		final List<Persistable> persistables = Arrays.asList(
+				(Persistable) new LongitudeDefinition(),
+				new UnregisteredPersistable(
+						new byte[] {
+							4
+						}));
+		final List<Persistable> result = PersistenceUtils.fromBinary(PersistenceUtils.toBinary(persistables));
+		assertEquals(
+				2,
+				result.size());
+		assertEquals(
+				persistables.get(0),
+				result.get(0));
+		assertTrue(result.get(1) instanceof UnregisteredPersistable);
+	}
+
+	@Test
+	public void testUnexpectedType() {
+		assertNull(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(new LongitudeDefinition()),
+				UnregisteredPersistable.class));
+	}
+
+	private static class UnregisteredPersistable implements
+			Persistable
+	{
+		private byte[] value;
+
+		private UnregisteredPersistable() {}
+
+		private UnregisteredPersistable(
+				final byte[] value ) {
+			this.value = value;
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return value;
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {
+			value = bytes;
+		}
+	}
+}
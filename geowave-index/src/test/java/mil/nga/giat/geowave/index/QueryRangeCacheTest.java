@@ -0,0 +1,247 @@
+package mil.nga.giat.geowave.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialFactory;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.junit.Test;
+
+public class QueryRangeCacheTest
+{
+	private final NumericIndexStrategy strategy = new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+
+	@Test
+	public void testCachedRangesMatchDecomposition() {
+		final QueryRangeCache cache = new QueryRangeCache(
+				100);
+		final MultiDimensionalNumericData query = createQuery(
+				-10,
+				-5,
+				10,
+				5);
+		final List<ByteArrayRange> expected = strategy.getQueryRanges(
+				query,
+				100);
+		assertEquals(
+				expected,
+				cache.getQueryRanges(
+						strategy,
+						query,
+						100));
+		assertEquals(
+				expected,
+				cache.getQueryRanges(
+						strategy,
+						query,
+						100));
+		assertEquals(
+				1,
+				cache.getMissCount());
+		assertEquals(
+				1,
+				cache.getHitCount());
+
+		// a different max range decomposition is a different entry
+		assertEquals(
+				strategy.getQueryRanges(
+						query,
+						10),
+				cache.getQueryRanges(
+						strategy,
+						query,
+						10));
+		assertEquals(
+				2,
+				cache.getMissCount());
+		assertEquals(
+				2,
+				cache.size());
+	}
+
+	@Test
+	public void testEqualStrategiesShareEntries() {
+		final QueryRangeCache cache = new QueryRangeCache(
+				100);
+		final MultiDimensionalNumericData query = createQuery(
+				-10,
+				-5,
+				10,
+				5);
+		cache.getQueryRanges(
+				strategy,
+				query,
+				100);
+		// a strategy loaded separately, such as from the index store, is a
+		// different instance of an equal strategy
+		final NumericIndexStrategy reloaded = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(strategy),
+				NumericIndexStrategy.class);
+		assertEquals(
+				strategy.getQueryRanges(
+						query,
+						100),
+				cache.getQueryRanges(
+						reloaded,
+						query,
+						100));
+		assertEquals(
+				1,
+				cache.getHitCount());
+		// a strategy with different tiers does not share the entry
+		cache.getQueryRanges(
+				new SpatialFactory().createIndexStrategy(DataType.RASTER),
+				query,
+				100);
+		assertEquals(
+				2,
+				cache.getMissCount());
+	}
+
+	@Test
+	public void testQuantizedToHighestPrecisionCell() {
+		final QueryRangeCache cache = new QueryRangeCache(
+				100);
+		final double[] cellSize = strategy.getHighestPrecisionIdRangePerDimension();
+		// offset the query by a fraction of a cell, both queries cover the
+		// same cells so they should share an entry
+		final double minX = -180 + (cellSize[0] * 1000.25);
+		final double minY = -90 + (cellSize[1] * 1000.25);
+		cache.getQueryRanges(
+				strategy,
+				createQuery(
+						minX,
+						minY,
+						minX + 1,
+						minY + 1),
+				100);
+		cache.getQueryRanges(
+				strategy,
+				createQuery(
+						minX + (cellSize[0] * 0.5),
+						minY + (cellSize[1] * 0.5),
+						minX + 1,
+						minY + 1),
+				100);
+		assertEquals(
+				1,
+				cache.getHitCount());
+
+		// moving by a full cell is a different query
+		cache.getQueryRanges(
+				strategy,
+				createQuery(
+						minX + cellSize[0],
+						minY,
+						minX + 1,
+						minY + 1),
+				100);
+		assertEquals(
+				2,
+				cache.getMissCount());
+	}
+
+	@Test
+	public void testMaxOnCellBoundary() {
+		final double[] cellSize = strategy.getHighestPrecisionIdRangePerDimension();
+		// the origin is on the edge of a cell at every tier, as is any power
+		// of 2 map tile edge, and the maximum of a query is exclusive so a
+		// query that ends on the edge does not cover the cell beyond it
+		final MultiDimensionalNumericData tileQuery = createQuery(
+				-10,
+				-10,
+				0,
+				0);
+		final MultiDimensionalNumericData pastEdgeQuery = createQuery(
+				-10,
+				-10,
+				cellSize[0] * 0.25,
+				cellSize[1] * 0.25);
+		final QueryRangeCache cache = new QueryRangeCache(
+				100);
+		assertEquals(
+				strategy.getQueryRanges(
+						tileQuery,
+						100),
+				cache.getQueryRanges(
+						strategy,
+						tileQuery,
+						100));
+		assertEquals(
+				strategy.getQueryRanges(
+						pastEdgeQuery,
+						100),
+				cache.getQueryRanges(
+						strategy,
+						pastEdgeQuery,
+						100));
+		assertEquals(
+				2,
+				cache.getMissCount());
+
+		// a query that ends within the same cell as the query past the edge
+		// covers the same cells so it shares its entry
+		cache.getQueryRanges(
+				strategy,
+				createQuery(
+						-10,
+						-10,
+						cellSize[0] * 0.75,
+						cellSize[1] * 0.75),
+				100);
+		assertEquals(
+				1,
+				cache.getHitCount());
+	}
+
+	@Test
+	public void testEviction() {
+		final int maxSize = 20;
+		final QueryRangeCache cache = new QueryRangeCache(
+				maxSize);
+		for (int i = 0; i < 100; i++) {
+			cache.getQueryRanges(
+					strategy,
+					createQuery(
+							i,
+							0,
+							i + 0.5,
+							0.5),
+					10);
+			assertTrue(cache.size() <= maxSize);
+		}
+		assertEquals(
+				100,
+				cache.getMissCount());
+		cache.clear();
+		assertEquals(
+				0,
+				cache.size());
+		assertEquals(
+				0,
+				cache.getMissCount());
+	}
+
+	private static MultiDimensionalNumericData createQuery(
+			final double minX,
+			final double minY,
+			final double maxX,
+			final double maxY ) {
+		return new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							minX,
+							maxX),
+					new NumericRange(
+							minY,
+							maxY)
+				});
+	}
+}
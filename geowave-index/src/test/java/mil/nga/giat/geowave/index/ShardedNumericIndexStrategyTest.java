@@ -0,0 +1,152 @@
+package mil.nga.giat.geowave.index;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialFactory;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.index.sfc.data.NumericValue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardedNumericIndexStrategyTest
+{
+	private static final int SHARD_COUNT = 8;
+	private final NumericIndexStrategy delegate = new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+	private final ShardedNumericIndexStrategy strategy = new ShardedNumericIndexStrategy(
+			delegate,
+			SHARD_COUNT);
+
+	@Test
+	public void testInsertionIdsArePrefixedByShard() {
+		final MultiDimensionalNumericData point = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericValue(
+							45),
+					new NumericValue(
+							45)
+				});
+		final List<ByteArrayId> delegateIds = delegate.getInsertionIds(point);
+		final Set<Byte> shards = new HashSet<Byte>();
+		for (int i = 0; i < 100; i++) {
+			final ByteArrayId dataId = new ByteArrayId(
+					"track" + i);
+			final byte shard = strategy.getShard(dataId);
+			Assert.assertTrue((shard >= 0) && (shard < SHARD_COUNT));
+			shards.add(shard);
+			final List<ByteArrayId> insertionIds = strategy.getInsertionIds(
+					point,
+					dataId);
+			Assert.assertEquals(
+					delegateIds.size(),
+					insertionIds.size());
+			for (int j = 0; j < insertionIds.size(); j++) {
+				final byte[] insertionId = insertionIds.get(
+						j).getBytes();
+				Assert.assertEquals(
+						shard,
+						insertionId[0]);
+				Assert.assertArrayEquals(
+						delegateIds.get(
+								j).getBytes(),
+						Arrays.copyOfRange(
+								insertionId,
+								1,
+								insertionId.length));
+			}
+		}
+		// entries at the same location are spread across all of the shards
+		Assert.assertEquals(
+				SHARD_COUNT,
+				shards.size());
+	}
+
+	@Test
+	public void testShardsAreStable() {
+		// the shards are persisted in the row IDs, so they must not change
+		Assert.assertEquals(
+				2,
+				strategy.getShard(new ByteArrayId(
+						"track0")));
+		Assert.assertEquals(
+				3,
+				strategy.getShard(new ByteArrayId(
+						"track1")));
+	}
+
+	@Test
+	public void testQueryRangesFanOutToEveryShard() {
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							10,
+							12),
+					new NumericRange(
+							20,
+							21)
+				});
+		final MultiDimensionalNumericData entry = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericValue(
+							11),
+					new NumericValue(
+							20.5)
+				});
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(query);
+		Assert.assertEquals(
+				delegate.getQueryRanges(
+						query).size() * SHARD_COUNT,
+				ranges.size());
+		for (int i = 0; i < 20; i++) {
+			for (final ByteArrayId insertionId : strategy.getInsertionIds(
+					entry,
+					new ByteArrayId(
+							"entry" + i))) {
+				boolean found = false;
+				for (final ByteArrayRange range : ranges) {
+					if ((range.getStart().compareTo(
+							insertionId) <= 0) && (range.getEnd().compareTo(
+							insertionId) >= 0)) {
+						found = true;
+						break;
+					}
+				}
+				Assert.assertTrue(found);
+				Assert.assertArrayEquals(
+						delegate.getCoordinatesPerDimension(new ByteArrayId(
+								Arrays.copyOfRange(
+										insertionId.getBytes(),
+										1,
+										insertionId.getLength()))),
+						strategy.getCoordinatesPerDimension(insertionId));
+			}
+		}
+	}
+
+	@Test
+	public void testPersistence() {
+		final ShardedNumericIndexStrategy persisted = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(strategy),
+				ShardedNumericIndexStrategy.class);
+		Assert.assertEquals(
+				strategy,
+				persisted);
+		Assert.assertEquals(
+				strategy.getId(),
+				persisted.getId());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidShardCount() {
+		new ShardedNumericIndexStrategy(
+				delegate,
+				ShardedNumericIndexStrategy.MAX_SHARD_COUNT + 1);
+	}
+}
@@ -1,8 +1,12 @@
 package mil.nga.giat.geowave.index.dimension.bin;
 
 import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 import java.util.TimeZone;
 
+import mil.nga.giat.geowave.index.StringUtils;
 import mil.nga.giat.geowave.index.dimension.bin.BinRange;
 import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
 import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
@@ -379,4 +383,306 @@ public class TemporalBinningStrategyTest
 		Assert.assertTrue(ranges[1].getNormalizedMin() == ranges[1].getNormalizedMax());
 		Assert.assertTrue(ranges[1].getNormalizedMin() == binStrategy.getBinMin());
 	}
+
+	@Test
+	public void testBinnedValuesMatchCalendar() {
+		final Random random = new Random(
+				2187);
+		final Calendar minCal = Calendar.getInstance();
+		minCal.clear();
+		minCal.set(
+				1890,
+				0,
+				1);
+		final Calendar maxCal = Calendar.getInstance();
+		maxCal.clear();
+		maxCal.set(
+				2110,
+				0,
+				1);
+		final long minMillis = minCal.getTimeInMillis();
+		final long maxMillis = maxCal.getTimeInMillis();
+		for (final String timezone : new String[] {
+			"GMT",
+			"America/New_York",
+			"America/Sao_Paulo",
+			"Australia/Lord_Howe"
+		}) {
+			for (final Unit unit : new Unit[] {
+				Unit.DAY,
+				Unit.WEEK,
+				Unit.MONTH,
+				Unit.YEAR
+			}) {
+				final TemporalBinningStrategy binStrategy = new TemporalBinningStrategy(
+						unit,
+						timezone);
+				for (int i = 0; i < 20000; i++) {
+					// include values either side of the precomputed bins
+					final long time = minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+					final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+					cal.setTimeInMillis(time);
+					binStrategy.setToEpoch(cal);
+					final String expectedBinId = getExpectedBinId(
+							unit,
+							cal);
+					final BinValue binnedValue = binStrategy.getBinnedValue(time);
+					Assert.assertEquals(
+							expectedBinId,
+							StringUtils.stringFromBinary(binnedValue.getBinId()));
+					Assert.assertEquals(
+							time - cal.getTimeInMillis(),
+							(long) binnedValue.getNormalizedValue());
+
+					final BinRange binRange = binStrategy.getNormalizedRanges(new NumericRange(
+							time,
+							time))[0];
+					Assert.assertEquals(
+							expectedBinId,
+							StringUtils.stringFromBinary(binRange.getBinId()));
+					Assert.assertEquals(
+							time,
+							(long) binStrategy.getDenormalizedRanges(
+									binRange).getMin());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testContiguousBinsMatchCalendar() {
+		final String timezone = "America/New_York";
+		final TemporalBinningStrategy binStrategy = new TemporalBinningStrategy(
+				Unit.DAY,
+				timezone);
+		final Calendar startCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		startCal.clear();
+		startCal.set(
+				2013,
+				0,
+				1);
+		final Calendar endCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		endCal.clear();
+		endCal.set(
+				2015,
+				0,
+				1);
+		final BinRange[] ranges = binStrategy.getNormalizedRanges(new NumericRange(
+				startCal.getTimeInMillis(),
+				endCal.getTimeInMillis() - 1));
+		Assert.assertEquals(
+				730,
+				ranges.length);
+		long expectedMin = startCal.getTimeInMillis();
+		for (final BinRange range : ranges) {
+			Assert.assertTrue(range.isFullExtent());
+			final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+			cal.setTimeInMillis(expectedMin);
+			Assert.assertEquals(
+					getExpectedBinId(
+							Unit.DAY,
+							cal),
+					StringUtils.stringFromBinary(range.getBinId()));
+			final NumericRange denormalized = binStrategy.getDenormalizedRanges(range);
+			Assert.assertEquals(
+					expectedMin,
+					(long) denormalized.getMin());
+			expectedMin = (long) denormalized.getMax() + 1;
+		}
+		Assert.assertEquals(
+				endCal.getTimeInMillis(),
+				expectedMin);
+	}
+
+	@Test
+	public void testWeeksStartOnMonday() {
+		final TemporalBinningStrategy binStrategy = new TemporalBinningStrategy(
+				Unit.WEEK);
+		final Calendar cal = Calendar.getInstance();
+		cal.clear();
+		// a sunday, which is in the week starting monday 2014-12-29
+		cal.set(
+				2015,
+				0,
+				4,
+				15,
+				30);
+		final BinValue binnedValue = binStrategy.getBinnedValue(cal.getTimeInMillis());
+		Assert.assertEquals(
+				"2014_11_29",
+				StringUtils.stringFromBinary(binnedValue.getBinId()));
+		Assert.assertEquals(
+				(6 * TemporalBinningStrategy.MILLIS_PER_DAY) + (15 * TemporalBinningStrategy.MILLIS_PER_HOUR) + (30 * TemporalBinningStrategy.MILLIS_PER_MINUTE),
+				(long) binnedValue.getNormalizedValue());
+	}
+
+	@Test
+	public void testFixedLengthBins() {
+		final Random random = new Random(
+				1492);
+		for (final String timezone : new String[] {
+			"GMT",
+			"America/New_York",
+			"Asia/Kolkata"
+		}) {
+			final TimeZone standardTime = TimeZone.getTimeZone(timezone);
+			for (final Unit unit : new Unit[] {
+				Unit.HOUR,
+				Unit.MINUTE
+			}) {
+				final TemporalBinningStrategy binStrategy = new TemporalBinningStrategy(
+						unit,
+						timezone);
+				for (int i = 0; i < 20000; i++) {
+					// include values prior to 1970
+					final long time = (long) ((random.nextDouble() - 0.3) * 3000000000000L);
+					final BinValue binnedValue = binStrategy.getBinnedValue(time);
+					Assert.assertTrue(binnedValue.getNormalizedValue() >= binStrategy.getBinMin());
+					Assert.assertTrue(binnedValue.getNormalizedValue() <= binStrategy.getBinMax());
+
+					// the bin ID is the start of the bin in standard time
+					final long epoch = time - (long) binnedValue.getNormalizedValue();
+					final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+					cal.setTimeInMillis(epoch + standardTime.getRawOffset());
+					Assert.assertEquals(
+							0,
+							cal.get(Calendar.SECOND));
+					if (unit == Unit.HOUR) {
+						Assert.assertEquals(
+								0,
+								cal.get(Calendar.MINUTE));
+					}
+					Assert.assertEquals(
+							getExpectedBinId(
+									unit,
+									cal),
+							StringUtils.stringFromBinary(binnedValue.getBinId()));
+
+					final BinRange binRange = binStrategy.getNormalizedRanges(new NumericRange(
+							time,
+							time))[0];
+					Assert.assertArrayEquals(
+							binnedValue.getBinId(),
+							binRange.getBinId());
+					Assert.assertEquals(
+							time,
+							(long) binStrategy.getDenormalizedRanges(
+									binRange).getMin());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testHourBinsAcrossDaylightSavings() {
+		final String timezone = "America/New_York";
+		final TemporalBinningStrategy binStrategy = new TemporalBinningStrategy(
+				Unit.HOUR,
+				timezone);
+		final Calendar startCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		startCal.clear();
+		// the day that daylight savings time ends has 25 hours
+		startCal.set(
+				2014,
+				10,
+				2);
+		final long start = startCal.getTimeInMillis();
+		final BinRange[] ranges = binStrategy.getNormalizedRanges(new NumericRange(
+				start,
+				(start + (25 * TemporalBinningStrategy.MILLIS_PER_HOUR)) - 1));
+		Assert.assertEquals(
+				25,
+				ranges.length);
+		final Set<String> binIds = new HashSet<String>();
+		for (int i = 0; i < ranges.length; i++) {
+			Assert.assertTrue(ranges[i].isFullExtent());
+			Assert.assertTrue(binIds.add(StringUtils.stringFromBinary(ranges[i].getBinId())));
+			Assert.assertEquals(
+					start + (i * TemporalBinningStrategy.MILLIS_PER_HOUR),
+					(long) binStrategy.getDenormalizedRanges(
+							ranges[i]).getMin());
+		}
+	}
+
+	@Test
+	public void testRecommendedUnit() {
+		final long hour = TemporalBinningStrategy.MILLIS_PER_HOUR;
+		final long day = TemporalBinningStrategy.MILLIS_PER_DAY;
+		final int maxBins = TemporalBinningStrategy.DEFAULT_MAX_RECOMMENDED_BIN_COUNT;
+		Assert.assertEquals(
+				Unit.MINUTE,
+				TemporalBinningStrategy.getRecommendedUnit(
+						0,
+						6 * hour,
+						maxBins));
+		Assert.assertEquals(
+				Unit.HOUR,
+				TemporalBinningStrategy.getRecommendedUnit(
+						0,
+						30 * day,
+						maxBins));
+		Assert.assertEquals(
+				Unit.DAY,
+				TemporalBinningStrategy.getRecommendedUnit(
+						0,
+						365 * day,
+						maxBins));
+		Assert.assertEquals(
+				Unit.WEEK,
+				TemporalBinningStrategy.getRecommendedUnit(
+						0,
+						10 * 365 * day,
+						maxBins));
+		Assert.assertEquals(
+				Unit.MONTH,
+				TemporalBinningStrategy.getRecommendedUnit(
+						0,
+						50 * 365 * day,
+						maxBins));
+		Assert.assertEquals(
+				Unit.YEAR,
+				TemporalBinningStrategy.getRecommendedUnit(
+						0,
+						5000 * 365 * day,
+						maxBins));
+	}
+
+	private static String getExpectedBinId(
+			final Unit unit,
+			final Calendar cal ) {
+		switch (unit) {
+			case YEAR:
+			default:
+				return String.format(
+						"%d",
+						cal.get(Calendar.YEAR));
+			case MONTH:
+				return String.format(
+						"%d_%02d",
+						cal.get(Calendar.YEAR),
+						cal.get(Calendar.MONTH));
+			case WEEK:
+			case DAY:
+				return String.format(
+						"%d_%02d_%02d",
+						cal.get(Calendar.YEAR),
+						cal.get(Calendar.MONTH),
+						cal.get(Calendar.DAY_OF_MONTH));
+			case HOUR:
+				return String.format(
+						"%d_%02d_%02d_%02d",
+						cal.get(Calendar.YEAR),
+						cal.get(Calendar.MONTH),
+						cal.get(Calendar.DAY_OF_MONTH),
+						cal.get(Calendar.HOUR_OF_DAY));
+			case MINUTE:
+				return String.format(
+						"%d_%02d_%02d_%02d_%02d",
+						cal.get(Calendar.YEAR),
+						cal.get(Calendar.MONTH),
+						cal.get(Calendar.DAY_OF_MONTH),
+						cal.get(Calendar.HOUR_OF_DAY),
+						cal.get(Calendar.MINUTE));
+		}
+	}
 }
@@ -1,6 +1,14 @@
 package mil.nga.giat.geowave.index.sfc.hilbert;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
 import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
@@ -273,5 +281,66 @@ public class HilbertSFCTest
 
 	}
 
+	@Test
+	public void testGetId_2DSpatialConcurrent()
+			throws Exception {
+
+		int LATITUDE_BITS = 31;
+		int LONGITUDE_BITS = 31;
+
+		SFCDimensionDefinition[] SPATIAL_DIMENSIONS = new SFCDimensionDefinition[] {
+			new SFCDimensionDefinition(
+					new LongitudeDefinition(),
+					LONGITUDE_BITS),
+			new SFCDimensionDefinition(
+					new LatitudeDefinition(),
+					LATITUDE_BITS)
+		};
+
+		final SpaceFillingCurve hilbertSFC = SFCFactory.createSpaceFillingCurve(
+				SPATIAL_DIMENSIONS,
+				SFCType.HILBERT);
+
+		final Random random = new Random(
+				42);
+		final double[][] values = new double[1000][];
+		final byte[][] expectedIds = new byte[values.length][];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new double[] {
+				(random.nextDouble() * 360) - 180,
+				(random.nextDouble() * 180) - 90
+			};
+			expectedIds[i] = hilbertSFC.getId(values[i]);
+		}
+
+		// every thread should see exactly the same IDs as the single threaded
+		// run now that the curve is no longer shared
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 8; t++) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						for (int i = 0; i < values.length; i++) {
+							if (!Arrays.equals(
+									expectedIds[i],
+									hilbertSFC.getId(values[i]))) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (final Future<Boolean> result : results) {
+				Assert.assertTrue(result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
 	/* public void testDecomposeQuery_2DSpatialRanges() {} */
 }
@@ -0,0 +1,166 @@
+package mil.nga.giat.geowave.index.sfc.hilbert;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.SFCFactory;
+import mil.nga.giat.geowave.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.uzaygezen.core.CompactHilbertCurve;
+import com.google.uzaygezen.core.MultiDimensionalSpec;
+
+public class Int128HilbertSFCTest
+{
+	private static final NumericDimensionDefinition[] SPATIAL_TEMPORAL_DIMENSIONS = new NumericDimensionDefinition[] {
+		new LongitudeDefinition(),
+		new LatitudeDefinition(
+				true),
+		new BasicDimensionDefinition(
+				0,
+				1000000)
+	};
+
+	@Test
+	public void testQueryDecomposition93BitsTotal() {
+		internalTestQueryDecompositionMatchesUnbounded(
+				31,
+				new int[] {
+					1,
+					20,
+					500
+				});
+	}
+
+	@Test
+	public void testQueryDecomposition126BitsTotal() {
+		// the unbounded operations are slow to decompose at this precision, so
+		// keep the maximum number of ranges small
+		internalTestQueryDecompositionMatchesUnbounded(
+				42,
+				new int[] {
+					1,
+					20
+				});
+	}
+
+	@Test
+	public void testOptimalOperations() {
+		Assert.assertTrue(createHilbertSFC(20).decomposeQueryOperations instanceof PrimitiveHilbertSFCOperations);
+		Assert.assertFalse(createHilbertSFC(20).decomposeQueryOperations instanceof Int128HilbertSFCOperations);
+		Assert.assertTrue(createHilbertSFC(31).decomposeQueryOperations instanceof Int128HilbertSFCOperations);
+		// the int128 operations are shared for getId, they inherit the
+		// primitive getId implementation so that the IDs are unchanged
+		Assert.assertEquals(
+				Int128HilbertSFCOperations.class,
+				createHilbertSFC(31).getIdOperations.getClass());
+		Assert.assertEquals(
+				PrimitiveHilbertSFCOperations.class,
+				createHilbertSFC(20).getIdOperations.getClass());
+		Assert.assertTrue(createHilbertSFC(43).decomposeQueryOperations instanceof UnboundedHilbertSFCOperations);
+	}
+
+	private static HilbertSFC createHilbertSFC(
+			final int bitsPerDimension ) {
+		return (HilbertSFC) SFCFactory.createSpaceFillingCurve(
+				createSFCDimensions(bitsPerDimension),
+				SFCType.HILBERT);
+	}
+
+	private static SFCDimensionDefinition[] createSFCDimensions(
+			final int bitsPerDimension ) {
+		final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[SPATIAL_TEMPORAL_DIMENSIONS.length];
+		for (int d = 0; d < SPATIAL_TEMPORAL_DIMENSIONS.length; d++) {
+			sfcDimensions[d] = new SFCDimensionDefinition(
+					SPATIAL_TEMPORAL_DIMENSIONS[d],
+					bitsPerDimension);
+		}
+		return sfcDimensions;
+	}
+
+	private void internalTestQueryDecompositionMatchesUnbounded(
+			final int bitsOfPrecision,
+			final int[] maxRangesToTest ) {
+		final SFCDimensionDefinition[] sfcDimensions = createSFCDimensions(bitsOfPrecision);
+		final List<Integer> bitsPerDimension = new ArrayList<Integer>();
+		for (int d = 0; d < sfcDimensions.length; d++) {
+			bitsPerDimension.add(bitsOfPrecision);
+		}
+		final int totalPrecision = bitsOfPrecision * sfcDimensions.length;
+		final CompactHilbertCurve compactHilbertCurve = new CompactHilbertCurve(
+				new MultiDimensionalSpec(
+						bitsPerDimension));
+		final Int128HilbertSFCOperations testOperations = new Int128HilbertSFCOperations();
+		// assume the unbounded SFC is the true results, regardless they should
+		// both produce the same results
+		final UnboundedHilbertSFCOperations expectedResultOperations = new UnboundedHilbertSFCOperations();
+		testOperations.init(sfcDimensions);
+		expectedResultOperations.init(sfcDimensions);
+
+		final Random random = new Random(
+				7654);
+		// decomposing at this precision can take seconds per query, so only a
+		// few random queries are compared
+		for (int i = 0; i < 3; i++) {
+			final NumericData[] ranges = new NumericData[sfcDimensions.length];
+			for (int d = 0; d < sfcDimensions.length; d++) {
+				final NumericData bounds = sfcDimensions[d].getFullRange();
+				final double extent = bounds.getMax() - bounds.getMin();
+				final double width = random.nextDouble() * random.nextDouble() * extent;
+				final double min = bounds.getMin() + (random.nextDouble() * (extent - width));
+				ranges[d] = new NumericRange(
+						min,
+						min + width);
+			}
+			for (final int maxRanges : maxRangesToTest) {
+				final RangeDecomposition expected = expectedResultOperations.decomposeRange(
+						ranges,
+						compactHilbertCurve,
+						sfcDimensions,
+						totalPrecision,
+						maxRanges,
+						true);
+				final RangeDecomposition actual = testOperations.decomposeRange(
+						ranges,
+						compactHilbertCurve,
+						sfcDimensions,
+						totalPrecision,
+						maxRanges,
+						true);
+				Assert.assertArrayEquals(
+						expected.getRanges(),
+						actual.getRanges());
+			}
+			final BasicNumericDataset data = new BasicNumericDataset(
+					ranges);
+			Assert.assertEquals(
+					expectedResultOperations.getEstimatedIdCount(
+							data,
+							sfcDimensions),
+					testOperations.getEstimatedIdCount(
+							data,
+							sfcDimensions));
+			final BigInteger expectedIdCount = expectedResultOperations.getEstimatedIdCount(
+					data,
+					sfcDimensions);
+			Assert.assertEquals(
+					expectedIdCount.bitLength() > 63 ? Long.MAX_VALUE : expectedIdCount.longValue(),
+					testOperations.getEstimatedIdCountAsLong(
+							data,
+							sfcDimensions));
+		}
+	}
+}
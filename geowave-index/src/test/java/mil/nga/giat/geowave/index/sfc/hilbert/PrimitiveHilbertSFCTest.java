@@ -1,7 +1,9 @@
 package mil.nga.giat.geowave.index.sfc.hilbert;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
 import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
@@ -383,4 +385,96 @@ public class PrimitiveHilbertSFCTest
 						sfcDimensions));
 
 	}
+
+	@Test
+	public void testGetIdIntoBuffer() {
+		final int[][] bitsPerDimensionCases = new int[][] {
+			new int[] {
+				0,
+				0
+			},
+			new int[] {
+				3,
+				4
+			},
+			new int[] {
+				31,
+				31
+			},
+			new int[] {
+				31,
+				31,
+				31
+			},
+			new int[] {
+				48,
+				48
+			}
+		};
+		final Random random = new Random(
+				7);
+		for (final int[] bits : bitsPerDimensionCases) {
+			final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[bits.length];
+			final List<Integer> bitsPerDimension = new ArrayList<Integer>();
+			for (int d = 0; d < bits.length; d++) {
+				sfcDimensions[d] = new SFCDimensionDefinition(
+						new BasicDimensionDefinition(
+								0,
+								1),
+						bits[d]);
+				bitsPerDimension.add(bits[d]);
+			}
+			final CompactHilbertCurve compactHilbertCurve = new CompactHilbertCurve(
+					new MultiDimensionalSpec(
+							bitsPerDimension));
+			final PrimitiveHilbertSFCOperations testOperations = new PrimitiveHilbertSFCOperations();
+			final UnboundedHilbertSFCOperations expectedResultOperations = new UnboundedHilbertSFCOperations();
+			testOperations.init(sfcDimensions);
+			expectedResultOperations.init(sfcDimensions);
+
+			final byte[] buffer = new byte[64];
+			for (int i = 0; i < 100; i++) {
+				// use values in the center of a cell so that the primitive and
+				// unbounded normalization are guaranteed to agree
+				final double[] values = new double[bits.length];
+				for (int d = 0; d < values.length; d++) {
+					final double bins = Math.pow(
+							2,
+							bits[d]);
+					values[d] = (Math.floor(random.nextDouble() * bins) + 0.5) / bins;
+				}
+				final byte[] expected = expectedResultOperations.convertToHilbert(
+						values,
+						compactHilbertCurve,
+						sfcDimensions);
+				Arrays.fill(
+						buffer,
+						(byte) 0x7f);
+				final int offset = 3;
+				final int bytesWritten = testOperations.convertToHilbert(
+						values,
+						compactHilbertCurve,
+						sfcDimensions,
+						buffer,
+						offset);
+				Assert.assertEquals(
+						expected.length,
+						bytesWritten);
+				Assert.assertArrayEquals(
+						expected,
+						Arrays.copyOfRange(
+								buffer,
+								offset,
+								offset + bytesWritten));
+				// nothing outside of the written section should be touched
+				for (int b = 0; b < buffer.length; b++) {
+					if ((b < offset) || (b >= (offset + bytesWritten))) {
+						Assert.assertEquals(
+								(byte) 0x7f,
+								buffer[b]);
+					}
+				}
+			}
+		}
+	}
 }
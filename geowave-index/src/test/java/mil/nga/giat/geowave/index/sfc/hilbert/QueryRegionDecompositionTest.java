@@ -0,0 +1,237 @@
+package mil.nga.giat.geowave.index.sfc.hilbert;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.sfc.DecompositionDeadline;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
+import mil.nga.giat.geowave.index.sfc.RangeDecomposition;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.SFCFactory;
+import mil.nga.giat.geowave.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.index.sfc.SpaceFillingCurve;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryRegionDecompositionTest
+{
+	private static final double CORRIDOR_HALF_WIDTH = 1;
+	private static final BasicNumericDataset QUERY_BOUNDS = new BasicNumericDataset(
+			new NumericData[] {
+				new NumericRange(
+						0,
+						40),
+				new NumericRange(
+						0,
+						40)
+			});
+
+	@Test
+	public void testCorridorPrimitive() {
+		internalTestCorridor(20);
+	}
+
+	@Test
+	public void testCorridorInt128() {
+		internalTestCorridor(40);
+	}
+
+	@Test
+	public void testDisjointRegion() {
+		final SpaceFillingCurve sfc = createSFC(20);
+		final RangeDecomposition decomposition = sfc.decomposeQuery(
+				QUERY_BOUNDS,
+				-1,
+				new QueryRegion() {
+					@Override
+					public Relation relate(
+							final MultiDimensionalNumericData cell ) {
+						return Relation.DISJOINT;
+					}
+				});
+		Assert.assertEquals(
+				0,
+				decomposition.getRanges().length);
+	}
+
+	@Test
+	public void testExpiredDeadline() {
+		final SpaceFillingCurve sfc = createSFC(20);
+		final QueryRegion corridor = new DiagonalCorridor();
+		final RangeDecomposition fullDecomposition = sfc.decomposeQuery(
+				QUERY_BOUNDS,
+				-1,
+				corridor);
+		final DecompositionDeadline deadline = new DecompositionDeadline(
+				0);
+		final RangeDecomposition truncatedDecomposition = sfc.decomposeQuery(
+				QUERY_BOUNDS,
+				-1,
+				corridor,
+				deadline);
+		Assert.assertTrue(deadline.isTruncated());
+		Assert.assertTrue(deadline.getTruncatedCellCount() > 0);
+		Assert.assertTrue(truncatedDecomposition.getRanges().length < fullDecomposition.getRanges().length);
+		// the truncated ranges are coarser but still cover the whole corridor
+		Assert.assertTrue(getIdCount(
+				truncatedDecomposition).compareTo(
+				getIdCount(fullDecomposition)) > 0);
+		final Random random = new Random(
+				1234);
+		for (int i = 0; i < 5000; i++) {
+			final double x = random.nextDouble() * 40;
+			final double y = Math.max(
+					0,
+					Math.min(
+							40,
+							(x + (random.nextDouble() * 2 * CORRIDOR_HALF_WIDTH)) - CORRIDOR_HALF_WIDTH));
+			Assert.assertTrue(getRangeIndex(
+					truncatedDecomposition,
+					sfc.getId(new double[] {
+						x,
+						y
+					})) >= 0);
+		}
+	}
+
+	@Test
+	public void testUnexpiredDeadline() {
+		final SpaceFillingCurve sfc = createSFC(20);
+		final DecompositionDeadline deadline = new DecompositionDeadline(
+				60000);
+		final RangeDecomposition decomposition = sfc.decomposeQuery(
+				QUERY_BOUNDS,
+				-1,
+				null,
+				deadline);
+		Assert.assertFalse(deadline.isTruncated());
+		Assert.assertArrayEquals(
+				sfc.decomposeQuery(
+						QUERY_BOUNDS,
+						-1).getRanges(),
+				decomposition.getRanges());
+	}
+
+	private void internalTestCorridor(
+			final int bitsPerDimension ) {
+		final SpaceFillingCurve sfc = createSFC(bitsPerDimension);
+		final QueryRegion corridor = new DiagonalCorridor();
+		final RangeDecomposition boundsDecomposition = sfc.decomposeQuery(
+				QUERY_BOUNDS,
+				-1);
+		final RangeDecomposition corridorDecomposition = sfc.decomposeQuery(
+				QUERY_BOUNDS,
+				-1,
+				corridor);
+		final BigInteger boundsIdCount = getIdCount(boundsDecomposition);
+		final BigInteger corridorIdCount = getIdCount(corridorDecomposition);
+		// the corridor covers 10% of the bounding box
+		Assert.assertTrue(corridorIdCount.multiply(
+				BigInteger.valueOf(4)).compareTo(
+				boundsIdCount) < 0);
+
+		final Random random = new Random(
+				1234);
+		boolean foundPruned = false;
+		for (int i = 0; i < 5000; i++) {
+			final double x = random.nextDouble() * 40;
+			final double y = random.nextDouble() * 40;
+			final int rangeIndex = getRangeIndex(
+					corridorDecomposition,
+					sfc.getId(new double[] {
+						x,
+						y
+					}));
+			if (Math.abs(y - x) <= CORRIDOR_HALF_WIDTH) {
+				// nothing within the corridor can be pruned
+				Assert.assertTrue(rangeIndex >= 0);
+			}
+			else if ((Math.abs(y - x) > (10 * CORRIDOR_HALF_WIDTH)) && (rangeIndex < 0)) {
+				foundPruned = true;
+			}
+		}
+		// the corners of the bounding box, far from the corridor, are pruned
+		Assert.assertTrue(foundPruned);
+	}
+
+	private static SpaceFillingCurve createSFC(
+			final int bitsPerDimension ) {
+		return SFCFactory.createSpaceFillingCurve(
+				new SFCDimensionDefinition[] {
+					new SFCDimensionDefinition(
+							new LongitudeDefinition(),
+							bitsPerDimension),
+					new SFCDimensionDefinition(
+							new LatitudeDefinition(),
+							bitsPerDimension)
+				},
+				SFCType.HILBERT);
+	}
+
+	private static BigInteger getIdCount(
+			final RangeDecomposition decomposition ) {
+		BigInteger idCount = BigInteger.ZERO;
+		for (final ByteArrayRange range : decomposition.getRanges()) {
+			idCount = idCount.add(
+					new BigInteger(
+							1,
+							range.getEnd().getBytes())).subtract(
+					new BigInteger(
+							1,
+							range.getStart().getBytes())).add(
+					BigInteger.ONE);
+		}
+		return idCount;
+	}
+
+	private static int getRangeIndex(
+			final RangeDecomposition decomposition,
+			final byte[] id ) {
+		final BigInteger value = new BigInteger(
+				1,
+				id);
+		final ByteArrayRange[] ranges = decomposition.getRanges();
+		for (int i = 0; i < ranges.length; i++) {
+			if ((value.compareTo(new BigInteger(
+					1,
+					ranges[i].getStart().getBytes())) >= 0) && (value.compareTo(new BigInteger(
+					1,
+					ranges[i].getEnd().getBytes())) <= 0)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The points within a fixed distance of the diagonal y = x
+	 */
+	private static class DiagonalCorridor implements
+			QueryRegion
+	{
+		@Override
+		public Relation relate(
+				final MultiDimensionalNumericData cell ) {
+			final double[] mins = cell.getMinValuesPerDimension();
+			final double[] maxes = cell.getMaxValuesPerDimension();
+			// the range of y - x over the cell
+			final double minOffset = mins[1] - maxes[0];
+			final double maxOffset = maxes[1] - mins[0];
+			if ((minOffset > CORRIDOR_HALF_WIDTH) || (maxOffset < -CORRIDOR_HALF_WIDTH)) {
+				return Relation.DISJOINT;
+			}
+			if ((minOffset >= -CORRIDOR_HALF_WIDTH) && (maxOffset <= CORRIDOR_HALF_WIDTH)) {
+				return Relation.CONTAINS;
+			}
+			return Relation.INTERSECTS;
+		}
+	}
+}
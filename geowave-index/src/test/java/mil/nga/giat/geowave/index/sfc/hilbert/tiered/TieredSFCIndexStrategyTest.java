@@ -6,10 +6,12 @@ import static org.junit.Assert.assertTrue;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
@@ -30,6 +32,7 @@ import mil.nga.giat.geowave.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.index.sfc.data.NumericValue;
 import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexFactory;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
 
 import org.junit.Test;
 
@@ -365,6 +368,372 @@ public class TieredSFCIndexStrategyTest
 				5));
 	}
 
+	@Test
+	public void testBatchInsertionIds() {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final Random random = new Random(
+				12);
+		final List<MultiDimensionalNumericData> entries = new ArrayList<MultiDimensionalNumericData>();
+		for (int i = 0; i < 2000; i++) {
+			final double x = (random.nextDouble() * 350) - 175;
+			final double y = (random.nextDouble() * 170) - 85;
+			// mix points with small boxes so multiple tiers are exercised
+			final double size = (i % 2) == 0 ? 0 : random.nextDouble() * 5;
+			entries.add(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								x,
+								x + size),
+						new NumericRange(
+								y,
+								y + size)
+					}));
+		}
+		final List<List<ByteArrayId>> batchIds = strategy.getInsertionIds(entries);
+		assertEquals(
+				entries.size(),
+				batchIds.size());
+		for (int i = 0; i < entries.size(); i++) {
+			assertEquals(
+					strategy.getInsertionIds(entries.get(i)),
+					batchIds.get(i));
+		}
+	}
+
+	@Test
+	public void testColumnarInsertionIds() {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialTemporalFactory().createIndexStrategy(DataType.VECTOR);
+		final Random random = new Random(
+				17);
+		final int entryCount = 500;
+		final double[][] mins = new double[3][entryCount];
+		final double[][] maxes = new double[3][entryCount];
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < entryCount; i++) {
+			// out of bounds longitudes are clamped for points
+			mins[0][i] = (random.nextDouble() * 380) - 190;
+			mins[1][i] = (random.nextDouble() * 170) - 85;
+			mins[2][i] = now - (long) (random.nextDouble() * 1000L * 60 * 60 * 24 * 365 * 3);
+			// mix points with small boxes that take the general path
+			final double size = (i % 3) == 0 ? random.nextDouble() * 5 : 0;
+			maxes[0][i] = Math.min(
+					mins[0][i] + size,
+					180);
+			maxes[1][i] = mins[1][i] + size;
+			maxes[2][i] = mins[2][i];
+		}
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>();
+		final int[] rowIdOffsets = new int[entryCount + 1];
+		strategy.getInsertionIds(
+				mins,
+				maxes,
+				entryCount,
+				rowIds,
+				rowIdOffsets);
+		assertEquals(
+				rowIds.size(),
+				rowIdOffsets[entryCount]);
+		for (int i = 0; i < entryCount; i++) {
+			final List<ByteArrayId> expectedIds = strategy.getInsertionIds(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								mins[0][i],
+								maxes[0][i]),
+						new NumericRange(
+								mins[1][i],
+								maxes[1][i]),
+						new NumericRange(
+								mins[2][i],
+								maxes[2][i])
+					}));
+			assertEquals(
+					expectedIds,
+					rowIds.subList(
+							rowIdOffsets[i],
+							rowIdOffsets[i + 1]));
+		}
+	}
+
+	@Test
+	public void testRangeBudgetAcrossTiers() {
+		final NumericIndexStrategy strategy = new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final int maxRanges = 500;
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-12.3,
+							-2.1),
+					new NumericRange(
+							20.7,
+							31.2)
+				});
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+				query,
+				maxRanges);
+		assertTrue(ranges.size() <= maxRanges);
+
+		final Set<Byte> tiers = new HashSet<Byte>();
+		for (final ByteArrayRange range : ranges) {
+			tiers.add(range.getStart().getBytes()[0]);
+		}
+		// a point is inserted in the finest tier, which should be given more
+		// than an even share of the ranges because coarse tiers can be covered
+		// exactly with very few ranges
+		final byte finestTier = strategy.getInsertionIds(
+				new BasicNumericDataset(
+						new NumericData[] {
+							new NumericValue(
+									-7),
+							new NumericValue(
+									25)
+						})).get(
+				0).getBytes()[0];
+		int finestTierRanges = 0;
+		for (final ByteArrayRange range : ranges) {
+			if (range.getStart().getBytes()[0] == finestTier) {
+				finestTierRanges++;
+			}
+		}
+		assertTrue(finestTierRanges > (maxRanges / tiers.size()));
+
+		// every point within the query must still be within a range
+		final Random random = new Random(
+				7);
+		for (int i = 0; i < 1000; i++) {
+			final double x = -12.3 + (random.nextDouble() * 10.2);
+			final double y = 20.7 + (random.nextDouble() * 10.5);
+			final ByteArrayId id = strategy.getInsertionIds(
+					new BasicNumericDataset(
+							new NumericData[] {
+								new NumericValue(
+										x),
+								new NumericValue(
+										y)
+							})).get(
+					0);
+			boolean found = false;
+			for (final ByteArrayRange range : ranges) {
+				if ((compareUnsigned(
+						range.getStart().getBytes(),
+						id.getBytes()) <= 0) && (compareUnsigned(
+						range.getEnd().getBytes(),
+						id.getBytes()) >= 0)) {
+					found = true;
+					break;
+				}
+			}
+			assertTrue(found);
+		}
+	}
+
+	@Test
+	public void testMultiRegionQueryRanges() {
+		final NumericIndexStrategy strategy = new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final double[][] boxes = new double[][] {
+			new double[] {
+				-10,
+				10,
+				-5,
+				15
+			},
+			// overlaps the first box
+			new double[] {
+				-8,
+				12,
+				-3,
+				18
+			},
+			new double[] {
+				100,
+				-40,
+				110,
+				-30
+			}
+		};
+		final List<MultiDimensionalNumericData> regions = new ArrayList<MultiDimensionalNumericData>();
+		for (final double[] box : boxes) {
+			regions.add(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								box[0],
+								box[2]),
+						new NumericRange(
+								box[1],
+								box[3])
+					}));
+		}
+		final int maxRanges = 300;
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+				regions,
+				maxRanges);
+		assertFalse(ranges.isEmpty());
+		// the regions share the budget rather than each getting their own
+		assertTrue(ranges.size() <= maxRanges);
+		for (int i = 1; i < ranges.size(); i++) {
+			// sorted and disjoint
+			assertTrue(compareUnsigned(
+					ranges.get(
+							i - 1).getEnd().getBytes(),
+					ranges.get(
+							i).getStart().getBytes()) < 0);
+		}
+
+		// every point within each region must still be within a range
+		final Random random = new Random(
+				11);
+		for (final double[] box : boxes) {
+			for (int i = 0; i < 200; i++) {
+				final double x = box[0] + (random.nextDouble() * (box[2] - box[0]));
+				final double y = box[1] + (random.nextDouble() * (box[3] - box[1]));
+				final ByteArrayId id = strategy.getInsertionIds(
+						new BasicNumericDataset(
+								new NumericData[] {
+									new NumericValue(
+											x),
+									new NumericValue(
+											y)
+								})).get(
+						0);
+				boolean found = false;
+				for (final ByteArrayRange range : ranges) {
+					if ((compareUnsigned(
+							range.getStart().getBytes(),
+							id.getBytes()) <= 0) && (compareUnsigned(
+							range.getEnd().getBytes(),
+							id.getBytes()) >= 0)) {
+						found = true;
+						break;
+					}
+				}
+				assertTrue(found);
+			}
+		}
+	}
+
+	@Test
+	public void testOccupiedTierQueryRanges() {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-12.3,
+							-2.1),
+					new NumericRange(
+							20.7,
+							31.2)
+				});
+		final byte finestTier = strategy.getInsertionIds(
+				new BasicNumericDataset(
+						new NumericData[] {
+							new NumericValue(
+									-7),
+							new NumericValue(
+									25)
+						})).get(
+				0).getBytes()[0];
+		final Set<Byte> occupiedTiers = new HashSet<Byte>();
+		occupiedTiers.add(finestTier);
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+				query,
+				100,
+				occupiedTiers);
+		assertFalse(ranges.isEmpty());
+		assertTrue(ranges.size() <= 100);
+		for (final ByteArrayRange range : ranges) {
+			assertEquals(
+					finestTier,
+					range.getStart().getBytes()[0]);
+		}
+
+		// with no known occupied tiers every tier is still queried
+		assertEquals(
+				strategy.getQueryRanges(
+						query,
+						100),
+				strategy.getQueryRanges(
+						query,
+						100,
+						new HashSet<Byte>()));
+	}
+
+	@Test
+	public void testFullyCoveredTemporalBins() {
+		final TieredSFCIndexStrategy strategy = TieredSFCIndexFactory.createFullIncrementalTieredStrategy(
+				new NumericDimensionDefinition[] {
+					new LongitudeDefinition(),
+					new LatitudeDefinition(),
+					new TimeDefinition(
+							Unit.DAY)
+				},
+				new int[] {
+					20,
+					20,
+					20
+				},
+				SFCType.HILBERT);
+		final long day = 24L * 60 * 60 * 1000;
+		// start mid-day so that the first and last bins are partial and
+		// every other bin is fully covered
+		final long startTime = (15000 * day) + (day / 2);
+		final long endTime = startTime + (90 * day);
+		final int maxRanges = 5000;
+		final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+				new BasicNumericDataset(
+						new NumericData[] {
+							new NumericRange(
+									10.1,
+									12.6),
+							new NumericRange(
+									40.3,
+									41.9),
+							new NumericRange(
+									startTime,
+									endTime)
+						}),
+				maxRanges);
+		assertTrue(ranges.size() <= maxRanges);
+
+		final Random random = new Random(
+				3);
+		for (int i = 0; i < 500; i++) {
+			final ByteArrayId id = strategy.getInsertionIds(
+					new BasicNumericDataset(
+							new NumericData[] {
+								new NumericValue(
+										10.1 + (random.nextDouble() * 2.5)),
+								new NumericValue(
+										40.3 + (random.nextDouble() * 1.6)),
+								new NumericValue(
+										startTime + (long) (random.nextDouble() * (endTime - startTime)))
+							})).get(
+					0);
+			boolean found = false;
+			for (final ByteArrayRange range : ranges) {
+				if ((compareUnsigned(
+						range.getStart().getBytes(),
+						id.getBytes()) <= 0) && (compareUnsigned(
+						range.getEnd().getBytes(),
+						id.getBytes()) >= 0)) {
+					found = true;
+					break;
+				}
+			}
+			assertTrue(found);
+		}
+	}
+
+	private static int compareUnsigned(
+			final byte[] one,
+			final byte[] two ) {
+		for (int i = 0; (i < one.length) && (i < two.length); i++) {
+			final int diff = (one[i] & 0xff) - (two[i] & 0xff);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return one.length - two.length;
+	}
+
 	private boolean compare(
 			final byte[] one,
 			final byte[] two,
@@ -0,0 +1,172 @@
+package mil.nga.giat.geowave.index.sfc.xz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.ByteArrayRange;
+import mil.nga.giat.geowave.index.PersistenceUtils;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.index.sfc.data.NumericValue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XZOrderIndexStrategyTest
+{
+	private static final NumericDimensionDefinition[] SPATIAL_DIMENSIONS = new NumericDimensionDefinition[] {
+		new LongitudeDefinition(),
+		new LatitudeDefinition(
+				true)
+	};
+	private static final int RESOLUTION = 16;
+
+	@Test
+	public void testSingleInsertionIdPerEntry() {
+		final XZOrderIndexStrategy strategy = new XZOrderIndexStrategy(
+				SPATIAL_DIMENSIONS,
+				RESOLUTION);
+		final Random random = new Random(
+				0);
+		for (int i = 0; i < 1000; i++) {
+			final MultiDimensionalNumericData entry = createBox(
+					random,
+					random.nextDouble() * 20);
+			final List<ByteArrayId> insertionIds = strategy.getInsertionIds(
+					entry,
+					Integer.MAX_VALUE);
+			Assert.assertEquals(
+					1,
+					insertionIds.size());
+			// the enlarged cell of the row ID must contain the entry
+			final MultiDimensionalNumericData cell = strategy.getRangeForId(insertionIds.get(0));
+			for (int d = 0; d < SPATIAL_DIMENSIONS.length; d++) {
+				Assert.assertTrue(cell.getMinValuesPerDimension()[d] <= entry.getMinValuesPerDimension()[d]);
+				Assert.assertTrue(cell.getMaxValuesPerDimension()[d] >= entry.getMaxValuesPerDimension()[d]);
+			}
+		}
+	}
+
+	@Test
+	public void testQueryRangesContainIntersectingEntries() {
+		final XZOrderIndexStrategy strategy = new XZOrderIndexStrategy(
+				SPATIAL_DIMENSIONS,
+				RESOLUTION);
+		final Random random = new Random(
+				1);
+		final List<MultiDimensionalNumericData> entries = new ArrayList<MultiDimensionalNumericData>();
+		for (int i = 0; i < 500; i++) {
+			entries.add(createBox(
+					random,
+					random.nextDouble() * 10));
+		}
+		// a point with no extent is indexed at the finest resolution
+		entries.add(new BasicNumericDataset(
+				new NumericData[] {
+					new NumericValue(
+							12.5),
+					new NumericValue(
+							-7.25)
+				}));
+		for (int q = 0; q < 20; q++) {
+			final MultiDimensionalNumericData query = createBox(
+					random,
+					random.nextDouble() * 45);
+			for (final int maxRanges : new int[] {
+				1,
+				50,
+				5000
+			}) {
+				final List<ByteArrayRange> ranges = strategy.getQueryRanges(
+						query,
+						maxRanges);
+				Assert.assertTrue(ranges.size() <= maxRanges);
+				for (final MultiDimensionalNumericData entry : entries) {
+					if (intersects(
+							query,
+							entry)) {
+						Assert.assertTrue(contains(
+								ranges,
+								strategy.getInsertionIds(
+										entry).get(
+										0)));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPersistence() {
+		final XZOrderIndexStrategy strategy = new XZOrderIndexStrategy(
+				SPATIAL_DIMENSIONS,
+				RESOLUTION);
+		final XZOrderIndexStrategy persisted = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(strategy),
+				XZOrderIndexStrategy.class);
+		Assert.assertEquals(
+				strategy,
+				persisted);
+		final MultiDimensionalNumericData entry = createBox(
+				new Random(
+						2),
+				3);
+		Assert.assertEquals(
+				strategy.getInsertionIds(entry),
+				persisted.getInsertionIds(entry));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testResolutionTooFine() {
+		new XZOrderIndexStrategy(
+				SPATIAL_DIMENSIONS,
+				31);
+	}
+
+	private static MultiDimensionalNumericData createBox(
+			final Random random,
+			final double width ) {
+		final NumericData[] dataPerDimension = new NumericData[SPATIAL_DIMENSIONS.length];
+		for (int d = 0; d < SPATIAL_DIMENSIONS.length; d++) {
+			// latitude uses half the range but is still clamped to +/-90
+			final double extent = (d == 0) ? 360 : 180;
+			final double min = (-extent / 2) + (random.nextDouble() * (extent - width));
+			dataPerDimension[d] = new NumericRange(
+					min,
+					min + width);
+		}
+		return new BasicNumericDataset(
+				dataPerDimension);
+	}
+
+	private static boolean intersects(
+			final MultiDimensionalNumericData query,
+			final MultiDimensionalNumericData entry ) {
+		for (int d = 0; d < SPATIAL_DIMENSIONS.length; d++) {
+			if ((entry.getMaxValuesPerDimension()[d] < query.getMinValuesPerDimension()[d]) || (entry.getMinValuesPerDimension()[d] > query.getMaxValuesPerDimension()[d])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean contains(
+			final List<ByteArrayRange> ranges,
+			final ByteArrayId id ) {
+		for (final ByteArrayRange range : ranges) {
+			if ((range.getStart().compareTo(
+					id) <= 0) && (range.getEnd().compareTo(
+					id) >= 0)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
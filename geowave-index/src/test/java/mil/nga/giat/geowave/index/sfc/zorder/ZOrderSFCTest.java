@@ -1,7 +1,202 @@
 package mil.nga.giat.geowave.index.sfc.zorder;
 
+import java.util.Random;
+
+import mil.nga.giat.geowave.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+
+import org.junit.Assert;
+import org.junit.Test;
+
 public class ZOrderSFCTest
 {
+	private static final NumericDimensionDefinition[] DIMENSIONS = new NumericDimensionDefinition[] {
+		new LongitudeDefinition(),
+		new LatitudeDefinition(),
+		new BasicDimensionDefinition(
+				0,
+				1000000)
+	};
+	private static final double[] EDGE_VALUES = new double[] {
+		0,
+		1,
+		0.5,
+		-0.25,
+		1.25,
+		Double.NaN,
+		Math.nextUp(0.0),
+		1 - Math.ulp(1.0)
+	};
+
+	@Test
+	public void testEncodingMatchesBitByBit2D() {
+		for (final int bits : new int[] {
+			1,
+			7,
+			8,
+			16,
+			20,
+			31
+		}) {
+			internalTestEncodingMatchesBitByBit(
+					2,
+					bits);
+		}
+	}
+
+	@Test
+	public void testEncodingMatchesBitByBit3D() {
+		for (final int bits : new int[] {
+			1,
+			5,
+			8,
+			13,
+			20,
+			21
+		}) {
+			internalTestEncodingMatchesBitByBit(
+					3,
+					bits);
+		}
+	}
+
+	@Test
+	public void testEncodingBeyondLongPrecision() {
+		// these fall back to interleaving one bit at a time
+		internalTestEncodingMatchesBitByBit(
+				2,
+				40);
+		internalTestEncodingMatchesBitByBit(
+				3,
+				30);
+		internalTestEncodingMatchesBitByBit(
+				4,
+				10);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		final Random random = new Random(
+				1234);
+		for (int numDimensions = 2; numDimensions <= 3; numDimensions++) {
+			final int bits = (numDimensions == 2) ? 31 : 21;
+			for (int i = 0; i < 1000; i++) {
+				final long[] coordinates = new long[numDimensions];
+				final double[] normalizedValues = new double[numDimensions];
+				for (int d = 0; d < numDimensions; d++) {
+					coordinates[d] = (long) (random.nextDouble() * (1L << bits));
+					// the center of the cell is unambiguously within it
+					normalizedValues[d] = (coordinates[d] + 0.5) / (1L << bits);
+				}
+				final byte[] id = ZOrderUtils.encode(
+						normalizedValues,
+						bits,
+						numDimensions);
+				Assert.assertArrayEquals(
+						coordinates,
+						ZOrderUtils.decodeIndices(
+								id,
+								bits,
+								numDimensions));
+				Assert.assertArrayEquals(
+						id,
+						ZOrderUtils.encode(
+								normalizedValues,
+								bits,
+								numDimensions));
+			}
+		}
+	}
+
+	@Test
+	public void testSFCRoundTrip() {
+		final int bits = 20;
+		final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[DIMENSIONS.length];
+		for (int d = 0; d < DIMENSIONS.length; d++) {
+			sfcDimensions[d] = new SFCDimensionDefinition(
+					DIMENSIONS[d],
+					bits);
+		}
+		final ZOrderSFC sfc = new ZOrderSFC(
+				sfcDimensions);
+		final Random random = new Random(
+				42);
+		for (int i = 0; i < 1000; i++) {
+			final double[] values = new double[DIMENSIONS.length];
+			for (int d = 0; d < DIMENSIONS.length; d++) {
+				final NumericData bounds = sfcDimensions[d].getFullRange();
+				values[d] = bounds.getMin() + (random.nextDouble() * (bounds.getMax() - bounds.getMin()));
+			}
+			final byte[] id = sfc.getId(values);
+			final long[] coordinates = sfc.getCoordinates(id);
+			final NumericData[] ranges = sfc.getRanges(
+					id).getDataPerDimension();
+			for (int d = 0; d < DIMENSIONS.length; d++) {
+				Assert.assertEquals(
+						(long) (DIMENSIONS[d].normalize(values[d]) * (1L << bits)),
+						coordinates[d]);
+				Assert.assertTrue(ranges[d].getMin() <= values[d]);
+				Assert.assertTrue(ranges[d].getMax() >= values[d]);
+			}
+		}
+	}
 
-	// TODO: add unit tests for ZOrder implementation
+	private void internalTestEncodingMatchesBitByBit(
+			final int numDimensions,
+			final int bits ) {
+		final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[numDimensions];
+		for (int d = 0; d < numDimensions; d++) {
+			sfcDimensions[d] = new SFCDimensionDefinition(
+					new BasicDimensionDefinition(
+							0,
+							1),
+					bits);
+		}
+		final Random random = new Random(
+				bits * numDimensions);
+		for (int i = 0; i < 2000; i++) {
+			final double[] normalizedValues = new double[numDimensions];
+			for (int d = 0; d < numDimensions; d++) {
+				if (random.nextInt(4) == 0) {
+					normalizedValues[d] = EDGE_VALUES[random.nextInt(EDGE_VALUES.length)];
+				}
+				else {
+					normalizedValues[d] = random.nextDouble();
+				}
+			}
+			final byte[] expectedId = ZOrderUtils.encodeBitByBit(
+					normalizedValues,
+					bits,
+					numDimensions);
+			final byte[] id = ZOrderUtils.encode(
+					normalizedValues,
+					bits,
+					numDimensions);
+			Assert.assertArrayEquals(
+					expectedId,
+					id);
+			Assert.assertArrayEquals(
+					ZOrderUtils.decodeIndicesBitByBit(
+							id,
+							bits,
+							numDimensions),
+					ZOrderUtils.decodeIndices(
+							id,
+							bits,
+							numDimensions));
+			Assert.assertArrayEquals(
+					ZOrderUtils.decodeRangesBitByBit(
+							id,
+							bits,
+							sfcDimensions),
+					ZOrderUtils.decodeRanges(
+							id,
+							bits,
+							sfcDimensions));
+		}
+	}
 }
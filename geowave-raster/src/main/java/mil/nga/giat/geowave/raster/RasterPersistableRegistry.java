@@ -0,0 +1,64 @@
+package mil.nga.giat.geowave.raster;
+
+import mil.nga.giat.geowave.index.PersistableRegistrySpi;
+import mil.nga.giat.geowave.raster.adapter.RasterDataAdapter;
+import mil.nga.giat.geowave.raster.adapter.RasterTile;
+import mil.nga.giat.geowave.raster.adapter.merge.RootMergeStrategy;
+import mil.nga.giat.geowave.raster.adapter.merge.nodata.NoDataByFilter;
+import mil.nga.giat.geowave.raster.adapter.merge.nodata.NoDataBySampleIndex;
+import mil.nga.giat.geowave.raster.adapter.merge.nodata.NoDataMergeStrategy;
+import mil.nga.giat.geowave.raster.stats.HistogramConfig;
+import mil.nga.giat.geowave.raster.stats.HistogramStatistics;
+import mil.nga.giat.geowave.raster.stats.OverviewStatistics;
+import mil.nga.giat.geowave.raster.stats.RasterBoundingBoxStatistics;
+import mil.nga.giat.geowave.raster.stats.RasterFootprintStatistics;
+
+/**
+ * Registers the persistable classes of the raster module, which use the IDs
+ * from 400 to 499
+ */
+public class RasterPersistableRegistry implements
+		PersistableRegistrySpi
+{
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 400,
+					Resolution.class),
+			new PersistableIdAndClass(
+					(short) 401,
+					RasterDataAdapter.class),
+			new PersistableIdAndClass(
+					(short) 402,
+					RasterTile.class),
+			new PersistableIdAndClass(
+					(short) 403,
+					RootMergeStrategy.class),
+			new PersistableIdAndClass(
+					(short) 404,
+					NoDataByFilter.class),
+			new PersistableIdAndClass(
+					(short) 405,
+					NoDataBySampleIndex.class),
+			new PersistableIdAndClass(
+					(short) 406,
+					NoDataMergeStrategy.class),
+			new PersistableIdAndClass(
+					(short) 407,
+					HistogramConfig.class),
+			new PersistableIdAndClass(
+					(short) 408,
+					HistogramStatistics.class),
+			new PersistableIdAndClass(
+					(short) 409,
+					OverviewStatistics.class),
+			new PersistableIdAndClass(
+					(short) 410,
+					RasterBoundingBoxStatistics.class),
+			new PersistableIdAndClass(
+					(short) 411,
+					RasterFootprintStatistics.class)
+		};
+	}
+}
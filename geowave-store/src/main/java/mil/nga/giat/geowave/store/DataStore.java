@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.store;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.store.adapter.DataAdapter;
@@ -479,4 +480,44 @@ public interface DataStore
 			final Integer limit,
 			final ScanCallback<?> scanCallback,
 			final String... authorizations );
+
+	/**
+	 * Returns all data in this data store that matches the query parameter
+	 * within the index described by the index passed in and matches the adapter
+	 * (the same adapter ID as the ID ingested), with only the requested fields.
+	 * Only the requested fields, along with the fields of the index which are
+	 * needed to filter the entries, are fetched and decoded. Adapters that do
+	 * not support decoding a subset of their fields will return entries with
+	 * the fields that were not requested left empty. The iterator will only
+	 * return as many results as the limit passed in.
+	 * 
+	 * @param adapter
+	 *            the data adapter to use for the query
+	 * @param index
+	 *            The index information to query against. All data within the
+	 *            index of this index ID will be queried and returned.
+	 * @param query
+	 *            The description of the query to be performed
+	 * @param limit
+	 *            The maximum number of entries to return
+	 * @param fieldIds
+	 *            The IDs of the native fields to return, or null to return all
+	 *            of the fields
+	 * @param scanCallback
+	 *            A callback invoked for each row with full row information.
+	 * @param authorizations
+	 *            The authorization used to override the default authorization
+	 *            for cell visibility.
+	 * @return An iterator on all results that match the query. The iterator
+	 *         implements Closeable and it is best practice to close the
+	 *         iterator after it is no longer needed.
+	 */
+	public <T> CloseableIterator<T> query(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query,
+			final Integer limit,
+			final Set<ByteArrayId> fieldIds,
+			final ScanCallback<?> scanCallback,
+			final String... authorizations );
 }
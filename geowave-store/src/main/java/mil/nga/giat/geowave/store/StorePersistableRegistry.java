@@ -0,0 +1,108 @@
+package mil.nga.giat.geowave.store;
+
+import mil.nga.giat.geowave.index.PersistableRegistrySpi;
+import mil.nga.giat.geowave.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.store.adapter.statistics.TierOccupancyDataStatistics;
+import mil.nga.giat.geowave.store.dimension.ArrayField;
+import mil.nga.giat.geowave.store.dimension.LatitudeField;
+import mil.nga.giat.geowave.store.dimension.LongitudeField;
+import mil.nga.giat.geowave.store.dimension.SpatialArrayField;
+import mil.nga.giat.geowave.store.dimension.Time;
+import mil.nga.giat.geowave.store.dimension.TimeArrayField;
+import mil.nga.giat.geowave.store.dimension.TimeField;
+import mil.nga.giat.geowave.store.filter.BasicQueryFilter;
+import mil.nga.giat.geowave.store.filter.DedupeFilter;
+import mil.nga.giat.geowave.store.filter.DistributableFilterList;
+import mil.nga.giat.geowave.store.filter.MultiIndexDedupeFilter;
+import mil.nga.giat.geowave.store.filter.SpatialQueryFilter;
+import mil.nga.giat.geowave.store.index.BasicIndexModel;
+import mil.nga.giat.geowave.store.index.CustomIdIndex;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.index.NullIndex;
+import mil.nga.giat.geowave.store.query.BasicQuery;
+import mil.nga.giat.geowave.store.query.SpatialQuery;
+import mil.nga.giat.geowave.store.query.SpatialTemporalQuery;
+import mil.nga.giat.geowave.store.query.TemporalQuery;
+
+/**
+ * Registers the persistable classes of the store module, which use the IDs from
+ * 200 to 299
+ */
+public class StorePersistableRegistry implements
+		PersistableRegistrySpi
+{
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 200,
+					CountDataStatistics.class),
+			new PersistableIdAndClass(
+					(short) 201,
+					TierOccupancyDataStatistics.class),
+			new PersistableIdAndClass(
+					(short) 202,
+					ArrayField.class),
+			new PersistableIdAndClass(
+					(short) 203,
+					LatitudeField.class),
+			new PersistableIdAndClass(
+					(short) 204,
+					LongitudeField.class),
+			new PersistableIdAndClass(
+					(short) 205,
+					SpatialArrayField.class),
+			new PersistableIdAndClass(
+					(short) 206,
+					Time.TimeRange.class),
+			new PersistableIdAndClass(
+					(short) 207,
+					Time.Timestamp.class),
+			new PersistableIdAndClass(
+					(short) 208,
+					TimeArrayField.class),
+			new PersistableIdAndClass(
+					(short) 209,
+					TimeField.class),
+			new PersistableIdAndClass(
+					(short) 210,
+					BasicQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 211,
+					DedupeFilter.class),
+			new PersistableIdAndClass(
+					(short) 212,
+					DistributableFilterList.class),
+			new PersistableIdAndClass(
+					(short) 213,
+					MultiIndexDedupeFilter.class),
+			new PersistableIdAndClass(
+					(short) 214,
+					SpatialQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 215,
+					BasicIndexModel.class),
+			new PersistableIdAndClass(
+					(short) 216,
+					CustomIdIndex.class),
+			new PersistableIdAndClass(
+					(short) 217,
+					Index.class),
+			new PersistableIdAndClass(
+					(short) 218,
+					NullIndex.class),
+			new PersistableIdAndClass(
+					(short) 219,
+					BasicQuery.class),
+			new PersistableIdAndClass(
+					(short) 220,
+					SpatialQuery.class),
+			new PersistableIdAndClass(
+					(short) 221,
+					SpatialTemporalQuery.class),
+			new PersistableIdAndClass(
+					(short) 222,
+					TemporalQuery.class)
+		};
+	}
+}
@@ -161,12 +161,38 @@ abstract public class AbstractDataAdapter<T> implements
 				extendedData);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public T decode(
 			final IndexedAdapterPersistenceEncoding data,
 			final Index index ) {
-		final RowBuilder<T, Object> builder = newBuilder();
+		return decode(
+				data,
+				index,
+				null,
+				newBuilder());
+	}
+
+	/**
+	 * Decode the entry with the given row builder, setting only the native
+	 * fields with the given IDs
+	 * 
+	 * @param data
+	 *            the persistence encoding of the entry
+	 * @param index
+	 *            the index the entry was read from
+	 * @param fieldIds
+	 *            the IDs of the native fields to set, or null to set all of the
+	 *            fields
+	 * @param builder
+	 *            the row builder to build the entry with
+	 * @return the entry
+	 */
+	@SuppressWarnings("unchecked")
+	protected T decode(
+			final IndexedAdapterPersistenceEncoding data,
+			final Index index,
+			final Set<ByteArrayId> fieldIds,
+			final RowBuilder<T, Object> builder ) {
 		final CommonIndexModel indexModel = index.getIndexModel();
 		for (final DimensionField<? extends CommonIndexValue> dimension : indexModel.getDimensions()) {
 			final IndexFieldHandler<T, CommonIndexValue, Object> fieldHandler = (IndexFieldHandler<T, CommonIndexValue, Object>) getFieldHandler(dimension);
@@ -182,12 +208,16 @@ abstract public class AbstractDataAdapter<T> implements
 			final PersistentValue<Object>[] values = fieldHandler.toNativeValues(value);
 			if ((values != null) && (values.length > 0)) {
 				for (final PersistentValue<Object> v : values) {
-					builder.setField(v);
+					if ((fieldIds == null) || fieldIds.contains(v.getId())) {
+						builder.setField(v);
+					}
 				}
 			}
 		}
 		for (final PersistentValue<Object> fieldValue : data.getAdapterExtendedData().getValues()) {
-			builder.setField(fieldValue);
+			if ((fieldIds == null) || fieldIds.contains(fieldValue.getId())) {
+				builder.setField(fieldValue);
+			}
 		}
 		return builder.buildRow(data.getDataId());
 	}
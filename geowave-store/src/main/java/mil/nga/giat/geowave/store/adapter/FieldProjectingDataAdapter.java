@@ -0,0 +1,36 @@
+package mil.nga.giat.geowave.store.adapter;
+
+import java.util.Set;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.index.Index;
+
+/**
+ * This extends the data adapter interface to decode entries with only a subset
+ * of their fields, for queries that only request some of the fields. The
+ * persistence encoding passed in will only contain the extended fields that
+ * were requested, along with all of the fields of the index model, so the
+ * adapter should build its native type from the requested fields alone.
+ * 
+ * @param <T>
+ *            The type for the data elements that are being adapted
+ */
+public interface FieldProjectingDataAdapter<T> extends
+		DataAdapter<T>
+{
+	/**
+	 * Decode an entry with only the given native fields
+	 * 
+	 * @param data
+	 *            the persistence encoding of the entry
+	 * @param index
+	 *            the index the entry was read from
+	 * @param fieldIds
+	 *            the IDs of the native fields to decode
+	 * @return the entry, with only the requested fields
+	 */
+	public T decode(
+			IndexedAdapterPersistenceEncoding data,
+			Index index,
+			Set<ByteArrayId> fieldIds );
+}
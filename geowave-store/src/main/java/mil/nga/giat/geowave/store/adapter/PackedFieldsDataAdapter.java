@@ -0,0 +1,22 @@
+package mil.nga.giat.geowave.store.adapter;
+
+/**
+ * This extends the writable data adapter interface to opt in to writing all of
+ * the fields of an entry that share a visibility as a single packed value,
+ * rather than one value per field. This reduces the size of each row
+ * considerably for adapters with many fields, as the row ID, adapter ID, and
+ * visibility are not repeated for every field. Packed rows are self-describing,
+ * so readers do not need to know whether an adapter packs its fields.
+ * 
+ * @param <T>
+ *            The type of entries that this adapter works on.
+ */
+public interface PackedFieldsDataAdapter<T> extends
+		WritableDataAdapter<T>
+{
+	/**
+	 * 
+	 * @return whether the fields of each entry should be packed when written
+	 */
+	public boolean isPackFields();
+}
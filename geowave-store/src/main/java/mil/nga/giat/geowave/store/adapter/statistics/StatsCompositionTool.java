@@ -2,14 +2,19 @@ package mil.nga.giat.geowave.store.adapter.statistics;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.sfc.tiered.TieredSFCIndexStrategy;
 import mil.nga.giat.geowave.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.store.DeleteCallback;
 import mil.nga.giat.geowave.store.IngestCallback;
 import mil.nga.giat.geowave.store.ScanCallback;
 import mil.nga.giat.geowave.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.store.index.Index;
 
 /**
  * 
@@ -17,6 +22,11 @@ import mil.nga.giat.geowave.store.adapter.DataAdapter;
  * null or the provided data adapter does not implement
  * {@link DataStatisticsStore}.
  * 
+ * Statistics are accumulated in a number of stripes, each with its own
+ * statistics, and each thread only updates the stripe that it maps to so that
+ * threads sharing this tool do not block each other. The stripes are merged
+ * when the statistics are flushed.
+ * 
  * @param <T>
  *            Entry type
  */
@@ -26,10 +36,13 @@ public class StatsCompositionTool<T> implements
 		DeleteCallback<T>,
 		AutoCloseable
 {
+	private static final int STRIPE_COUNT = Runtime.getRuntime().availableProcessors();
 	final DataStatisticsStore statisticsStore;
-	List<DataStatisticsBuilder<T>> statisticsBuilders = null;
 	final boolean persistStats;
 	final Object MUTEX = new Object();
+	final List<StatisticsStripe<T>> stripes = new ArrayList<StatisticsStripe<T>>();
+	ByteArrayId adapterId = null;
+	ByteArrayId indexId = null;
 
 	public StatsCompositionTool() {
 		statisticsStore = null;
@@ -41,31 +54,69 @@ public class StatsCompositionTool<T> implements
 			final DataStatisticsStore statisticsStore ) {
 		this.statisticsStore = statisticsStore;
 		persistStats = (dataAdapter instanceof StatisticalDataAdapter) && (statisticsStore != null);
-		if (persistStats) {
-			final ByteArrayId[] statisticsIds = ((StatisticalDataAdapter<T>) dataAdapter).getSupportedStatisticsIds();
-			statisticsBuilders = new ArrayList<DataStatisticsBuilder<T>>(
-					statisticsIds.length);
-			for (final ByteArrayId id : statisticsIds) {
-				statisticsBuilders.add(new DataStatisticsBuilder<T>(
-						(StatisticalDataAdapter<T>) dataAdapter,
-						id));
+		for (int i = 0; i < STRIPE_COUNT; i++) {
+			final StatisticsStripe<T> stripe = new StatisticsStripe<T>();
+			if (persistStats) {
+				final ByteArrayId[] statisticsIds = ((StatisticalDataAdapter<T>) dataAdapter).getSupportedStatisticsIds();
+				stripe.statisticsBuilders = new ArrayList<DataStatisticsBuilder<T>>(
+						statisticsIds.length);
+				for (final ByteArrayId id : statisticsIds) {
+					stripe.statisticsBuilders.add(new DataStatisticsBuilder<T>(
+							(StatisticalDataAdapter<T>) dataAdapter,
+							id));
+				}
+			}
+			stripes.add(stripe);
+		}
+	}
+
+	/**
+	 * In addition to the statistics supported by the data adapter, this will
+	 * track the occupancy of each tier of the index if the index uses a tiered
+	 * strategy
+	 * 
+	 * @param dataAdapter
+	 *            the data adapter
+	 * @param statisticsStore
+	 *            the store to persist statistics to, or null to not persist any
+	 *            statistics
+	 * @param index
+	 *            the index that entries are written to
+	 */
+	public StatsCompositionTool(
+			final DataAdapter<T> dataAdapter,
+			final DataStatisticsStore statisticsStore,
+			final Index index ) {
+		this(
+				dataAdapter,
+				statisticsStore);
+		if ((statisticsStore != null) && (index.getIndexStrategy() instanceof TieredSFCIndexStrategy)) {
+			adapterId = dataAdapter.getAdapterId();
+			indexId = index.getId();
+			for (final StatisticsStripe<T> stripe : stripes) {
+				stripe.tierOccupancyStatistics = newTierOccupancyStatistics();
 			}
 		}
 	}
 
 	public boolean isPersisting() {
-		return persistStats;
+		return persistStats || (indexId != null);
+	}
+
+	private StatisticsStripe<T> getStripe() {
+		return stripes.get((int) (Thread.currentThread().getId() % stripes.size()));
 	}
 
 	@Override
 	public void entryDeleted(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
-		if (statisticsBuilders == null) {
+		if (!persistStats) {
 			return;
 		}
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
+		final StatisticsStripe<T> stripe = getStripe();
+		synchronized (stripe) {
+			for (final DataStatisticsBuilder<T> builder : stripe.statisticsBuilders) {
 				builder.entryDeleted(
 						entryInfo,
 						entry);
@@ -78,13 +129,21 @@ public class StatsCompositionTool<T> implements
 	public void entryScanned(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
-		if (statisticsBuilders == null) {
+		if (!isPersisting()) {
 			return;
 		}
 
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
-				builder.entryScanned(
+		final StatisticsStripe<T> stripe = getStripe();
+		synchronized (stripe) {
+			if (stripe.statisticsBuilders != null) {
+				for (final DataStatisticsBuilder<T> builder : stripe.statisticsBuilders) {
+					builder.entryScanned(
+							entryInfo,
+							entry);
+				}
+			}
+			if (stripe.tierOccupancyStatistics != null) {
+				stripe.tierOccupancyStatistics.entryIngested(
 						entryInfo,
 						entry);
 			}
@@ -96,18 +155,70 @@ public class StatsCompositionTool<T> implements
 	 * Update statistics store
 	 */
 	public void flush() {
-		if (statisticsBuilders == null) {
+		if (!isPersisting()) {
 			return;
 		}
 
 		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
-				final Collection<DataStatistics<T>> statistics = builder.getStatistics();
-				for (final DataStatistics<T> s : statistics) {
+			// merge the statistics of every stripe by statistics ID and
+			// visibility so that each is only incorporated once
+			final Map<ByteArrayId, Map<ByteArrayId, DataStatistics<T>>> mergedStatistics = new LinkedHashMap<ByteArrayId, Map<ByteArrayId, DataStatistics<T>>>();
+			TierOccupancyDataStatistics<T> mergedTierOccupancyStatistics = null;
+			for (final StatisticsStripe<T> stripe : stripes) {
+				synchronized (stripe) {
+					if (stripe.statisticsBuilders != null) {
+						for (final DataStatisticsBuilder<T> builder : stripe.statisticsBuilders) {
+							final Collection<DataStatistics<T>> statistics = builder.getStatistics();
+							for (final DataStatistics<T> s : statistics) {
+								merge(
+										mergedStatistics,
+										s);
+							}
+							statistics.clear();
+						}
+					}
+					if ((stripe.tierOccupancyStatistics != null) && !stripe.tierOccupancyStatistics.getOccupiedTierIds().isEmpty()) {
+						if (mergedTierOccupancyStatistics == null) {
+							mergedTierOccupancyStatistics = stripe.tierOccupancyStatistics;
+						}
+						else {
+							mergedTierOccupancyStatistics.merge(stripe.tierOccupancyStatistics);
+						}
+						stripe.tierOccupancyStatistics = newTierOccupancyStatistics();
+					}
+				}
+			}
+			for (final Map<ByteArrayId, DataStatistics<T>> statisticsPerVisibility : mergedStatistics.values()) {
+				for (final DataStatistics<T> s : statisticsPerVisibility.values()) {
 					statisticsStore.incorporateStatistics(s);
 				}
-				statistics.clear();
 			}
+			if (mergedTierOccupancyStatistics != null) {
+				statisticsStore.incorporateStatistics(mergedTierOccupancyStatistics);
+			}
+		}
+	}
+
+	private static <T> void merge(
+			final Map<ByteArrayId, Map<ByteArrayId, DataStatistics<T>>> mergedStatistics,
+			final DataStatistics<T> statistics ) {
+		Map<ByteArrayId, DataStatistics<T>> statisticsPerVisibility = mergedStatistics.get(statistics.getStatisticsId());
+		if (statisticsPerVisibility == null) {
+			statisticsPerVisibility = new HashMap<ByteArrayId, DataStatistics<T>>();
+			mergedStatistics.put(
+					statistics.getStatisticsId(),
+					statisticsPerVisibility);
+		}
+		final ByteArrayId visibility = new ByteArrayId(
+				statistics.getVisibility());
+		final DataStatistics<T> merged = statisticsPerVisibility.get(visibility);
+		if (merged == null) {
+			statisticsPerVisibility.put(
+					visibility,
+					statistics);
+		}
+		else {
+			merged.merge(statistics);
 		}
 	}
 
@@ -115,29 +226,52 @@ public class StatsCompositionTool<T> implements
 	 * Reset statistics, losing and updates since last flush
 	 */
 	public void reset() {
-		if (statisticsBuilders == null) {
+		if (!isPersisting()) {
 			return;
 		}
 
 		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
-				final Collection<DataStatistics<T>> statistics = builder.getStatistics();
-				statistics.clear();
+			for (final StatisticsStripe<T> stripe : stripes) {
+				synchronized (stripe) {
+					if (stripe.statisticsBuilders != null) {
+						for (final DataStatisticsBuilder<T> builder : stripe.statisticsBuilders) {
+							final Collection<DataStatistics<T>> statistics = builder.getStatistics();
+							statistics.clear();
+						}
+					}
+					if (stripe.tierOccupancyStatistics != null) {
+						stripe.tierOccupancyStatistics = newTierOccupancyStatistics();
+					}
+				}
 			}
 		}
 	}
 
+	private TierOccupancyDataStatistics<T> newTierOccupancyStatistics() {
+		return new TierOccupancyDataStatistics<T>(
+				adapterId,
+				indexId);
+	}
+
 	@Override
 	public void entryIngested(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
-		if (statisticsBuilders == null) {
+		if (!isPersisting()) {
 			return;
 		}
 
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
-				builder.entryIngested(
+		final StatisticsStripe<T> stripe = getStripe();
+		synchronized (stripe) {
+			if (stripe.statisticsBuilders != null) {
+				for (final DataStatisticsBuilder<T> builder : stripe.statisticsBuilders) {
+					builder.entryIngested(
+							entryInfo,
+							entry);
+				}
+			}
+			if (stripe.tierOccupancyStatistics != null) {
+				stripe.tierOccupancyStatistics.entryIngested(
 						entryInfo,
 						entry);
 			}
@@ -150,4 +284,12 @@ public class StatsCompositionTool<T> implements
 		flush();
 	}
 
+	/**
+	 * The statistics accumulated by the threads that map to one stripe
+	 */
+	private static class StatisticsStripe<T>
+	{
+		private List<DataStatisticsBuilder<T>> statisticsBuilders = null;
+		private TierOccupancyDataStatistics<T> tierOccupancyStatistics = null;
+	}
 }
@@ -0,0 +1,120 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.Mergeable;
+import mil.nga.giat.geowave.store.DataStoreEntryInfo;
+
+/**
+ * This statistic tracks the number of rows written to each tier of a tiered
+ * index for a single data adapter. The tier is the first byte of each row ID.
+ * It is maintained by the data store rather than the data adapter because it is
+ * specific to an index, and it is used to skip the tiers that do not contain
+ * any data when decomposing a query.
+ * 
+ * Deletions are intentionally not tracked so that the set of occupied tiers is
+ * never smaller than the set of tiers that actually contain data.
+ */
+public class TierOccupancyDataStatistics<T> extends
+		AbstractDataStatistics<T>
+{
+	public final static String STATS_TYPE = "TIER_OCCUPANCY";
+	private static final int TIER_COUNT = 256;
+
+	private long[] rowsPerTier = new long[TIER_COUNT];
+
+	protected TierOccupancyDataStatistics() {
+		super();
+	}
+
+	public TierOccupancyDataStatistics(
+			final ByteArrayId dataAdapterId,
+			final ByteArrayId indexId ) {
+		super(
+				dataAdapterId,
+				composeId(indexId));
+	}
+
+	public static ByteArrayId composeId(
+			final ByteArrayId indexId ) {
+		return composeId(
+				STATS_TYPE,
+				indexId.getString());
+	}
+
+	public long getRowCount(
+			final byte tierId ) {
+		return rowsPerTier[tierId & 0xff];
+	}
+
+	/**
+	 * 
+	 * @return the tier IDs that have had at least one row written to them
+	 */
+	public Set<Byte> getOccupiedTierIds() {
+		final Set<Byte> tierIds = new HashSet<Byte>();
+		for (int i = 0; i < TIER_COUNT; i++) {
+			if (rowsPerTier[i] > 0) {
+				tierIds.add((byte) i);
+			}
+		}
+		return tierIds;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		int occupiedCount = 0;
+		for (int i = 0; i < TIER_COUNT; i++) {
+			if (rowsPerTier[i] > 0) {
+				occupiedCount++;
+			}
+		}
+		final ByteBuffer buffer = super.binaryBuffer(4 + (occupiedCount * 9));
+		buffer.putInt(occupiedCount);
+		for (int i = 0; i < TIER_COUNT; i++) {
+			if (rowsPerTier[i] > 0) {
+				buffer.put((byte) i);
+				buffer.putLong(rowsPerTier[i]);
+			}
+		}
+		return buffer.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buffer = super.binaryBuffer(bytes);
+		final int occupiedCount = buffer.getInt();
+		rowsPerTier = new long[TIER_COUNT];
+		for (int i = 0; i < occupiedCount; i++) {
+			final int tier = buffer.get() & 0xff;
+			rowsPerTier[tier] = buffer.getLong();
+		}
+	}
+
+	@Override
+	public void entryIngested(
+			final DataStoreEntryInfo entryInfo,
+			final T entry ) {
+		for (final ByteArrayId rowId : entryInfo.getRowIds()) {
+			final byte[] rowIdBytes = rowId.getBytes();
+			if (rowIdBytes.length > 0) {
+				rowsPerTier[rowIdBytes[0] & 0xff]++;
+			}
+		}
+	}
+
+	@Override
+	public void merge(
+			final Mergeable statistics ) {
+		if ((statistics != null) && (statistics instanceof TierOccupancyDataStatistics)) {
+			final long[] otherRowsPerTier = ((TierOccupancyDataStatistics<?>) statistics).rowsPerTier;
+			for (int i = 0; i < TIER_COUNT; i++) {
+				rowsPerTier[i] += otherRowsPerTier[i];
+			}
+		}
+	}
+}
@@ -3,6 +3,8 @@ package mil.nga.giat.geowave.store.adapter.statistics;
 import java.util.Date;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
 import mil.nga.giat.geowave.store.query.TemporalRange;
 
 abstract public class TimeRangeDataStatistics<T> extends
@@ -31,4 +33,33 @@ abstract public class TimeRangeDataStatistics<T> extends
 				new Date(
 						(long) this.getMax()));
 	}
+
+	/**
+	 * 
+	 * @return the finest temporal bin unit for which this time range spans no
+	 *         more than the default maximum number of bins, or the default unit
+	 *         (YEAR) if no time range has been observed
+	 */
+	public Unit getRecommendedUnit() {
+		return getRecommendedUnit(TemporalBinningStrategy.DEFAULT_MAX_RECOMMENDED_BIN_COUNT);
+	}
+
+	/**
+	 * 
+	 * @param maxBinCount
+	 *            the maximum number of bins this time range should span
+	 * @return the finest temporal bin unit for which this time range spans no
+	 *         more than the maximum number of bins, or the default unit (YEAR)
+	 *         if no time range has been observed
+	 */
+	public Unit getRecommendedUnit(
+			final int maxBinCount ) {
+		if (!isSet()) {
+			return Unit.YEAR;
+		}
+		return TemporalBinningStrategy.getRecommendedUnit(
+				getMin(),
+				getMax(),
+				maxBinCount);
+	}
 }
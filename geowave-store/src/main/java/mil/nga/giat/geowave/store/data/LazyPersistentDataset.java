@@ -0,0 +1,212 @@
+package mil.nga.giat.geowave.store.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+
+/**
+ * This is a persistent dataset that holds the raw bytes of each field and only
+ * decodes a field, using its field reader, the first time its value is
+ * requested. This is intended for reading rows that are passed through filters
+ * before being decoded, so that filters which only use a few fields (such as
+ * the geometry and time) do not pay for decoding all of the other fields of the
+ * rows that they reject.
+ * 
+ * The raw bytes are referenced rather than copied, so they should not be
+ * modified while this dataset is in use.
+ * 
+ * @param <T>
+ *            The most specific generalization for the type for all of the
+ *            values in this dataset.
+ */
+public class LazyPersistentDataset<T> extends
+		PersistentDataset<T>
+{
+	private final Map<ByteArrayId, LazyValue<T>> fieldIdToLazyValueMap;
+
+	public LazyPersistentDataset() {
+		super();
+		// to maintain order use a linked hashmap
+		fieldIdToLazyValueMap = new LinkedHashMap<ByteArrayId, LazyValue<T>>();
+	}
+
+	/**
+	 * Add the field ID and the raw bytes of its value to this data set, to be
+	 * decoded by the field reader when the value is first requested. Do not
+	 * overwrite.
+	 * 
+	 * @param fieldId
+	 *            the field ID
+	 * @param fieldData
+	 *            the raw bytes of the value
+	 * @param reader
+	 *            the reader to decode the value with
+	 */
+	public void addValue(
+			final ByteArrayId fieldId,
+			final byte[] fieldData,
+			final FieldReader<? extends T> reader ) {
+		addValue(
+				fieldId,
+				fieldData,
+				0,
+				fieldData.length,
+				reader);
+	}
+
+	/**
+	 * Add the field ID and the raw bytes of its value, as a slice of a larger
+	 * array, to this data set. The slice is only copied out when the value is
+	 * first requested. Do not overwrite.
+	 * 
+	 * @param fieldId
+	 *            the field ID
+	 * @param backingArray
+	 *            the array containing the raw bytes of the value
+	 * @param offset
+	 *            the index of the first byte of the value
+	 * @param length
+	 *            the number of bytes in the value
+	 * @param reader
+	 *            the reader to decode the value with
+	 */
+	public void addValue(
+			final ByteArrayId fieldId,
+			final byte[] backingArray,
+			final int offset,
+			final int length,
+			final FieldReader<? extends T> reader ) {
+		if (fieldIdToLazyValueMap.containsKey(fieldId)) {
+			return;
+		}
+		fieldIdToLazyValueMap.put(
+				fieldId,
+				new LazyValue<T>(
+						backingArray,
+						offset,
+						length,
+						reader));
+	}
+
+	@Override
+	public void addValue(
+			final PersistentValue<T> value ) {
+		if (fieldIdToLazyValueMap.containsKey(value.getId())) {
+			return;
+		}
+		fieldIdToLazyValueMap.put(
+				value.getId(),
+				new LazyValue<T>(
+						value.getValue()));
+	}
+
+	@Override
+	public void addOrUpdateValue(
+			final PersistentValue<T> value ) {
+		fieldIdToLazyValueMap.put(
+				value.getId(),
+				new LazyValue<T>(
+						value.getValue()));
+	}
+
+	/**
+	 * Given a field ID, get the associated value, decoding it if it has not
+	 * been decoded yet
+	 * 
+	 * @param fieldId
+	 *            the field ID
+	 * @return the stored field value, null if this does not contain a value for
+	 *         the ID
+	 */
+	@Override
+	public T getValue(
+			final ByteArrayId fieldId ) {
+		final LazyValue<T> lazyValue = fieldIdToLazyValueMap.get(fieldId);
+		if (lazyValue == null) {
+			return null;
+		}
+		return lazyValue.getValue();
+	}
+
+	/**
+	 * Get all of the values from this persistent data set, decoding any that
+	 * have not been decoded yet
+	 * 
+	 * @return all of the value
+	 */
+	@Override
+	public List<PersistentValue<T>> getValues() {
+		final List<PersistentValue<T>> values = new ArrayList<PersistentValue<T>>(
+				fieldIdToLazyValueMap.size());
+		for (final Entry<ByteArrayId, LazyValue<T>> entry : fieldIdToLazyValueMap.entrySet()) {
+			values.add(new PersistentValue<T>(
+					entry.getKey(),
+					entry.getValue().getValue()));
+		}
+		return values;
+	}
+
+	/**
+	 * 
+	 * @param fieldId
+	 *            the field ID
+	 * @return whether the value of the field has been decoded, or was added
+	 *         already decoded
+	 */
+	public boolean isDecoded(
+			final ByteArrayId fieldId ) {
+		final LazyValue<T> lazyValue = fieldIdToLazyValueMap.get(fieldId);
+		return (lazyValue != null) && (lazyValue.reader == null);
+	}
+
+	private static class LazyValue<T>
+	{
+		private byte[] backingArray;
+		private int offset;
+		private int length;
+		private FieldReader<? extends T> reader;
+		private T value;
+
+		private LazyValue(
+				final byte[] backingArray,
+				final int offset,
+				final int length,
+				final FieldReader<? extends T> reader ) {
+			this.backingArray = backingArray;
+			this.offset = offset;
+			this.length = length;
+			this.reader = reader;
+		}
+
+		private LazyValue(
+				final T value ) {
+			this.value = value;
+		}
+
+		private T getValue() {
+			if (reader != null) {
+				final byte[] fieldData;
+				if ((offset == 0) && (length == backingArray.length)) {
+					fieldData = backingArray;
+				}
+				else {
+					fieldData = Arrays.copyOfRange(
+							backingArray,
+							offset,
+							offset + length);
+				}
+				value = reader.readField(fieldData);
+				// release the raw bytes once they are decoded
+				reader = null;
+				backingArray = null;
+			}
+			return value;
+		}
+	}
+}
@@ -7,6 +7,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.ShardedNumericIndexStrategy;
 import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.index.sfc.data.NumericData;
@@ -182,8 +184,18 @@ public class PersistenceEncoding
 	public List<ByteArrayId> getInsertionIds(
 			final Index index ) {
 		final MultiDimensionalNumericData boxRangeData = getNumericData(index.getIndexModel().getDimensions());
-		final List<ByteArrayId> untrimmedResult = index.getIndexStrategy().getInsertionIds(
-				boxRangeData);
+		final NumericIndexStrategy indexStrategy = index.getIndexStrategy();
+		final List<ByteArrayId> untrimmedResult;
+		if (indexStrategy instanceof ShardedNumericIndexStrategy) {
+			// shard by the data ID so that entries with the same row ID are
+			// also spread across shards
+			untrimmedResult = ((ShardedNumericIndexStrategy) indexStrategy).getInsertionIds(
+					boxRangeData,
+					dataId);
+		}
+		else {
+			untrimmedResult = indexStrategy.getInsertionIds(boxRangeData);
+		}
 		final int size = untrimmedResult.size();
 		if (size > 3) { // need at least 4 quadrants in a quadtree to create a
 			// concave shape where the mbr overlaps an area that the
@@ -0,0 +1,80 @@
+package mil.nga.giat.geowave.store.filter;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+
+/**
+ * This only keeps the IDs of entries that are duplicated within an index
+ * exactly, which are typically a small fraction of the entries. The IDs of the
+ * entries that can only be duplicated across indices are kept in a scalable
+ * Bloom filter, which takes a small, predictable amount of memory per entry.
+ * This is approximate, an entry that is not a duplicate is dropped if it is a
+ * false positive of the Bloom filter, at the rate of the given false positive
+ * probability. Within a single index only the duplicated entries are visited,
+ * so this is exact for queries of a single index.
+ */
+public class BloomFilterVisitedDataIds implements
+		VisitedDataIds
+{
+	public static final int DEFAULT_INITIAL_CAPACITY = 100000;
+	public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.001;
+	private final Set<ByteArrayId> duplicatedIds = new HashSet<ByteArrayId>();
+	private final ScalableBloomFilter notDuplicatedIds;
+
+	public BloomFilterVisitedDataIds() {
+		this(
+				DEFAULT_INITIAL_CAPACITY,
+				DEFAULT_FALSE_POSITIVE_PROBABILITY);
+	}
+
+	public BloomFilterVisitedDataIds(
+			final int initialCapacity,
+			final double falsePositiveProbability ) {
+		notDuplicatedIds = new ScalableBloomFilter(
+				initialCapacity,
+				falsePositiveProbability);
+	}
+
+	@Override
+	public boolean visit(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId,
+			final boolean duplicated ) {
+		final byte[] key = getKey(
+				adapterId,
+				dataId);
+		final ByteArrayId id = new ByteArrayId(
+				key);
+		if (duplicatedIds.contains(id) || notDuplicatedIds.mightContain(key)) {
+			return false;
+		}
+		if (duplicated) {
+			duplicatedIds.add(id);
+		}
+		else {
+			notDuplicatedIds.put(key);
+		}
+		return true;
+	}
+
+	@Override
+	public void close() {
+		duplicatedIds.clear();
+	}
+
+	/**
+	 * Combine the adapter ID and data ID into a single unique key
+	 */
+	protected static byte[] getKey(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId ) {
+		final ByteBuffer buf = ByteBuffer.allocate(4 + adapterId.getLength() + dataId.getLength());
+		buf.putInt(adapterId.getLength());
+		buf.put(adapterId.getBytes());
+		buf.put(dataId.getBytes());
+		return buf.array();
+	}
+}
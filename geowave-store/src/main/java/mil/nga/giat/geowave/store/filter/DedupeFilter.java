@@ -1,9 +1,7 @@
 package mil.nga.giat.geowave.store.filter;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.Closeable;
+import java.io.IOException;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
@@ -11,16 +9,24 @@ import mil.nga.giat.geowave.store.data.IndexedPersistenceEncoding;
 /**
  * This filter will perform de-duplication using the combination of data adapter
  * ID and data ID to determine uniqueness. It can be performed client-side
- * and/or distributed.
+ * and/or distributed. By default every visited ID is kept in memory, a
+ * {@link VisitedDataIds} can be given to bound the memory that is used.
  * 
  */
 public class DedupeFilter implements
-		DistributableQueryFilter
+		DistributableQueryFilter,
+		Closeable
 {
-	private final Map<ByteArrayId, Set<ByteArrayId>> adapterIdToVisitedDataIdMap;
+	private final VisitedDataIds visitedDataIds;
 
 	public DedupeFilter() {
-		adapterIdToVisitedDataIdMap = new HashMap<ByteArrayId, Set<ByteArrayId>>();
+		this(
+				new MemoryVisitedDataIds());
+	}
+
+	public DedupeFilter(
+			final VisitedDataIds visitedDataIds ) {
+		this.visitedDataIds = visitedDataIds;
 	}
 
 	@Override
@@ -40,18 +46,16 @@ public class DedupeFilter implements
 		}
 		final ByteArrayId adapterId = persistenceEncoding.getAdapterId();
 		final ByteArrayId dataId = persistenceEncoding.getDataId();
-		Set<ByteArrayId> visitedDataIds = adapterIdToVisitedDataIdMap.get(adapterId);
-		if (visitedDataIds == null) {
-			visitedDataIds = new HashSet<ByteArrayId>();
-			adapterIdToVisitedDataIdMap.put(
-					adapterId,
-					visitedDataIds);
-		}
-		else if (visitedDataIds.contains(dataId)) {
-			return false;
-		}
-		visitedDataIds.add(dataId);
-		return true;
+		return visitedDataIds.visit(
+				adapterId,
+				dataId,
+				persistenceEncoding.isDuplicated());
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		visitedDataIds.close();
 	}
 
 	protected boolean supportsMultipleIndices() {
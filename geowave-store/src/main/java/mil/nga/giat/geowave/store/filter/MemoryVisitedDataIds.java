@@ -0,0 +1,45 @@
+package mil.nga.giat.geowave.store.filter;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+
+/**
+ * This keeps every visited data ID in memory, per adapter ID. It is exact, but
+ * its memory grows with the number of entries visited.
+ */
+public class MemoryVisitedDataIds implements
+		VisitedDataIds
+{
+	private final Map<ByteArrayId, Set<ByteArrayId>> adapterIdToVisitedDataIdMap = new HashMap<ByteArrayId, Set<ByteArrayId>>();
+
+	@Override
+	public boolean visit(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId,
+			final boolean duplicated ) {
+		Set<ByteArrayId> visitedDataIds = adapterIdToVisitedDataIdMap.get(adapterId);
+		if (visitedDataIds == null) {
+			visitedDataIds = new HashSet<ByteArrayId>();
+			// the IDs may be slices of a much larger row, so copy them rather
+			// than keep the whole row reachable for the life of the query
+			adapterIdToVisitedDataIdMap.put(
+					new ByteArrayId(
+							adapterId.getBytes()),
+					visitedDataIds);
+		}
+		else if (visitedDataIds.contains(dataId)) {
+			return false;
+		}
+		return visitedDataIds.add(new ByteArrayId(
+				dataId.getBytes()));
+	}
+
+	@Override
+	public void close() {
+		adapterIdToVisitedDataIdMap.clear();
+	}
+}
@@ -18,6 +18,12 @@ public class MultiIndexDedupeFilter extends
 		super();
 	}
 
+	public MultiIndexDedupeFilter(
+			final VisitedDataIds visitedDataIds ) {
+		super(
+				visitedDataIds);
+	}
+
 	@Override
 	protected boolean supportsMultipleIndices() {
 		return multiIndexSupport;
@@ -0,0 +1,75 @@
+package mil.nga.giat.geowave.store.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * This is a Bloom filter that grows with the number of values put into it
+ * rather than requiring the number of values to be known up front. Once a
+ * filter is full a new filter with twice the capacity and half the false
+ * positive probability is added, so that the false positive probability of all
+ * of the filters together stays within the given probability, see "Scalable
+ * Bloom Filters" (Almeida et al.).
+ */
+public class ScalableBloomFilter
+{
+	private static final int GROWTH_FACTOR = 2;
+	private static final double TIGHTENING_RATIO = 0.5;
+	private final List<BloomFilter<byte[]>> filters = new ArrayList<BloomFilter<byte[]>>();
+	private BloomFilter<byte[]> currentFilter;
+	private int currentCapacity;
+	private double currentFalsePositiveProbability;
+	private int currentCount;
+
+	/**
+	 * 
+	 * @param initialCapacity
+	 *            the number of values the first filter is sized for
+	 * @param falsePositiveProbability
+	 *            the false positive probability of all of the filters together
+	 */
+	public ScalableBloomFilter(
+			final int initialCapacity,
+			final double falsePositiveProbability ) {
+		currentCapacity = initialCapacity;
+		// the probabilities of the filters form a geometric series whose sum
+		// is the given probability
+		currentFalsePositiveProbability = falsePositiveProbability * (1 - TIGHTENING_RATIO);
+		addFilter();
+	}
+
+	public boolean mightContain(
+			final byte[] value ) {
+		for (final BloomFilter<byte[]> filter : filters) {
+			if (filter.mightContain(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void put(
+			final byte[] value ) {
+		if (currentCount >= currentCapacity) {
+			currentCapacity = (int) Math.min(
+					(long) currentCapacity * GROWTH_FACTOR,
+					Integer.MAX_VALUE);
+			currentFalsePositiveProbability *= TIGHTENING_RATIO;
+			addFilter();
+		}
+		currentFilter.put(value);
+		currentCount++;
+	}
+
+	private void addFilter() {
+		currentFilter = BloomFilter.create(
+				Funnels.byteArrayFunnel(),
+				currentCapacity,
+				currentFalsePositiveProbability);
+		filters.add(currentFilter);
+		currentCount = 0;
+	}
+}
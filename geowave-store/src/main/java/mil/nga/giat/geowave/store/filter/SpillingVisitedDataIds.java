@@ -0,0 +1,212 @@
+package mil.nga.giat.geowave.store.filter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This keeps every visited ID exactly while bounding the memory it takes. Up to
+ * the given number of IDs are kept in memory, after which they are spilled in
+ * sorted order to a run file in the given local directory and only a sparse
+ * index of every run is kept in memory. A Bloom filter of all of the IDs is
+ * checked first so that the run files are only read for IDs that have likely
+ * been visited already. The run files are deleted when this is closed.
+ */
+public class SpillingVisitedDataIds implements
+		VisitedDataIds
+{
+	private final static Logger LOGGER = Logger.getLogger(SpillingVisitedDataIds.class);
+	public static final int DEFAULT_MAX_IN_MEMORY_IDS = 1000000;
+	private static final int SPARSE_INDEX_INTERVAL = 128;
+	private final File spillDirectory;
+	private final int maxInMemoryIds;
+	private final ScalableBloomFilter visitedIdsFilter;
+	private final TreeSet<ByteArrayId> inMemoryIds = new TreeSet<ByteArrayId>();
+	private final List<SortedRun> runs = new ArrayList<SortedRun>();
+
+	public SpillingVisitedDataIds(
+			final File spillDirectory ) {
+		this(
+				spillDirectory,
+				DEFAULT_MAX_IN_MEMORY_IDS);
+	}
+
+	public SpillingVisitedDataIds(
+			final File spillDirectory,
+			final int maxInMemoryIds ) {
+		this.spillDirectory = spillDirectory;
+		this.maxInMemoryIds = Math.max(
+				maxInMemoryIds,
+				1);
+		visitedIdsFilter = new ScalableBloomFilter(
+				this.maxInMemoryIds,
+				BloomFilterVisitedDataIds.DEFAULT_FALSE_POSITIVE_PROBABILITY);
+	}
+
+	@Override
+	public boolean visit(
+			final ByteArrayId adapterId,
+			final ByteArrayId dataId,
+			final boolean duplicated ) {
+		final byte[] key = BloomFilterVisitedDataIds.getKey(
+				adapterId,
+				dataId);
+		final ByteArrayId id = new ByteArrayId(
+				key);
+		if (visitedIdsFilter.mightContain(key)) {
+			if (inMemoryIds.contains(id)) {
+				return false;
+			}
+			try {
+				for (final SortedRun run : runs) {
+					if (run.contains(id)) {
+						return false;
+					}
+				}
+			}
+			catch (final IOException e) {
+				throw new RuntimeException(
+						"Unable to read dedupe run file",
+						e);
+			}
+		}
+		visitedIdsFilter.put(key);
+		inMemoryIds.add(id);
+		if (inMemoryIds.size() >= maxInMemoryIds) {
+			try {
+				spill();
+			}
+			catch (final IOException e) {
+				throw new RuntimeException(
+						"Unable to spill dedupe IDs to '" + spillDirectory.getAbsolutePath() + "'",
+						e);
+			}
+		}
+		return true;
+	}
+
+	private void spill()
+			throws IOException {
+		final File file = File.createTempFile(
+				"geowave-dedupe",
+				".run",
+				spillDirectory);
+		final List<ByteArrayId> indexIds = new ArrayList<ByteArrayId>();
+		final List<Long> indexOffsets = new ArrayList<Long>();
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(
+						new FileOutputStream(
+								file)))) {
+			int i = 0;
+			for (final ByteArrayId id : inMemoryIds) {
+				if ((i++ % SPARSE_INDEX_INTERVAL) == 0) {
+					indexIds.add(id);
+					indexOffsets.add((long) out.size());
+				}
+				out.writeInt(id.getLength());
+				out.write(id.getBytes());
+			}
+		}
+		runs.add(new SortedRun(
+				file,
+				indexIds,
+				indexOffsets));
+		inMemoryIds.clear();
+	}
+
+	@Override
+	public void close() {
+		inMemoryIds.clear();
+		for (final SortedRun run : runs) {
+			run.close();
+		}
+		runs.clear();
+	}
+
+	/**
+	 * A file of IDs in sorted order, each prefixed by its length, with the ID
+	 * and file offset of every block of IDs kept in memory
+	 */
+	private static class SortedRun
+	{
+		private final File file;
+		private final RandomAccessFile input;
+		private final List<ByteArrayId> indexIds;
+		private final List<Long> indexOffsets;
+
+		private SortedRun(
+				final File file,
+				final List<ByteArrayId> indexIds,
+				final List<Long> indexOffsets )
+				throws IOException {
+			this.file = file;
+			this.indexIds = indexIds;
+			this.indexOffsets = indexOffsets;
+			input = new RandomAccessFile(
+					file,
+					"r");
+		}
+
+		private boolean contains(
+				final ByteArrayId id )
+				throws IOException {
+			int block = Collections.binarySearch(
+					indexIds,
+					id);
+			if (block >= 0) {
+				return true;
+			}
+			// the block that would contain the ID is the one before the
+			// insertion point
+			block = -block - 2;
+			if (block < 0) {
+				return false;
+			}
+			final long start = indexOffsets.get(block);
+			final long end = (block + 1) < indexOffsets.size() ? indexOffsets.get(block + 1) : input.length();
+			final byte[] blockBytes = new byte[(int) (end - start)];
+			input.seek(start);
+			input.readFully(blockBytes);
+			final ByteBuffer buf = ByteBuffer.wrap(blockBytes);
+			while (buf.hasRemaining()) {
+				final byte[] idBytes = new byte[buf.getInt()];
+				buf.get(idBytes);
+				final int compare = new ByteArrayId(
+						idBytes).compareTo(id);
+				if (compare == 0) {
+					return true;
+				}
+				if (compare > 0) {
+					return false;
+				}
+			}
+			return false;
+		}
+
+		private void close() {
+			try {
+				input.close();
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close dedupe run file",
+						e);
+			}
+			if (!file.delete()) {
+				LOGGER.warn("Unable to delete dedupe run file '" + file.getAbsolutePath() + "'");
+			}
+		}
+	}
+}
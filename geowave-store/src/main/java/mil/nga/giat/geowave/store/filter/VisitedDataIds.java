@@ -0,0 +1,32 @@
+package mil.nga.giat.geowave.store.filter;
+
+import java.io.Closeable;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+
+/**
+ * This keeps track of the entries that a dedupe filter has already visited,
+ * using the combination of data adapter ID and data ID to determine uniqueness.
+ * It should be closed once the filter is no longer used to release any
+ * resources it holds.
+ */
+public interface VisitedDataIds extends
+		Closeable
+{
+	/**
+	 * Mark the entry as visited
+	 * 
+	 * @param adapterId
+	 *            the adapter ID of the entry
+	 * @param dataId
+	 *            the data ID of the entry
+	 * @param duplicated
+	 *            whether the entry is duplicated within the index it was read
+	 *            from, otherwise it can only be duplicated in another index
+	 * @return true if the entry had not been visited yet
+	 */
+	public boolean visit(
+			ByteArrayId adapterId,
+			ByteArrayId dataId,
+			boolean duplicated );
+}
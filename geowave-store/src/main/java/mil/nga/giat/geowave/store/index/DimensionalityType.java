@@ -46,4 +46,41 @@ public enum DimensionalityType {
 	public NumericIndexStrategyFactory getIndexStrategyFactory() {
 		return indexStrategyFactory;
 	}
+
+	/**
+	 * 
+	 * @param timeUnit
+	 *            the unit to bin the time dimension by
+	 * @return the index model with the time dimension (if there is one) binned
+	 *         by the given unit
+	 */
+	public CommonIndexModel getIndexModel(
+			final Unit timeUnit ) {
+		if (this == SPATIAL_TEMPORAL) {
+			return new BasicIndexModel(
+					new DimensionField[] {
+						new LongitudeField(),
+						new LatitudeField(),
+						new TimeField(
+								timeUnit)
+					});
+		}
+		return defaultIndexModel;
+	}
+
+	/**
+	 * 
+	 * @param timeUnit
+	 *            the unit to bin the time dimension by
+	 * @return the index strategy factory with the time dimension (if there is
+	 *         one) binned by the given unit
+	 */
+	public NumericIndexStrategyFactory getIndexStrategyFactory(
+			final Unit timeUnit ) {
+		if (this == SPATIAL_TEMPORAL) {
+			return new SpatialTemporalFactory(
+					timeUnit);
+		}
+		return indexStrategyFactory;
+	}
 }
@@ -2,7 +2,11 @@ package mil.nga.giat.geowave.store.index;
 
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory;
 import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.DataType;
+import mil.nga.giat.geowave.index.NumericIndexStrategyFactory.SpatialXZFactory;
+import mil.nga.giat.geowave.index.dimension.bin.TemporalBinningStrategy.Unit;
+import mil.nga.giat.geowave.store.adapter.statistics.TimeRangeDataStatistics;
 
 /**
  * This is an enumeration of default commonly used Indices supported (with
@@ -23,28 +27,77 @@ public enum IndexType {
 			DataType.VECTOR),
 	SPATIAL_TEMPORAL_RASTER(
 			DimensionalityType.SPATIAL_TEMPORAL,
-			DataType.RASTER);
+			DataType.RASTER),
+	/**
+	 * A spatial index using XZ-ordering rather than tiered Hilbert curves,
+	 * which stores each geometry once regardless of its extent and is suited to
+	 * polygons and lines
+	 */
+	SPATIAL_XZ_VECTOR(
+			DimensionalityType.SPATIAL,
+			DataType.VECTOR,
+			new SpatialXZFactory(),
+			"XZ");
 
 	private DimensionalityType dimensionalityType;
 	private DataType dataType;
+	private NumericIndexStrategyFactory indexStrategyFactory;
+	private String idQualifier;
 
 	private IndexType(
 			final DimensionalityType dimensionalityType,
 			final DataType dataType ) {
+		this(
+				dimensionalityType,
+				dataType,
+				null,
+				null);
+	}
+
+	/**
+	 * 
+	 * @param dimensionalityType
+	 *            the dimensionality of the index
+	 * @param dataType
+	 *            the type of data in the index
+	 * @param indexStrategyFactory
+	 *            the factory to use instead of the dimensionality's default
+	 *            index strategy factory
+	 * @param idQualifier
+	 *            distinguishes the default ID from the index using the
+	 *            dimensionality's default index strategy
+	 */
+	private IndexType(
+			final DimensionalityType dimensionalityType,
+			final DataType dataType,
+			final NumericIndexStrategyFactory indexStrategyFactory,
+			final String idQualifier ) {
 		this.dimensionalityType = dimensionalityType;
 		this.dataType = dataType;
+		this.indexStrategyFactory = indexStrategyFactory;
+		this.idQualifier = idQualifier;
 	}
 
 	public NumericIndexStrategy createDefaultIndexStrategy() {
-		return dimensionalityType.getIndexStrategyFactory().createIndexStrategy(
+		return getIndexStrategyFactory().createIndexStrategy(
 				dataType);
 	}
 
+	private NumericIndexStrategyFactory getIndexStrategyFactory() {
+		if (indexStrategyFactory != null) {
+			return indexStrategyFactory;
+		}
+		return dimensionalityType.getIndexStrategyFactory();
+	}
+
 	public CommonIndexModel getDefaultIndexModel() {
 		return dimensionalityType.getDefaultIndexModel();
 	}
 
 	public String getDefaultId() {
+		if (idQualifier != null) {
+			return dimensionalityType.name() + "_" + dataType.name() + "_" + idQualifier + "_IDX";
+		}
 		return dimensionalityType.name() + "_" + dataType.name() + "_IDX";
 	}
 
@@ -58,6 +111,53 @@ public enum IndexType {
 						getDefaultId()));
 	}
 
+	/**
+	 * Create an index with the time dimension binned by the given unit. The
+	 * default unit (YEAR) has the default ID, other units are distinguished by
+	 * including the unit in the ID. Indices without a time dimension ignore the
+	 * unit.
+	 * 
+	 * @param timeUnit
+	 *            the unit to bin the time dimension by
+	 * @return the index
+	 */
+	public Index createDefaultIndex(
+			final Unit timeUnit ) {
+		if ((dimensionalityType != DimensionalityType.SPATIAL_TEMPORAL) || (timeUnit == Unit.YEAR)) {
+			return createDefaultIndex();
+		}
+		return new CustomIdIndex(
+				dimensionalityType.getIndexStrategyFactory(
+						timeUnit).createIndexStrategy(
+						dataType),
+				dimensionalityType.getIndexModel(timeUnit),
+				dimensionalityType,
+				dataType,
+				new ByteArrayId(
+						getDefaultId(timeUnit)));
+	}
+
+	/**
+	 * Create an index with the time dimension binned by the unit recommended
+	 * for the temporal extent of a sample of the data.
+	 * 
+	 * @param sampleTimeRange
+	 *            the time range statistics of a sample ingest
+	 * @return the index
+	 */
+	public Index createDefaultIndex(
+			final TimeRangeDataStatistics<?> sampleTimeRange ) {
+		return createDefaultIndex(sampleTimeRange.getRecommendedUnit());
+	}
+
+	public String getDefaultId(
+			final Unit timeUnit ) {
+		if ((dimensionalityType != DimensionalityType.SPATIAL_TEMPORAL) || (timeUnit == Unit.YEAR)) {
+			return getDefaultId();
+		}
+		return dimensionalityType.name() + "_" + dataType.name() + "_" + timeUnit.name() + "_IDX";
+	}
+
 	// This is a support class to assist in creating default indices as enums
 	// aren't handled well in Jace/JNI
 	public static class JaceIndexType
@@ -74,6 +174,10 @@ public enum IndexType {
 			return IndexType.SPATIAL_RASTER.createDefaultIndex();
 		}
 
+		public static Index createSpatialXZVectorIndex() {
+			return IndexType.SPATIAL_XZ_VECTOR.createDefaultIndex();
+		}
+
 		public static Index createSpatialTemporalRasterIndex() {
 			return IndexType.SPATIAL_TEMPORAL_VECTOR.createDefaultIndex();
 		}
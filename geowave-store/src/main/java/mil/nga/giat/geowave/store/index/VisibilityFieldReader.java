@@ -0,0 +1,33 @@
+package mil.nga.giat.geowave.store.index;
+
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+
+/**
+ * This wraps the field reader of a common index value, setting the visibility
+ * of the column it was read from on the value. This allows the visibility to be
+ * applied when the value is decoded lazily, see
+ * {@link mil.nga.giat.geowave.store.data.LazyPersistentDataset}
+ */
+public class VisibilityFieldReader implements
+		FieldReader<CommonIndexValue>
+{
+	private final FieldReader<? extends CommonIndexValue> reader;
+	private final byte[] visibility;
+
+	public VisibilityFieldReader(
+			final FieldReader<? extends CommonIndexValue> reader,
+			final byte[] visibility ) {
+		this.reader = reader;
+		this.visibility = visibility;
+	}
+
+	@Override
+	public CommonIndexValue readField(
+			final byte[] fieldData ) {
+		final CommonIndexValue value = reader.readField(fieldData);
+		if (value != null) {
+			value.setVisibility(visibility);
+		}
+		return value;
+	}
+}
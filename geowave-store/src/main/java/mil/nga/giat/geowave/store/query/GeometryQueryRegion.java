@@ -0,0 +1,146 @@
+package mil.nga.giat.geowave.store.query;
+
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.store.GeometryUtils;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * This query region relates the longitude and latitude of each cell of a space
+ * filling curve to a query geometry so that cells within the bounding box of
+ * the geometry but outside of the geometry itself, such as the corners of the
+ * bounding box of a diagonal corridor, are not scanned. Any other dimensions of
+ * the cell are ignored because they are constrained by the query constraints
+ * themselves.
+ * 
+ * The geometry is prepared once so that relating each cell is inexpensive. A
+ * geometry with a very large number of vertices can still be expensive to
+ * relate, so only its convex hull is used to prune cells and no cell is
+ * considered to be contained by it. A region is intended to be used by the
+ * thread that decomposes a single query.
+ */
+public class GeometryQueryRegion implements
+		QueryRegion
+{
+	// cells are padded by this many degrees when testing whether they are
+	// disjoint so that floating point error in denormalizing the bounds of a
+	// cell can never prune data on the boundary of the geometry
+	private static final double DISJOINT_TOLERANCE = 1E-9;
+	private static final int MAX_VERTICES = 10000;
+	private final Geometry geometry;
+	private final PreparedGeometry preparedGeometry;
+	private final boolean exact;
+	private final int longitudeDimension;
+	private final int latitudeDimension;
+
+	/**
+	 * 
+	 * @param geometry
+	 *            the query geometry
+	 * @param longitudeDimension
+	 *            the index of the longitude dimension within each cell
+	 * @param latitudeDimension
+	 *            the index of the latitude dimension within each cell
+	 */
+	public GeometryQueryRegion(
+			final Geometry geometry,
+			final int longitudeDimension,
+			final int latitudeDimension ) {
+		this.geometry = geometry;
+		this.longitudeDimension = longitudeDimension;
+		this.latitudeDimension = latitudeDimension;
+		exact = geometry.getNumPoints() <= MAX_VERTICES;
+		preparedGeometry = PreparedGeometryFactory.prepare(exact ? geometry : geometry.convexHull());
+	}
+
+	/**
+	 * Create a query region for the geometry on the dimensions of the given
+	 * index strategy
+	 * 
+	 * @param geometry
+	 *            the query geometry
+	 * @param indexStrategy
+	 *            the index strategy that the query will be decomposed on
+	 * @return the query region, or null if the geometry is a rectangle, which
+	 *         the query constraints already cover exactly, or if the index
+	 *         strategy does not have both a longitude and latitude dimension
+	 */
+	public static GeometryQueryRegion create(
+			final Geometry geometry,
+			final NumericIndexStrategy indexStrategy ) {
+		if ((geometry == null) || geometry.isRectangle()) {
+			return null;
+		}
+		final int[] spatialDimensions = getSpatialDimensions(indexStrategy);
+		if (spatialDimensions == null) {
+			return null;
+		}
+		return new GeometryQueryRegion(
+				geometry,
+				spatialDimensions[0],
+				spatialDimensions[1]);
+	}
+
+	/**
+	 * 
+	 * @param indexStrategy
+	 *            the index strategy
+	 * @return the index of the longitude and latitude dimension of the index
+	 *         strategy, or null if it does not have both
+	 */
+	protected static int[] getSpatialDimensions(
+			final NumericIndexStrategy indexStrategy ) {
+		final NumericDimensionDefinition[] dimensions = indexStrategy.getOrderedDimensionDefinitions();
+		int longitudeDimension = -1;
+		int latitudeDimension = -1;
+		for (int d = 0; d < dimensions.length; d++) {
+			if (dimensions[d] instanceof LongitudeDefinition) {
+				longitudeDimension = d;
+			}
+			else if (dimensions[d] instanceof LatitudeDefinition) {
+				latitudeDimension = d;
+			}
+		}
+		if ((longitudeDimension < 0) || (latitudeDimension < 0)) {
+			return null;
+		}
+		return new int[] {
+			longitudeDimension,
+			latitudeDimension
+		};
+	}
+
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+	@Override
+	public Relation relate(
+			final MultiDimensionalNumericData cell ) {
+		final double[] mins = cell.getMinValuesPerDimension();
+		final double[] maxes = cell.getMaxValuesPerDimension();
+		final Envelope envelope = new Envelope(
+				mins[longitudeDimension],
+				maxes[longitudeDimension],
+				mins[latitudeDimension],
+				maxes[latitudeDimension]);
+		final Envelope paddedEnvelope = new Envelope(
+				envelope);
+		paddedEnvelope.expandBy(DISJOINT_TOLERANCE);
+		if (!preparedGeometry.intersects(GeometryUtils.GEOMETRY_FACTORY.toGeometry(paddedEnvelope))) {
+			return Relation.DISJOINT;
+		}
+		if (exact && preparedGeometry.contains(GeometryUtils.GEOMETRY_FACTORY.toGeometry(envelope))) {
+			return Relation.CONTAINS;
+		}
+		return Relation.INTERSECTS;
+	}
+}
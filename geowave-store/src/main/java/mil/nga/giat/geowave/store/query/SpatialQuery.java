@@ -1,8 +1,16 @@
 package mil.nga.giat.geowave.store.query;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import mil.nga.giat.geowave.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
 import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.store.GeometryUtils;
 import mil.nga.giat.geowave.store.dimension.DimensionField;
 import mil.nga.giat.geowave.store.filter.QueryFilter;
@@ -10,6 +18,7 @@ import mil.nga.giat.geowave.store.filter.SpatialQueryFilter;
 
 import org.apache.log4j.Logger;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKBReader;
@@ -60,6 +69,70 @@ public class SpatialQuery extends
 		return queryGeometry;
 	}
 
+	/**
+	 * The query geometry as a region to refine the decomposition of the query
+	 * constraints with, so that the parts of the bounding box of the geometry
+	 * that are outside of the geometry itself are not scanned
+	 * 
+	 * @param indexStrategy
+	 *            the index strategy that the query will be decomposed on
+	 * @return the query region, or null if the geometry is a rectangle or the
+	 *         index strategy is not spatial
+	 */
+	public QueryRegion getQueryRegion(
+			final NumericIndexStrategy indexStrategy ) {
+		return GeometryQueryRegion.create(
+				queryGeometry,
+				indexStrategy);
+	}
+
+	/**
+	 * The index constraints of each part of a multi-part query geometry, such
+	 * as a set of boxes along a route, so that the index can be constrained to
+	 * the bounding box of each part rather than the bounding box of the whole
+	 * query geometry. The constraints of any other dimensions are the same for
+	 * every part.
+	 * 
+	 * @param indexStrategy
+	 *            the index strategy used to generate the constraints for
+	 * @return the constraints of each part, or only the index constraints of
+	 *         the query if the query geometry has a single part or the index
+	 *         strategy is not spatial
+	 */
+	public List<MultiDimensionalNumericData> getIndexConstraintsPerGeometry(
+			final NumericIndexStrategy indexStrategy ) {
+		final MultiDimensionalNumericData constraints = getIndexConstraints(indexStrategy);
+		if ((queryGeometry == null) || (queryGeometry.getNumGeometries() < 2) || constraints.isEmpty()) {
+			return Collections.singletonList(constraints);
+		}
+		final int[] spatialDimensions = GeometryQueryRegion.getSpatialDimensions(indexStrategy);
+		if (spatialDimensions == null) {
+			return Collections.singletonList(constraints);
+		}
+		final List<MultiDimensionalNumericData> constraintsPerGeometry = new ArrayList<MultiDimensionalNumericData>(
+				queryGeometry.getNumGeometries());
+		for (int g = 0; g < queryGeometry.getNumGeometries(); g++) {
+			final Envelope envelope = queryGeometry.getGeometryN(
+					g).getEnvelopeInternal();
+			if (envelope.isNull()) {
+				continue;
+			}
+			final NumericData[] dataPerDimension = constraints.getDataPerDimension().clone();
+			dataPerDimension[spatialDimensions[0]] = new NumericRange(
+					envelope.getMinX(),
+					envelope.getMaxX());
+			dataPerDimension[spatialDimensions[1]] = new NumericRange(
+					envelope.getMinY(),
+					envelope.getMaxY());
+			constraintsPerGeometry.add(new BasicNumericDataset(
+					dataPerDimension));
+		}
+		if (constraintsPerGeometry.isEmpty()) {
+			return Collections.singletonList(constraints);
+		}
+		return constraintsPerGeometry;
+	}
+
 	@Override
 	protected QueryFilter createQueryFilter(
 			final MultiDimensionalNumericData constraints,
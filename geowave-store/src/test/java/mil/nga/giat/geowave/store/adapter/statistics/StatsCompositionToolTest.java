@@ -0,0 +1,271 @@
+package mil.nga.giat.geowave.store.adapter.statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.CloseableIterator;
+import mil.nga.giat.geowave.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.store.adapter.AdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+import mil.nga.giat.geowave.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.store.index.Index;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+
+public class StatsCompositionToolTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"coordinates");
+	private static final int THREAD_COUNT = 8;
+	private static final int ENTRIES_PER_THREAD = 1000;
+
+	@Test
+	public void testConcurrentIngest()
+			throws Exception {
+		final CapturingStatisticsStore statisticsStore = new CapturingStatisticsStore();
+		final StatsCompositionTool<Coordinate> statsTool = new StatsCompositionTool<Coordinate>(
+				new CoordinateAdapter(),
+				statisticsStore);
+		Assert.assertTrue(statsTool.isPersisting());
+		final DataStoreEntryInfo entryInfo = new DataStoreEntryInfo(
+				new ArrayList<ByteArrayId>(),
+				new ArrayList<FieldInfo>());
+		// start every thread at once so that they contend for the tool
+		final CountDownLatch start = new CountDownLatch(
+				1);
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int t = 0; t < THREAD_COUNT; t++) {
+			final int thread = t;
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call()
+						throws Exception {
+					start.await();
+					for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+						statsTool.entryIngested(
+								entryInfo,
+								new Coordinate(
+										thread,
+										i));
+					}
+					return null;
+				}
+			});
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			final List<Future<Void>> results = new ArrayList<Future<Void>>();
+			for (final Callable<Void> task : tasks) {
+				results.add(executor.submit(task));
+			}
+			start.countDown();
+			for (final Future<Void> result : results) {
+				result.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		statsTool.flush();
+
+		final CountDataStatistics<?> count = (CountDataStatistics<?>) statisticsStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID);
+		Assert.assertEquals(
+				THREAD_COUNT * ENTRIES_PER_THREAD,
+				count.getCount());
+		final BoundingBoxDataStatistics<?> bbox = (BoundingBoxDataStatistics<?>) statisticsStore.getDataStatistics(
+				ADAPTER_ID,
+				BoundingBoxDataStatistics.STATS_ID);
+		Assert.assertEquals(
+				0,
+				bbox.getMinX(),
+				0);
+		Assert.assertEquals(
+				THREAD_COUNT - 1,
+				bbox.getMaxX(),
+				0);
+		Assert.assertEquals(
+				0,
+				bbox.getMinY(),
+				0);
+		Assert.assertEquals(
+				ENTRIES_PER_THREAD - 1,
+				bbox.getMaxY(),
+				0);
+		// each statistic is incorporated once, merged across the stripes
+		Assert.assertEquals(
+				2,
+				statisticsStore.incorporateCount);
+
+		// the stripes are cleared by the flush, so flushing again adds nothing
+		statsTool.flush();
+		Assert.assertEquals(
+				2,
+				statisticsStore.incorporateCount);
+		Assert.assertEquals(
+				THREAD_COUNT * ENTRIES_PER_THREAD,
+				count.getCount());
+	}
+
+	private static class CoordinateAdapter implements
+			StatisticalDataAdapter<Coordinate>
+	{
+		@Override
+		public ByteArrayId[] getSupportedStatisticsIds() {
+			return new ByteArrayId[] {
+				CountDataStatistics.STATS_ID,
+				BoundingBoxDataStatistics.STATS_ID
+			};
+		}
+
+		@Override
+		public DataStatistics<Coordinate> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			if (BoundingBoxDataStatistics.STATS_ID.equals(statisticsId)) {
+				return new BoundingBoxDataStatistics<Coordinate>(
+						ADAPTER_ID) {
+					@Override
+					protected Envelope getEnvelope(
+							final Coordinate entry ) {
+						return new Envelope(
+								entry);
+					}
+				};
+			}
+			return new CountDataStatistics<Coordinate>(
+					ADAPTER_ID);
+		}
+
+		@Override
+		public DataStatisticsVisibilityHandler<Coordinate> getVisibilityHandler(
+				final ByteArrayId statisticsId ) {
+			return new EmptyStatisticVisibility<Coordinate>();
+		}
+
+		@Override
+		public ByteArrayId getAdapterId() {
+			return ADAPTER_ID;
+		}
+
+		@Override
+		public boolean isSupported(
+				final Coordinate entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final Coordinate entry ) {
+			return new ByteArrayId(
+					entry.toString());
+		}
+
+		@Override
+		public Coordinate decode(
+				final IndexedAdapterPersistenceEncoding data,
+				final Index index ) {
+			return null;
+		}
+
+		@Override
+		public AdapterPersistenceEncoding encode(
+				final Coordinate entry,
+				final CommonIndexModel indexModel ) {
+			return null;
+		}
+
+		@Override
+		public FieldReader<Object> getReader(
+				final ByteArrayId fieldId ) {
+			return null;
+		}
+
+		@Override
+		public FieldWriter<Coordinate, Object> getWriter(
+				final ByteArrayId fieldId ) {
+			return null;
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[] {};
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+	}
+
+	private static class CapturingStatisticsStore implements
+			DataStatisticsStore
+	{
+		private final Map<ByteArrayId, DataStatistics<?>> statisticsMap = new HashMap<ByteArrayId, DataStatistics<?>>();
+		private int incorporateCount = 0;
+
+		@Override
+		public void setStatistics(
+				final DataStatistics<?> statistics ) {
+			statisticsMap.put(
+					statistics.getStatisticsId(),
+					statistics);
+		}
+
+		@Override
+		public void incorporateStatistics(
+				final DataStatistics<?> statistics ) {
+			incorporateCount++;
+			final DataStatistics<?> existing = statisticsMap.get(statistics.getStatisticsId());
+			if (existing == null) {
+				setStatistics(statistics);
+			}
+			else {
+				existing.merge(statistics);
+			}
+		}
+
+		@Override
+		public CloseableIterator<DataStatistics<?>> getDataStatistics(
+				final ByteArrayId adapterId,
+				final String... authorizations ) {
+			return null;
+		}
+
+		@Override
+		public CloseableIterator<DataStatistics<?>> getAllDataStatistics(
+				final String... authorizations ) {
+			return null;
+		}
+
+		@Override
+		public DataStatistics<?> getDataStatistics(
+				final ByteArrayId adapterId,
+				final ByteArrayId statisticsId,
+				final String... authorizations ) {
+			return statisticsMap.get(statisticsId);
+		}
+
+		@Override
+		public boolean removeStatistics(
+				final ByteArrayId adapterId,
+				final ByteArrayId statisticsId,
+				final String... authorizations ) {
+			return statisticsMap.remove(statisticsId) != null;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package mil.nga.giat.geowave.store.data;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.StringUtils;
+import mil.nga.giat.geowave.store.data.field.FieldReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LazyPersistentDatasetTest
+{
+	private static class CountingReader implements
+			FieldReader<Object>
+	{
+		private int readCount = 0;
+
+		@Override
+		public Object readField(
+				final byte[] fieldData ) {
+			readCount++;
+			return StringUtils.stringFromBinary(fieldData);
+		}
+	}
+
+	@Test
+	public void testFieldsAreDecodedOnDemand() {
+		final CountingReader reader = new CountingReader();
+		final LazyPersistentDataset<Object> dataset = new LazyPersistentDataset<Object>();
+		final ByteArrayId geometryId = new ByteArrayId(
+				"geometry");
+		final ByteArrayId nameId = new ByteArrayId(
+				"name");
+		dataset.addValue(
+				geometryId,
+				StringUtils.stringToBinary("POINT (1 1)"),
+				reader);
+		dataset.addValue(
+				nameId,
+				StringUtils.stringToBinary("test"),
+				reader);
+		Assert.assertEquals(
+				0,
+				reader.readCount);
+
+		Assert.assertEquals(
+				"POINT (1 1)",
+				dataset.getValue(geometryId));
+		Assert.assertEquals(
+				"POINT (1 1)",
+				dataset.getValue(geometryId));
+		// only the requested field is decoded, and only once
+		Assert.assertEquals(
+				1,
+				reader.readCount);
+		Assert.assertTrue(dataset.isDecoded(geometryId));
+		Assert.assertFalse(dataset.isDecoded(nameId));
+		Assert.assertNull(dataset.getValue(new ByteArrayId(
+				"missing")));
+
+		final List<PersistentValue<Object>> values = dataset.getValues();
+		Assert.assertEquals(
+				2,
+				reader.readCount);
+		// the values maintain the order they were added in
+		Assert.assertEquals(
+				geometryId,
+				values.get(
+						0).getId());
+		Assert.assertEquals(
+				"test",
+				values.get(
+						1).getValue());
+	}
+
+	@Test
+	public void testDoNotOverwrite() {
+		final CountingReader reader = new CountingReader();
+		final LazyPersistentDataset<Object> dataset = new LazyPersistentDataset<Object>();
+		final ByteArrayId fieldId = new ByteArrayId(
+				"field");
+		dataset.addValue(
+				fieldId,
+				StringUtils.stringToBinary("first"),
+				reader);
+		dataset.addValue(new PersistentValue<Object>(
+				fieldId,
+				"second"));
+		Assert.assertEquals(
+				"first",
+				dataset.getValue(fieldId));
+		dataset.addOrUpdateValue(new PersistentValue<Object>(
+				fieldId,
+				"third"));
+		Assert.assertEquals(
+				"third",
+				dataset.getValue(fieldId));
+	}
+}
@@ -0,0 +1,141 @@
+package mil.nga.giat.geowave.store.filter;
+
+import java.io.File;
+import java.io.IOException;
+
+import mil.nga.giat.geowave.index.ByteArrayId;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VisitedDataIdsTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"adapter");
+	private static final ByteArrayId OTHER_ADAPTER_ID = new ByteArrayId(
+			"other");
+
+	@Test
+	public void testSpillingIsExact()
+			throws IOException {
+		final File spillDirectory = File.createTempFile(
+				"dedupe",
+				"");
+		Assert.assertTrue(spillDirectory.delete());
+		Assert.assertTrue(spillDirectory.mkdir());
+		final SpillingVisitedDataIds visitedDataIds = new SpillingVisitedDataIds(
+				spillDirectory,
+				100);
+		// enough IDs to spill several runs with a partial sparse index block
+		final int count = 1000;
+		for (int i = 0; i < count; i++) {
+			Assert.assertTrue(visitedDataIds.visit(
+					ADAPTER_ID,
+					new ByteArrayId(
+							"data" + i),
+					false));
+		}
+		Assert.assertTrue(spillDirectory.list().length > 0);
+		for (int i = 0; i < count; i++) {
+			Assert.assertFalse(visitedDataIds.visit(
+					ADAPTER_ID,
+					new ByteArrayId(
+							"data" + i),
+					false));
+		}
+		// the same data ID of another adapter is a different entry
+		Assert.assertTrue(visitedDataIds.visit(
+				OTHER_ADAPTER_ID,
+				new ByteArrayId(
+						"data0"),
+				false));
+		Assert.assertTrue(visitedDataIds.visit(
+				ADAPTER_ID,
+				new ByteArrayId(
+						"data" + count),
+				false));
+		visitedDataIds.close();
+		Assert.assertEquals(
+				0,
+				spillDirectory.list().length);
+		spillDirectory.delete();
+	}
+
+	@Test
+	public void testMemoryCopiesSlicedIds() {
+		final MemoryVisitedDataIds visitedDataIds = new MemoryVisitedDataIds();
+		final byte[] row = "rowdata0".getBytes();
+		Assert.assertTrue(visitedDataIds.visit(
+				ADAPTER_ID,
+				new ByteArrayId(
+						row,
+						3,
+						5),
+				false));
+		// reusing the row for the next entry does not change the visited ID
+		row[7] = '1';
+		Assert.assertFalse(visitedDataIds.visit(
+				ADAPTER_ID,
+				new ByteArrayId(
+						"data0"),
+				false));
+		Assert.assertTrue(visitedDataIds.visit(
+				ADAPTER_ID,
+				new ByteArrayId(
+						row,
+						3,
+						5),
+				false));
+		visitedDataIds.close();
+	}
+
+	@Test
+	public void testBloomFilterIsExactForDuplicatedEntries()
+			throws IOException {
+		final BloomFilterVisitedDataIds visitedDataIds = new BloomFilterVisitedDataIds(
+				10,
+				BloomFilterVisitedDataIds.DEFAULT_FALSE_POSITIVE_PROBABILITY);
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertTrue(visitedDataIds.visit(
+					ADAPTER_ID,
+					new ByteArrayId(
+							"data" + i),
+					true));
+			Assert.assertFalse(visitedDataIds.visit(
+					ADAPTER_ID,
+					new ByteArrayId(
+							"data" + i),
+					true));
+		}
+		visitedDataIds.close();
+	}
+
+	@Test
+	public void testBloomFilterDropsVisitedEntries()
+			throws IOException {
+		final BloomFilterVisitedDataIds visitedDataIds = new BloomFilterVisitedDataIds(
+				10,
+				BloomFilterVisitedDataIds.DEFAULT_FALSE_POSITIVE_PROBABILITY);
+		int accepted = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (visitedDataIds.visit(
+					ADAPTER_ID,
+					new ByteArrayId(
+							"data" + i),
+					false)) {
+				accepted++;
+			}
+		}
+		// the filter grows past its initial capacity without dropping more
+		// than a few entries as false positives
+		Assert.assertTrue(accepted > 990);
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertFalse(visitedDataIds.visit(
+					ADAPTER_ID,
+					new ByteArrayId(
+							"data" + i),
+					false));
+		}
+		visitedDataIds.close();
+	}
+}
@@ -1,11 +1,26 @@
 package mil.nga.giat.geowave.store.query;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.index.sfc.QueryRegion;
+import mil.nga.giat.geowave.index.sfc.QueryRegion.Relation;
+import mil.nga.giat.geowave.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.store.index.IndexType;
 
 import org.junit.Test;
 
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
 
 public class SpatialQueryTest
 {
@@ -36,4 +51,143 @@ public class SpatialQueryTest
 				queryCopy.getQueryGeometry(),
 				query.getQueryGeometry());
 	}
+
+	@Test
+	public void testQueryRegion() {
+		final GeometryFactory factory = new GeometryFactory();
+		// an L-shaped polygon
+		final SpatialQuery query = new SpatialQuery(
+				factory.createPolygon(new Coordinate[] {
+					new Coordinate(
+							0,
+							0),
+					new Coordinate(
+							10,
+							0),
+					new Coordinate(
+							10,
+							2),
+					new Coordinate(
+							2,
+							2),
+					new Coordinate(
+							2,
+							10),
+					new Coordinate(
+							0,
+							10),
+					new Coordinate(
+							0,
+							0)
+				}));
+		final QueryRegion region = query.getQueryRegion(IndexType.SPATIAL_VECTOR.createDefaultIndexStrategy());
+		assertNotNull(region);
+		assertEquals(
+				Relation.CONTAINS,
+				region.relate(createCell(
+						0.5,
+						0.5,
+						1.5,
+						1.5)));
+		assertEquals(
+				Relation.INTERSECTS,
+				region.relate(createCell(
+						1,
+						1,
+						3,
+						3)));
+		// within the bounding box but outside of the polygon
+		assertEquals(
+				Relation.DISJOINT,
+				region.relate(createCell(
+						5,
+						5,
+						9,
+						9)));
+	}
+
+	@Test
+	public void testNoQueryRegionForRectangle() {
+		final GeometryFactory factory = new GeometryFactory();
+		final SpatialQuery query = new SpatialQuery(
+				factory.toGeometry(new Envelope(
+						0,
+						10,
+						0,
+						10)));
+		// the constraints of a rectangle are already exact
+		assertNull(query.getQueryRegion(IndexType.SPATIAL_VECTOR.createDefaultIndexStrategy()));
+	}
+
+	@Test
+	public void testIndexConstraintsPerGeometry() {
+		final GeometryFactory factory = new GeometryFactory();
+		final SpatialQuery query = new SpatialQuery(
+				factory.createMultiPolygon(new Polygon[] {
+					factory.createPolygon(new Coordinate[] {
+						new Coordinate(
+								0,
+								0),
+						new Coordinate(
+								1,
+								0),
+						new Coordinate(
+								1,
+								1),
+						new Coordinate(
+								0,
+								0)
+					}),
+					factory.createPolygon(new Coordinate[] {
+						new Coordinate(
+								20,
+								30),
+						new Coordinate(
+								22,
+								30),
+						new Coordinate(
+								22,
+								33),
+						new Coordinate(
+								20,
+								30)
+					})
+				}));
+		final List<MultiDimensionalNumericData> constraints = query.getIndexConstraintsPerGeometry(IndexType.SPATIAL_VECTOR.createDefaultIndexStrategy());
+		assertEquals(
+				2,
+				constraints.size());
+		assertArrayEquals(
+				createCell(
+						0,
+						0,
+						1,
+						1).getDataPerDimension(),
+				constraints.get(
+						0).getDataPerDimension());
+		assertArrayEquals(
+				createCell(
+						20,
+						30,
+						22,
+						33).getDataPerDimension(),
+				constraints.get(
+						1).getDataPerDimension());
+	}
+
+	private static BasicNumericDataset createCell(
+			final double minX,
+			final double minY,
+			final double maxX,
+			final double maxY ) {
+		return new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							minX,
+							maxX),
+					new NumericRange(
+							minY,
+							maxY)
+				});
+	}
 }
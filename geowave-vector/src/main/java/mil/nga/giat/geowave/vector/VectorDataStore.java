@@ -3,13 +3,16 @@ package mil.nga.giat.geowave.vector;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import mil.nga.giat.geowave.accumulo.AccumuloDataStore;
 import mil.nga.giat.geowave.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.accumulo.AccumuloOptions;
 import mil.nga.giat.geowave.accumulo.util.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.index.StringUtils;
 import mil.nga.giat.geowave.store.CloseableIterator;
 import mil.nga.giat.geowave.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.store.adapter.DataAdapter;
@@ -24,6 +27,7 @@ import mil.nga.giat.geowave.vector.query.DistributedRenderQuery;
 import mil.nga.giat.geowave.vector.query.SpatialDecimationQuery;
 import mil.nga.giat.geowave.vector.wms.DistributableRenderer;
 
+import org.geotools.data.DataUtilities;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.filter.Filter;
@@ -90,6 +94,28 @@ public class VectorDataStore extends
 		return this.statisticsStore;
 	}
 
+	public CloseableIterator<SimpleFeature> query(
+			final FeatureDataAdapter adapter,
+			final Index index,
+			final Query query,
+			final Filter filter,
+			final Integer limit,
+			final String... authorizations ) {
+		return query(
+				adapter,
+				index,
+				query,
+				filter,
+				limit,
+				null,
+				authorizations);
+	}
+
+	/**
+	 * Query the features matching the query and the CQL filter, with only the
+	 * attributes of the given field IDs. The attributes used by the CQL filter
+	 * are also fetched, as the filter is applied on the tablet servers.
+	 */
 	@SuppressWarnings("unchecked")
 	public CloseableIterator<SimpleFeature> query(
 			final FeatureDataAdapter adapter,
@@ -97,6 +123,7 @@ public class VectorDataStore extends
 			final Query query,
 			final Filter filter,
 			final Integer limit,
+			final Set<ByteArrayId> fieldIds,
 			final String... authorizations ) {
 		store(adapter);
 		final List<ByteArrayId> adapterIds = Arrays.asList(new ByteArrayId[] {
@@ -107,33 +134,46 @@ public class VectorDataStore extends
 					adapter
 				});
 
+		final AccumuloCqlConstraintsQuery accumuloQuery;
 		if (query == null) {
-			return (CloseableIterator<SimpleFeature>) new AccumuloCqlConstraintsQuery(
+			accumuloQuery = new AccumuloCqlConstraintsQuery(
 					adapterIds,
 					index,
 					filter,
 					adapter,
-					authorizations).query(
-					accumuloOperations,
-					adapterStore,
-					limit);
+					authorizations);
 		}
 		else if (query.isSupported(index)) {
 			// construct the query
-			return (CloseableIterator<SimpleFeature>) new AccumuloCqlConstraintsQuery(
+			accumuloQuery = new AccumuloCqlConstraintsQuery(
 					adapterIds,
 					index,
 					query.getIndexConstraints(index.getIndexStrategy()),
 					query.createFilters(index.getIndexModel()),
 					filter,
 					adapter,
-					authorizations).query(
-					accumuloOperations,
-					adapterStore,
-					limit);
+					authorizations);
 		}
-
-		return new CloseableIterator.Empty<SimpleFeature>();
+		else {
+			return new CloseableIterator.Empty<SimpleFeature>();
+		}
+		if (fieldIds != null) {
+			final Set<ByteArrayId> queryFieldIds = new HashSet<ByteArrayId>(
+					fieldIds);
+			if (filter != null) {
+				for (final String attributeName : DataUtilities.attributeNames(
+						filter,
+						adapter.getType())) {
+					queryFieldIds.add(new ByteArrayId(
+							StringUtils.stringToBinary(attributeName)));
+				}
+			}
+			accumuloQuery.setFieldIds(queryFieldIds);
+		}
+		return (CloseableIterator<SimpleFeature>) accumuloQuery.query(
+				accumuloOperations,
+				adapterStore,
+				limit);
 	}
 
 	public CloseableIterator<SimpleFeature> query(
@@ -0,0 +1,65 @@
+package mil.nga.giat.geowave.vector;
+
+import mil.nga.giat.geowave.index.PersistableRegistrySpi;
+import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
+import mil.nga.giat.geowave.vector.adapter.VisibilityQueryFilter;
+import mil.nga.giat.geowave.vector.stats.FeatureBoundingBoxStatistics;
+import mil.nga.giat.geowave.vector.stats.FeatureNumericRangeStatistics;
+import mil.nga.giat.geowave.vector.stats.FeatureTimeRangeStatistics;
+import mil.nga.giat.geowave.vector.wms.accumulo.RenderedMaster;
+import mil.nga.giat.geowave.vector.wms.accumulo.RenderedStyle;
+import mil.nga.giat.geowave.vector.wms.accumulo.ServerDecimationOptions;
+import mil.nga.giat.geowave.vector.wms.accumulo.ServerFeatureStyle;
+import mil.nga.giat.geowave.vector.wms.accumulo.ServerMapArea;
+import mil.nga.giat.geowave.vector.wms.accumulo.ServerPaintArea;
+import mil.nga.giat.geowave.vector.wms.accumulo.ServerRenderOptions;
+
+/**
+ * Registers the persistable classes of the vector module, which use the IDs
+ * from 500 to 599
+ */
+public class VectorPersistableRegistry implements
+		PersistableRegistrySpi
+{
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 500,
+					FeatureDataAdapter.class),
+			new PersistableIdAndClass(
+					(short) 501,
+					VisibilityQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 502,
+					FeatureBoundingBoxStatistics.class),
+			new PersistableIdAndClass(
+					(short) 503,
+					FeatureNumericRangeStatistics.class),
+			new PersistableIdAndClass(
+					(short) 504,
+					FeatureTimeRangeStatistics.class),
+			new PersistableIdAndClass(
+					(short) 505,
+					RenderedMaster.class),
+			new PersistableIdAndClass(
+					(short) 506,
+					RenderedStyle.class),
+			new PersistableIdAndClass(
+					(short) 507,
+					ServerDecimationOptions.class),
+			new PersistableIdAndClass(
+					(short) 508,
+					ServerFeatureStyle.class),
+			new PersistableIdAndClass(
+					(short) 509,
+					ServerMapArea.class),
+			new PersistableIdAndClass(
+					(short) 510,
+					ServerPaintArea.class),
+			new PersistableIdAndClass(
+					(short) 511,
+					ServerRenderOptions.class)
+		};
+	}
+}
@@ -3,6 +3,7 @@ package mil.nga.giat.geowave.vector.adapter;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import mil.nga.giat.geowave.accumulo.mapreduce.HadoopDataAdapter;
 import mil.nga.giat.geowave.accumulo.mapreduce.HadoopWritableSerializer;
@@ -10,9 +11,12 @@ import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.StringUtils;
 import mil.nga.giat.geowave.store.adapter.AbstractDataAdapter;
 import mil.nga.giat.geowave.store.adapter.AdapterPersistenceEncoding;
+import mil.nga.giat.geowave.store.adapter.FieldProjectingDataAdapter;
 import mil.nga.giat.geowave.store.adapter.IndexFieldHandler;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
 import mil.nga.giat.geowave.store.adapter.NativeFieldHandler;
 import mil.nga.giat.geowave.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.store.adapter.PackedFieldsDataAdapter;
 import mil.nga.giat.geowave.store.adapter.PersistentIndexFieldHandler;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.store.adapter.statistics.DataStatisticsVisibilityHandler;
@@ -25,6 +29,7 @@ import mil.nga.giat.geowave.store.data.visibility.VisibilityManagement;
 import mil.nga.giat.geowave.store.dimension.Time;
 import mil.nga.giat.geowave.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.Index;
 import mil.nga.giat.geowave.vector.plugin.GeoWaveGTDataStore;
 import mil.nga.giat.geowave.vector.plugin.visibility.AdaptorProxyFieldLevelVisibilityHandler;
 import mil.nga.giat.geowave.vector.plugin.visibility.JsonDefinitionColumnVisibilityManagement;
@@ -88,7 +93,9 @@ import com.vividsolutions.jts.geom.Geometry;
 public class FeatureDataAdapter extends
 		AbstractDataAdapter<SimpleFeature> implements
 		StatisticalDataAdapter<SimpleFeature>,
-		HadoopDataAdapter<SimpleFeature, FeatureWritable>
+		HadoopDataAdapter<SimpleFeature, FeatureWritable>,
+		PackedFieldsDataAdapter<SimpleFeature>,
+		FieldProjectingDataAdapter<SimpleFeature>
 {
 	private final static Logger LOGGER = Logger.getLogger(FeatureDataAdapter.class);
 	// the original coordinate system will always be represented internally by
@@ -105,6 +112,12 @@ public class FeatureDataAdapter extends
 	private String visibilityAttributeName = "GEOWAVE_VISIBILITY";
 	private VisibilityManagement<SimpleFeature> fieldVisibilityManagement;
 	private TimeDescriptors timeDescriptors = null;
+	// packed rows are self-describing so this is a write-time setting and is
+	// not persisted with the adapter
+	private boolean packFields = false;
+	// every entry of a query is decoded with the same projection, so the
+	// feature type of the most recent projection is kept
+	private ProjectedType projectedType = null;
 
 	protected FeatureDataAdapter() {}
 
@@ -209,6 +222,24 @@ public class FeatureDataAdapter extends
 		return fieldVisibilityManagement;
 	}
 
+	@Override
+	public boolean isPackFields() {
+		return packFields;
+	}
+
+	/**
+	 * Set whether all of the attributes of a feature that share a visibility
+	 * are written as a single packed value, which considerably reduces the size
+	 * of features with many attributes
+	 * 
+	 * @param packFields
+	 *            whether to pack the fields of each feature when written
+	 */
+	public void setPackFields(
+			final boolean packFields ) {
+		this.packFields = packFields;
+	}
+
 	private IndexFieldHandler<SimpleFeature, Time, Object> getTimeRangeHandler(
 			final SimpleFeatureType featureType ) {
 		final TimeDescriptors timeDescriptors = inferTimeAttributeDescriptor(featureType);
@@ -437,6 +468,48 @@ public class FeatureDataAdapter extends
 		return reprojectedType;
 	}
 
+	@Override
+	public SimpleFeature decode(
+			final IndexedAdapterPersistenceEncoding data,
+			final Index index,
+			final Set<ByteArrayId> fieldIds ) {
+		return decode(
+				data,
+				index,
+				fieldIds,
+				new FeatureRowBuilder(
+						getProjectedType(fieldIds)));
+	}
+
+	/**
+	 * Get the feature type with only the attributes of the given field IDs, in
+	 * the order of the attributes of this adapter's type
+	 * 
+	 * @param fieldIds
+	 *            the field IDs of the attributes
+	 * @return the projected feature type
+	 */
+	public SimpleFeatureType getProjectedType(
+			final Set<ByteArrayId> fieldIds ) {
+		ProjectedType projection = projectedType;
+		if ((projection == null) || ((projection.fieldIds != fieldIds) && !projection.fieldIds.equals(fieldIds))) {
+			final List<String> attributeNames = new ArrayList<String>();
+			for (final AttributeDescriptor attrDesc : reprojectedType.getAttributeDescriptors()) {
+				if (fieldIds.contains(new ByteArrayId(
+						StringUtils.stringToBinary(attrDesc.getLocalName())))) {
+					attributeNames.add(attrDesc.getLocalName());
+				}
+			}
+			projection = new ProjectedType(
+					fieldIds,
+					SimpleFeatureTypeBuilder.retype(
+							reprojectedType,
+							attributeNames.toArray(new String[attributeNames.size()])));
+			projectedType = projection;
+		}
+		return projection.type;
+	}
+
 	@Override
 	public AdapterPersistenceEncoding encode(
 			final SimpleFeature entry,
@@ -563,6 +636,19 @@ public class FeatureDataAdapter extends
 				this.reprojectedType);
 	}
 
+	private static class ProjectedType
+	{
+		private final Set<ByteArrayId> fieldIds;
+		private final SimpleFeatureType type;
+
+		private ProjectedType(
+				final Set<ByteArrayId> fieldIds,
+				final SimpleFeatureType type ) {
+			this.fieldIds = fieldIds;
+			this.type = type;
+		}
+	}
+
 	private static class FeatureWritableSerializer implements
 			HadoopWritableSerializer<SimpleFeature, FeatureWritable>
 	{
@@ -118,7 +118,7 @@ public class GeoWaveFeatureCollection extends
 			// GEOWAVE-60 optimization
 			final Map<ByteArrayId, DataStatistics<SimpleFeature>> statsMap = reader.getComponents().getDataStatistics(
 					reader.getTransaction());
-			final ByteArrayId statId = FeatureBoundingBoxStatistics.composeId(reader.getFeatureType().getGeometryDescriptor().getLocalName());
+			final ByteArrayId statId = FeatureBoundingBoxStatistics.composeId(reader.getComponents().getAdapter().getType().getGeometryDescriptor().getLocalName());
 			if (statsMap.containsKey(statId)) {
 				final BoundingBoxDataStatistics<SimpleFeature> stats = (BoundingBoxDataStatistics<SimpleFeature>) statsMap.get(statId);
 				return new ReferencedEnvelope(
@@ -219,7 +219,7 @@ public class GeoWaveFeatureCollection extends
 		if (GeoWaveFeatureCollection.isDistributedRenderQuery(query)) {
 			return getDistributedRenderFeatureType();
 		}
-		return reader.getComponents().getAdapter().getType();
+		return reader.getProjectedType();
 	}
 
 	@Override
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,7 @@ import mil.nga.giat.geowave.vector.wms.DistributableRenderer;
 import org.apache.log4j.Logger;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.filter.FidFilterImpl;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.simple.SimpleFeature;
@@ -59,6 +61,10 @@ public class GeoWaveFeatureReader implements
 	private final GeoWaveDataStoreComponents components;
 	private final GeoWaveFeatureCollection featureCollection;
 	private final GeoWaveTransaction transaction;
+	// the attributes requested by the query, null if all are requested
+	private final Set<ByteArrayId> fieldIds;
+	// the feature type of the requested attributes, null if all are requested
+	private final SimpleFeatureType projectedType;
 
 	public GeoWaveFeatureReader(
 			final Query query,
@@ -66,6 +72,20 @@ public class GeoWaveFeatureReader implements
 			final GeoWaveDataStoreComponents components ) {
 		this.components = components;
 		this.transaction = transaction;
+		final String[] propertyNames = query.getPropertyNames();
+		if (propertyNames != null) {
+			fieldIds = new HashSet<ByteArrayId>();
+			for (final String propertyName : propertyNames) {
+				fieldIds.add(new ByteArrayId(
+						StringUtils.stringToBinary(propertyName)));
+			}
+			projectedType = components.getAdapter().getProjectedType(
+					fieldIds);
+		}
+		else {
+			fieldIds = null;
+			projectedType = null;
+		}
 		featureCollection = new GeoWaveFeatureCollection(
 				this,
 				query);
@@ -92,9 +112,40 @@ public class GeoWaveFeatureReader implements
 		if (featureCollection.isDistributedRenderQuery()) {
 			return GeoWaveFeatureCollection.getDistributedRenderFeatureType();
 		}
+		return getProjectedType();
+	}
+
+	/**
+	 * Get the feature type of the attributes requested by the query. The
+	 * attributes that are only fetched to evaluate the filter are not included.
+	 * 
+	 * @return the projected feature type, or the feature type of the adapter if
+	 *         all attributes are requested
+	 */
+	protected SimpleFeatureType getProjectedType() {
+		if (projectedType != null) {
+			return projectedType;
+		}
 		return components.getAdapter().getType();
 	}
 
+	private SimpleFeature project(
+			final SimpleFeature feature ) {
+		if (projectedType == null) {
+			return feature;
+		}
+		// features can carry attributes that were only fetched for the filter,
+		// as well as all of the attributes if they are from the transaction
+		final SimpleFeatureType featureType = feature.getFeatureType();
+		if ((featureType == projectedType) || !featureType.getTypeName().equals(
+				projectedType.getTypeName()) || featureType.equals(projectedType)) {
+			return feature;
+		}
+		return SimpleFeatureBuilder.retype(
+				feature,
+				projectedType);
+	}
+
 	@Override
 	public boolean hasNext()
 			throws IOException {
@@ -112,11 +163,13 @@ public class GeoWaveFeatureReader implements
 			IllegalArgumentException,
 			NoSuchElementException {
 		Iterator<SimpleFeature> it = featureCollection.getOpenIterator();
-		if (it != null) {
+		if (it == null) {
+			it = featureCollection.openIterator();
+		}
+		if (featureCollection.isDistributedRenderQuery()) {
 			return it.next();
 		}
-		it = featureCollection.openIterator();
-		return it.next();
+		return project(it.next());
 	}
 
 	public CloseableIterator<SimpleFeature> getNoData() {
@@ -231,6 +284,7 @@ public class GeoWaveFeatureReader implements
 					query,
 					filter,
 					(limit != null) && (limit >= 0) ? limit : null,
+					fieldIds,
 					transaction.composeAuthorizations());
 		}
 	}
@@ -477,7 +531,7 @@ public class GeoWaveFeatureReader implements
 	protected Geometry clipIndexedBBOXConstraints(
 			final Geometry bbox ) {
 		return QueryIndexHelper.clipIndexedBBOXConstraints(
-				getFeatureType(),
+				components.getAdapter().getType(),
 				bbox,
 				components.getDataStatistics(transaction));
 	}
@@ -489,7 +543,7 @@ public class GeoWaveFeatureReader implements
 
 		if ((geoConstraints == null) && (temporalConstraints != null)) {
 			final Constraints statBasedGeoConstraints = QueryIndexHelper.getBBOXIndexConstraints(
-					getFeatureType(),
+					components.getAdapter().getType(),
 					components.getDataStatistics(transaction));
 			return new BasicQuery(
 					statBasedGeoConstraints.merge(temporalConstraints));
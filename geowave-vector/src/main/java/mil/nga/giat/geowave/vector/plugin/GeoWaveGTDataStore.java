@@ -469,8 +469,23 @@ public class GeoWaveGTDataStore extends
 				transaction,
 				source);
 
+		Query sourceQuery = query;
+		if ((propertyNames != null) && !filter.equals(Filter.INCLUDE)) {
+			// the filter is evaluated on the features of the source reader,
+			// which only have the requested attributes, so request the
+			// attributes of the filter as well and drop them when retyping
+			final Set<String> sourcePropertyNames = new HashSet<String>(
+					Arrays.asList(propertyNames));
+			sourcePropertyNames.addAll(Arrays.asList(DataUtilities.attributeNames(
+					filter,
+					source.getSchema())));
+			sourceQuery = new Query(
+					query);
+			sourceQuery.setPropertyNames(sourcePropertyNames.toArray(new String[sourcePropertyNames.size()]));
+		}
+
 		FeatureReader<SimpleFeatureType, SimpleFeature> reader = source.getReaderInternal(
-				query,
+				sourceQuery,
 				state.getGeoWaveTransaction(typeName));
 
 		if (!filter.equals(Filter.INCLUDE)) {
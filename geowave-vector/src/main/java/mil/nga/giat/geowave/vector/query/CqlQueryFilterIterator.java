@@ -8,19 +8,22 @@ import java.util.List;
 import java.util.Map;
 
 import mil.nga.giat.geowave.accumulo.AccumuloRowId;
+import mil.nga.giat.geowave.accumulo.util.PackedFieldsUtils;
+import mil.nga.giat.geowave.accumulo.util.PackedFieldsUtils.PackedField;
 import mil.nga.giat.geowave.index.ByteArrayId;
 import mil.nga.giat.geowave.index.ByteArrayUtils;
 import mil.nga.giat.geowave.index.PersistenceUtils;
 import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
-import mil.nga.giat.geowave.store.data.PersistentDataset;
-import mil.nga.giat.geowave.store.data.PersistentValue;
+import mil.nga.giat.geowave.store.data.LazyPersistentDataset;
 import mil.nga.giat.geowave.store.data.field.FieldReader;
 import mil.nga.giat.geowave.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
 import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.index.VisibilityFieldReader;
 import mil.nga.giat.geowave.vector.adapter.FeatureDataAdapter;
 
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
@@ -112,42 +115,47 @@ public class CqlQueryFilterIterator extends
 			final List<Value> values ) {
 		if ((gtFilter != null) && (model != null) && (dataAdapter != null)) {
 			final AccumuloRowId rowId = new AccumuloRowId(
-					currentRow.copyBytes());
-			final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
-			final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+					currentRow.getBytes(),
+					0,
+					currentRow.getLength());
+			// the fields are only decoded as they are used by the filters
+			final LazyPersistentDataset<CommonIndexValue> commonData = new LazyPersistentDataset<CommonIndexValue>();
+			final LazyPersistentDataset<Object> extendedData = new LazyPersistentDataset<Object>();
 			for (int i = 0; (i < keys.size()) && (i < values.size()); i++) {
 				final Key key = keys.get(i);
-				final ByteArrayId fieldId = new ByteArrayId(
-						key.getColumnQualifierData().getBackingArray());
-				final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
-				if (reader == null) {
-					// try extended data
-					final FieldReader<Object> extReader = dataAdapter.getReader(fieldId);
-					if (extReader == null) {
-						continue;
+				final ByteSequence fieldIdData = key.getColumnQualifierData();
+				final byte[] value = values.get(
+						i).get();
+				if (PackedFieldsUtils.isPackedFields(fieldIdData)) {
+					for (final PackedField packedField : PackedFieldsUtils.unpack(value)) {
+						addValue(
+								packedField.getFieldId(),
+								value,
+								packedField.getValueOffset(),
+								packedField.getValueLength(),
+								key,
+								commonData,
+								extendedData);
 					}
-					final Object fieldValue = extReader.readField(values.get(
-							i).get());
-					extendedData.addValue(new PersistentValue<Object>(
-							fieldId,
-							fieldValue));
 				}
 				else {
-					final CommonIndexValue fieldValue = reader.readField(values.get(
-							i).get());
-					fieldValue.setVisibility(key.getColumnVisibilityData().getBackingArray());
-					commonData.addValue(new PersistentValue<CommonIndexValue>(
-							fieldId,
-							fieldValue));
+					addValue(
+							new ByteArrayId(
+									fieldIdData.getBackingArray(),
+									fieldIdData.offset(),
+									fieldIdData.length()),
+							value,
+							0,
+							value.length,
+							key,
+							commonData,
+							extendedData);
 				}
 			}
 			final IndexedAdapterPersistenceEncoding encoding = new IndexedAdapterPersistenceEncoding(
-					new ByteArrayId(
-							rowId.getAdapterId()),
-					new ByteArrayId(
-							rowId.getDataId()),
-					new ByteArrayId(
-							rowId.getInsertionId()),
+					rowId.getAdapterIdSlice(),
+					rowId.getDataIdSlice(),
+					rowId.getInsertionIdSlice(),
 					rowId.getNumberOfDuplicates(),
 					commonData,
 					extendedData);
@@ -180,6 +188,40 @@ public class CqlQueryFilterIterator extends
 		return defaultFilterResult();
 	}
 
+	private void addValue(
+			final ByteArrayId fieldId,
+			final byte[] backingArray,
+			final int offset,
+			final int length,
+			final Key key,
+			final LazyPersistentDataset<CommonIndexValue> commonData,
+			final LazyPersistentDataset<Object> extendedData ) {
+		final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
+		if (reader == null) {
+			// try extended data
+			final FieldReader<Object> extReader = dataAdapter.getReader(fieldId);
+			if (extReader == null) {
+				return;
+			}
+			extendedData.addValue(
+					fieldId,
+					backingArray,
+					offset,
+					length,
+					extReader);
+		}
+		else {
+			commonData.addValue(
+					fieldId,
+					backingArray,
+					offset,
+					length,
+					new VisibilityFieldReader(
+							reader,
+							key.getColumnVisibilityData().getBackingArray()));
+		}
+	}
+
 	protected void setSource(
 			final SortedKeyValueIterator<Key, Value> source ) {
 		try {
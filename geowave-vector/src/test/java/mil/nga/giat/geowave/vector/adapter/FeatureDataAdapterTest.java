@@ -2,16 +2,25 @@ package mil.nga.giat.geowave.vector.adapter;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import mil.nga.giat.geowave.index.ByteArrayId;
+import mil.nga.giat.geowave.store.adapter.AdapterPersistenceEncoding;
 import mil.nga.giat.geowave.store.adapter.IndexFieldHandler;
+import mil.nga.giat.geowave.store.adapter.IndexedAdapterPersistenceEncoding;
 import mil.nga.giat.geowave.store.data.visibility.GlobalVisibilityHandler;
 import mil.nga.giat.geowave.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.store.index.Index;
+import mil.nga.giat.geowave.store.index.IndexType;
 import mil.nga.giat.geowave.vector.utils.DateUtilities;
 
 import org.apache.accumulo.core.client.AccumuloException;
@@ -361,4 +370,54 @@ public class FeatureDataAdapterTest
 		assertTrue(found);
 	}
 
+	@Test
+	public void testProjectedDecode() {
+		final FeatureDataAdapter dataAdapter = new FeatureDataAdapter(
+				schema,
+				new GlobalVisibilityHandler<SimpleFeature, Object>(
+						"default"));
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final AdapterPersistenceEncoding encoding = dataAdapter.encode(
+				newFeature,
+				index.getIndexModel());
+		final IndexedAdapterPersistenceEncoding indexedEncoding = new IndexedAdapterPersistenceEncoding(
+				encoding.getAdapterId(),
+				encoding.getDataId(),
+				null,
+				0,
+				encoding.getCommonData(),
+				encoding.getAdapterExtendedData());
+		final Set<ByteArrayId> fieldIds = new HashSet<ByteArrayId>(
+				Arrays.asList(
+						new ByteArrayId(
+								"pid"),
+						new ByteArrayId(
+								"pop")));
+
+		final SimpleFeature feature = dataAdapter.decode(
+				indexedEncoding,
+				index,
+				fieldIds);
+		assertEquals(
+				newFeature.getID(),
+				feature.getID());
+		assertEquals(
+				2,
+				feature.getAttributeCount());
+		// the attributes keep the order of the adapter's type
+		assertEquals(
+				"pop",
+				feature.getType().getDescriptor(
+						0).getLocalName());
+		assertEquals(
+				newFeature.getAttribute("pop"),
+				feature.getAttribute("pop"));
+		assertEquals(
+				newFeature.getAttribute("pid"),
+				feature.getAttribute("pid"));
+		// the geometry is part of the index model but was not requested
+		assertNull(feature.getType().getDescriptor(
+				"geometry"));
+	}
+
 }